@@ -0,0 +1,723 @@
+-- *************************************
+-- BENCHMARK OF THE HOT STORED PROCEDURES
+-- *************************************
+-- Times the procedures every sale calls (itemUPCLookup, createReceipt, addItemToReceipt, getReceiptTotal,
+-- memberPhoneLookup, memberAccountNumberLookup, setReceiptMember, and finalizeReceipt) and the ones replaying offline
+-- sales (createJournaledReceipt and addJournaledItemToReceipt) against the versions they replaced, on a database grown
+-- to 1,000,000 items, 100,000 members, 1,000,000 receipts, and 10,000,000 receipt_details.
+--
+-- *WARNING* only run this against a scratch copy of hvs, e.g., a local server set up with create_database_hvs.sql.
+-- It adds millions of rows and leaves them there so the benchmark can be re-run without repopulating.
+--
+-- 1. Run this script once; it installs the legacy_ procedures and the benchmark procedures below.
+-- 2. CALL benchmarkPopulate(); -- takes a while, and only needs to be done once
+-- 3. CALL benchmarkHotProcedures(10000);
+--    The procedures return a result set per call, so run it somewhere that throws them away, e.g.
+--    mysql -u root -p hvs -e "CALL benchmarkHotProcedures(10000)" > /dev/null
+-- 4. SELECT * FROM benchmark_results ORDER BY benchmark_run, procedure_name, procedure_version;
+--
+-- The same comparison can be driven from Java by HotProceduresBenchmark, under src/jmh/java, once steps 1 and 2 are
+-- done. It makes each call over JDBC the way the register does and reports latency percentiles per call, so the
+-- round trip between the register and the server is included.
+--
+-- Every run looks up the same spread of items, members, and receipts, so runs can be compared with each other.
+-- addItemToReceipt no longer takes the item out of inventory, which now happens once per receipt at finalize; the
+-- effect of that on concurrent registers is measured by benchmark_inventory_contention_hvs.sql.
+-- receipt_details holds one row per item on a receipt, with its quantity, so scanning an item again updates its row
+-- instead of inserting another; the benchmark adds distinct items, so it times the insert either way.
+USE hvs;
+
+-- -----------------------
+-- TABLE benchmark_digits
+-- 0 through 9, cross joined with itself to generate rows without running into the recursion limit.
+-- -----------------------
+DROP TABLE IF EXISTS benchmark_digits;
+CREATE TABLE benchmark_digits
+(
+    digit INT PRIMARY KEY
+);
+INSERT INTO benchmark_digits
+VALUES (0), (1), (2), (3), (4), (5), (6), (7), (8), (9);
+-- -----------------------
+-- TABLE benchmark_results
+-- Average time per call of each procedure for every run.
+-- -----------------------
+CREATE TABLE IF NOT EXISTS benchmark_results
+(
+    benchmark_run DATETIME NOT NULL,
+    procedure_name VARCHAR(32) NOT NULL,
+    -- legacy or current
+    procedure_version VARCHAR(8) NOT NULL,
+    calls INT NOT NULL,
+    micros_per_call DECIMAL(12,2) NOT NULL,
+    CONSTRAINT pk_benchmark_results PRIMARY KEY (benchmark_run, procedure_name, procedure_version)
+);
+
+-- ****************************************************
+-- PROCEDURES AS THEY WERE BEFORE THE SET-BASED REWRITE
+-- ****************************************************
+DROP PROCEDURE IF EXISTS legacy_itemUPCLookup;
+DELIMITER //
+CREATE PROCEDURE legacy_itemUPCLookup(
+
+    given_upc VARCHAR(20)
+)
+BEGIN
+    -- creates exception for invalid upc
+    DECLARE no_such_upc CONDITION FOR SQLSTATE '45002';
+    IF given_upc NOT IN (SELECT item_upc FROM items) THEN
+        SIGNAL no_such_upc SET MESSAGE_TEXT = 'No such item_upc exists';
+    END IF;
+
+    SELECT item_name, item_price, item_discount_percentage
+    FROM items
+    WHERE item_upc = given_upc;
+END //
+DELIMITER ;
+
+DROP PROCEDURE IF EXISTS legacy_createReceipt;
+DELIMITER //
+CREATE PROCEDURE legacy_createReceipt(
+    given_register_id INT,
+    given_member_id INT
+)
+BEGIN
+    -- create exception for invalid register_id
+    DECLARE no_such_register CONDITION FOR SQLSTATE '45001';
+    -- create exception for invalid member_id
+    DECLARE no_such_member CONDITION FOR SQLSTATE '45003';
+    IF given_register_id NOT IN (SELECT register_id FROM registers) THEN
+        SIGNAL no_such_register SET MESSAGE_TEXT = 'No such register_id exists';
+	END IF;
+    IF given_member_id NOT IN (SELECT member_id FROM members) THEN
+        SIGNAL no_such_member SET MESSAGE_TEXT = 'No such member_id exists';
+	END IF;
+
+    INSERT INTO receipts (register_id, member_id, receipt_date_time, receipt_cashier_full_name)
+    VALUES
+    (
+    given_register_id,
+    given_member_id,
+    -- null for now before items are added
+    null,
+    receiptsCashierName((SELECT register_id FROM registers WHERE register_id = given_register_id))
+
+    );
+
+    -- returns the PRIMARY KEY value of the last row inserted
+    -- is per user and is unaffected by other queries that might be running on the server from other users
+    SELECT LAST_INSERT_ID();
+END //
+DELIMITER ;
+
+DROP PROCEDURE IF EXISTS legacy_addItemToReceipt;
+DELIMITER //
+CREATE PROCEDURE legacy_addItemToReceipt(
+    given_upc VARCHAR(20),
+    given_receipt_id INT
+)
+BEGIN
+     -- creates exception for invalid upc
+      DECLARE no_such_upc CONDITION FOR SQLSTATE '45002';
+      -- creates exception for invalid receipt
+      DECLARE no_such_receipt_id CONDITION FOR SQLSTATE '45004';
+      IF given_upc NOT IN (SELECT item_upc FROM items) THEN
+        SIGNAL no_such_upc SET MESSAGE_TEXT = 'No such item_upc exists';
+      END IF;
+      IF given_receipt_id NOT IN (SELECT receipt_id FROM receipts) THEN
+        SIGNAL no_such_receipt_id SET MESSAGE_TEXT = 'No such receipt_id exists';
+      END IF;
+
+    INSERT INTO receipt_details (receipt_id, item_id, item_total, item_discount_percentage, item_price)
+    VALUES
+    (
+    given_receipt_id,
+    itemIDFromUPC(given_upc),
+    detailsPrice(given_receipt_id, itemIDFromUPC(given_upc)),
+    detailsDiscount(given_receipt_id, itemIDFromUPC(given_upc)),
+    itemPriceFromID(itemIDFromUPC(given_upc))
+    ) AS new_detail
+    -- not in the original; receipt_details now has one row per item, so an item scanned again adds to its row
+    ON DUPLICATE KEY UPDATE
+        item_quantity = receipt_details.item_quantity + 1,
+        item_total = receipt_details.item_total + new_detail.item_total;
+
+    UPDATE inventory
+    -- remove 1 item from inventory
+    SET inventory.item_qty = inventory.item_qty - 1
+    WHERE item_id = itemIDFromUPC(given_upc) AND
+    store_id = storeIDFromReceiptID(given_receipt_id);
+END //
+DELIMITER ;
+
+DROP FUNCTION IF EXISTS legacy_getReceiptTotal;
+DELIMITER //
+CREATE FUNCTION legacy_getReceiptTotal(
+    given_receipt_id INT,
+    given_member_id INT
+)
+RETURNS DECIMAL(12,2)
+DETERMINISTIC
+BEGIN
+      -- creates exception for invalid receipt
+      DECLARE no_such_receipt_id CONDITION FOR SQLSTATE '45004';
+      -- create exception for invalid member_id
+      DECLARE no_such_member CONDITION FOR SQLSTATE '45003';
+      -- declare variable to return
+      DECLARE given_receipt_total DECIMAL(12,2);
+      IF given_receipt_id NOT IN (SELECT receipt_id FROM receipts) THEN
+        SIGNAL no_such_receipt_id SET MESSAGE_TEXT = 'No such receipt_id exists';
+      END IF;
+      IF given_member_id NOT IN (SELECT member_id FROM members) THEN
+        SIGNAL no_such_member SET MESSAGE_TEXT = 'No such member_id exists';
+      END IF;
+
+      -- update the subtotal
+      UPDATE receipts
+      SET receipt_subtotal = (SElECT SUM(item_total) FROM receipt_details WHERE receipt_id = given_receipt_id)
+      WHERE receipt_id = given_receipt_id;
+
+      -- update total including tax
+      UPDATE receipts
+      SET receipt_total = receipt_subtotal * (1 + receiptsStateTax(given_receipt_id))
+      WHERE receipt_id = given_receipt_id;
+
+      SET given_receipt_total = (SELECT receipt_total FROM receipts WHERE receipt_id = given_receipt_id);
+
+      RETURN(given_receipt_total);
+END //
+DELIMITER ;
+
+DROP PROCEDURE IF EXISTS legacy_memberPhoneLookup;
+DELIMITER //
+CREATE PROCEDURE legacy_memberPhoneLookup(
+    given_phone_number VARCHAR(16)
+)
+BEGIN
+    -- creates exception member no matching member is found
+    DECLARE no_such_member CONDITION FOR SQLSTATE '45006';
+
+    IF given_phone_number NOT IN (SELECT member_phone_number FROM members)
+    THEN
+        SIGNAL no_such_member SET MESSAGE_TEXT = 'No such phone_number exists';
+    END IF;
+
+    SELECT member_id, member_first_name, member_last_name
+    FROM members
+    WHERE member_phone_number = given_phone_number;
+END //
+DELIMITER ;
+
+DROP PROCEDURE IF EXISTS legacy_memberAccountNumberLookup;
+DELIMITER //
+CREATE PROCEDURE legacy_memberAccountNumberLookup(
+    given_member_id INT
+)
+BEGIN
+    -- creates exception member no matching member is found
+    DECLARE no_such_account_num CONDITION FOR SQLSTATE '45003';
+
+    IF given_member_id NOT IN (SELECT member_id FROM members)
+    THEN
+        SIGNAL no_such_account_num SET MESSAGE_TEXT = 'No such account_number exists';
+    END IF;
+
+    SELECT member_first_name, member_last_name
+    FROM members
+    WHERE member_id = given_member_id;
+END //
+DELIMITER ;
+
+DROP PROCEDURE IF EXISTS legacy_setReceiptMember;
+DELIMITER //
+CREATE PROCEDURE legacy_setReceiptMember(
+    given_receipt_id INT,
+    given_member_id INT
+)
+BEGIN
+      -- creates exception for invalid receipt
+      DECLARE no_such_receipt_id CONDITION FOR SQLSTATE '45004';
+      -- create exception for invalid member_id
+      DECLARE no_such_member CONDITION FOR SQLSTATE '45003';
+      IF given_receipt_id NOT IN (SELECT receipt_id FROM receipts) THEN
+        SIGNAL no_such_receipt_id SET MESSAGE_TEXT = 'No such receipt_id exists';
+      END IF;
+      IF given_member_id NOT IN (SELECT member_id FROM members) THEN
+        SIGNAL no_such_member SET MESSAGE_TEXT = 'No such member_id exists';
+      END IF;
+
+    UPDATE receipts
+    SET member_id = given_member_id
+    WHERE receipt_id = given_receipt_id;
+
+    -- same discount rule as detailsDiscount, applied to every detail in one statement
+    UPDATE receipt_details
+        JOIN items ON receipt_details.item_id = items.item_id
+    SET receipt_details.item_discount_percentage =
+            IF(given_member_id IS NULL, 0.00, items.item_discount_percentage),
+        receipt_details.item_total = ROUND(receipt_details.item_price
+            * (1 - IF(given_member_id IS NULL, 0.00, items.item_discount_percentage)), 2)
+            * receipt_details.item_quantity
+    WHERE receipt_details.receipt_id = given_receipt_id;
+END //
+DELIMITER ;
+
+DROP PROCEDURE IF EXISTS legacy_finalizeReceipt;
+DELIMITER //
+CREATE PROCEDURE legacy_finalizeReceipt(
+    given_receipt_id INT,
+    given_cash DECIMAL(9,2)
+)
+BEGIN
+	  -- used for comparisons
+	  DECLARE actual_receipt_total DECIMAL(9,2);
+	  DECLARE receipt_store_id INT;
+	  -- creates exception for invalid receipt
+      DECLARE no_such_receipt_id CONDITION FOR SQLSTATE '45004';
+	  -- spit out an error if given_cash is less than receipt_total
+      DECLARE invalid_payment_amount CONDITION FOR SQLSTATE '45005';
+      IF given_receipt_id NOT IN (SELECT receipt_id FROM receipts) THEN
+		SIGNAL no_such_receipt_id SET MESSAGE_TEXT = 'No such receipt_id exists';
+      END IF;
+	  SELECT receipt_total INTO actual_receipt_total FROM receipts WHERE receipt_id = given_receipt_id;
+      IF given_cash < actual_receipt_total THEN
+		SIGNAL invalid_payment_amount SET MESSAGE_TEXT = 'Amount must be >= total';
+	  END IF;
+
+
+    -- time, cash and change due in a single write to the receipt row
+    UPDATE receipts
+    SET receipt_date_time = NOW(),
+        receipt_charge = given_cash,
+        receipt_change_due = given_cash - receipt_total
+    WHERE receipt_id = given_receipt_id;
+
+    SET receipt_store_id = storeIDFromReceiptID(given_receipt_id);
+
+    -- last, so the rows shared with other registers are locked for as little of the transaction as possible
+    CALL addReceiptToSales(given_receipt_id, receipt_store_id);
+    CALL takeReceiptFromInventory(given_receipt_id, receipt_store_id);
+    
+    -- returns amount given as change
+    SELECT receipt_change_due FROM receipts WHERE receipt_id = given_receipt_id;
+END //
+DELIMITER ;
+
+DROP PROCEDURE IF EXISTS legacy_createJournaledReceipt;
+DELIMITER //
+CREATE PROCEDURE legacy_createJournaledReceipt(
+    given_register_id INT,
+    given_member_id INT,
+    given_journal_id BIGINT
+)
+BEGIN
+    -- create exception for invalid register_id
+    DECLARE no_such_register CONDITION FOR SQLSTATE '45001';
+    -- create exception for invalid member_id
+    DECLARE no_such_member CONDITION FOR SQLSTATE '45003';
+    DECLARE existing_receipt_id INT;
+    IF given_register_id NOT IN (SELECT register_id FROM registers) THEN
+        SIGNAL no_such_register SET MESSAGE_TEXT = 'No such register_id exists';
+	END IF;
+    IF given_member_id NOT IN (SELECT member_id FROM members) THEN
+        SIGNAL no_such_member SET MESSAGE_TEXT = 'No such member_id exists';
+	END IF;
+
+    SELECT receipt_id INTO existing_receipt_id
+    FROM receipts
+    WHERE register_id = given_register_id AND receipt_journal_id = given_journal_id;
+
+    IF existing_receipt_id IS NOT NULL THEN
+        SELECT existing_receipt_id, 1;
+    ELSE
+        INSERT INTO receipts (register_id, member_id, receipt_date_time, receipt_cashier_full_name, receipt_journal_id)
+        VALUES
+        (
+        given_register_id,
+        given_member_id,
+        -- null for now before items are added
+        null,
+        receiptsCashierName(given_register_id),
+        given_journal_id
+        );
+
+        SELECT LAST_INSERT_ID(), 0;
+    END IF;
+END //
+DELIMITER ;
+
+DROP PROCEDURE IF EXISTS legacy_addJournaledItemToReceipt;
+DELIMITER //
+CREATE PROCEDURE legacy_addJournaledItemToReceipt(
+    given_upc VARCHAR(20),
+    given_receipt_id INT,
+    given_price DECIMAL(9,2),
+    given_discount DECIMAL(2,2),
+    given_quantity INT
+)
+BEGIN
+      -- creates exception for invalid upc
+      DECLARE no_such_upc CONDITION FOR SQLSTATE '45002';
+      -- creates exception for invalid receipt
+      DECLARE no_such_receipt_id CONDITION FOR SQLSTATE '45004';
+      DECLARE applied_discount DECIMAL(2,2);
+      IF given_upc NOT IN (SELECT item_upc FROM items) THEN
+        SIGNAL no_such_upc SET MESSAGE_TEXT = 'No such item_upc exists';
+      END IF;
+      IF given_receipt_id NOT IN (SELECT receipt_id FROM receipts) THEN
+        SIGNAL no_such_receipt_id SET MESSAGE_TEXT = 'No such receipt_id exists';
+      END IF;
+
+    SET applied_discount =
+        IF((SELECT member_id FROM receipts WHERE receipt_id = given_receipt_id) IS NULL, 0.00, given_discount);
+
+    INSERT INTO receipt_details (receipt_id, item_id, item_total, item_discount_percentage, item_price, item_quantity)
+    VALUES
+    (
+    given_receipt_id,
+    itemIDFromUPC(given_upc),
+    ROUND(given_price * (1 - applied_discount), 2) * given_quantity,
+    applied_discount,
+    given_price,
+    given_quantity
+    ) AS new_detail
+    ON DUPLICATE KEY UPDATE
+        item_quantity = receipt_details.item_quantity + new_detail.item_quantity,
+        item_total = receipt_details.item_total + new_detail.item_total;
+END //
+DELIMITER ;
+
+-- ********************
+-- BENCHMARK PROCEDURES
+-- ********************
+-- -----------------
+-- benchmarkPopulate
+-- Adds the benchmark items, members, receipts, and receipt_details, 100,000 rows per statement so no single
+-- transaction gets too large. Benchmark rows are told apart by their names, and the receipts all belong to the first
+-- register. Assumes nothing else is inserting at the same time, so the new items get consecutive item_ids.
+-- -----------------
+DROP PROCEDURE IF EXISTS benchmarkPopulate;
+DELIMITER //
+CREATE PROCEDURE benchmarkPopulate()
+BEGIN
+    DECLARE chunk INT DEFAULT 0;
+    DECLARE bench_register_id INT;
+    DECLARE bench_store_id INT;
+    DECLARE first_item_id INT;
+    DECLARE first_receipt_id INT;
+
+    SELECT register_id, store_id INTO bench_register_id, bench_store_id
+    FROM registers
+    ORDER BY register_id
+    LIMIT 1;
+
+    -- 1,000,000 items, with 12 digit UPCs starting with 9 so they can't collide with the real ones
+    WHILE chunk < 10 DO
+        INSERT INTO items (item_upc, item_name, item_price, item_discount_percentage)
+        SELECT CONCAT('9', LPAD(n, 11, '0')), CONCAT('Benchmark item ', n), 0.99 + (n % 5000) / 100, (n % 4) / 10
+        FROM
+        (
+        SELECT chunk * 100000 + d1.digit + d2.digit * 10 + d3.digit * 100 + d4.digit * 1000 + d5.digit * 10000 AS n
+        FROM benchmark_digits d1, benchmark_digits d2, benchmark_digits d3, benchmark_digits d4, benchmark_digits d5
+        ) AS numbers;
+        SET chunk = chunk + 1;
+    END WHILE;
+
+    SELECT MIN(item_id) INTO first_item_id FROM items WHERE item_upc = '900000000000';
+
+    INSERT INTO inventory (store_id, item_id, item_qty)
+    SELECT bench_store_id, item_id, 1000000
+    FROM items
+    WHERE item_id >= first_item_id;
+
+    -- 100,000 members with phone numbers 5550000000 and up
+    INSERT INTO members (member_first_name, member_last_name, member_phone_number)
+    SELECT 'Benchmark', CONCAT('Member ', n), CONCAT('555', LPAD(n, 7, '0'))
+    FROM
+    (
+    SELECT d1.digit + d2.digit * 10 + d3.digit * 100 + d4.digit * 1000 + d5.digit * 10000 AS n
+    FROM benchmark_digits d1, benchmark_digits d2, benchmark_digits d3, benchmark_digits d4, benchmark_digits d5
+    ) AS numbers;
+
+    -- 1,000,000 finalized receipts spread over the last year
+    SET chunk = 0;
+    WHILE chunk < 10 DO
+        INSERT INTO receipts (register_id, member_id, receipt_date_time, receipt_cashier_full_name)
+        SELECT bench_register_id, NULL, NOW() - INTERVAL (n % 365) DAY, 'Benchmark Cashier'
+        FROM
+        (
+        SELECT chunk * 100000 + d1.digit + d2.digit * 10 + d3.digit * 100 + d4.digit * 1000 + d5.digit * 10000 AS n
+        FROM benchmark_digits d1, benchmark_digits d2, benchmark_digits d3, benchmark_digits d4, benchmark_digits d5
+        ) AS numbers;
+        SET chunk = chunk + 1;
+    END WHILE;
+
+    SELECT MIN(receipt_id) INTO first_receipt_id FROM receipts WHERE receipt_cashier_full_name = 'Benchmark Cashier';
+
+    -- 10 receipt_details per receipt, 100,000 receipts at a time
+    SET chunk = 0;
+    WHILE chunk < 10 DO
+        INSERT INTO receipt_details (receipt_id, item_id, item_total, item_discount_percentage, item_price)
+        SELECT receipts.receipt_id, first_item_id + (receipts.receipt_id * 10 + benchmark_digits.digit) % 1000000,
+            1.00, 0.00, 1.00
+        FROM receipts, benchmark_digits
+        WHERE receipts.receipt_id >= first_receipt_id + chunk * 100000
+            AND receipts.receipt_id < first_receipt_id + (chunk + 1) * 100000;
+        SET chunk = chunk + 1;
+    END WHILE;
+END //
+DELIMITER ;
+-- ---------------
+-- benchmarkRecord
+-- Saves the average time per call of one procedure for the current run.
+-- ---------------
+DROP PROCEDURE IF EXISTS benchmarkRecord;
+DELIMITER //
+CREATE PROCEDURE benchmarkRecord(
+    given_run DATETIME,
+    given_procedure_name VARCHAR(32),
+    given_procedure_version VARCHAR(8),
+    given_calls INT,
+    given_started DATETIME(6)
+)
+BEGIN
+    INSERT INTO benchmark_results
+    VALUES
+    (
+    given_run,
+    given_procedure_name,
+    given_procedure_version,
+    given_calls,
+    -- SYSDATE rather than NOW, since NOW stays fixed for the whole procedure call
+    TIMESTAMPDIFF(MICROSECOND, given_started, SYSDATE(6)) / given_calls
+    );
+END //
+DELIMITER ;
+-- -----------------------
+-- benchmarkPrepareReceipts
+-- Rings up the given number of receipts with one benchmark item each, totalled and ready to be finalized, and returns
+-- the first one's receipt_id. Assumes nothing else is inserting at the same time, so the receipts get consecutive
+-- receipt_ids.
+-- -----------------------
+DROP PROCEDURE IF EXISTS benchmarkPrepareReceipts;
+DELIMITER //
+CREATE PROCEDURE benchmarkPrepareReceipts(
+    given_register_id INT,
+    given_count INT,
+    OUT first_receipt_id INT
+)
+BEGIN
+    DECLARE i INT DEFAULT 0;
+    DECLARE new_receipt_id INT;
+    DECLARE ignored_total DECIMAL(12,2);
+
+    WHILE i < given_count DO
+        CALL createReceipt(given_register_id, NULL);
+        SET new_receipt_id = LAST_INSERT_ID();
+        IF i = 0 THEN
+            SET first_receipt_id = new_receipt_id;
+        END IF;
+        CALL addItemToReceipt(CONCAT('9', LPAD(i * 7919 % 1000000, 11, '0')), new_receipt_id, 1);
+        SET ignored_total = getReceiptTotal(new_receipt_id, NULL);
+        SET i = i + 1;
+    END WHILE;
+END //
+DELIMITER ;
+-- ----------------------
+-- benchmarkHotProcedures
+-- Calls each legacy and current procedure the given number of times and saves the average time per call to
+-- benchmark_results. Items, members, and receipts are picked by stepping through them with a large prime, so each
+-- call probes a different part of the indexes.
+-- *WARNING* must run benchmarkPopulate first
+-- ----------------------
+DROP PROCEDURE IF EXISTS benchmarkHotProcedures;
+DELIMITER //
+CREATE PROCEDURE benchmarkHotProcedures(
+    given_iterations INT
+)
+BEGIN
+    DECLARE i INT;
+    DECLARE run DATETIME DEFAULT NOW();
+    DECLARE started DATETIME(6);
+    DECLARE bench_register_id INT;
+    DECLARE first_receipt_id INT;
+    DECLARE bench_receipt_id INT;
+    DECLARE ignored_total DECIMAL(12,2);
+    DECLARE first_member_id INT;
+    DECLARE first_prepared_id INT;
+    -- journal ids no earlier run can have used, so every createJournaledReceipt call creates a receipt
+    DECLARE journal_base BIGINT DEFAULT UNIX_TIMESTAMP(NOW()) * 10000000;
+
+    SELECT MIN(register_id) INTO bench_register_id FROM registers;
+    SELECT MIN(receipt_id) INTO first_receipt_id FROM receipts WHERE receipt_cashier_full_name = 'Benchmark Cashier';
+    SELECT MIN(member_id) INTO first_member_id FROM members WHERE member_first_name = 'Benchmark';
+
+    -- itemUPCLookup
+    SET i = 0, started = SYSDATE(6);
+    WHILE i < given_iterations DO
+        CALL legacy_itemUPCLookup(CONCAT('9', LPAD(i * 7919 % 1000000, 11, '0')));
+        SET i = i + 1;
+    END WHILE;
+    CALL benchmarkRecord(run, 'itemUPCLookup', 'legacy', given_iterations, started);
+
+    SET i = 0, started = SYSDATE(6);
+    WHILE i < given_iterations DO
+        CALL itemUPCLookup(CONCAT('9', LPAD(i * 7919 % 1000000, 11, '0')));
+        SET i = i + 1;
+    END WHILE;
+    CALL benchmarkRecord(run, 'itemUPCLookup', 'current', given_iterations, started);
+
+    -- memberPhoneLookup
+    SET i = 0, started = SYSDATE(6);
+    WHILE i < given_iterations DO
+        CALL legacy_memberPhoneLookup(CONCAT('555', LPAD(i * 7919 % 100000, 7, '0')));
+        SET i = i + 1;
+    END WHILE;
+    CALL benchmarkRecord(run, 'memberPhoneLookup', 'legacy', given_iterations, started);
+
+    SET i = 0, started = SYSDATE(6);
+    WHILE i < given_iterations DO
+        CALL memberPhoneLookup(CONCAT('555', LPAD(i * 7919 % 100000, 7, '0')));
+        SET i = i + 1;
+    END WHILE;
+    CALL benchmarkRecord(run, 'memberPhoneLookup', 'current', given_iterations, started);
+
+    -- createReceipt
+    SET i = 0, started = SYSDATE(6);
+    WHILE i < given_iterations DO
+        CALL legacy_createReceipt(bench_register_id, NULL);
+        SET i = i + 1;
+    END WHILE;
+    CALL benchmarkRecord(run, 'createReceipt', 'legacy', given_iterations, started);
+
+    SET i = 0, started = SYSDATE(6);
+    WHILE i < given_iterations DO
+        CALL createReceipt(bench_register_id, NULL);
+        SET i = i + 1;
+    END WHILE;
+    CALL benchmarkRecord(run, 'createReceipt', 'current', given_iterations, started);
+
+    -- addItemToReceipt, each version onto a receipt of its own so both insert every row rather than adding to one
+    CALL createReceipt(bench_register_id, NULL);
+    SET bench_receipt_id = LAST_INSERT_ID();
+
+    SET i = 0, started = SYSDATE(6);
+    WHILE i < given_iterations DO
+        CALL legacy_addItemToReceipt(CONCAT('9', LPAD(i * 7919 % 1000000, 11, '0')), bench_receipt_id);
+        SET i = i + 1;
+    END WHILE;
+    CALL benchmarkRecord(run, 'addItemToReceipt', 'legacy', given_iterations, started);
+
+    CALL createReceipt(bench_register_id, NULL);
+    SET bench_receipt_id = LAST_INSERT_ID();
+
+    SET i = 0, started = SYSDATE(6);
+    WHILE i < given_iterations DO
+        CALL addItemToReceipt(CONCAT('9', LPAD(i * 7919 % 1000000, 11, '0')), bench_receipt_id, 1);
+        SET i = i + 1;
+    END WHILE;
+    CALL benchmarkRecord(run, 'addItemToReceipt', 'current', given_iterations, started);
+
+    -- getReceiptTotal, on the populated receipts with 10 details each
+    SET i = 0, started = SYSDATE(6);
+    WHILE i < given_iterations DO
+        SET ignored_total = legacy_getReceiptTotal(first_receipt_id + i * 7919 % 1000000, NULL);
+        SET i = i + 1;
+    END WHILE;
+    CALL benchmarkRecord(run, 'getReceiptTotal', 'legacy', given_iterations, started);
+
+    SET i = 0, started = SYSDATE(6);
+    WHILE i < given_iterations DO
+        SET ignored_total = getReceiptTotal(first_receipt_id + i * 7919 % 1000000, NULL);
+        SET i = i + 1;
+    END WHILE;
+    CALL benchmarkRecord(run, 'getReceiptTotal', 'current', given_iterations, started);
+
+    -- memberAccountNumberLookup
+    SET i = 0, started = SYSDATE(6);
+    WHILE i < given_iterations DO
+        CALL legacy_memberAccountNumberLookup(first_member_id + i * 7919 % 100000);
+        SET i = i + 1;
+    END WHILE;
+    CALL benchmarkRecord(run, 'memberAccountNumberLookup', 'legacy', given_iterations, started);
+
+    SET i = 0, started = SYSDATE(6);
+    WHILE i < given_iterations DO
+        CALL memberAccountNumberLookup(first_member_id + i * 7919 % 100000);
+        SET i = i + 1;
+    END WHILE;
+    CALL benchmarkRecord(run, 'memberAccountNumberLookup', 'current', given_iterations, started);
+
+    -- setReceiptMember, switching one of the populated receipts with 10 details between a member and none
+    SET bench_receipt_id = first_receipt_id + given_iterations % 1000000;
+
+    SET i = 0, started = SYSDATE(6);
+    WHILE i < given_iterations DO
+        CALL legacy_setReceiptMember(bench_receipt_id, IF(i % 2 = 0, first_member_id + i % 100000, NULL));
+        SET i = i + 1;
+    END WHILE;
+    CALL benchmarkRecord(run, 'setReceiptMember', 'legacy', given_iterations, started);
+
+    SET i = 0, started = SYSDATE(6);
+    WHILE i < given_iterations DO
+        CALL setReceiptMember(bench_receipt_id, IF(i % 2 = 0, first_member_id + i % 100000, NULL));
+        SET i = i + 1;
+    END WHILE;
+    CALL benchmarkRecord(run, 'setReceiptMember', 'current', given_iterations, started);
+
+    -- createJournaledReceipt, each call with a journal id of its own so it creates a receipt
+    SET i = 0, started = SYSDATE(6);
+    WHILE i < given_iterations DO
+        CALL legacy_createJournaledReceipt(bench_register_id, NULL, journal_base + i);
+        SET i = i + 1;
+    END WHILE;
+    CALL benchmarkRecord(run, 'createJournaledReceipt', 'legacy', given_iterations, started);
+
+    SET i = 0, started = SYSDATE(6);
+    WHILE i < given_iterations DO
+        CALL createJournaledReceipt(bench_register_id, NULL, journal_base + given_iterations + i);
+        SET i = i + 1;
+    END WHILE;
+    CALL benchmarkRecord(run, 'createJournaledReceipt', 'current', given_iterations, started);
+
+    -- addJournaledItemToReceipt, each version onto a receipt of its own, like addItemToReceipt
+    CALL createReceipt(bench_register_id, NULL);
+    SET bench_receipt_id = LAST_INSERT_ID();
+
+    SET i = 0, started = SYSDATE(6);
+    WHILE i < given_iterations DO
+        CALL legacy_addJournaledItemToReceipt(CONCAT('9', LPAD(i * 7919 % 1000000, 11, '0')), bench_receipt_id,
+            1.99, 0.10, 1);
+        SET i = i + 1;
+    END WHILE;
+    CALL benchmarkRecord(run, 'addJournaledItemToReceipt', 'legacy', given_iterations, started);
+
+    CALL createReceipt(bench_register_id, NULL);
+    SET bench_receipt_id = LAST_INSERT_ID();
+
+    SET i = 0, started = SYSDATE(6);
+    WHILE i < given_iterations DO
+        CALL addJournaledItemToReceipt(CONCAT('9', LPAD(i * 7919 % 1000000, 11, '0')), bench_receipt_id,
+            1.99, 0.10, 1);
+        SET i = i + 1;
+    END WHILE;
+    CALL benchmarkRecord(run, 'addJournaledItemToReceipt', 'current', given_iterations, started);
+
+    -- finalizeReceipt, on receipts of one item each rung up beforehand, so only the finalizing is timed
+    CALL benchmarkPrepareReceipts(bench_register_id, given_iterations, first_prepared_id);
+    SET i = 0, started = SYSDATE(6);
+    WHILE i < given_iterations DO
+        CALL legacy_finalizeReceipt(first_prepared_id + i, 1000.00);
+        SET i = i + 1;
+    END WHILE;
+    CALL benchmarkRecord(run, 'finalizeReceipt', 'legacy', given_iterations, started);
+
+    CALL benchmarkPrepareReceipts(bench_register_id, given_iterations, first_prepared_id);
+    SET i = 0, started = SYSDATE(6);
+    WHILE i < given_iterations DO
+        CALL finalizeReceipt(first_prepared_id + i, 1000.00);
+        SET i = i + 1;
+    END WHILE;
+    CALL benchmarkRecord(run, 'finalizeReceipt', 'current', given_iterations, started);
+END //
+DELIMITER ;
@@ -0,0 +1,193 @@
+-- *********************************
+-- BENCHMARK OF INVENTORY CONTENTION
+-- *********************************
+-- Measures row lock waits on the inventory table while 50 registers ring up sales of the same few popular items at
+-- once, comparing the old way of taking inventory (one update per scan, in scan order, as each item is added) with
+-- the current one (one update per distinct item, in item_id order, when the receipt is finalized).
+--
+-- *WARNING* only run this against a scratch copy of hvs; it uses the items added by benchmark_hot_procedures_hvs.sql
+-- and leaves the sales it rings up in place.
+--
+-- 1. Run benchmark_hot_procedures_hvs.sql and CALL benchmarkPopulate(); if that hasn't been done already.
+-- 2. Run this script once; it installs the procedures below.
+-- 3. For each version, legacy and then current, start a run, ring up sales from 50 connections at once, and finish
+--    the run. mysqlslap is the simplest way to get the 50 connections, e.g., for the legacy version:
+--    mysql -u root -p hvs -e "CALL benchmarkContentionStart('legacy')"
+--    mysqlslap -u root -p --create-schema=hvs --concurrency=50 --iterations=1 --number-of-queries=5000 \
+--        --query="CALL benchmarkContendedSale('legacy', 20)"
+--    mysql -u root -p hvs -e "CALL benchmarkContentionFinish()"
+-- 4. SELECT * FROM benchmark_contention_results ORDER BY benchmark_run;
+--
+-- Lock waits come from the server's own InnoDB counters, so nothing else should be running against it at the time.
+-- The current version also adds each sale to the sales totals while finalizing (see addReceiptToSales), in the same
+-- item_id order, so its lock waits include those rows as well as inventory.
+USE hvs;
+
+-- ---------------------------------
+-- TABLE benchmark_contention_results
+-- Row lock waits, time spent waiting, and deadlocks for every run.
+-- ---------------------------------
+CREATE TABLE IF NOT EXISTS benchmark_contention_results
+(
+    benchmark_run DATETIME NOT NULL,
+    -- legacy or current
+    procedure_version VARCHAR(8) NOT NULL,
+    sales INT NOT NULL,
+    row_lock_waits BIGINT NOT NULL,
+    row_lock_wait_millis BIGINT NOT NULL,
+    deadlocks BIGINT NOT NULL,
+    CONSTRAINT pk_benchmark_contention_results PRIMARY KEY (benchmark_run, procedure_version)
+);
+-- -------------------------------
+-- TABLE benchmark_contention_runs
+-- The counters as they were when the current run started; only ever holds one row.
+-- -------------------------------
+DROP TABLE IF EXISTS benchmark_contention_runs;
+CREATE TABLE benchmark_contention_runs
+(
+    benchmark_run DATETIME NOT NULL,
+    procedure_version VARCHAR(8) NOT NULL,
+    last_receipt_id INT NOT NULL,
+    row_lock_waits BIGINT NOT NULL,
+    row_lock_wait_millis BIGINT NOT NULL,
+    deadlocks BIGINT NOT NULL
+);
+
+-- **********************************************************
+-- PROCEDURES AS THEY WERE BEFORE INVENTORY MOVED TO FINALIZE
+-- **********************************************************
+DROP PROCEDURE IF EXISTS legacy_finalizeReceipt;
+DELIMITER //
+CREATE PROCEDURE legacy_finalizeReceipt(
+    given_receipt_id INT,
+    given_cash DECIMAL(9,2)
+)
+BEGIN
+    UPDATE receipts
+    SET receipt_date_time = NOW()
+    WHERE receipt_id = given_receipt_id;
+
+    UPDATE receipts
+    SET receipt_charge = given_cash
+    WHERE receipt_id = given_receipt_id;
+
+    UPDATE receipts
+    SET receipt_change_due = receipt_charge - receipt_total
+    WHERE receipt_id = given_receipt_id;
+END //
+DELIMITER ;
+
+-- ********************
+-- BENCHMARK PROCEDURES
+-- ********************
+-- --------------------------
+-- benchmarkContentionCounter
+-- Reads one of the server's InnoDB row lock counters.
+-- --------------------------
+DROP FUNCTION IF EXISTS benchmarkContentionCounter;
+DELIMITER //
+CREATE FUNCTION benchmarkContentionCounter(
+    given_counter VARCHAR(64)
+)
+RETURNS BIGINT
+READS SQL DATA
+BEGIN
+    IF given_counter = 'lock_deadlocks' THEN
+        RETURN (SELECT `COUNT` FROM information_schema.INNODB_METRICS WHERE NAME = 'lock_deadlocks');
+    END IF;
+    RETURN (SELECT VARIABLE_VALUE FROM performance_schema.global_status WHERE VARIABLE_NAME = given_counter);
+END //
+DELIMITER ;
+-- ------------------------
+-- benchmarkContentionStart
+-- Notes the counters before a run of the given version, legacy or current.
+-- ------------------------
+DROP PROCEDURE IF EXISTS benchmarkContentionStart;
+DELIMITER //
+CREATE PROCEDURE benchmarkContentionStart(
+    given_procedure_version VARCHAR(8)
+)
+BEGIN
+    DELETE FROM benchmark_contention_runs;
+
+    INSERT INTO benchmark_contention_runs
+    SELECT NOW(), given_procedure_version, COALESCE(MAX(receipt_id), 0),
+        benchmarkContentionCounter('Innodb_row_lock_waits'),
+        benchmarkContentionCounter('Innodb_row_lock_time'),
+        benchmarkContentionCounter('lock_deadlocks')
+    FROM receipts;
+END //
+DELIMITER ;
+-- -------------------------
+-- benchmarkContentionFinish
+-- Saves how much the counters went up during the run, along with how many sales made it through.
+-- -------------------------
+DROP PROCEDURE IF EXISTS benchmarkContentionFinish;
+DELIMITER //
+CREATE PROCEDURE benchmarkContentionFinish()
+BEGIN
+    INSERT INTO benchmark_contention_results
+    SELECT benchmark_run, procedure_version,
+        (SELECT COUNT(*) FROM receipts
+         WHERE receipt_id > last_receipt_id AND receipt_date_time IS NOT NULL),
+        benchmarkContentionCounter('Innodb_row_lock_waits') - row_lock_waits,
+        benchmarkContentionCounter('Innodb_row_lock_time') - row_lock_wait_millis,
+        benchmarkContentionCounter('lock_deadlocks') - deadlocks
+    FROM benchmark_contention_runs;
+
+    DELETE FROM benchmark_contention_runs;
+END //
+DELIMITER ;
+-- ----------------------
+-- benchmarkContendedSale
+-- Rings up one sale of the given number of items, each picked at random from the 50 most popular, the way the
+-- register did with the given version: the items go in as one transaction, followed by the payment. A sale chosen as
+-- a deadlock victim is rolled back and dropped, so the run carries on.
+-- *WARNING* must run benchmarkPopulate first
+-- ----------------------
+DROP PROCEDURE IF EXISTS benchmarkContendedSale;
+DELIMITER //
+CREATE PROCEDURE benchmarkContendedSale(
+    given_procedure_version VARCHAR(8),
+    given_items INT
+)
+BEGIN
+    DECLARE i INT DEFAULT 0;
+    DECLARE bench_register_id INT;
+    DECLARE bench_receipt_id INT;
+    DECLARE bench_upc VARCHAR(20);
+    DECLARE bench_total DECIMAL(12,2);
+
+    -- deadlock and lock wait timeout; the server's counters already have them
+    DECLARE EXIT HANDLER FOR 1213, 1205
+    BEGIN
+        ROLLBACK;
+    END;
+
+    SELECT MIN(register_id) INTO bench_register_id FROM registers;
+
+    CALL createReceipt(bench_register_id, NULL);
+    SET bench_receipt_id = LAST_INSERT_ID();
+
+    START TRANSACTION;
+    WHILE i < given_items DO
+        SET bench_upc = CONCAT('9', LPAD(FLOOR(RAND() * 50), 11, '0'));
+        IF given_procedure_version = 'legacy' THEN
+            CALL legacy_addItemToReceipt(bench_upc, bench_receipt_id);
+        ELSE
+            CALL addItemToReceipt(bench_upc, bench_receipt_id, 1);
+        END IF;
+        SET i = i + 1;
+    END WHILE;
+    SET bench_total = getReceiptTotal(bench_receipt_id, NULL);
+    COMMIT;
+
+    START TRANSACTION;
+    IF given_procedure_version = 'legacy' THEN
+        CALL legacy_finalizeReceipt(bench_receipt_id, bench_total);
+    ELSE
+        CALL finalizeReceipt(bench_receipt_id, bench_total);
+    END IF;
+    COMMIT;
+END //
+DELIMITER ;
@@ -66,33 +66,92 @@ BEGIN
 END //
 DELIMITER ;
 
+-- -------------------------
+-- storeTaxRateFromRegister
+-- Grabs the state tax percentage for the store a register belongs to, the same rate receiptsStateTax applies to
+-- that register's receipts. Used by the register to total baskets locally.
+-- @EXCEPTION SQLSTATE '45001' if register_id isn't found
+-- -------------------------
+DROP FUNCTION IF EXISTS storeTaxRateFromRegister;
+DELIMITER //
+CREATE FUNCTION storeTaxRateFromRegister(
+    given_register_id INT
+)
+RETURNS DECIMAL(2,2)
+DETERMINISTIC
+BEGIN
+    -- create exception for invalid register_id
+    DECLARE no_such_register CONDITION FOR SQLSTATE '45001';
+    -- declare variable to return
+    DECLARE tax DECIMAL(2,2);
+
+    IF given_register_id NOT IN (SELECT register_id FROM registers) THEN
+        SIGNAL no_such_register SET MESSAGE_TEXT = 'No such register_id exists';
+    END IF;
+
+    SET tax =
+    (
+    SELECT state_tax_percentage
+    FROM states
+        JOIN stores ON states.state_name = stores.store_state
+        JOIN registers ON stores.store_id = registers.store_id
+    WHERE register_id = given_register_id
+    );
+    RETURN(tax);
+END //
+DELIMITER ;
 -- -------------
 -- itemUPCLookup
 -- Grabs item_name, item_upc, and item_discount for a given upc.
+-- The item is read with a single probe of the upc index, and a missing row is what signals an invalid upc.
 -- @EXCEPTION SQLSTATE '45002' if item_upc doesn't exist
 -- -------------
 DROP PROCEDURE IF EXISTS itemUPCLookup;
 DELIMITER //
 CREATE PROCEDURE itemUPCLookup(
-    -- upc is only 12 characters long
-    given_upc VARCHAR(12)
+    given_upc VARCHAR(20)
 )
 BEGIN
     -- creates exception for invalid upc
     DECLARE no_such_upc CONDITION FOR SQLSTATE '45002';
-    IF given_upc NOT IN (SELECT item_upc FROM items) THEN
-        SIGNAL no_such_upc SET MESSAGE_TEXT = 'No such item_upc exists';
-    END IF;
+    DECLARE found_name VARCHAR(200);
+    DECLARE found_price DECIMAL(9,2);
+    DECLARE found_discount DECIMAL(2,2);
 
+    -- item_name can't be null, so it stays null only if there's no such upc
     SELECT item_name, item_price, item_discount_percentage
+    INTO found_name, found_price, found_discount
     FROM items
     WHERE item_upc = given_upc;
+
+    IF found_name IS NULL THEN
+        SIGNAL no_such_upc SET MESSAGE_TEXT = 'No such item_upc exists';
+    END IF;
+
+    SELECT found_name, found_price, found_discount;
 END //
 DELIMITER ;
 
+-- ------------------
+-- itemCatalogLookup
+-- Grabs every item modified at or after a given time, used by the register to keep its local item catalog current.
+-- Passing NULL grabs every item.
+-- ------------------
+DROP PROCEDURE IF EXISTS itemCatalogLookup;
+DELIMITER //
+CREATE PROCEDURE itemCatalogLookup(
+    given_changed_since DATETIME(3)
+)
+BEGIN
+    SELECT item_upc, item_name, item_price, item_discount_percentage, item_last_modified
+    FROM items
+    WHERE given_changed_since IS NULL OR item_last_modified >= given_changed_since;
+END //
+DELIMITER ;
 -- -------------
 -- createReceipt
 -- Begins the creation of a receipt populating the details of a new row in receipts given the register and member id.
+-- A null member_id creates a receipt for a non-member.
 -- @EXCEPTION SQLSTATE '45001' if register_id isn't found
 -- @EXCEPTION SQLSTATE '45003' if member_id isn't found
 -- -------------
@@ -107,12 +166,13 @@ BEGIN
     DECLARE no_such_register CONDITION FOR SQLSTATE '45001';
     -- create exception for invalid member_id
     DECLARE no_such_member CONDITION FOR SQLSTATE '45003';
-    IF given_register_id NOT IN (SELECT register_id FROM registers) THEN
+    -- both checks are primary key probes rather than reading every id
+    IF NOT EXISTS (SELECT 1 FROM registers WHERE register_id = given_register_id) THEN
         SIGNAL no_such_register SET MESSAGE_TEXT = 'No such register_id exists';
-	END IF;
-    IF given_member_id NOT IN (SELECT member_id FROM members) THEN
+    END IF;
+    IF given_member_id IS NOT NULL AND NOT EXISTS (SELECT 1 FROM members WHERE member_id = given_member_id) THEN
         SIGNAL no_such_member SET MESSAGE_TEXT = 'No such member_id exists';
-	END IF;
+    END IF;
 
     INSERT INTO receipts (register_id, member_id, receipt_date_time, receipt_cashier_full_name)
     VALUES
@@ -121,19 +181,21 @@ BEGIN
     given_member_id,
     -- null for now before items are added
     null,
-    receiptsCashierName((SELECT register_id FROM registers WHERE register_id = given_register_id))
-
+    receiptsCashierName(given_register_id)
     );
 
     -- returns the PRIMARY KEY value of the last row inserted
     -- is per user and is unaffected by other queries that might be running on the server from other users
     SELECT LAST_INSERT_ID();
 END //
-DELIMITER;
-
+DELIMITER ;
 -- ----------------
 -- addItemToReceipt
--- Used to add a given item based on the upc to receipt_details.
+-- Used to add a given quantity of an item based on the upc to receipt_details. A receipt has one row per item, so an
+-- item already on it has its quantity and total added to instead of getting another row.
+-- The item and the receipt are each read once, and everything the detail row needs is computed from those two reads
+-- instead of being looked up again by helper functions. Same prices as detailsPrice and detailsDiscount: the
+-- discount only applies to member receipts. Inventory isn't touched until the receipt is finalized.
 -- @EXCEPTION SQLSTATE '45002' if item_upc doesn't exist
 -- @EXCEPTION SQLSTATE '45004' if receipt_id doesn't exist
 -- ----------------
@@ -141,45 +203,110 @@ DROP PROCEDURE IF EXISTS addItemToReceipt;
 DELIMITER //
 CREATE PROCEDURE addItemToReceipt(
     given_upc VARCHAR(20),
-    given_receipt_id INT
+    given_receipt_id INT,
+    given_quantity INT
 )
 BEGIN
-     -- creates exception for invalid upc
-      DECLARE no_such_upc CONDITION FOR SQLSTATE '45002';
-      -- creates exception for invalid receipt
-      DECLARE no_such_receipt_id CONDITION FOR SQLSTATE '45004';
-      IF given_upc NOT IN (SELECT item_upc FROM items) THEN
+    -- creates exception for invalid upc
+    DECLARE no_such_upc CONDITION FOR SQLSTATE '45002';
+    -- creates exception for invalid receipt
+    DECLARE no_such_receipt_id CONDITION FOR SQLSTATE '45004';
+    DECLARE found_item_id INT;
+    DECLARE found_price DECIMAL(9,2);
+    DECLARE found_discount DECIMAL(2,2);
+    DECLARE receipt_member_id INT;
+    DECLARE receipt_found BOOLEAN DEFAULT FALSE;
+
+    -- one probe of the upc index
+    SELECT item_id, item_price, item_discount_percentage
+    INTO found_item_id, found_price, found_discount
+    FROM items
+    WHERE item_upc = given_upc;
+
+    IF found_item_id IS NULL THEN
         SIGNAL no_such_upc SET MESSAGE_TEXT = 'No such item_upc exists';
-      END IF;
-      IF given_receipt_id NOT IN (SELECT receipt_id FROM receipts) THEN
+    END IF;
+
+    -- one primary key probe for the receipt's member
+    SELECT member_id, TRUE
+    INTO receipt_member_id, receipt_found
+    FROM receipts
+    WHERE receipt_id = given_receipt_id;
+
+    IF NOT receipt_found THEN
         SIGNAL no_such_receipt_id SET MESSAGE_TEXT = 'No such receipt_id exists';
-      END IF;
+    END IF;
+
+    IF receipt_member_id IS NULL THEN
+        SET found_discount = 0.00;
+    END IF;
 
     INSERT INTO receipt_details (receipt_id, item_id, item_total, item_discount_percentage, item_price, item_quantity)
     VALUES
     (
     given_receipt_id,
-    itemIDFromUPC(given_upc),
-    null,
-    detailsDiscount(given_receipt_id, itemIDFromUPC(given_upc)),
-    detailsPrice(given_receipt_id, itemIDFromUPC(given_upc)),
-    1
-    );
+    found_item_id,
+    -- rounded per unit, the same as scanning the item that many times
+    ROUND(found_price * (1 - found_discount), 2) * given_quantity,
+    found_discount,
+    found_price,
+    given_quantity
+    ) AS new_detail
+    ON DUPLICATE KEY UPDATE
+        item_quantity = receipt_details.item_quantity + new_detail.item_quantity,
+        item_total = receipt_details.item_total + new_detail.item_total;
+END //
+DELIMITER ;
+-- ----------------
+-- setReceiptMember
+-- Attaches a member to a receipt which was created before the member was looked up, and re-prices the items already
+-- on it with the member discount. Passing NULL removes the member and the discounts.
+-- @EXCEPTION SQLSTATE '45004' if receipt_id doesn't exist
+-- @EXCEPTION SQLSTATE '45003' if member_id isn't found
+-- ----------------
+DROP PROCEDURE IF EXISTS setReceiptMember;
+DELIMITER //
+CREATE PROCEDURE setReceiptMember(
+    given_receipt_id INT,
+    given_member_id INT
+)
+BEGIN
+      -- creates exception for invalid receipt
+      DECLARE no_such_receipt_id CONDITION FOR SQLSTATE '45004';
+      -- create exception for invalid member_id
+      DECLARE no_such_member CONDITION FOR SQLSTATE '45003';
+      -- a primary key probe each, rather than reading every receipt and member
+      IF NOT EXISTS (SELECT 1 FROM receipts WHERE receipt_id = given_receipt_id) THEN
+        SIGNAL no_such_receipt_id SET MESSAGE_TEXT = 'No such receipt_id exists';
+      END IF;
+      IF given_member_id IS NOT NULL AND NOT EXISTS (SELECT 1 FROM members WHERE member_id = given_member_id) THEN
+        SIGNAL no_such_member SET MESSAGE_TEXT = 'No such member_id exists';
+      END IF;
 
-    UPDATE inventory
-    -- remove 1 item from inventory
-    SET inventory.item_qty = inventory.item_qty - 1
-    WHERE item_id = itemIDFromUPC(given_upc) AND
-    store_id = storeIDFromReceiptID(given_receipt_id);
+    UPDATE receipts
+    SET member_id = given_member_id
+    WHERE receipt_id = given_receipt_id;
+
+    -- same discount rule as detailsDiscount, applied to every detail in one statement
+    UPDATE receipt_details
+        JOIN items ON receipt_details.item_id = items.item_id
+    SET receipt_details.item_discount_percentage =
+            IF(given_member_id IS NULL, 0.00, items.item_discount_percentage),
+        receipt_details.item_total = ROUND(receipt_details.item_price
+            * (1 - IF(given_member_id IS NULL, 0.00, items.item_discount_percentage)), 2)
+            * receipt_details.item_quantity
+    WHERE receipt_details.receipt_id = given_receipt_id;
 END //
+DELIMITER ;
 
 -- ---------------
 -- getReceiptTotal
 -- Tallies up the totals for all the associated receipt_details, updates that receipt, and returns the total.
+-- Both totals are computed once and written in a single update. A null member_id is allowed, for non-members.
 -- @EXCEPTION SQLSTATE '45004' if receipt_id doesn't exist
 -- @EXCEPTION SQLSTATE '45003' if member_id isn't found
 -- ---------------
-DROP FUNCTION IF EXITS getReceiptTotal;
+DROP FUNCTION IF EXISTS getReceiptTotal;
 DELIMITER //
 CREATE FUNCTION getReceiptTotal(
     given_receipt_id INT,
@@ -192,33 +319,139 @@ BEGIN
       DECLARE no_such_receipt_id CONDITION FOR SQLSTATE '45004';
       -- create exception for invalid member_id
       DECLARE no_such_member CONDITION FOR SQLSTATE '45003';
-      -- declare variable to return
-      DECLARE given_receipt_total DECIMAL(12,2);
-      IF given_receipt_id NOT IN (SELECT receipt_id FROM receipts) THEN
+      -- same types as the receipts columns, so they round exactly the way the stored values do
+      DECLARE computed_subtotal DECIMAL(9,2);
+      DECLARE computed_total DECIMAL(9,2);
+      IF NOT EXISTS (SELECT 1 FROM receipts WHERE receipt_id = given_receipt_id) THEN
         SIGNAL no_such_receipt_id SET MESSAGE_TEXT = 'No such receipt_id exists';
       END IF;
-      IF given_member_id NOT IN (SELECT member_id FROM members) THEN
+      IF given_member_id IS NOT NULL AND NOT EXISTS (SELECT 1 FROM members WHERE member_id = given_member_id) THEN
         SIGNAL no_such_member SET MESSAGE_TEXT = 'No such member_id exists';
       END IF;
-      
-      -- update the subtotal
-      UPDATE receipts
-      SET receipt_subtotal = (SElECT SUM(item_total) FROM receipt_details WHERE receipt_id = given_receipt_id)
-      WHERE receipt_id = given_receipt_id;
-      
-      -- update total including tax
+
+      SET computed_subtotal = (SELECT SUM(item_total) FROM receipt_details WHERE receipt_id = given_receipt_id);
+      SET computed_total = computed_subtotal * (1 + receiptsStateTax(given_receipt_id));
+
       UPDATE receipts
-      SET receipt_total = receipt_subtotal * (1 + receiptsStateTax(given_receipt_id))
+      SET receipt_subtotal = computed_subtotal,
+          receipt_total = computed_total
       WHERE receipt_id = given_receipt_id;
-      
-      SET given_receipt_total = (SELECT receipt_total FROM receipts WHERE receipt_id = given_receipt_id);
 
-      RETURN(given_receipt_total);
+      RETURN(computed_total);
 END //
 DELIMITER ;
 
+-- ------------------------
+-- takeReceiptFromInventory
+-- Takes everything on a receipt out of its store's inventory, with one update per item, by its quantity, rather than
+-- one per scan. Items are updated in item_id order, so two registers selling the same items always lock those rows
+-- in the same order and can never deadlock each other. Meant to be the last step of finalizing a sale, inside the
+-- caller's transaction, so the store's busiest rows stay locked only until that commits.
+-- ------------------------
+DROP PROCEDURE IF EXISTS takeReceiptFromInventory;
+DELIMITER //
+CREATE PROCEDURE takeReceiptFromInventory(
+    given_receipt_id INT,
+    given_store_id INT
+)
+BEGIN
+    DECLARE sold_item_id INT;
+    DECLARE sold_count INT;
+    DECLARE no_more_items BOOLEAN DEFAULT FALSE;
+    DECLARE sold_items CURSOR FOR
+        SELECT item_id, item_quantity
+        FROM receipt_details
+        WHERE receipt_id = given_receipt_id
+        ORDER BY item_id;
+    DECLARE CONTINUE HANDLER FOR NOT FOUND SET no_more_items = TRUE;
+
+    OPEN sold_items;
+    take_items: LOOP
+        FETCH sold_items INTO sold_item_id, sold_count;
+        IF no_more_items THEN
+            LEAVE take_items;
+        END IF;
+
+        -- a single primary key row per item
+        UPDATE inventory
+        SET item_qty = item_qty - sold_count
+        WHERE store_id = given_store_id AND item_id = sold_item_id;
+    END LOOP;
+    CLOSE sold_items;
+END //
+DELIMITER ;
+-- -----------------
+-- addReceiptToSales
+-- Adds a finalized receipt's items to its store's running totals in store_sales_per_product, with one upsert per item
+-- on the receipt, so the totals stay up to date without ever reading the rest of receipt_details again. Only the
+-- store's own rows are touched; the chain's totals are summed from them by the accumulative_sales_per_product view, so
+-- lanes in different stores never wait on each other here. The details are read in item_id order, stated rather
+-- than left to the primary key, so the total rows are locked in the same order as takeReceiptFromInventory's cursor
+-- locks inventory and two registers can't deadlock on them. Meant to be called while finalizing a sale, inside the
+-- caller's transaction, so a sale is counted exactly when it's committed.
+-- -----------------
+DROP PROCEDURE IF EXISTS addReceiptToSales;
+DELIMITER //
+CREATE PROCEDURE addReceiptToSales(
+    given_receipt_id INT,
+    given_store_id INT
+)
+BEGIN
+    INSERT INTO store_sales_per_product (store_id, item_id, sold_qty, total_sales)
+    SELECT * FROM
+    (
+    SELECT given_store_id, item_id, item_quantity, item_total
+    FROM receipt_details
+    WHERE receipt_id = given_receipt_id
+    ORDER BY item_id
+    ) AS sold
+    ON DUPLICATE KEY UPDATE
+        sold_qty = store_sales_per_product.sold_qty + sold.item_quantity,
+        total_sales = store_sales_per_product.total_sales + sold.item_total;
+END //
+DELIMITER ;
+-- -------------------
+-- backfillSalesTotals
+-- Rebuilds store_sales_per_product, and so accumulative_sales_per_product, from every finalized receipt, in one grouped
+-- pass over receipt_details. Only needed once, to start the totals off on a database which already has sales, or
+-- to correct them after receipts were changed by hand; addReceiptToSales keeps them up to date from then on. Starts
+-- its own transaction, so sales finalized while it runs wait for it rather than being counted twice or not at all.
+-- -------------------
+DROP PROCEDURE IF EXISTS backfillSalesTotals;
+DELIMITER //
+CREATE PROCEDURE backfillSalesTotals()
+BEGIN
+    -- whatever goes wrong, the totals are left as they were
+    DECLARE EXIT HANDLER FOR SQLEXCEPTION
+    BEGIN
+        ROLLBACK;
+        RESIGNAL;
+    END;
+
+    START TRANSACTION;
+
+    DELETE FROM store_sales_per_product;
+
+    -- the single pass over receipt_details
+    INSERT INTO store_sales_per_product (store_id, item_id, sold_qty, total_sales)
+    SELECT registers.store_id, receipt_details.item_id,
+        SUM(receipt_details.item_quantity), SUM(receipt_details.item_total)
+    FROM receipt_details
+        JOIN receipts ON receipts.receipt_id = receipt_details.receipt_id
+        JOIN registers ON registers.register_id = receipts.register_id
+    -- only finalized receipts have a time
+    WHERE receipts.receipt_date_time IS NOT NULL
+    GROUP BY registers.store_id, receipt_details.item_id;
+
+    COMMIT;
+END //
+DELIMITER ;
 -- --------------
 -- finalizeReceipt
+-- Records the payment, adds the receipt to the sales totals with addReceiptToSales, then takes the receipt's items out
+-- of inventory with takeReceiptFromInventory. Call it inside a transaction so the payment, the totals and the
+-- inventory are committed together. Finalizing a receipt which is already finalized changes nothing and returns the
+-- change due recorded the first time, so a register can safely retry when it doesn't know whether a call went through.
 -- @EXCEPTION SQLSTATE '45004' if receipt_id doesn't exist
 -- @EXCEPTION SQLSTATE '45005' if given_cash is less than total
 -- ---------------
@@ -231,108 +464,463 @@ CREATE PROCEDURE finalizeReceipt(
 BEGIN
 	  -- used for comparisons
 	  DECLARE actual_receipt_total DECIMAL(9,2);
+	  DECLARE receipt_store_id INT;
+	  DECLARE receipt_found BOOLEAN DEFAULT FALSE;
+	  -- set once the receipt has been finalized
+	  DECLARE finalized_date_time DATETIME;
 	  -- creates exception for invalid receipt
       DECLARE no_such_receipt_id CONDITION FOR SQLSTATE '45004';
 	  -- spit out an error if given_cash is less than receipt_total
       DECLARE invalid_payment_amount CONDITION FOR SQLSTATE '45005';
-      IF given_receipt_id NOT IN (SELECT receipt_id FROM receipts) THEN
+	  -- one primary key probe reads the total, whether the receipt exists at all, and whether it's already finalized;
+	  -- the row stays locked until the caller commits, so a retry waits for the first attempt rather than racing it
+	  SELECT receipt_total, receipt_date_time, TRUE INTO actual_receipt_total, finalized_date_time, receipt_found
+	  FROM receipts
+	  WHERE receipt_id = given_receipt_id
+	  FOR UPDATE;
+      IF NOT receipt_found THEN
 		SIGNAL no_such_receipt_id SET MESSAGE_TEXT = 'No such receipt_id exists';
       END IF;
-	  SELECT receipt_total INTO actual_receipt_total FROM receipts WHERE receipt_id = given_receipt_id;
+
+    -- a retry after the first attempt committed, e.g., once a dropped connection comes back, only reads the change
+    -- due, so the receipt's items are never counted or taken out of inventory twice
+    IF finalized_date_time IS NULL THEN
       IF given_cash < actual_receipt_total THEN
 		SIGNAL invalid_payment_amount SET MESSAGE_TEXT = 'Amount must be >= total';
 	  END IF;
-      
-	
-    UPDATE receipts
-    SET receipt_date_time = NOW()
-    WHERE receipt_id = given_receipt_id;
 
-    UPDATE receipts
-    SET receipt_charge = given_cash
+      -- time, cash and change due in a single write to the receipt row
+      UPDATE receipts
+      SET receipt_date_time = NOW(),
+          receipt_charge = given_cash,
+          receipt_change_due = given_cash - receipt_total
+      WHERE receipt_id = given_receipt_id;
+
+      SET receipt_store_id = storeIDFromReceiptID(given_receipt_id);
+
+      -- last, so the rows shared with other registers are locked for as little of the transaction as possible
+      CALL addReceiptToSales(given_receipt_id, receipt_store_id);
+      CALL takeReceiptFromInventory(given_receipt_id, receipt_store_id);
+    END IF;
+
+    -- returns amount given as change
+    SELECT receipt_change_due FROM receipts WHERE receipt_id = given_receipt_id;
+END //
+DELIMITER ;
+
+-- ---------------
+-- checkoutReceipt
+-- Rings up a whole sale in one call: creates the receipt, adds every item in the basket, takes them out of the
+-- store's inventory, adds them to the sales totals, totals the receipt and finalizes it with the cash given, all in a
+-- single transaction.
+-- given_lines is a JSON array of {"upc": "...", "quantity": n} objects, one per item in the basket; a UPC listed
+-- twice ends up as a single row holding both quantities. Returns the receipt_id, total and change due. If the cash
+-- doesn't cover the total nothing is kept, and the receipt_id and change due come back NULL along with the total, so
+-- the register can ask for more.
+-- given_journal_id is the key the register checks the sale out under, or NULL: the sale's id in the register's
+-- journal, or a negative key the register made up for a sale that isn't journaled. A sale with a key is only ever
+-- recorded once: calling again returns the receipt already written, and createJournaledReceipt finds it too if a
+-- journaled sale also ends up being replayed from the journal.
+-- Prices and discounts follow the same rules as addItemToReceipt. Starts its own transaction, so it must not be
+-- called inside another one.
+-- @EXCEPTION SQLSTATE '45001' if register_id isn't found
+-- @EXCEPTION SQLSTATE '45002' if any item_upc doesn't exist
+-- @EXCEPTION SQLSTATE '45003' if member_id isn't found
+-- ---------------
+DROP PROCEDURE IF EXISTS checkoutReceipt;
+DELIMITER //
+CREATE PROCEDURE checkoutReceipt(
+    given_register_id INT,
+    given_member_id INT,
+    given_journal_id BIGINT,
+    given_lines JSON,
+    given_cash DECIMAL(9,2)
+)
+BEGIN
+    -- create exception for invalid register_id
+    DECLARE no_such_register CONDITION FOR SQLSTATE '45001';
+    -- creates exception for invalid upc
+    DECLARE no_such_upc CONDITION FOR SQLSTATE '45002';
+    -- create exception for invalid member_id
+    DECLARE no_such_member CONDITION FOR SQLSTATE '45003';
+    DECLARE register_store_id INT;
+    DECLARE tax DECIMAL(2,2);
+    DECLARE existing_receipt_id INT;
+    DECLARE new_receipt_id INT;
+    DECLARE item_count INT;
+    DECLARE item_index INT DEFAULT 0;
+    -- declared without a character set, so it compares against items the same way the upc index does
+    DECLARE current_upc VARCHAR(20);
+    DECLARE current_quantity INT;
+    DECLARE found_item_id INT;
+    DECLARE found_price DECIMAL(9,2);
+    DECLARE found_discount DECIMAL(2,2);
+    -- same types as the receipts columns, so they round exactly the way the stored values do
+    DECLARE computed_subtotal DECIMAL(9,2);
+    DECLARE computed_total DECIMAL(9,2);
+
+    -- whatever goes wrong, none of the sale is kept
+    DECLARE EXIT HANDLER FOR SQLEXCEPTION
+    BEGIN
+        ROLLBACK;
+        RESIGNAL;
+    END;
+
+    -- one read for both the store and its tax rate, which also checks the register exists
+    SELECT registers.store_id, states.state_tax_percentage
+    INTO register_store_id, tax
+    FROM registers
+        JOIN stores ON registers.store_id = stores.store_id
+        JOIN states ON stores.store_state = states.state_name
+    WHERE registers.register_id = given_register_id;
+
+    IF register_store_id IS NULL THEN
+        SIGNAL no_such_register SET MESSAGE_TEXT = 'No such register_id exists';
+    END IF;
+    IF given_member_id IS NOT NULL AND NOT EXISTS (SELECT 1 FROM members WHERE member_id = given_member_id) THEN
+        SIGNAL no_such_member SET MESSAGE_TEXT = 'No such member_id exists';
+    END IF;
+
+    -- a retry after the connection dropped mid-call gets back the sale it already recorded
+    IF given_journal_id IS NOT NULL THEN
+        SELECT receipt_id INTO existing_receipt_id
+        FROM receipts
+        WHERE register_id = given_register_id AND receipt_journal_id = given_journal_id;
+    END IF;
+
+    IF existing_receipt_id IS NOT NULL THEN
+        SELECT receipt_id, receipt_total, receipt_change_due FROM receipts WHERE receipt_id = existing_receipt_id;
+    ELSE
+        START TRANSACTION;
+
+        INSERT INTO receipts (register_id, member_id, receipt_date_time, receipt_cashier_full_name, receipt_journal_id)
+        VALUES
+        (
+        given_register_id,
+        given_member_id,
+        -- set along with the totals once every item is in
+        null,
+        receiptsCashierName(given_register_id),
+        given_journal_id
+        );
+        SET new_receipt_id = LAST_INSERT_ID();
+
+        SET item_count = JSON_LENGTH(given_lines);
+        WHILE item_index < item_count DO
+            SET current_upc = JSON_UNQUOTE(JSON_EXTRACT(given_lines, CONCAT('$[', item_index, '].upc')));
+            SET current_quantity = JSON_EXTRACT(given_lines, CONCAT('$[', item_index, '].quantity'));
+            SET found_item_id = NULL;
+
+            -- one probe of the upc index per item
+            SELECT item_id, item_price, item_discount_percentage
+            INTO found_item_id, found_price, found_discount
+            FROM items
+            WHERE item_upc = current_upc;
+
+            IF found_item_id IS NULL THEN
+                SIGNAL no_such_upc SET MESSAGE_TEXT = 'No such item_upc exists';
+            END IF;
+
+            IF given_member_id IS NULL THEN
+                SET found_discount = 0.00;
+            END IF;
+
+            INSERT INTO receipt_details
+                (receipt_id, item_id, item_total, item_discount_percentage, item_price, item_quantity)
+            VALUES
+            (
+            new_receipt_id,
+            found_item_id,
+            ROUND(found_price * (1 - found_discount), 2) * current_quantity,
+            found_discount,
+            found_price,
+            current_quantity
+            ) AS new_detail
+            ON DUPLICATE KEY UPDATE
+                item_quantity = receipt_details.item_quantity + new_detail.item_quantity,
+                item_total = receipt_details.item_total + new_detail.item_total;
+
+            SET item_index = item_index + 1;
+        END WHILE;
+
+        SET computed_subtotal =
+            COALESCE((SELECT SUM(item_total) FROM receipt_details WHERE receipt_id = new_receipt_id), 0.00);
+        SET computed_total = computed_subtotal * (1 + tax);
+
+        IF given_cash < computed_total THEN
+            ROLLBACK;
+            SELECT NULL, computed_total, NULL;
+        ELSE
+            -- totals, time, cash and change due in a single write to the receipt row
+            UPDATE receipts
+            SET receipt_subtotal = computed_subtotal,
+                receipt_total = computed_total,
+                receipt_date_time = NOW(),
+                receipt_charge = given_cash,
+                receipt_change_due = given_cash - computed_total
+            WHERE receipt_id = new_receipt_id;
+
+            -- last, so the rows shared with other registers are locked for as little of the transaction as possible
+            CALL addReceiptToSales(new_receipt_id, register_store_id);
+            CALL takeReceiptFromInventory(new_receipt_id, register_store_id);
+            COMMIT;
+
+            SELECT new_receipt_id, computed_total, given_cash - computed_total;
+        END IF;
+    END IF;
+END //
+DELIMITER ;
+-- ----------------------
+-- createJournaledReceipt
+-- Creates the receipt for a sale which was rung up while the register was offline and saved in its local journal.
+-- Returns the receipt_id along with 1 if the sale was already replayed before, or 0 if the receipt was just created,
+-- so replaying the same sale twice never records it twice.
+-- @EXCEPTION SQLSTATE '45001' if register_id isn't found
+-- @EXCEPTION SQLSTATE '45003' if member_id isn't found
+-- ----------------------
+DROP PROCEDURE IF EXISTS createJournaledReceipt;
+DELIMITER //
+CREATE PROCEDURE createJournaledReceipt(
+    given_register_id INT,
+    given_member_id INT,
+    given_journal_id BIGINT
+)
+BEGIN
+    -- create exception for invalid register_id
+    DECLARE no_such_register CONDITION FOR SQLSTATE '45001';
+    -- create exception for invalid member_id
+    DECLARE no_such_member CONDITION FOR SQLSTATE '45003';
+    DECLARE existing_receipt_id INT;
+    -- a primary key probe each, rather than reading every register and member
+    IF NOT EXISTS (SELECT 1 FROM registers WHERE register_id = given_register_id) THEN
+        SIGNAL no_such_register SET MESSAGE_TEXT = 'No such register_id exists';
+	END IF;
+    IF given_member_id IS NOT NULL AND NOT EXISTS (SELECT 1 FROM members WHERE member_id = given_member_id) THEN
+        SIGNAL no_such_member SET MESSAGE_TEXT = 'No such member_id exists';
+	END IF;
+
+    SELECT receipt_id INTO existing_receipt_id
+    FROM receipts
+    WHERE register_id = given_register_id AND receipt_journal_id = given_journal_id;
+
+    IF existing_receipt_id IS NOT NULL THEN
+        SELECT existing_receipt_id, 1;
+    ELSE
+        INSERT INTO receipts (register_id, member_id, receipt_date_time, receipt_cashier_full_name, receipt_journal_id)
+        VALUES
+        (
+        given_register_id,
+        given_member_id,
+        -- null for now before items are added
+        null,
+        receiptsCashierName(given_register_id),
+        given_journal_id
+        );
+
+        SELECT LAST_INSERT_ID(), 0;
+    END IF;
+END //
+DELIMITER ;
+-- -------------------------
+-- addJournaledItemToReceipt
+-- Adds an item from an offline sale to its receipt at the price and discount the customer was charged, rather than
+-- whatever the items table holds by the time the sale is replayed. The discount only applies to member receipts,
+-- same as detailsDiscount. Like addItemToReceipt, adds to the item's row if it's already on the receipt. Inventory is
+-- taken when the receipt is finalized.
+-- @EXCEPTION SQLSTATE '45002' if item_upc doesn't exist
+-- @EXCEPTION SQLSTATE '45004' if receipt_id doesn't exist
+-- -------------------------
+DROP PROCEDURE IF EXISTS addJournaledItemToReceipt;
+DELIMITER //
+CREATE PROCEDURE addJournaledItemToReceipt(
+    given_upc VARCHAR(20),
+    given_receipt_id INT,
+    given_price DECIMAL(9,2),
+    given_discount DECIMAL(2,2),
+    given_quantity INT
+)
+BEGIN
+      -- creates exception for invalid upc
+      DECLARE no_such_upc CONDITION FOR SQLSTATE '45002';
+      -- creates exception for invalid receipt
+      DECLARE no_such_receipt_id CONDITION FOR SQLSTATE '45004';
+      DECLARE applied_discount DECIMAL(2,2);
+      DECLARE found_item_id INT;
+      DECLARE receipt_member_id INT;
+      DECLARE receipt_found BOOLEAN DEFAULT FALSE;
+
+    -- one probe of the upc index
+    SELECT item_id INTO found_item_id
+    FROM items
+    WHERE item_upc = given_upc;
+
+    IF found_item_id IS NULL THEN
+        SIGNAL no_such_upc SET MESSAGE_TEXT = 'No such item_upc exists';
+    END IF;
+
+    -- one primary key probe for the receipt's member
+    SELECT member_id, TRUE
+    INTO receipt_member_id, receipt_found
+    FROM receipts
     WHERE receipt_id = given_receipt_id;
 
+    IF NOT receipt_found THEN
+        SIGNAL no_such_receipt_id SET MESSAGE_TEXT = 'No such receipt_id exists';
+    END IF;
+
+    SET applied_discount = IF(receipt_member_id IS NULL, 0.00, given_discount);
+
+    INSERT INTO receipt_details (receipt_id, item_id, item_total, item_discount_percentage, item_price, item_quantity)
+    VALUES
+    (
+    given_receipt_id,
+    found_item_id,
+    ROUND(given_price * (1 - applied_discount), 2) * given_quantity,
+    applied_discount,
+    given_price,
+    given_quantity
+    ) AS new_detail
+    ON DUPLICATE KEY UPDATE
+        item_quantity = receipt_details.item_quantity + new_detail.item_quantity,
+        item_total = receipt_details.item_total + new_detail.item_total;
+END //
+DELIMITER ;
+-- ------------------------
+-- finalizeJournaledReceipt
+-- Finalizes a replayed offline sale like finalizeReceipt, but keeps the time the sale was actually made.
+-- @EXCEPTION SQLSTATE '45004' if receipt_id doesn't exist
+-- @EXCEPTION SQLSTATE '45005' if given_cash is less than total
+-- ------------------------
+DROP PROCEDURE IF EXISTS finalizeJournaledReceipt;
+DELIMITER //
+CREATE PROCEDURE finalizeJournaledReceipt(
+    given_receipt_id INT,
+    given_cash DECIMAL(9,2),
+    given_sale_time DATETIME
+)
+BEGIN
+    CALL finalizeReceipt(given_receipt_id, given_cash);
+
     UPDATE receipts
-    SET receipt_change_due = receipt_charge - receipt_total
+    SET receipt_date_time = given_sale_time
     WHERE receipt_id = given_receipt_id;
 END //
 DELIMITER ;
+-- ------------------
+-- resolveOpenReceipt
+-- Cleans up a receipt which was still being built when the register lost its connection and saved the sale to its
+-- journal instead. If the receipt was never finalized it's deleted, so the journaled copy of the sale replaces it;
+-- nothing was taken out of inventory yet, since that only happens at finalize. Returns 1 if it had been finalized
+-- after all--i.e., the sale went through just before the connection dropped--or 0 otherwise.
+-- ------------------
+DROP PROCEDURE IF EXISTS resolveOpenReceipt;
+DELIMITER //
+CREATE PROCEDURE resolveOpenReceipt(
+    given_receipt_id INT
+)
+BEGIN
+    DECLARE finalized_date_time DATETIME;
 
+    SELECT receipt_date_time INTO finalized_date_time FROM receipts WHERE receipt_id = given_receipt_id;
+
+    IF finalized_date_time IS NOT NULL THEN
+        SELECT 1;
+    ELSE
+        DELETE FROM receipt_details
+        WHERE receipt_id = given_receipt_id;
+
+        DELETE FROM receipts
+        WHERE receipt_id = given_receipt_id;
+
+        SELECT 0;
+    END IF;
+END //
+DELIMITER ;
 -- -----------------
 -- memberPhoneLookup
+-- Used to look up member information for a given phone number.
+-- The member is read with a single probe of the phone number index, and a missing row is what signals an unknown
+-- phone number.
+-- @EXCEPTION SQLSTATE '45006' if phone_number doesn't exist
 -- -----------------
+DROP PROCEDURE IF EXISTS memberPhoneLookup;
 DELIMITER //
 CREATE PROCEDURE memberPhoneLookup(
     given_phone_number VARCHAR(16)
 )
 BEGIN
     -- creates exception member no matching member is found
-    DECLARE no_such_member CONDITION FOR SQLSTATE '45000';
-
-    IF given_phone_number NOT IN (SELECT member_phone_number FROM members)
-    THEN
-        SIGNAL no_such_member SET MESSAGE_TEXT = 'No such phone_number exists';
-    END IF;
+    DECLARE no_such_member CONDITION FOR SQLSTATE '45006';
+    DECLARE found_member_id INT;
+    DECLARE found_first_name VARCHAR(32);
+    DECLARE found_last_name VARCHAR(32);
 
     SELECT member_id, member_first_name, member_last_name
+    INTO found_member_id, found_first_name, found_last_name
     FROM members
     WHERE member_phone_number = given_phone_number;
+
+    IF found_member_id IS NULL THEN
+        SIGNAL no_such_member SET MESSAGE_TEXT = 'No such phone_number exists';
+    END IF;
+
+    SELECT found_member_id, found_first_name, found_last_name;
 END //
 DELIMITER ;
 -- -------------------------
 -- memberAccountNumberLookup
+-- Used to lookup up member information from a given member_id.
+-- The member is read with a single primary key probe, and a missing row is what signals an unknown member_id.
+-- @EXCEPTION SQLSTATE '45003' if member_id isn't found
 -- -------------------------
+DROP PROCEDURE IF EXISTS memberAccountNumberLookup;
 DELIMITER //
 CREATE PROCEDURE memberAccountNumberLookup(
     given_member_id INT
 )
 BEGIN
     -- creates exception member no matching member is found
-    DECLARE no_such_account_num CONDITION FOR SQLSTATE '45000';
+    DECLARE no_such_account_num CONDITION FOR SQLSTATE '45003';
+    DECLARE found_member_id INT;
+    DECLARE found_first_name VARCHAR(32);
+    DECLARE found_last_name VARCHAR(32);
+
+    SELECT member_id, member_first_name, member_last_name
+    INTO found_member_id, found_first_name, found_last_name
+    FROM members
+    WHERE member_id = given_member_id;
 
-    IF given_member_id NOT IN (SELECT member_id FROM members)
-    THEN
+    IF found_member_id IS NULL THEN
         SIGNAL no_such_account_num SET MESSAGE_TEXT = 'No such account_number exists';
     END IF;
 
-    SELECT member_first_name, member_last_name
-    FROM members
-    WHERE member_id = given_member_id;
+    SELECT found_first_name, found_last_name;
 END //
 DELIMITER ;
--- --------------
--- finalizeReceipt
--- ---------------
-DROP PROCEDURE IF EXISTS finalizeReceipt;
+-- --------------------
+-- frequentMemberLookup
+-- Returns up to given_limit of the members who shopped most often at the register's store over the last 90 days,
+-- most frequent first, so the register can cache them before they reach the lane.
+-- --------------------
+DROP PROCEDURE IF EXISTS frequentMemberLookup;
 DELIMITER //
-CREATE PROCEDURE finalizeReceipt(
-    given_receipt_id INT,
-    given_cash DECIMAL(9,2)
+CREATE PROCEDURE frequentMemberLookup(
+    given_register_id INT,
+    given_limit INT
 )
 BEGIN
-    -- spit out an error if given_cash is less than receipt_total
-
-    UPDATE receipts
-    SET receipt_subtotal
-    = (SELECT SUM(item_total) FROM receipt_details WHERE receipt_id = given_receipt_id)
-    -- avoid wasting time and only change the receipt_detail that correspond to the receipt
-    WHERE receipt_id = given_receipt_id;
-
-    UPDATE receipts
-    SET receipt_total = receipt_subtotal * (1 + receiptsStateTax(given_receipt_id))
-    WHERE receipt_id = given_receipt_id;
-
-    UPDATE receipts
-    SET receipt_date_time = NOW()
-    WHERE receipt_id = given_receipt_id;
-
-    UPDATE receipts
-    SET receipt_charge = given_cash
-    WHERE receipt_id = given_receipt_id;
-
-    UPDATE receipts
-    SET receipt_change_due = receipt_charge - receipt_total
-    WHERE receipt_id = given_receipt_id;
+    SELECT members.member_id, members.member_first_name, members.member_last_name, members.member_phone_number
+    FROM registers AS store_registers
+    -- every register in the same store as the given one
+    JOIN registers AS given_register
+        ON given_register.store_id = store_registers.store_id
+        AND given_register.register_id = given_register_id
+    JOIN receipts ON receipts.register_id = store_registers.register_id
+    JOIN members ON members.member_id = receipts.member_id
+    WHERE receipts.receipt_date_time >= NOW() - INTERVAL 90 DAY
+    GROUP BY members.member_id
+    ORDER BY COUNT(*) DESC
+    LIMIT given_limit;
 END //
 DELIMITER ;
 -- **************************************************************
@@ -377,26 +965,6 @@ BEGIN
 END //
 DELIMITER ;
 
--- memberAccountNumberLookup
-DELIMITER //
-CREATE PROCEDURE memberAccountNumberLookup(
-    given_member_id INT
-)
-BEGIN
-    -- creates exception member no matching member is found
-    DECLARE no_such_account_num CONDITION FOR SQLSTATE '45000';
-
-    IF given_member_id NOT IN (SELECT member_id FROM members)
-    THEN
-        SIGNAL no_such_account_num SET MESSAGE_TEXT = 'No such account_number exists';
-    END IF;
-
-    SELECT member_first_name, member_last_name
-    FROM members
-    WHERE member_id = given_member_id;
-END //
-DELIMITER ;
-
 -- cancelReceipt
 -- Here in case a receipt is cancelled--i.e, someone doesn't have enough to pay
 DROP PROCEDURE IF EXISTS cancelReceipt;
@@ -408,10 +976,13 @@ BEGIN
     -- returned_inventory_id is AUTO INCREMENT and DATETIME is NOW()
     INSERT INTO returned_inventory (item_id, store_id, employee, item_qty)
     -- multiple rows are added into returned_inventory table
-    SELECT DISTINCT item_id, storeIDFromReceiptID(given_receipt_id), CURRENT_USER(), COUNT(item_id)
+    SELECT receipt_details.item_id, storeIDFromReceiptID(given_receipt_id), CURRENT_USER(),
+        receipt_details.item_quantity
     FROM receipt_details
-    WHERE receipt_id = given_receipt_id
-    GROUP BY item_id;
+    JOIN receipts ON receipts.receipt_id = receipt_details.receipt_id
+    WHERE receipt_details.receipt_id = given_receipt_id
+    -- inventory is only taken when a receipt is finalized, so there's nothing to give back before then
+    AND receipts.receipt_date_time IS NOT NULL;
 
     -- remove all associated receipt details
     DELETE FROM receipt_details
@@ -422,36 +993,3 @@ BEGIN
     WHERE receipt_id = given_receipt_id;
 END //
 DELIMITER ;
--- finalizeReceipt
-DROP PROCEDURE IF EXISTS finalizeReceipt;
-DELIMITER //
-CREATE PROCEDURE finalizeReceipt(
-    given_receipt_id INT,
-    given_cash DECIMAL(9,2)
-)
-BEGIN
-    -- spit out an error if given_cash is less than receipt_total
-
-    UPDATE receipts
-    SET receipt_subtotal
-    = (SELECT SUM(item_total) FROM receipt_details WHERE receipt_id = given_receipt_id)
-    -- avoid wasting time and only change the receipt_detail that correspond to the receipt
-    WHERE receipt_id = given_receipt_id;
-
-    UPDATE receipts
-    SET receipt_total = receipt_subtotal * (1 + receiptsStateTax(given_receipt_id))
-    WHERE receipt_id = given_receipt_id;
-
-    UPDATE receipts
-    SET receipt_date_time = NOW()
-    WHERE receipt_id = given_receipt_id;
-
-    UPDATE receipts
-    SET receipt_charge = given_cash
-    WHERE receipt_id = given_receipt_id;
-
-    UPDATE receipts
-    SET receipt_change_due = receipt_charge - receipt_total
-    WHERE receipt_id = given_receipt_id;
-END //
-DELIMITER ;
@@ -88,11 +88,16 @@ CREATE TABLE items
     -- default ensures no issues when calculations are done on the entire column
     item_price DECIMAL(9,2) DEFAULT 0.00,
     -- range from 0% to 99%
-    item_discount_percentage DECIMAL(2,2) DEFAULT 0.00
+    item_discount_percentage DECIMAL(2,2) DEFAULT 0.00,
+    -- bumped on every change so registers can refresh their local item catalog with only what changed
+    item_last_modified DATETIME(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3)
 );
 -- items are scanned in order to pull it up from the table, so this index speeds up that process
 CREATE INDEX idx_upc
 ON items (item_upc);
+-- registers poll for recently changed items, so this index keeps that from scanning the whole table
+CREATE INDEX idx_item_last_modified
+ON items (item_last_modified);
 -- CREATES TABLE MEMBERS
 -- Basically, this stores whomever rewards members are. Rewards are able to access the given savings,
 -- while nonmembers always pay the full price.
@@ -128,9 +133,16 @@ CREATE TABLE receipts
     -- could use JOIN statements to get the same info, but indexing the database takes more time--i.e.,
     -- might as well store this value here too since it's unchanging
     receipt_cashier_full_name VARCHAR(128) NOT NULL,
+    -- idempotency key for the sale on its register, so a retried checkout or a replay never records it twice:
+    -- the sale's id in the register's local journal, or a negative key the register made up if it isn't journaled;
+    -- NULL for a sale with neither, such as a receipt written up item by item and finalized by its receipt_id
+    receipt_journal_id BIGINT,
     CONSTRAINT receipts_fk_registers FOREIGN KEY (register_id) REFERENCES registers(register_id),
     CONSTRAINT receipts_fk_members FOREIGN KEY (member_id) REFERENCES members(member_id)
 );
+-- a sale with a key can only be recorded once per register
+CREATE UNIQUE INDEX idx_receipt_journal
+ON receipts (register_id, receipt_journal_id);
 -- CREATES RECEIPT_DETAILS TABLE
 -- *WARNING* must create receipts table first
 CREATE TABLE receipt_details
@@ -138,13 +150,15 @@ CREATE TABLE receipt_details
 	-- foreign keys
 	receipt_id INT NOT NULL,
     item_id INT NOT NULL,
-    item_quantity INT NOT NULL,
+    -- repeated scans add to it rather than adding rows
+    item_quantity INT NOT NULL DEFAULT 1,
     item_total DECIMAL(9,2) DEFAULT 0.0,
     --
     -- The following are copied from the items table since these values can change in that table.
     --
     item_price DECIMAL(9,2) DEFAULT 0.00,
     item_discount_percentage DECIMAL(2,2) DEFAULT 0.00,
+    CONSTRAINT pk_receipt_details PRIMARY KEY (receipt_id, item_id),
     CONSTRAINT details_fk_receipts FOREIGN KEY (receipt_id) REFERENCES receipts(receipt_id),
     CONSTRAINT details_fk_items FOREIGN KEY (item_id) REFERENCES items(item_id)
 );
@@ -158,12 +172,18 @@ CREATE TABLE cashier_assignments_audit
     action_type ENUM('Sign in', 'Sign out'),
     action_date DATETIME DEFAULT NOW()
 );
--- CREATES ACCUMULATIVE_SALES_PER_PRODUCT
-CREATE TABLE accumulative_sales_per_product
+-- CREATES STORE_SALES_PER_PRODUCT TABLE
+-- Each store's totals per item; the chain's are summed from it by the accumulative_sales_per_product view below.
+-- *WARNING* must create stores and items tables first
+CREATE TABLE store_sales_per_product
 (
-    item_id INT,
-    sold_qty INT DEFAULT 0,
-    total_sales DECIMAL(10,2) DEFAULT 0.0
+    store_id INT NOT NULL,
+    item_id INT NOT NULL,
+    sold_qty INT NOT NULL DEFAULT 0,
+    total_sales DECIMAL(10,2) NOT NULL DEFAULT 0.0,
+    CONSTRAINT pk_store_sales_per_product PRIMARY KEY (store_id, item_id),
+    CONSTRAINT store_sales_fk_stores FOREIGN KEY (store_id) REFERENCES stores(store_id),
+    CONSTRAINT store_sales_fk_items FOREIGN KEY (item_id) REFERENCES items(item_id)
 );
 -- CREATES INVENTORY TABLE
 CREATE TABLE inventory (
@@ -184,4 +204,15 @@ CREATE TABLE returned_inventory (
     -- used to store CURRENT_USER()
     employee VARCHAR(64) NOT NULL,
     date_time DATETIME DEFAULT NOW()
-);
\ No newline at end of file
+);
+-- CREATES ACCUMULATIVE_SALES_PER_PRODUCT VIEW
+-- The chain's totals for each item, summed from store_sales_per_product when read, so finalizing a sale never has to
+-- update a row shared by the whole chain. Items which have never sold show up at zero.
+-- *WARNING* must create items and store_sales_per_product tables first
+CREATE VIEW accumulative_sales_per_product AS
+SELECT items.item_id,
+    COALESCE(SUM(store_sales_per_product.sold_qty), 0) AS sold_qty,
+    COALESCE(SUM(store_sales_per_product.total_sales), 0.00) AS total_sales
+FROM items
+    LEFT JOIN store_sales_per_product ON store_sales_per_product.item_id = items.item_id
+GROUP BY items.item_id;
@@ -0,0 +1,173 @@
+package com.github.tylerjpohlman.database.register.controller_classes;
+
+import com.github.tylerjpohlman.database.register.helper_classes.BasketLine;
+import com.github.tylerjpohlman.database.register.helper_classes.Item;
+import com.github.tylerjpohlman.database.register.helper_classes.LatencyHistogram;
+
+import javafx.application.Platform;
+import javafx.scene.Scene;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures what a basket of thousands of lines costs the main window's item list, comparing the list as it was
+ * (default cells formatting every line's text each time it's shown, rows measured one by one, and a
+ * {@link Platform#runLater} per line added) with the current one ({@link BasketLineCell} at a fixed height, lines added
+ * through an {@link FxBatchExecutor}). <p>
+ * For each version a list the size of the main window's is filled with the lines, timed until it's been laid out, and
+ * then scrolled from top to bottom a page at a time, timing the layout after each page. The list is laid out directly
+ * rather than shown in a window, so no display is needed as long as JavaFX can start; on a machine without one, run
+ * with {@code -Dglass.platform=Monocle -Dmonocle.platform=Headless -Dprism.order=sw} and Monocle on the module path,
+ * or under {@code xvfb-run}. <p>
+ * Usage: {@code BasketListBenchmark [lines]}, run through the jmh profile with {@code -Djmh.main} (see pom.xml),
+ * 10,000 lines by default. Each version is run once to warm up first.
+ * @author Tyler Pohlman
+ * @version 1.0, Date Created: 2026-10-17
+ * @lastModified 2026-10-17
+ */
+public class BasketListBenchmark {
+    /**
+     * Lines in the basket unless given on the command line.
+     */
+    public static final int DEFAULT_LINES = 10_000;
+    /**
+     * Same size as the item list in the main window.
+     */
+    private static final double LIST_WIDTH = 391;
+    private static final double LIST_HEIGHT = 305;
+
+    /**
+     * Results of a single run.
+     * @param version String representing the version measured, legacy or current
+     * @param insertMillis double representing the time from the first line being handed over until the list was laid
+     *                     out with all of them
+     * @param scrollPages {@link LatencyHistogram} of the layout after scrolling each page
+     */
+    private record Result(String version, double insertMillis, LatencyHistogram scrollPages) {
+        @Override
+        public String toString() {
+            return version + ": insert=" + String.format("%.1f", insertMillis) + "ms, scroll per page " + scrollPages;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int lineCount = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_LINES;
+
+        CountDownLatch started = new CountDownLatch(1);
+        Platform.startup(started::countDown);
+        started.await();
+
+        try {
+            for (boolean current : new boolean[]{false, true}) {
+                //warm up, with new lines each time so no text is already formatted
+                run(sampleLines(lineCount), current);
+                System.out.println(run(sampleLines(lineCount), current));
+            }
+        } finally {
+            Platform.exit();
+        }
+    }
+
+    private static Result run(List<BasketLine> lines, boolean current) throws Exception {
+        ListView<BasketLine> listView = onFxThread(() -> {
+            ListView<BasketLine> list = new ListView<>();
+            if (current) {
+                BasketLineCell.install(list);
+            } else {
+                list.setCellFactory(view -> new LegacyCell());
+            }
+            new Scene(list, LIST_WIDTH, LIST_HEIGHT);
+            layOut(list);
+            return list;
+        });
+
+        //adds every line the way scan results arrive, then waits for them all to be laid out
+        Executor fxThread = current ? new FxBatchExecutor() : Platform::runLater;
+        long start = System.nanoTime();
+        for (BasketLine line : lines) {
+            fxThread.execute(() -> listView.getItems().add(line));
+        }
+        //handed over the same way, so it runs after the last line is added
+        CompletableFuture<Void> laidOut = new CompletableFuture<>();
+        fxThread.execute(() -> {
+            layOut(listView);
+            laidOut.complete(null);
+        });
+        laidOut.get(5, TimeUnit.MINUTES);
+        double insertMillis = (System.nanoTime() - start) / 1_000_000.0;
+
+        LatencyHistogram scrollPages = onFxThread(() -> {
+            LatencyHistogram pages = new LatencyHistogram();
+            int rowsPerPage = (int) (LIST_HEIGHT / BasketLineCell.HEIGHT);
+            for (int row = 0; row < lines.size(); row += rowsPerPage) {
+                long pageStart = System.nanoTime();
+                listView.scrollTo(row);
+                layOut(listView);
+                pages.record(System.nanoTime() - pageStart);
+            }
+            return pages;
+        });
+
+        return new Result(current ? "current" : "legacy", insertMillis, scrollPages);
+    }
+
+    /**
+     * Does what a frame would: applies CSS and lays the list out, creating and filling whichever cells are in view.
+     */
+    private static void layOut(ListView<BasketLine> listView) {
+        listView.applyCss();
+        listView.layout();
+    }
+
+    /**
+     * Runs a task on the JavaFX Application Thread and waits for it, after everything handed over before it.
+     */
+    private static <T> T onFxThread(Callable<T> task) throws Exception {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Platform.runLater(() -> {
+            try {
+                result.complete(task.call());
+            } catch (Exception e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result.get(5, TimeUnit.MINUTES);
+    }
+
+    /**
+     * A basket of distinct items, some with more than one unit, named like a catering order.
+     */
+    private static List<BasketLine> sampleLines(int lineCount) {
+        List<BasketLine> lines = new ArrayList<>(lineCount);
+        for (int i = 0; i < lineCount; i++) {
+            Item item = new Item(900_000_000_000L + i, "Catering tray #" + i, 199 + (i % 500) * 7, i % 4 == 0 ? 10 : 0);
+            lines.add(new BasketLine(item, 1 + i % 3));
+        }
+        return lines;
+    }
+
+    /**
+     * The list's default cell as it was, formatting the line's text every time it's shown.
+     */
+    private static class LegacyCell extends ListCell<BasketLine> {
+        @Override
+        protected void updateItem(BasketLine line, boolean empty) {
+            super.updateItem(line, empty);
+            if (empty || line == null) {
+                setText(null);
+            } else if (line.getQuantity() == 1) {
+                setText(line.getItem().toString());
+            } else {
+                setText(line.getItem() + " x" + line.getQuantity());
+            }
+        }
+    }
+}
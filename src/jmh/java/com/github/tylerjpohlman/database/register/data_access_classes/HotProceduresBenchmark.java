@@ -0,0 +1,244 @@
+package com.github.tylerjpohlman.database.register.data_access_classes;
+
+import com.github.tylerjpohlman.database.register.helper_classes.LatencyHistogram;
+
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+
+/**
+ * Measures each call to the procedures every sale makes, and the ones replaying offline sales, as the register sees
+ * it, round trip included, comparing the versions they replaced (the {@code legacy_} procedures) with the current
+ * ones. <p>
+ * Runs against a real server, which should be a local scratch copy of hvs grown to benchmark size: run
+ * benchmark_hot_procedures_hvs.sql to install the legacy procedures, then {@code CALL benchmarkPopulate()}. It leaves
+ * the receipts it creates behind, as {@code benchmarkHotProcedures} does. Items, members, and receipts are picked the
+ * same way that procedure picks them, stepping through them with a large prime, so the two can be compared; the
+ * difference is the time spent between the register and the server. Every result set is read to the end, as the
+ * register would. <p>
+ * Usage: {@code HotProceduresBenchmark <url> <username> <password> [calls]}, where the url is given as on the login
+ * screen, e.g., {@code localhost:3306/hvs}, run through the jmh profile with {@code -Djmh.main}. Each version of each
+ * procedure is called 10,000 times by default, after a tenth as many calls to warm up.
+ * @author Tyler Pohlman
+ * @version 1.0, Date Created: 2026-10-17
+ * @lastModified 2026-10-17
+ */
+public class HotProceduresBenchmark {
+    /**
+     * Calls measured for each version of each procedure unless given on the command line.
+     */
+    public static final int DEFAULT_CALLS = 10_000;
+    private static final int STEP = 7919;
+
+    /**
+     * First UPC added by benchmarkPopulate, which adds 1,000,000 in a row, along with 100,000 members and 1,000,000
+     * receipts.
+     */
+    private static final long FIRST_BENCHMARK_UPC = 900_000_000_000L;
+    private static final int BENCHMARK_ITEMS = 1_000_000;
+    private static final int BENCHMARK_MEMBERS = 100_000;
+    private static final int BENCHMARK_RECEIPTS = 1_000_000;
+
+    /**
+     * Binds the parameters of the given call.
+     */
+    @FunctionalInterface
+    private interface Binder {
+        void bind(PreparedStatement ps, int call) throws SQLException;
+    }
+
+    public static void main(String[] args) throws SQLException {
+        if (args.length < 3) {
+            System.err.println("Usage: HotProceduresBenchmark <url> <username> <password> [calls]");
+            System.exit(1);
+        }
+        int calls = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_CALLS;
+        int warmUpCalls = Math.max(1, calls / 10);
+        int total = warmUpCalls + calls;
+
+        try (ConnectionPool pool = new ConnectionPool("jdbc:mysql://" + args[0], args[1], args[2]);
+             PooledConnection connection = pool.borrow()) {
+            int registerId = selectInt(connection, "SELECT MIN(register_id) FROM registers");
+            int firstReceiptId = selectInt(connection,
+                    "SELECT MIN(receipt_id) FROM receipts WHERE receipt_cashier_full_name = 'Benchmark Cashier'");
+            int firstMemberId = selectInt(connection,
+                    "SELECT MIN(member_id) FROM members WHERE member_first_name = 'Benchmark'");
+            //journal ids no earlier run can have used, so every createJournaledReceipt call creates a receipt
+            long journalBase = System.currentTimeMillis() / 1000 * 10_000_000L;
+
+            Timer timer = new Timer(connection, warmUpCalls, calls);
+
+            timer.compare("itemUPCLookup", "CALL legacy_itemUPCLookup(?)", "CALL itemUPCLookup(?)",
+                    (ps, call) -> ps.setString(1, upc(call)));
+            timer.compare("memberPhoneLookup", "CALL legacy_memberPhoneLookup(?)", "CALL memberPhoneLookup(?)",
+                    (ps, call) -> ps.setString(1, String.format("555%07d", (long) call * STEP % BENCHMARK_MEMBERS)));
+            timer.compare("memberAccountNumberLookup", "CALL legacy_memberAccountNumberLookup(?)",
+                    "CALL memberAccountNumberLookup(?)",
+                    (ps, call) -> ps.setLong(1, firstMemberId + (long) call * STEP % BENCHMARK_MEMBERS));
+            timer.compare("createReceipt", "CALL legacy_createReceipt(?, NULL)", "CALL createReceipt(?, NULL)",
+                    (ps, call) -> ps.setInt(1, registerId));
+
+            //each version onto a receipt of its own, so both insert every row rather than adding to one
+            int legacyReceiptId = createReceipt(connection, registerId);
+            int currentReceiptId = createReceipt(connection, registerId);
+            timer.compare("addItemToReceipt", "CALL legacy_addItemToReceipt(?, ?)", (ps, call) -> {
+                ps.setString(1, upc(call));
+                ps.setInt(2, legacyReceiptId);
+            }, "CALL addItemToReceipt(?, ?, 1)", (ps, call) -> {
+                ps.setString(1, upc(call));
+                ps.setInt(2, currentReceiptId);
+            });
+
+            //on the populated receipts, with 10 details each
+            timer.compare("getReceiptTotal", "SELECT legacy_getReceiptTotal(?, NULL)",
+                    "SELECT getReceiptTotal(?, NULL)",
+                    (ps, call) -> ps.setInt(1, firstReceiptId + (int) ((long) call * STEP % BENCHMARK_RECEIPTS)));
+
+            //switching one of the populated receipts between a member and none
+            int memberReceiptId = firstReceiptId + calls % BENCHMARK_RECEIPTS;
+            timer.compare("setReceiptMember", "CALL legacy_setReceiptMember(?, ?)", "CALL setReceiptMember(?, ?)",
+                    (ps, call) -> {
+                        ps.setInt(1, memberReceiptId);
+                        if (call % 2 == 0) {
+                            ps.setInt(2, firstMemberId + call % BENCHMARK_MEMBERS);
+                        } else {
+                            ps.setNull(2, Types.INTEGER);
+                        }
+                    });
+
+            //each call with a journal id of its own, so it creates a receipt
+            timer.compare("createJournaledReceipt", "CALL legacy_createJournaledReceipt(?, NULL, ?)", (ps, call) -> {
+                ps.setInt(1, registerId);
+                ps.setLong(2, journalBase + call);
+            }, "CALL createJournaledReceipt(?, NULL, ?)", (ps, call) -> {
+                ps.setInt(1, registerId);
+                ps.setLong(2, journalBase + total + call);
+            });
+
+            int legacyJournaledReceiptId = createReceipt(connection, registerId);
+            int currentJournaledReceiptId = createReceipt(connection, registerId);
+            timer.compare("addJournaledItemToReceipt", "CALL legacy_addJournaledItemToReceipt(?, ?, 1.99, 0.10, 1)",
+                    (ps, call) -> {
+                        ps.setString(1, upc(call));
+                        ps.setInt(2, legacyJournaledReceiptId);
+                    }, "CALL addJournaledItemToReceipt(?, ?, 1.99, 0.10, 1)", (ps, call) -> {
+                        ps.setString(1, upc(call));
+                        ps.setInt(2, currentJournaledReceiptId);
+                    });
+
+            //on receipts of one item each rung up beforehand, so only the finalizing is timed
+            int legacyPreparedId = prepareReceipts(connection, registerId, total);
+            int currentPreparedId = prepareReceipts(connection, registerId, total);
+            timer.compare("finalizeReceipt", "CALL legacy_finalizeReceipt(?, 1000.00)",
+                    (ps, call) -> ps.setInt(1, legacyPreparedId + call),
+                    "CALL finalizeReceipt(?, 1000.00)",
+                    (ps, call) -> ps.setInt(1, currentPreparedId + call));
+        }
+    }
+
+    /**
+     * Times the calls to each version of a procedure on the one connection, printing both.
+     */
+    private static class Timer {
+        private final PooledConnection connection;
+        private final int warmUpCalls;
+        private final int calls;
+
+        Timer(PooledConnection connection, int warmUpCalls, int calls) {
+            this.connection = connection;
+            this.warmUpCalls = warmUpCalls;
+            this.calls = calls;
+        }
+
+        /**
+         * Compares two versions taking the same parameters.
+         */
+        void compare(String name, String legacySql, String currentSql, Binder binder) throws SQLException {
+            compare(name, legacySql, binder, currentSql, binder);
+        }
+
+        void compare(String name, String legacySql, Binder legacyBinder, String currentSql, Binder currentBinder)
+                throws SQLException {
+            LatencyHistogram legacy = time(legacySql, legacyBinder);
+            LatencyHistogram current = time(currentSql, currentBinder);
+
+            System.out.println(name + ", per call:");
+            System.out.println("  legacy: " + legacy);
+            System.out.println("  current: " + current);
+        }
+
+        /**
+         * Makes every call in turn, the warm up ones first, so no two calls share their parameters.
+         */
+        private LatencyHistogram time(String sql, Binder binder) throws SQLException {
+            LatencyHistogram histogram = new LatencyHistogram();
+            PreparedStatement ps = connection.prepareStatement(sql);
+
+            for (int call = 0; call < warmUpCalls + calls; call++) {
+                binder.bind(ps, call);
+                long start = System.nanoTime();
+                execute(ps);
+                long nanos = System.nanoTime() - start;
+                if (call >= warmUpCalls) {
+                    histogram.record(nanos);
+                }
+            }
+            return histogram;
+        }
+    }
+
+    /**
+     * Runs the statement and reads every result it returns.
+     */
+    private static void execute(PreparedStatement ps) throws SQLException {
+        boolean isResultSet = ps.execute();
+        while (isResultSet || ps.getUpdateCount() != -1) {
+            if (isResultSet) {
+                try (ResultSet rs = ps.getResultSet()) {
+                    while (rs.next()) {
+                        rs.getString(1);
+                    }
+                }
+            }
+            isResultSet = ps.getMoreResults();
+        }
+    }
+
+    private static String upc(int call) {
+        return String.valueOf(FIRST_BENCHMARK_UPC + (long) call * STEP % BENCHMARK_ITEMS);
+    }
+
+    private static int selectInt(PooledConnection connection, String sql) throws SQLException {
+        try (ResultSet rs = connection.prepareStatement(sql).executeQuery()) {
+            if (!rs.next() || rs.getObject(1) == null) {
+                throw new SQLException("Nothing found for " + sql + "; run CALL benchmarkPopulate() first");
+            }
+            return rs.getInt(1);
+        }
+    }
+
+    private static int createReceipt(PooledConnection connection, int registerId) throws SQLException {
+        PreparedStatement ps = connection.prepareStatement("CALL createReceipt(?, NULL)");
+        ps.setInt(1, registerId);
+        try (ResultSet rs = ps.executeQuery()) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    /**
+     * Rings up receipts of one item each, ready to be finalized, with {@code benchmarkPrepareReceipts}.
+     * @return int representing the first receipt's id; the rest follow it
+     */
+    private static int prepareReceipts(PooledConnection connection, int registerId, int count) throws SQLException {
+        try (CallableStatement cs = connection.getConnection().prepareCall("CALL benchmarkPrepareReceipts(?, ?, ?)")) {
+            cs.setInt(1, registerId);
+            cs.setInt(2, count);
+            cs.registerOutParameter(3, Types.INTEGER);
+            cs.execute();
+            return cs.getInt(3);
+        }
+    }
+}
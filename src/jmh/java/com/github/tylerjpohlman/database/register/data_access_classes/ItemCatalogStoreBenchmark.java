@@ -0,0 +1,156 @@
+package com.github.tylerjpohlman.database.register.data_access_classes;
+
+import com.github.tylerjpohlman.database.register.helper_classes.Item;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+
+/**
+ * Measures what a store-wide catalog costs in memory and per lookup, comparing the boxed map the catalog used to be
+ * (a {@code ConcurrentHashMap<Long, Item>}) with {@link ItemCatalogStore}. <p>
+ * For each version the catalog is filled with synthetic items and the heap is measured after a full collection, both
+ * with the names and, since they're the same strings either way, without them. Lookups are then timed over UPCs in a
+ * scattered order, nine hits to every miss, along with the bytes each lookup allocates. Heap figures are only as
+ * exact as {@link Runtime} reports them, so run with a fixed heap, e.g., {@code -Xms2g -Xmx2g}, and nothing else in
+ * the JVM. <p>
+ * Usage: {@code ItemCatalogStoreBenchmark [items]}, run with the jmh profile's {@code -Djmh.main}, 1,000,000 items
+ * by default. Lookups are timed in rounds of 10,000,000 after one round to warm up, and the best round is reported.
+ * @author Tyler Pohlman
+ * @version 1.0, Date Created: 2026-10-17
+ * @lastModified 2026-10-17
+ */
+public class ItemCatalogStoreBenchmark {
+    /**
+     * Items in the catalog unless given on the command line.
+     */
+    public static final int DEFAULT_ITEMS = 1_000_000;
+    private static final int LOOKUPS_PER_ROUND = 10_000_000;
+    private static final int ROUNDS = 5;
+    private static final long FIRST_UPC = 100_000_000_000L;
+
+    /**
+     * Keeps each catalog reachable while its heap is measured.
+     */
+    private static Object retained;
+    /**
+     * Consumes lookup results so the lookups can't be optimized away.
+     */
+    private static long sink;
+
+    public static void main(String[] args) {
+        int itemCount = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ITEMS;
+        long[] lookups = lookupOrder(itemCount);
+
+        for (boolean current : new boolean[]{false, true}) {
+            run(itemCount, lookups, current);
+        }
+        if (sink == 42) {
+            System.out.println();
+        }
+    }
+
+    /**
+     * Measures one version. Kept out of main so nothing from the previous version is still reachable.
+     */
+    private static void run(int itemCount, long[] lookups, boolean current) {
+        long withNames = heapOf(() -> build(itemCount, current, true));
+        long withoutNames = heapOf(() -> build(itemCount, current, false));
+        LongFunction<Item> catalog = build(itemCount, current, true);
+
+        double bestNanos = Double.MAX_VALUE;
+        long allocatedBytes = 0;
+        for (int round = 0; round <= ROUNDS; round++) {
+            long allocatedBefore = allocatedBytes();
+            long start = System.nanoTime();
+            for (long upc : lookups) {
+                Item item = catalog.apply(upc);
+                sink += item == null ? 0 : item.getPriceCents();
+            }
+            double nanos = (double) (System.nanoTime() - start) / lookups.length;
+            //the first round is only a warm up
+            if (round > 0 && nanos < bestNanos) {
+                bestNanos = nanos;
+                allocatedBytes = allocatedBytes() - allocatedBefore;
+            }
+        }
+
+        System.out.printf("%s, %,d items:%n", current ? "current" : "legacy", itemCount);
+        System.out.printf("  heap: %.1fMB (%.1f bytes per item), %.1fMB without names (%.1f bytes per item)%n",
+                withNames / 1024.0 / 1024.0, (double) withNames / itemCount,
+                withoutNames / 1024.0 / 1024.0, (double) withoutNames / itemCount);
+        System.out.printf("  lookup: %.1fns, %.1f bytes allocated per lookup%n", bestNanos,
+                allocatedBytes < 0 ? Double.NaN : (double) allocatedBytes / lookups.length);
+    }
+
+    /**
+     * Fills a catalog the way the background load does.
+     * @param names boolean representing whether items get names, or share a single one
+     * @return the catalog's lookup
+     */
+    private static LongFunction<Item> build(int itemCount, boolean current, boolean names) {
+        if (current) {
+            ItemCatalogStore store = new ItemCatalogStore();
+            for (int i = 0; i < itemCount; i++) {
+                store.put(sampleItem(i, names));
+            }
+            return store::get;
+        }
+
+        Map<Long, Item> map = new ConcurrentHashMap<>();
+        for (int i = 0; i < itemCount; i++) {
+            Item item = sampleItem(i, names);
+            map.put(item.getUpc(), item);
+        }
+        return map::get;
+    }
+
+    private static Item sampleItem(int i, boolean names) {
+        return new Item(FIRST_UPC + i, names ? "Catalog item " + i : "Catalog item", 99 + i % 5_000, i % 4 * 10);
+    }
+
+    /**
+     * @return long representing the bytes the catalog built by the task holds on the heap
+     */
+    private static long heapOf(Supplier<Object> task) {
+        long before = usedHeap();
+        retained = task.get();
+        long after = usedHeap();
+        retained = null;
+        return after - before;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * @return long representing the bytes this thread has allocated so far, or -1 if the JVM can't say
+     */
+    private static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean jdkThreads) {
+            return jdkThreads.getCurrentThreadAllocatedBytes();
+        }
+        return -1;
+    }
+
+    /**
+     * UPCs to look up, scattered over the catalog, with every tenth one not in it.
+     */
+    private static long[] lookupOrder(int itemCount) {
+        long[] upcs = new long[LOOKUPS_PER_ROUND];
+        for (int i = 0; i < upcs.length; i++) {
+            long index = (i * 7919L) % itemCount;
+            upcs[i] = i % 10 == 9 ? FIRST_UPC + itemCount + index : FIRST_UPC + index;
+        }
+        return upcs;
+    }
+}
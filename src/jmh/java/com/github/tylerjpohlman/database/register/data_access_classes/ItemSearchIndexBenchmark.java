@@ -0,0 +1,156 @@
+package com.github.tylerjpohlman.database.register.data_access_classes;
+
+import com.github.tylerjpohlman.database.register.helper_classes.LatencyHistogram;
+
+import java.util.Locale;
+
+/**
+ * Measures searching a store-wide catalog by name as the cashier types, comparing {@link ItemSearchIndex} with
+ * scanning every name for the words typed so far, which is what a search without an index would have to do. <p>
+ * The catalog is synthetic, built from a small vocabulary of brands, descriptions, and products, so most words are
+ * shared by tens of thousands of items; that makes the posting lists far longer than a real catalog's and is close to
+ * the index's worst case. The time and heap taken to build the index are reported first. Each query is then typed a
+ * character at a time and every keystroke is timed, including a few queries with typos, which only the index finds.
+ * <p>
+ * Usage: {@code ItemSearchIndexBenchmark [items]} under the jmh profile's {@code -Djmh.main}, 500,000 items by
+ * default. Every query is typed 20 times, after 20 more times to warm up, returning up to 50 results as the lookup
+ * window does.
+ * @author Tyler Pohlman
+ * @version 1.0, Date Created: 2026-10-17
+ * @lastModified 2026-10-17
+ */
+public class ItemSearchIndexBenchmark {
+    /**
+     * Items in the catalog unless given on the command line.
+     */
+    public static final int DEFAULT_ITEMS = 500_000;
+    private static final int ROUNDS = 20;
+    private static final int RESULT_LIMIT = 50;
+    private static final long FIRST_UPC = 700_000_000_000L;
+
+    private static final String[] BRANDS = {"Organic", "Great Value", "Farm Fresh", "Hometown", "Sunny Day",
+            "Golden Acre", "Blue Ridge", "Harvest Moon", "Prairie", "Coastal"};
+    private static final String[] DESCRIPTIONS = {"Gala", "Whole", "Low Fat", "Honey Crisp", "Sliced", "Smoked",
+            "Sweet", "Spicy", "Unsalted", "Frozen", "Baby", "Wild"};
+    private static final String[] PRODUCTS = {"Apples", "Bananas", "Milk", "Bread", "Cheddar", "Turkey", "Salmon",
+            "Peppers", "Butter", "Spinach", "Carrots", "Yogurt", "Almonds", "Coffee", "Tortillas", "Rice"};
+    private static final String[] SIZES = {"1 lb", "2 lb", "3 lb", "12 oz", "16 oz", "1 gal", "half gal", "6 ct"};
+    /**
+     * Typed a character at a time; the last three are misspelled.
+     */
+    private static final String[] QUERIES = {"organic gala apples", "whole milk 1 gal", "smoked salmon",
+            "harvest moon coffee 12 oz", "bananna", "orgnic gal", "chedar"};
+
+    /**
+     * Consumes search results so the searches can't be optimized away.
+     */
+    private static long sink;
+
+    public static void main(String[] args) {
+        int itemCount = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ITEMS;
+        String[] names = sampleNames(itemCount);
+
+        long heapBefore = usedHeap();
+        long buildStart = System.nanoTime();
+        ItemSearchIndex index = new ItemSearchIndex();
+        for (int i = 0; i < names.length; i++) {
+            index.add(FIRST_UPC + i, names[i]);
+        }
+        double buildMillis = (System.nanoTime() - buildStart) / 1_000_000.0;
+        long indexBytes = usedHeap() - heapBefore;
+        System.out.printf("%,d items indexed in %.0fms, %.1fMB of heap%n", index.size(), buildMillis,
+                indexBytes / 1024.0 / 1024.0);
+
+        String[] lowerCaseNames = new String[names.length];
+        for (int i = 0; i < names.length; i++) {
+            lowerCaseNames[i] = names[i].toLowerCase(Locale.ROOT);
+        }
+
+        for (String query : QUERIES) {
+            LatencyHistogram indexed = new LatencyHistogram();
+            LatencyHistogram scanned = new LatencyHistogram();
+            int indexedResults = 0;
+            int scannedResults = 0;
+
+            for (int round = 0; round < ROUNDS * 2; round++) {
+                //the first half of the rounds are only a warm up
+                boolean measured = round >= ROUNDS;
+                for (int typed = 1; typed <= query.length(); typed++) {
+                    String keystroke = query.substring(0, typed);
+
+                    long start = System.nanoTime();
+                    long[] found = index.search(keystroke, RESULT_LIMIT);
+                    long indexNanos = System.nanoTime() - start;
+
+                    start = System.nanoTime();
+                    int matches = scan(lowerCaseNames, keystroke);
+                    long scanNanos = System.nanoTime() - start;
+
+                    sink += found.length + matches;
+                    if (measured) {
+                        indexed.record(indexNanos);
+                        scanned.record(scanNanos);
+                        indexedResults = found.length;
+                        scannedResults = matches;
+                    }
+                }
+            }
+
+            System.out.printf("\"%s\", per keystroke (matches for the whole query):%n", query);
+            System.out.println("  index (" + indexedResults + "): " + indexed);
+            System.out.println("  scan (" + scannedResults + "): " + scanned);
+        }
+        if (sink == 42) {
+            System.out.println();
+        }
+    }
+
+    /**
+     * Counts the names containing every word typed so far. Every name is checked, since the best matches can't be
+     * picked out until all of them have been found.
+     */
+    private static int scan(String[] lowerCaseNames, String query) {
+        String[] words = query.toLowerCase(Locale.ROOT).trim().split("\\s+");
+        int matches = 0;
+
+        for (String name : lowerCaseNames) {
+            boolean match = true;
+            for (String word : words) {
+                if (!name.contains(word)) {
+                    match = false;
+                    break;
+                }
+            }
+            if (match) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Unique names made of a brand, description, product, and size, numbered once every combination is used.
+     */
+    private static String[] sampleNames(int itemCount) {
+        String[] names = new String[itemCount];
+        int combinations = BRANDS.length * DESCRIPTIONS.length * PRODUCTS.length * SIZES.length;
+
+        for (int i = 0; i < itemCount; i++) {
+            int combination = i % combinations;
+            String name = BRANDS[combination % BRANDS.length] + ' '
+                    + DESCRIPTIONS[combination / BRANDS.length % DESCRIPTIONS.length] + ' '
+                    + PRODUCTS[combination / (BRANDS.length * DESCRIPTIONS.length) % PRODUCTS.length] + ' '
+                    + SIZES[combination / (BRANDS.length * DESCRIPTIONS.length * PRODUCTS.length)];
+            names[i] = i < combinations ? name : name + " #" + (i / combinations);
+        }
+        return names;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
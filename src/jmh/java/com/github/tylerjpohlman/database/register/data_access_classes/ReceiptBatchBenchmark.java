@@ -0,0 +1,144 @@
+package com.github.tylerjpohlman.database.register.data_access_classes;
+
+import com.github.tylerjpohlman.database.register.helper_classes.BasketLine;
+import com.github.tylerjpohlman.database.register.helper_classes.Item;
+import com.github.tylerjpohlman.database.register.helper_classes.LatencyHistogram;
+import com.github.tylerjpohlman.database.register.helper_classes.Money;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures the time from handing a basket to the database until its amount due is known, comparing the old way of
+ * adding the lines (a {@code CALL addItemToReceipt} round trip per line, each committed on its own, then the total)
+ * with {@link JdbcUserDAOImpl#getReceiptTotal}, which sends them as one batch in a single transaction. <p>
+ * Runs against a real server, which should be a local scratch copy of hvs: it logs in as a cashier and leaves the
+ * receipts it creates unfinalized. The baskets are made of the items added by {@code CALL benchmarkPopulate()} from
+ * benchmark_hot_procedures_hvs.sql, so run that first. <p>
+ * Usage: {@code ReceiptBatchBenchmark <url> <username> <password> <register number> [runs]}, where the url is given
+ * as on the login screen, e.g., {@code localhost:3306/hvs}; pass them in {@code -Djmh.args} along with
+ * {@code -Djmh.main} naming this class, under the jmh profile. Baskets of 10, 100, and 1,000 lines are each timed 20
+ * times by default, after a run of each to warm up.
+ * @author Tyler Pohlman
+ * @version 1.0, Date Created: 2026-10-17
+ * @lastModified 2026-10-17
+ */
+public class ReceiptBatchBenchmark {
+    /**
+     * Runs measured for each basket size unless given on the command line.
+     */
+    public static final int DEFAULT_RUNS = 20;
+    private static final int[] BASKET_SIZES = {10, 100, 1_000};
+
+    /**
+     * First UPC added by benchmarkPopulate, which adds 1,000,000 in a row.
+     */
+    private static final long FIRST_BENCHMARK_UPC = 900_000_000_000L;
+    private static final int BENCHMARK_ITEMS = 1_000_000;
+
+    private static final String LEGACY_ADD_ITEM_TO_RECEIPT_SQL = "CALL addItemToReceipt(?,?,1)";
+    private static final String GET_RECEIPT_TOTAL_SQL = "SELECT getReceiptTotal(?,?)";
+
+    public static void main(String[] args) throws SQLException {
+        if (args.length < 4) {
+            System.err.println("Usage: ReceiptBatchBenchmark <url> <username> <password> <register number> [runs]");
+            System.exit(1);
+        }
+        String url = "jdbc:mysql://" + args[0];
+        int runCount = args.length > 4 ? Integer.parseInt(args[4]) : DEFAULT_RUNS;
+
+        JdbcUserDAOImpl dao = new JdbcUserDAOImpl(url, args[1], args[2], Integer.parseInt(args[3]));
+        try (ConnectionPool legacyPool = new ConnectionPool(url, args[1], args[2])) {
+            awaitCatalog(dao.getItemCatalog());
+
+            int firstItem = 0;
+            for (int size : BASKET_SIZES) {
+                LatencyHistogram legacy = new LatencyHistogram();
+                LatencyHistogram current = new LatencyHistogram();
+
+                //the first run of each is only a warm up
+                for (int run = 0; run <= runCount; run++) {
+                    //new items each time, so every line is an insert rather than an update of a row already there
+                    List<BasketLine> basket = sampleBasket(firstItem, size);
+                    firstItem += size;
+                    long legacyNanos = timeLegacy(legacyPool, dao.createReceipt(null), basket);
+
+                    basket = sampleBasket(firstItem, size);
+                    firstItem += size;
+                    int receiptNumber = dao.createReceipt(null);
+                    long start = System.nanoTime();
+                    dao.getReceiptTotal(basket, receiptNumber, null);
+                    long currentNanos = System.nanoTime() - start;
+
+                    if (run > 0) {
+                        legacy.record(legacyNanos);
+                        current.record(currentNanos);
+                    }
+                }
+
+                System.out.println(size + " lines, time to amount due:");
+                System.out.println("  legacy: " + legacy);
+                System.out.println("  current: " + current);
+            }
+        } finally {
+            dao.close();
+        }
+    }
+
+    /**
+     * Waits for the login's catalog to finish loading, so its bulk read isn't competing with the baskets.
+     */
+    private static void awaitCatalog(ItemCatalog catalog) {
+        while (!catalog.isWarm() && catalog.getFailedRefreshes() == 0) {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Adds the lines the way getReceiptTotal used to, one round trip and commit each, then reads the total.
+     * @return long representing the nanoseconds taken
+     */
+    private static long timeLegacy(ConnectionPool pool, int receiptNumber, List<BasketLine> basket)
+            throws SQLException {
+        long start = System.nanoTime();
+        try (PooledConnection pooledConnection = pool.borrow()) {
+            PreparedStatement addItem = pooledConnection.prepareStatement(LEGACY_ADD_ITEM_TO_RECEIPT_SQL);
+            for (BasketLine line : basket) {
+                addItem.setLong(1, line.getUpc());
+                addItem.setInt(2, receiptNumber);
+                addItem.execute();
+            }
+
+            PreparedStatement total = pooledConnection.prepareStatement(GET_RECEIPT_TOTAL_SQL);
+            total.setInt(1, receiptNumber);
+            total.setNull(2, Types.INTEGER);
+            try (ResultSet rs = total.executeQuery()) {
+                while (rs.next()) {
+                    Money.parse(rs.getString(1));
+                }
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * A basket of distinct benchmark items, one of each.
+     */
+    private static List<BasketLine> sampleBasket(int firstItem, int size) {
+        List<BasketLine> lines = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            long upc = FIRST_BENCHMARK_UPC + (firstItem + i) % BENCHMARK_ITEMS;
+            lines.add(new BasketLine(new Item(upc, "Benchmark item", 0, 0), 1));
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,107 @@
+package com.github.tylerjpohlman.database.register.helper_classes;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares totalling a member's basket with {@code double}s, as the register used to, with {@link BigDecimal} and
+ * with the {@code long} cents of {@link Money} and {@link PricingEngine}. <p>
+ * Each benchmark discounts every line, rounds it to cents the way {@code detailsPrice} does (the {@code double}
+ * version rounds nothing, as before), sums the lines, and adds tax. Prices and rates are converted into each
+ * representation up front, as they would be when the item is loaded, so only the totalling is timed. Run with
+ * {@code mvn -Pjmh verify}; add {@code -Djmh.args="MoneyBenchmark -prof gc"} to see what each allocates per
+ * basket.
+ * @author Tyler Pohlman
+ * @version 1.0, Date Created: 2026-10-17
+ * @lastModified 2026-10-17
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MoneyBenchmark {
+    /**
+     * Same as a store in a state with 7% sales tax.
+     */
+    private static final int TAX_RATE = 7;
+    private static final double DOUBLE_TAX_RATE = 0.07;
+    private static final BigDecimal BIG_DECIMAL_TAX_MULTIPLIER = new BigDecimal("1.07");
+
+    @Param({"10", "100", "1000"})
+    public int lines;
+
+    private Item[] items;
+    private int[] quantities;
+    private double[] doublePrices;
+    private double[] doubleDiscounts;
+    private BigDecimal[] bigDecimalPrices;
+    private BigDecimal[] bigDecimalMultipliers;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        items = new Item[lines];
+        quantities = new int[lines];
+        doublePrices = new double[lines];
+        doubleDiscounts = new double[lines];
+        bigDecimalPrices = new BigDecimal[lines];
+        bigDecimalMultipliers = new BigDecimal[lines];
+
+        for (int i = 0; i < lines; i++) {
+            long priceCents = 1 + random.nextInt(10_000);
+            int discountRate = random.nextInt(4) == 0 ? random.nextInt(Money.MAX_RATE + 1) : 0;
+            items[i] = new Item(800_000_000_000L + i, "Item " + i, priceCents, discountRate);
+            quantities[i] = random.nextInt(5) == 0 ? 1 + random.nextInt(6) : 1;
+
+            doublePrices[i] = priceCents / 100.0;
+            doubleDiscounts[i] = discountRate / 100.0;
+            bigDecimalPrices[i] = BigDecimal.valueOf(priceCents, 2);
+            bigDecimalMultipliers[i] = BigDecimal.ONE.subtract(BigDecimal.valueOf(discountRate, 2));
+        }
+    }
+
+    @Benchmark
+    public double doubleTotal() {
+        double subtotal = 0;
+        for (int i = 0; i < lines; i++) {
+            subtotal += doublePrices[i] * (1 - doubleDiscounts[i]) * quantities[i];
+        }
+        return subtotal * (1 + DOUBLE_TAX_RATE);
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalTotal() {
+        BigDecimal subtotal = BigDecimal.ZERO;
+        for (int i = 0; i < lines; i++) {
+            BigDecimal unitPrice = bigDecimalPrices[i].multiply(bigDecimalMultipliers[i])
+                    .setScale(2, RoundingMode.HALF_UP);
+            subtotal = subtotal.add(unitPrice.multiply(BigDecimal.valueOf(quantities[i])));
+        }
+        return subtotal.multiply(BIG_DECIMAL_TAX_MULTIPLIER).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    @Benchmark
+    public long fixedPointTotal() {
+        PricingEngine engine = new PricingEngine(TAX_RATE, true);
+        for (int i = 0; i < lines; i++) {
+            engine.add(items[i], quantities[i]);
+        }
+        return engine.getTotal();
+    }
+}
@@ -0,0 +1,147 @@
+package com.github.tylerjpohlman.database.register.helper_classes;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures what the running total costs the register on a large basket, and checks that it still agrees with the
+ * database's arithmetic. <p>
+ * A 1,000-line basket is scanned into a {@link PricingEngine} one line at a time, reading the total after every scan
+ * the way the main window does, and the time per scan and for the whole basket is reported. The basket is then
+ * re-priced from scratch after every scan, which is what working the total out from the basket list each time would
+ * cost, for comparison. <p>
+ * The reconciliation check prices random baskets, with and without a member, both with the engine and with
+ * {@link BigDecimal} rounded the way the database stores each value ({@code detailsPrice} into
+ * {@code receipt_details.item_total}, then {@code getReceiptTotal} into {@code receipts.receipt_total}), and counts
+ * any basket where the two differ by even a cent. <p>
+ * Usage: {@code PricingEngineBenchmark [lines] [baskets]}, named by {@code -Djmh.main} under the jmh profile; 1,000
+ * lines and 100,000 reconciled baskets by default. Exits with status 1 if any basket didn't reconcile.
+ * @author Tyler Pohlman
+ * @version 1.0, Date Created: 2026-10-17
+ * @lastModified 2026-10-17
+ */
+public class PricingEngineBenchmark {
+    /**
+     * Lines in the timed basket unless given on the command line.
+     */
+    public static final int DEFAULT_LINES = 1_000;
+    /**
+     * Baskets reconciled unless given on the command line.
+     */
+    public static final int DEFAULT_BASKETS = 100_000;
+    private static final int ROUNDS = 200;
+    /**
+     * Same as a store in a state with 7% sales tax.
+     */
+    private static final int TAX_RATE = 7;
+
+    /**
+     * Consumes totals so the pricing can't be optimized away.
+     */
+    private static long sink;
+
+    public static void main(String[] args) {
+        int lineCount = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_LINES;
+        int basketCount = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_BASKETS;
+        Random random = new Random(42);
+
+        List<BasketLine> basket = sampleBasket(random, lineCount);
+        double runningNanos = best(() -> scanRunning(basket));
+        double repricedNanos = best(() -> scanRepricing(basket));
+        System.out.printf("%,d line basket, total read after every scan:%n", lineCount);
+        System.out.printf("  running total: %.1fus per basket, %.1fns per scan%n", runningNanos / 1_000,
+                runningNanos / lineCount);
+        System.out.printf("  re-priced each scan: %.1fus per basket, %.1fns per scan%n", repricedNanos / 1_000,
+                repricedNanos / lineCount);
+
+        int mismatches = 0;
+        for (int i = 0; i < basketCount; i++) {
+            List<BasketLine> lines = sampleBasket(random, 1 + random.nextInt(120));
+            boolean member = random.nextBoolean();
+            PricingEngine engine = new PricingEngine(TAX_RATE, member);
+            engine.addAll(lines);
+            if (!engine.reconcile(databaseTotal(lines, member))) {
+                mismatches++;
+            }
+        }
+        System.out.printf("reconciliation: %,d of %,d baskets differed from the database's arithmetic%n",
+                mismatches, basketCount);
+        if (mismatches > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Scans the basket into a running total, reading the total after each line.
+     */
+    private static void scanRunning(List<BasketLine> basket) {
+        PricingEngine engine = new PricingEngine(TAX_RATE, true);
+        for (BasketLine line : basket) {
+            engine.add(line.getItem(), line.getQuantity());
+            sink += engine.getTotal();
+        }
+    }
+
+    /**
+     * Scans the basket, pricing every line so far from scratch after each one.
+     */
+    private static void scanRepricing(List<BasketLine> basket) {
+        for (int scanned = 1; scanned <= basket.size(); scanned++) {
+            PricingEngine engine = new PricingEngine(TAX_RATE, true);
+            engine.addAll(basket.subList(0, scanned));
+            sink += engine.getTotal();
+        }
+    }
+
+    /**
+     * Times the task over several rounds, after as many to warm up.
+     * @return double representing the fastest round in nanoseconds
+     */
+    private static double best(Runnable task) {
+        double best = Double.MAX_VALUE;
+        for (int round = 0; round < ROUNDS * 2; round++) {
+            long start = System.nanoTime();
+            task.run();
+            long nanos = System.nanoTime() - start;
+            if (round >= ROUNDS) {
+                best = Math.min(best, nanos);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Works out the total the way the database does, in exact decimals rounded into each column's type.
+     */
+    private static long databaseTotal(List<BasketLine> lines, boolean member) {
+        BigDecimal subtotal = BigDecimal.ZERO;
+        for (BasketLine line : lines) {
+            BigDecimal price = Money.toBigDecimal(line.getItem().getPriceCents());
+            BigDecimal discount = member ? BigDecimal.valueOf(line.getItem().getDiscountRate(), 2) : BigDecimal.ZERO;
+            BigDecimal unitPrice = price.multiply(BigDecimal.ONE.subtract(discount))
+                    .setScale(2, RoundingMode.HALF_UP);
+            subtotal = subtotal.add(unitPrice.multiply(BigDecimal.valueOf(line.getQuantity())));
+        }
+        BigDecimal total = subtotal.multiply(BigDecimal.ONE.add(BigDecimal.valueOf(TAX_RATE, 2)))
+                .setScale(2, RoundingMode.HALF_UP);
+        return total.movePointRight(2).longValueExact();
+    }
+
+    /**
+     * Distinct items at prices from a few cents to a few hundred dollars, some discounted and some bought several
+     * at a time.
+     */
+    private static List<BasketLine> sampleBasket(Random random, int lineCount) {
+        List<BasketLine> lines = new ArrayList<>(lineCount);
+        for (int i = 0; i < lineCount; i++) {
+            long priceCents = 1 + random.nextInt(random.nextBoolean() ? 1_000 : 50_000);
+            int discountRate = random.nextInt(4) == 0 ? random.nextInt(Money.MAX_RATE + 1) : 0;
+            Item item = new Item(800_000_000_000L + i, "Item " + i, priceCents, discountRate);
+            lines.add(new BasketLine(item, random.nextInt(5) == 0 ? 1 + random.nextInt(6) : 1));
+        }
+        return lines;
+    }
+}
@@ -1,26 +1,90 @@
 package com.github.tylerjpohlman.database.register;
 
+import com.github.tylerjpohlman.database.register.controller_classes.FxThreadStallMonitor;
+import com.github.tylerjpohlman.database.register.controller_classes.IntroductionController;
+import com.github.tylerjpohlman.database.register.controller_classes.NavigationMetrics;
+import com.github.tylerjpohlman.database.register.controller_classes.SceneRegistry;
+import com.github.tylerjpohlman.database.register.controller_classes.StartupTimer;
+import com.github.tylerjpohlman.database.register.data_access_classes.ConnectionPool;
+
 import javafx.application.Application;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Scene;
+import javafx.application.Platform;
 import javafx.stage.Stage;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 public class RegisterApplication extends Application {
+    /**
+     * System property which, when true, exits as soon as the login screen is up and everything started in the
+     * background with it is done. Used by the build to record which classes startup loads into a CDS archive.
+     */
+    public static final String EXIT_AFTER_STARTUP_PROPERTY = "register.exitAfterStartup";
+
+    /**
+     * Only created when launched with -Dregister.monitorFxStalls=true
+     */
+    private FxThreadStallMonitor stallMonitor;
+    /**
+     * Only created when launched with -Dregister.monitorNavigation=true
+     */
+    private NavigationMetrics navigationMetrics;
+
     @Override
     public void start(Stage stage) throws IOException {
-        //had to manually path to fxml file b/c resources file is set under 'controller_classes' package
-        FXMLLoader fxmlLoader = new FXMLLoader(getClass().getResource("/com/github/tylerjpohlman/database/register/controller_classes/introduction-view.fxml"));
+        StartupTimer.mark(StartupTimer.Phase.TOOLKIT_STARTED);
 
-        Scene scene = new Scene(fxmlLoader.load(), 600, 400);
+        if (FxThreadStallMonitor.isEnabled()) {
+            stallMonitor = new FxThreadStallMonitor();
+            stallMonitor.start();
+        }
+
+        SceneRegistry sceneRegistry = new SceneRegistry(stage);
+        if (NavigationMetrics.isEnabled()) {
+            navigationMetrics = new NavigationMetrics(sceneRegistry.isCaching());
+            sceneRegistry.setMetrics(navigationMetrics);
+        }
 
         stage.setTitle("Register Application");
-        stage.setScene(scene);
-        stage.show();
+        sceneRegistry.show(IntroductionController.introductionFXMLFile);
+        CompletableFuture<Void> loginScreenReady = new CompletableFuture<>();
+        sceneRegistry.runAfterLayout(() -> {
+            StartupTimer.mark(StartupTimer.Phase.LOGIN_SCREEN_READY);
+            loginScreenReady.complete(null);
+        });
+
+        //the driver and the rest of the windows load while the cashier logs in
+        CompletableFuture<Void> driverLoaded = CompletableFuture.runAsync(() -> {
+            ConnectionPool.loadDriver();
+            StartupTimer.mark(StartupTimer.Phase.DRIVER_LOADED);
+        }, task -> Thread.ofPlatform().daemon().name("driver-preload").start(task));
+        CompletableFuture<Void> viewsPreloaded = sceneRegistry.preload()
+                .thenRun(() -> StartupTimer.mark(StartupTimer.Phase.VIEWS_PRELOADED));
+
+        if (Boolean.getBoolean(EXIT_AFTER_STARTUP_PROPERTY)) {
+            CompletableFuture.allOf(loginScreenReady, driverLoaded, viewsPreloaded).thenRun(Platform::exit);
+        }
+    }
+
+    @Override
+    public void stop() {
+        //each report is only printed when its own property asked for it
+        if (stallMonitor != null) {
+            stallMonitor.stop();
+            if (FxThreadStallMonitor.isEnabled()) {
+                System.out.println(stallMonitor);
+            }
+        }
+        if (navigationMetrics != null && NavigationMetrics.isEnabled()) {
+            System.out.println(navigationMetrics);
+        }
+        if (StartupTimer.isEnabled()) {
+            System.out.println(StartupTimer.report());
+        }
     }
 
     public static void main(String[] args) {
+        StartupTimer.mark(StartupTimer.Phase.MAIN_ENTERED);
         launch();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,150 @@
+package com.github.tylerjpohlman.database.register;
+
+import com.github.tylerjpohlman.database.register.controller_classes.StartupTimer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Measures how the application starts from the runtime image built by {@code mvn -Pimage clean package}: how much
+ * disk the image takes, how long until the login screen is first ready to be drawn, and the most memory the process
+ * held while starting. <p>
+ * Each run launches the image's own {@code java} with {@code -Dregister.exitAfterStartup=true}, so the application
+ * exits once the login screen is up and the driver and windows have loaded behind it, and with
+ * {@code -Dregister.monitorStartup=true}, so it prints {@link StartupTimer}'s report on the way out; the times and
+ * memory are read from that report. Like the application itself it needs a display, or {@code xvfb-run}; the peak
+ * memory is only known on Linux. <p>
+ * Usage: {@code StartupBenchmark <image directory> [runs]}, 5 runs by default, after one run to warm up the disk
+ * cache.
+ * @author Tyler Pohlman
+ * @version 1.0, Date Created: 2026-10-17
+ * @lastModified 2026-10-17
+ */
+public class StartupBenchmark {
+    /**
+     * Runs measured unless given on the command line.
+     */
+    public static final int DEFAULT_RUNS = 5;
+
+    private static final String MAIN_MODULE = RegisterApplication.class.getModule().getName();
+    private static final Pattern LOGIN_SCREEN_READY = Pattern.compile("login screen ready: ([0-9.,]+)");
+    private static final Pattern PEAK_RSS = Pattern.compile("peak RSS: ([0-9]+)KB");
+
+    /**
+     * Results of a single run.
+     * @param firstFrameMillis double representing the milliseconds from the JVM starting until the login screen was
+     *                         ready to be drawn
+     * @param exitMillis double representing the milliseconds from launching the process until it exited
+     * @param peakResidentKilobytes long representing the most memory resident at once, or -1 if unknown
+     */
+    private record Run(double firstFrameMillis, double exitMillis, long peakResidentKilobytes) {}
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1) {
+            System.err.println("Usage: StartupBenchmark <image directory> [runs]");
+            System.exit(1);
+        }
+        Path image = Path.of(args[0]);
+        int runCount = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_RUNS;
+
+        Path java = image.resolve("bin").resolve(isWindows() ? "java.exe" : "java");
+        if (!Files.isExecutable(java)) {
+            throw new IllegalArgumentException(image + " isn't a runtime image: no " + java);
+        }
+
+        run(java);
+        List<Run> runs = new ArrayList<>();
+        for (int i = 0; i < runCount; i++) {
+            runs.add(run(java));
+        }
+
+        System.out.println(report(image, runs));
+    }
+
+    /**
+     * Starts the application from the image once and waits for it to exit by itself.
+     */
+    private static Run run(Path java) throws IOException, InterruptedException {
+        ProcessBuilder processBuilder = new ProcessBuilder(java.toString(),
+                "-D" + RegisterApplication.EXIT_AFTER_STARTUP_PROPERTY + "=true",
+                "-D" + StartupTimer.ENABLED_PROPERTY + "=true",
+                "--module", MAIN_MODULE + "/" + RegisterApplication.class.getName());
+        processBuilder.redirectErrorStream(true);
+
+        long start = System.nanoTime();
+        Process process = processBuilder.start();
+        StringBuilder output = new StringBuilder();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                output.append(line).append('\n');
+            }
+        }
+        int exitCode = process.waitFor();
+        double exitMillis = (System.nanoTime() - start) / 1_000_000.0;
+
+        Matcher firstFrame = LOGIN_SCREEN_READY.matcher(output);
+        if (exitCode != 0 || !firstFrame.find()) {
+            throw new IllegalStateException("The application didn't start (exit code " + exitCode + "):\n" + output);
+        }
+        Matcher peakResident = PEAK_RSS.matcher(output);
+
+        //the report is formatted in the default locale, which may use a decimal comma
+        return new Run(Double.parseDouble(firstFrame.group(1).replace(',', '.')), exitMillis,
+                peakResident.find() ? Long.parseLong(peakResident.group(1)) : -1);
+    }
+
+    private static String report(Path image, List<Run> runs) throws IOException {
+        List<Double> firstFrame = new ArrayList<>();
+        List<Double> exit = new ArrayList<>();
+        List<Double> peakResident = new ArrayList<>();
+        for (Run run : runs) {
+            firstFrame.add(run.firstFrameMillis());
+            exit.add(run.exitMillis());
+            if (run.peakResidentKilobytes() >= 0) {
+                peakResident.add((double) run.peakResidentKilobytes());
+            }
+        }
+
+        return String.format("Runtime image %s: %.1fMB on disk, %d runs%n", image, sizeOf(image) / 1024.0 / 1024.0,
+                runs.size())
+                + String.format("  first frame: median=%.1fms, min=%.1fms%n", median(firstFrame),
+                        Collections.min(firstFrame))
+                + String.format("  launch to exit: median=%.1fms%n", median(exit))
+                + (peakResident.isEmpty() ? "  peak RSS: unknown"
+                        : String.format("  peak RSS: median=%.1fMB", median(peakResident) / 1024));
+    }
+
+    private static double median(List<Double> values) {
+        List<Double> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+        int middle = sorted.size() / 2;
+        return sorted.size() % 2 == 1 ? sorted.get(middle) : (sorted.get(middle - 1) + sorted.get(middle)) / 2;
+    }
+
+    /**
+     * @return long representing the bytes taken by every file in the directory
+     */
+    private static long sizeOf(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            long bytes = 0;
+            for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                bytes += Files.size(file);
+            }
+            return bytes;
+        }
+    }
+
+    private static boolean isWindows() {
+        return System.getProperty("os.name").startsWith("Windows");
+    }
+}
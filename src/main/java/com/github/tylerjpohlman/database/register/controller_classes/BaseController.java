@@ -1,21 +1,21 @@
 package com.github.tylerjpohlman.database.register.controller_classes;
 
+import com.github.tylerjpohlman.database.register.data_access_classes.AsyncJdbcUserDAO;
 import com.github.tylerjpohlman.database.register.data_access_classes.JdbcUserDAO;
+import com.github.tylerjpohlman.database.register.data_access_classes.TransactionJournal;
 import com.github.tylerjpohlman.database.register.helper_classes.ClosedConnectionException;
-import com.github.tylerjpohlman.database.register.helper_classes.Item;
-import com.github.tylerjpohlman.database.register.helper_classes.Member;
 
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Node;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.Label;
-import javafx.stage.Stage;
+import javafx.util.Duration;
 
 import java.io.IOException;
 import java.sql.SQLException;
-import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
 
 /**
  * An abstract superclass used for the functionality between controller classes which inherit it. </p>
@@ -23,10 +23,20 @@ import java.util.ArrayList;
  * the controllers and associated fxml files. Likewise, it also contains the {@link JdbcUserDAO} class which is
  * used by all the controllers to interface with the backend database. Any newly created controller class should extend
  * this class. Any use of backend database should utilize {@link JdbcUserDAO} class which is declared as
- * {@link #jdbcUserDAO}.
+ * {@link #jdbcUserDAO}. <p>
+ * Event handlers shouldn't call {@link #jdbcUserDAO} directly since that blocks the JavaFX Application Thread for a
+ * whole network round trip. Instead, they should go through {@link #asyncJdbcUserDAO} and hand the returned future to
+ * {@link #whenDoneOnFxThread}, which runs the follow-up UI work back on the JavaFX Application Thread. <p>
+ * Losing the connection doesn't end the transaction. The data access object reconnects in the background while the
+ * basket stays where it is, and {@link #waitForReconnect} picks up where the cashier left off once it's back. While
+ * the register has a {@link TransactionJournal}, the sale can also be finished offline, see {@link #canRingOffline()}.
+ * Only a login the database rejects sends the cashier back to the login screen. <p>
+ * Each window is loaded once by the {@link SceneRegistry} and its controller reused, so switching windows hands the
+ * {@link Transaction} over by reference and calls {@link #resetView()} to clear whatever the window showed last time.
+ * Callbacks which outlive their window should go through {@link #whenDoneWhileShown} instead.
  * @author Tyler Pohlman
  * @version 1.0, Date Created: 2023-11-14
- * @lastModified 2024-08-19
+ * @lastModified 2026-10-17
  */
 public abstract class BaseController {
     /**
@@ -48,17 +58,21 @@ public abstract class BaseController {
 
 
     /**
-     * Associated Member found in MySQL database
+     * Data Access Object used to interface with MySQL database.
      */
-    protected Member member = null;
+    protected JdbcUserDAO jdbcUserDAO = null;
     /**
-     * List containing all the items added to the current session. Used to persist the list between windows.
+     * Asynchronous wrapper around {@link #jdbcUserDAO}, used so event handlers don't block on the database.
      */
-    protected ArrayList<Item> itemsList = new ArrayList<>(); //need to initialize to avoid null pointer error
+    protected AsyncJdbcUserDAO asyncJdbcUserDAO = null;
     /**
-     * Data Access Object used to interface with MySQL database.
+     * The sale being rung up, shared by every window rather than copied between them; null until logged in.
      */
-    protected JdbcUserDAO jdbcUserDAO = null;
+    protected Transaction transaction = null;
+    /**
+     * Loaded every window, including this one; set when this controller's FXML file is loaded.
+     */
+    SceneRegistry sceneRegistry = null;
 
 
     /**
@@ -68,115 +82,187 @@ public abstract class BaseController {
      * @throws ClosedConnectionException if there's an issue when reaching the database
      */
     protected void goToMainWindow(ActionEvent event) throws ClosedConnectionException, IOException {
-        MainController mainController =
-                (MainController) goToNextWindow(MainController.mainFXMLFile, event, jdbcUserDAO, member);
+        MainController mainController = goToNextWindow(mainFXMLFile, MainController.class);
 
         mainController.setAddressLabel();
-        mainController.setMemberLabel();
-
-        //persist the item list across windows
-        for(Item item: itemsList) {
-            mainController.addedItemsList.getItems().add(item);
-        }
     }
 
     /**
-     * Sets the current window to the lookup window. </p>
-     * WARNING: This method can only be invoked from {@link MainController}.
-     * Otherwise, a runtime exception will occur.
+     * Sets the current window to the lookup window.
      * @param event {@link ActionEvent} representing a button click
      * @throws IOException if error occurs when loading FXML file
      * @throws ClosedConnectionException if there's an issue when reaching the database
      */
     protected void goToLookupWindow(ActionEvent event) throws ClosedConnectionException, IOException {
-        LookupController lookupController
-                = (LookupController) goToNextWindow(itemLookupFXMLFile,event, jdbcUserDAO, member);
-
-        //persist the item list across windows
-        lookupController.itemsList.addAll(((MainController) this).addedItemsList.getItems());
+        goToNextWindow(itemLookupFXMLFile, LookupController.class);
     }
 
     /**
-     * Sets the current window to the membership window. </p>
-     * WARNING: This method can only be invoked from {@link MainController}.
-     * Otherwise, a runtime exception will occur.
+     * Sets the current window to the membership window.
      * @param event {@link ActionEvent} representing a button click
      * @throws IOException if error occurs when loading FXML file
      * @throws ClosedConnectionException if there's an issue when reaching the database
      */
     protected void goToMemberWindow(ActionEvent event) throws ClosedConnectionException, IOException {
-        MemberController memberController
-                = (MemberController) goToNextWindow(memberFXMLFile, event, jdbcUserDAO, member);
-
-        //persist the item list across windows
-        memberController.itemsList.addAll(((MainController) this).addedItemsList.getItems());
+        goToNextWindow(memberFXMLFile, MemberController.class);
     }
 
     /**
-     * Sets the current window to the payment window. </p>
-     * WARNING: This method can only be invoked from {@link MainController}.
-     * Otherwise, a runtime exception will occur.
+     * Sets the current window to the payment window. If the receipt was written while scanning, only its total is
+     * fetched; otherwise the receipt is created and totalled in the background once the window is showing. The
+     * payment window keeps the finished {@link #transaction} until a new one is started.
      * @param event {@link ActionEvent} representing a button click
      * @throws IOException if error occurs when loading FXML file
-     * @throws SQLException if there's an issue when reaching the database
+     * @throws ClosedConnectionException if there's an issue when reaching the database
      */
-    protected void goToPayWindow(ActionEvent event) throws SQLException, IOException {
-        PayController payController
-                = (PayController) goToNextWindow(payFXMLFile,event, jdbcUserDAO, member);
-
-        //persist the item list across windows
-        payController.itemsList.addAll(((MainController) this).addedItemsList.getItems());
-
-        int receiptNumber;
-        double amountDue;
+    protected void goToPayWindow(ActionEvent event) throws ClosedConnectionException, IOException {
+        PayController payController = goToNextWindow(payFXMLFile, PayController.class);
 
-        receiptNumber = jdbcUserDAO.createReceipt(member);
-        amountDue = jdbcUserDAO.getReceiptTotal(payController.itemsList, receiptNumber, member);
+        //shows the running total right away while the database's total is fetched
+        payController.showEstimatedTotal();
 
-        payController.setReceiptNumber(receiptNumber);
-        payController.setAmountTotalLabel(amountDue);
-
-        //reset all applicable fields for a new transaction
-        payController.member = null;
-        payController.itemsList.clear();
+        if (transaction.getReceiptWriter() != null) {
+            payController.awaitReceiptTotal();
+        }
+        //nothing is in the database yet, so the whole sale goes in at once when it's paid for
+        else if (!payController.prepareCheckout()) {
+            payController.calculateReceiptTotal();
+        }
     }
 
     /**
      * Sets the current window to a new window given the name of that window's FXML file. Used a helper class for </p>
-     * for all the other goTo[]Window methods.
+     * for all the other goTo[]Window methods. The window comes from the {@link SceneRegistry}, which only loads it the
+     * first time, and is handed the login and {@link #transaction} before {@link #resetView()} is called on it.
      * <p></p>
      * @param fileName name of FXML file
-     * @param event {@link ActionEvent} representing a button click
-     * @param jdbcUserDAO {@link JdbcUserDAO} data access object used to interface with the database
-     * @param member {@link Member} associated membership information
-     * @return {@link BaseController} associated with the loaded FXML file
+     * @param controllerClass class of the FXML file's controller
+     * @return controller associated with the FXML file
+     * @param <T> type of the FXML file's controller
      * @throws IOException if error occurs when loading FXML file
-     * @throws ClosedConnectionException if there's an issue when reaching the database
+     * @throws ClosedConnectionException if the session has ended and a new login is needed
      */
-    private BaseController goToNextWindow(String fileName, ActionEvent event, JdbcUserDAO jdbcUserDAO, Member member)
+    private <T extends BaseController> T goToNextWindow(String fileName, Class<T> controllerClass)
             throws IOException, ClosedConnectionException {
 
-        if(jdbcUserDAO.isConnectionNotReachable()) {
+        //switching windows doesn't need the database, so only a session which can't come back stops it
+        if(jdbcUserDAO.isSessionLost()) {
             throw new ClosedConnectionException();
         }
 
-        FXMLLoader fxmlLoader = new FXMLLoader(getClass().getResource(fileName));
-        Parent root = fxmlLoader.load();//instantiates all the objects in the FXML file
-        //grabs the Stage object using the Event object
-        Stage stage = (Stage) ((Node) event.getSource()).getScene().getWindow();
+        T controller = controllerClass.cast(sceneRegistry.show(fileName));
+        controller.jdbcUserDAO = jdbcUserDAO;//passes jdbcUserDAO instance to controller
+        controller.asyncJdbcUserDAO = asyncJdbcUserDAO;
+        controller.transaction = transaction;//passes the sale itself, so nothing is copied
+        controller.resetView();
+        return controller;
+    }
 
-        Scene scene = new Scene(root);
-        stage.setScene(scene);
-        stage.show();
+    /**
+     * Puts the window back the way it was when its FXML file was first loaded, since the same window is reused each
+     * time it's shown. Called every time the window is switched to, after it's been handed the transaction.
+     */
+    protected void resetView() {
+    }
 
-        BaseController baseController = fxmlLoader.getController();//grabs associated controller generated above
-        baseController.jdbcUserDAO = jdbcUserDAO;//passes jdbcUserDAO instance to controller
-        baseController.member = member;//passes membership information to controller
-        return baseController;
+
+    /**
+     * Checks whether a sale can be rung up and finished without the database, i.e., the register has a
+     * {@link TransactionJournal} to record it in until the database is back.
+     * @return true if sales can be finished offline
+     */
+    protected boolean canRingOffline() {
+        return jdbcUserDAO != null && jdbcUserDAO.getTransactionJournal() != null;
     }
 
+    /**
+     * Runs the given callbacks on the JavaFX Application Thread once the future finishes. Exceptions are unwrapped
+     * from any {@link CompletionException} before being handed to {@code onFailure}.
+     * @param future {@link CompletableFuture} usually returned by {@link #asyncJdbcUserDAO}
+     * @param onSuccess called with the future's result if it completed normally
+     * @param onFailure called with the underlying exception if it failed
+     * @param <T> type of the future's result
+     */
+    protected <T> void whenDoneOnFxThread(CompletableFuture<T> future, Consumer<T> onSuccess,
+                                          Consumer<Throwable> onFailure) {
+        future.whenComplete((result, error) -> Platform.runLater(() -> {
+            if (error == null) {
+                onSuccess.accept(result);
+            } else {
+                onFailure.accept(unwrap(error));
+            }
+        }));
+    }
 
+    /**
+     * Same as {@link #whenDoneOnFxThread}, but drops the result if the window has been switched away from in the
+     * meantime. Since windows are reused, a late result would otherwise land in the window the next time it's shown.
+     * @param future {@link CompletableFuture} usually returned by {@link #asyncJdbcUserDAO}
+     * @param onSuccess called with the future's result if it completed normally
+     * @param onFailure called with the underlying exception if it failed
+     * @param <T> type of the future's result
+     */
+    protected <T> void whenDoneWhileShown(CompletableFuture<T> future, Consumer<T> onSuccess,
+                                          Consumer<Throwable> onFailure) {
+        long shownAs = sceneRegistry.getNavigationCount();
+        whenDoneOnFxThread(future, result -> {
+            if (sceneRegistry.getNavigationCount() == shownAs) {
+                onSuccess.accept(result);
+            }
+        }, error -> {
+            if (sceneRegistry.getNavigationCount() == shownAs) {
+                onFailure.accept(error);
+            }
+        });
+    }
 
+    /**
+     * @param error {@link Throwable} a future completed with
+     * @return the exception inside any {@link CompletionException} wrapping
+     */
+    protected static Throwable unwrap(Throwable error) {
+        Throwable cause = error;
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    /**
+     * Checks whether an exception was caused by the database being unreachable rather than by bad input.
+     * @param error {@link Throwable} thrown by a database call
+     * @return true if the connection is closed or the server can't be reached
+     */
+    protected static boolean isConnectionProblem(Throwable error) {
+        if (error instanceof ClosedConnectionException) {
+            return true;
+        }
+        //SQLSTATE class 08 covers every connection exception
+        return error instanceof SQLException sqlException && sqlException.getSQLState() != null
+                && sqlException.getSQLState().startsWith("08");
+    }
+
+    /**
+     * Waits out a dropped connection instead of ending the transaction. The cashier is told the register is
+     * reconnecting, and the given action runs once the session is back, as long as the window is still showing; if
+     * the database rejects the login instead, this returns to the login screen.
+     * @param errorLabel {@link Label} object used for displaying errors
+     * @param onResumed run on the JavaFX Application Thread once reconnected, or null
+     */
+    protected void waitForReconnect(Label errorLabel, Runnable onResumed) {
+        if (jdbcUserDAO == null || jdbcUserDAO.isSessionLost()) {
+            setErrorLabelAndGoBackToIntroduction(errorLabel);
+            return;
+        }
+
+        errorLabel.setText("Reconnecting to the store's system...");
+        whenDoneWhileShown(jdbcUserDAO.awaitSession(), resumed -> {
+            errorLabel.setText("");
+            if (onResumed != null) {
+                onResumed.run();
+            }
+        }, error -> setErrorLabelAndGoBackToIntroduction(errorLabel));
+    }
 
     /**
      * Sets the error label to text saying connection is closed and returns to the login screen.
@@ -185,20 +271,27 @@ public abstract class BaseController {
      * @param event {@link ActionEvent} object representing button click
      */
     protected void setErrorLabelAndGoBackToIntroduction(Label errorLabel, ActionEvent event) {
-            errorLabel.setText("Connection is closed... Now returning to login screen");
-            //pauses thread to show error text
-            try {
-                Thread.sleep(4000);
-            } catch (InterruptedException ex) {
-                throw new RuntimeException(ex);
-            }
+        setErrorLabelAndGoBackToIntroduction(errorLabel);
+    }
 
-            //goes back to log in screen
-            try {
-                goToIntroductionWindow(event);
-            } catch (IOException ex) {
-                throw new RuntimeException(ex);
-            }
+    /**
+     * Sets the error label to text saying connection is closed and returns to the login screen after a short pause.
+     * The pause runs on a timer rather than sleeping, so the window keeps painting while the message is shown.
+     * @param errorLabel {@link Label} object used for displaying errors
+     */
+    protected void setErrorLabelAndGoBackToIntroduction(Label errorLabel) {
+            errorLabel.setText("Connection is closed... Now returning to login screen");
+            //pauses to show error text
+            PauseTransition pause = new PauseTransition(Duration.seconds(4));
+            pause.setOnFinished(finished -> {
+                //goes back to log in screen
+                try {
+                    goToIntroductionWindow();
+                } catch (IOException ex) {
+                    throw new RuntimeException(ex);
+                }
+            });
+            pause.play();
     }
     /**
      * Sets the current window to the introduction window.
@@ -206,13 +299,23 @@ public abstract class BaseController {
      * @throws IOException if error occurs while loading FXML file
      */
     protected void goToIntroductionWindow(ActionEvent event) throws IOException {
-        FXMLLoader fxmlLoader = new FXMLLoader(getClass().getResource(IntroductionController.introductionFXMLFile));
-        Parent root = fxmlLoader.load();//instantiates all the objects in the FXML file
-        //grab the Stage object using the Event object
-        Stage stage = (Stage) ((Node) event.getSource()).getScene().getWindow();
-
-        Scene scene = new Scene(root);
-        stage.setScene(scene);
-        stage.show();
+        goToIntroductionWindow();
+    }
+
+    /**
+     * Sets the current window to the introduction window, which starts over with an empty basket.
+     * @throws IOException if error occurs while loading FXML file
+     */
+    private void goToIntroductionWindow() throws IOException {
+        //the transaction is dropped, so don't write any more of its receipt
+        if (transaction != null) {
+            transaction.close();
+        }
+        //the next login creates its own connections, so drop the ones from this session
+        if (jdbcUserDAO != null) {
+            jdbcUserDAO.close();
+        }
+
+        sceneRegistry.show(IntroductionController.introductionFXMLFile).resetView();
     }
 }
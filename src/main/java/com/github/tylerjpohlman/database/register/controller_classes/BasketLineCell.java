@@ -0,0 +1,38 @@
+package com.github.tylerjpohlman.database.register.controller_classes;
+
+import com.github.tylerjpohlman.database.register.helper_classes.BasketLine;
+
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+
+/**
+ * Row of the basket in {@link MainController}'s item list. <p>
+ * Shows the text each {@link BasketLine} formats once and keeps, so a row being reused as the list scrolls only swaps
+ * which string it shows. Every row is the same height, {@link #HEIGHT}, so {@link #install} gives the list a fixed
+ * cell size: the list then places rows by their index rather than measuring each one, which keeps scrolling a basket of
+ * thousands of lines as cheap as scrolling a short one.
+ * @author Tyler Pohlman
+ * @version 1.0, Date Created: 2026-10-17
+ * @lastModified 2026-10-17
+ */
+public class BasketLineCell extends ListCell<BasketLine> {
+    /**
+     * Height of every row in pixels, fitting the item's name and price on two lines.
+     */
+    public static final double HEIGHT = 40;
+
+    /**
+     * Shows the list's lines with this cell, at a fixed height.
+     * @param listView {@link ListView} showing a basket
+     */
+    public static void install(ListView<BasketLine> listView) {
+        listView.setFixedCellSize(HEIGHT);
+        listView.setCellFactory(list -> new BasketLineCell());
+    }
+
+    @Override
+    protected void updateItem(BasketLine line, boolean empty) {
+        super.updateItem(line, empty);
+        setText(empty || line == null ? null : line.toString());
+    }
+}
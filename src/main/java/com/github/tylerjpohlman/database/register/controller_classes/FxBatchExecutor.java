@@ -0,0 +1,57 @@
+package com.github.tylerjpohlman.database.register.controller_classes;
+
+import javafx.application.Platform;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs tasks handed over from any thread on the JavaFX Application Thread, batching them. <p>
+ * Tasks handed over while a batch is waiting to run join that batch, so a burst of results--e.g., a few hundred scans
+ * answered from the item catalog at once--takes one {@link Platform#runLater} rather than one each, and their changes
+ * to the basket are laid out together in the next frame. A batch runs at most {@link #MAX_TASKS_PER_BATCH} tasks
+ * before leaving the rest for the next one, so a flood of tasks can't hold up drawing. Tasks run in the order they
+ * were handed over.
+ * @author Tyler Pohlman
+ * @version 1.0, Date Created: 2026-10-17
+ * @lastModified 2026-10-17
+ */
+public class FxBatchExecutor implements Executor {
+    /**
+     * Most tasks run in one batch.
+     */
+    public static final int MAX_TASKS_PER_BATCH = 500;
+
+    private final Queue<Runnable> pending = new ConcurrentLinkedQueue<>();
+    /**
+     * Set while a batch is waiting to run, so only one is ever waiting.
+     */
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+    @Override
+    public void execute(Runnable task) {
+        pending.add(task);
+        if (scheduled.compareAndSet(false, true)) {
+            Platform.runLater(this::runBatch);
+        }
+    }
+
+    private void runBatch() {
+        //cleared first, so a task handed over from here on schedules the next batch rather than being missed
+        scheduled.set(false);
+
+        try {
+            Runnable task;
+            for (int i = 0; i < MAX_TASKS_PER_BATCH && (task = pending.poll()) != null; i++) {
+                task.run();
+            }
+        } finally {
+            //a task which throws still leaves the rest to run
+            if (!pending.isEmpty() && scheduled.compareAndSet(false, true)) {
+                Platform.runLater(this::runBatch);
+            }
+        }
+    }
+}
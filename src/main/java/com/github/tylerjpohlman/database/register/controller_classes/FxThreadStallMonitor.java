@@ -0,0 +1,78 @@
+package com.github.tylerjpohlman.database.register.controller_classes;
+
+import com.github.tylerjpohlman.database.register.helper_classes.LatencyHistogram;
+
+import javafx.animation.AnimationTimer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long the JavaFX Application Thread goes without rendering a frame. <p>
+ * JavaFX pulses roughly every 16 ms while an {@link AnimationTimer} is running, so any longer gap between pulses is
+ * time the thread spent stuck in an event handler--e.g., waiting on the database. Gaps over
+ * {@link #STALL_THRESHOLD_MILLIS} are recorded as stalls. Enabled by launching with
+ * {@code -Dregister.monitorFxStalls=true}; the report is printed when the application exits, making it easy to compare
+ * a build before and after a change.
+ * @author Tyler Pohlman
+ * @version 1.0, Date Created: 2026-10-17
+ * @lastModified 2026-10-17
+ */
+public class FxThreadStallMonitor extends AnimationTimer {
+    /**
+     * System property which turns the monitor on.
+     */
+    public static final String ENABLED_PROPERTY = "register.monitorFxStalls";
+    /**
+     * Gaps between pulses longer than this count as a stall; a little over three frames.
+     */
+    public static final long STALL_THRESHOLD_MILLIS = 50;
+
+    private final LatencyHistogram stalls = new LatencyHistogram();
+    private long lastPulse = 0;
+    private long totalStallNanos = 0;
+
+    /**
+     * @return true if the monitor was turned on with {@link #ENABLED_PROPERTY}
+     */
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(ENABLED_PROPERTY);
+    }
+
+    @Override
+    public void handle(long now) {
+        if (lastPulse != 0) {
+            long gap = now - lastPulse;
+            if (gap > TimeUnit.MILLISECONDS.toNanos(STALL_THRESHOLD_MILLIS)) {
+                stalls.record(gap);
+                totalStallNanos += gap;
+            }
+        }
+        lastPulse = now;
+    }
+
+    @Override
+    public void stop() {
+        super.stop();
+        lastPulse = 0;
+    }
+
+    /**
+     * @return {@link LatencyHistogram} of every recorded stall
+     */
+    public LatencyHistogram getStalls() {
+        return stalls;
+    }
+
+    /**
+     * @return long representing the summed length of every stall in milliseconds
+     */
+    public long getTotalStallMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(totalStallNanos);
+    }
+
+    @Override
+    public String toString() {
+        return "FX thread stalls over " + STALL_THRESHOLD_MILLIS + "ms: total=" + getTotalStallMillis() + "ms, "
+                + stalls;
+    }
+}
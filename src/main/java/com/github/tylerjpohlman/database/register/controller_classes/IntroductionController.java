@@ -1,6 +1,6 @@
 package com.github.tylerjpohlman.database.register.controller_classes;
 
-import com.github.tylerjpohlman.database.register.data_access_classes.JdbcUserDAOImpl;
+import com.github.tylerjpohlman.database.register.data_access_classes.AsyncJdbcUserDAO;
 import com.github.tylerjpohlman.database.register.helper_classes.*;
 
 import javafx.event.ActionEvent;
@@ -11,6 +11,9 @@ import javafx.scene.control.TextField;
 
 import java.io.IOException;
 import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 
 /**
@@ -19,10 +22,12 @@ import java.sql.SQLException;
  *
  * Its use to grab the login information to initialize {@code jdbcUserDAO} within {@link BaseController}.
  * Upon successful initialization, the layout is changed to {@link MainController} and passes over {@code jdbcUserDAO}.
+ * Logging in happens in the background so the window stays responsive while the database is contacted. Returning
+ * here puts the login fields back the way they were first loaded and starts over with an empty transaction.
  *
  * @author Tyler Pohlman
  * @version 1.0, Date Created: 2023-11-14
- * @lastModified 2023-11-24
+ * @lastModified 2026-10-17
  */
 public class IntroductionController extends BaseController {
     /**
@@ -60,12 +65,48 @@ public class IntroductionController extends BaseController {
     @FXML
     private TextField registerNumTextField;
 
+    /**
+     * Used to ignore extra clicks while a login is already in progress.
+     */
+    private boolean loggingIn = false;
+
+    /**
+     * Text each login field had in the FXML file.
+     */
+    private final Map<TextField, String> initialText = new HashMap<>();
+
+    /**
+     * Called by the FXML loader; notes the login fields' starting text.
+     */
+    @FXML
+    private void initialize() {
+        for (TextField field : List.of(urlTextField, usernameTextField, passwordTextField, registerNumTextField)) {
+            initialText.put(field, field.getText());
+        }
+    }
+
+    /**
+     * Puts the login fields back and drops the last login's transaction, so none of it carries over into the next
+     * login.
+     */
+    @Override
+    protected void resetView() {
+        errorLabel.setText("");
+        initialText.forEach(TextField::setText);
+
+        transaction = null;
+    }
+
     /**
      * Logic for clicking enter button in GUI.
      * @param event {@link ActionEvent} representing button click in GUI
      * @throws IOException if unable to read the associated FXML file
      */
     public void enterButtonOnClick(ActionEvent event) throws IOException {
+        if (loggingIn) {
+            return;
+        }
+
         //resets error label
         errorLabel.setText("");
 
@@ -93,30 +134,41 @@ public class IntroductionController extends BaseController {
         //add driver part to the url if it isn't empty
         url = "jdbc:mysql://" + url;
 
-        try {
-            jdbcUserDAO = new JdbcUserDAOImpl(url, username, password, registerNum);
-        } catch (DriverNotFoundException e) {
-            errorLabel.setText("Error: Driver for connecting to database not found. Please exit program");
-            return;
-        } catch (ServerConnectionException e) {
-            errorLabel.setText("Error: Cannot access database! Try a different url or try again.");
-            return;
-        } catch (InvalidCredentialsException e) {
-            errorLabel.setText("Error: Invalid Username or Password!");
-            return;
-        } catch (InvalidRegisterException e) {
-            errorLabel.setText("Error: Invalid register number!");
-            return;
-        } catch (SQLException e) {
-            errorLabel.setText("Unknown error: " + e.getMessage());
-            return;
-        }
-
-        try {
-            goToMainWindow(event);
-        }
-        catch (ClosedConnectionException e) {
-            errorLabel.setText("Connection has timed out, please try again...");
-        }
+        loggingIn = true;
+        errorLabel.setText("Logging in...");
+
+        whenDoneOnFxThread(AsyncJdbcUserDAO.login(url, username, password, registerNum), dao -> {
+            loggingIn = false;
+            errorLabel.setText("");
+
+            jdbcUserDAO = dao;
+            asyncJdbcUserDAO = new AsyncJdbcUserDAO(dao);
+            transaction = new Transaction(dao);
+            StartupTimer.mark(StartupTimer.Phase.LOGGED_IN);
+
+            try {
+                goToMainWindow(event);
+                //the cashier can scan as soon as the main window is drawn
+                sceneRegistry.runAfterLayout(() -> StartupTimer.mark(StartupTimer.Phase.FIRST_SCAN_READY));
+            }
+            catch (ClosedConnectionException e) {
+                errorLabel.setText("Connection has timed out, please try again...");
+            }
+            catch (IOException e) {
+                errorLabel.setText("Unknown error: " + e.getMessage());
+            }
+        }, error -> {
+            loggingIn = false;
+
+            switch (error) {
+                case DriverNotFoundException e ->
+                        errorLabel.setText("Error: Driver for connecting to database not found. Please exit program");
+                case ServerConnectionException e ->
+                        errorLabel.setText("Error: Cannot access database! Try a different url or try again.");
+                case InvalidCredentialsException e -> errorLabel.setText("Error: Invalid Username or Password!");
+                case InvalidRegisterException e -> errorLabel.setText("Error: Invalid register number!");
+                default -> errorLabel.setText("Unknown error: " + error.getMessage());
+            }
+        });
     }
 }
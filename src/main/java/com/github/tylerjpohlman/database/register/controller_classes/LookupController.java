@@ -1,21 +1,38 @@
 package com.github.tylerjpohlman.database.register.controller_classes;
 
+import com.github.tylerjpohlman.database.register.data_access_classes.ItemCatalog;
 import com.github.tylerjpohlman.database.register.helper_classes.ClosedConnectionException;
 import com.github.tylerjpohlman.database.register.helper_classes.Item;
-import com.github.tylerjpohlman.database.register.helper_classes.Member;
 
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
 import javafx.scene.control.ListView;
 import javafx.scene.control.TextField;
 import javafx.scene.input.MouseEvent;
 
 import java.io.IOException;
-import java.sql.SQLException;
 
+/**
+ * Controller class for the item lookup view, used to find items without a barcode, such as produce, by name. <p>
+ * Results come from the register's local item catalog and are refreshed as the cashier types, so searching never
+ * waits on the database. Words match by prefix and small typos are tolerated. Keystrokes go through a
+ * {@link SearchPipeline}, which debounces them, keeps one search in flight at a time, and shows results a page at a
+ * time; the next page loads once the last result is scrolled into view. Adding the selected item puts it in
+ * the basket like a scan would and returns to {@link MainController}.
+ * @author Tyler Pohlman
+ * @version 1.0, Date Created: 2023-11-14
+ * @lastModified 2026-10-17
+ */
 public class LookupController extends MainController{
+    /**
+     * Shortest query searched for; a single letter matches too much to be useful.
+     */
+    public static final int MIN_QUERY_LENGTH = 2;
+
     public Button CancelButton;
     @FXML
     private TextField itemSearchTextField;
@@ -30,19 +47,89 @@ public class LookupController extends MainController{
 
     private Item selectedSearchedItem;
 
+    /**
+     * Debounces and pages the searches; created once the window has loaded.
+     */
+    private SearchPipeline searchPipeline;
+
+    /**
+     * Called by the FXML loader; searches as the cashier types and loads more results when the list is scrolled to
+     * its end.
+     */
+    @FXML
+    private void initialize() {
+        searchPipeline = new SearchPipeline(searchedItemsList.getItems(),
+                (query, limit) -> asyncJdbcUserDAO.searchItemsByName(query, limit), MIN_QUERY_LENGTH,
+                this::showResultCount, error -> errorLabel.setText("Unable to search items: " + error.getMessage()));
+
+        itemSearchTextField.textProperty().addListener((observable, oldText, newText) -> {
+            selectedSearchedItem = null;
+            searchPipeline.queryChanged(newText);
+        });
+
+        searchedItemsList.setCellFactory(listView -> new ListCell<>() {
+            @Override
+            protected void updateItem(Item item, boolean empty) {
+                super.updateItem(item, empty);
+                setText(empty || item == null ? null : item.toString());
+
+                //the last row coming into view means the cashier has scrolled to the end; the list can't change
+                //in the middle of laying out its cells, so the page is added afterwards
+                if (!empty && getIndex() == getListView().getItems().size() - 1) {
+                    Platform.runLater(searchPipeline::loadNextPage);
+                }
+            }
+        });
+    }
+
+    /**
+     * Clears the last search. Doesn't use {@link MainController}'s, since this window only shares its logic.
+     */
+    @Override
+    protected void resetView() {
+        errorLabel.setText("");
+        //clearing the text clears the results as well
+        itemSearchTextField.clear();
+        searchedItemsList.getSelectionModel().clearSelection();
+        selectedSearchedItem = null;
+    }
+
     public void searchForItemOnClick(ActionEvent actionEvent) {
         //reset the error label
         errorLabel.setText("");
+
+        if (itemSearchTextField.getText().trim().length() < MIN_QUERY_LENGTH) {
+            errorLabel.setText("Type at least " + MIN_QUERY_LENGTH + " letters of the item's name");
+            return;
+        }
+        selectedSearchedItem = null;
+        searchPipeline.searchNow(itemSearchTextField.getText());
     }
 
     public void addSelectedItemInSearchedItems(MouseEvent mouseEvent) {
         //reset the error label
         errorLabel.setText("");
+
+        selectedSearchedItem = searchedItemsList.getSelectionModel().getSelectedItem();
     }
 
     public void addItemOnClick(ActionEvent actionEvent) {
         //reset the error label
         errorLabel.setText("");
+
+        if (selectedSearchedItem == null) {
+            errorLabel.setText("Select an item from the list first");
+            return;
+        }
+
+        //added the same way a scanned item is, then back to scanning
+        transaction.add(selectedSearchedItem);
+
+        try {
+            goToMainWindow(actionEvent);
+        } catch (ClosedConnectionException | IOException e) {
+            setErrorLabelAndGoBackToIntroduction(errorLabel, actionEvent);
+        }
     }
 
     public void cancelButtonOnCLick(ActionEvent event) throws IOException{
@@ -52,4 +139,19 @@ public class LookupController extends MainController{
             setErrorLabelAndGoBackToIntroduction(errorLabel, event);
         }
     }
+
+    /**
+     * Explains an empty result list; called by the search pipeline whenever the list changes.
+     */
+    private void showResultCount(String query, int shown) {
+        ItemCatalog itemCatalog = jdbcUserDAO.getItemCatalog();
+
+        if (shown > 0) {
+            errorLabel.setText("");
+        } else if (itemCatalog != null && !itemCatalog.isWarm()) {
+            errorLabel.setText("Item list is still loading, try again shortly");
+        } else {
+            errorLabel.setText("No items match \"" + query.trim() + "\"");
+        }
+    }
 }
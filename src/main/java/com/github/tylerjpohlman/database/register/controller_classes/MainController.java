@@ -1,7 +1,10 @@
 package com.github.tylerjpohlman.database.register.controller_classes;
 
+import com.github.tylerjpohlman.database.register.data_access_classes.ReceiptWriter;
+import com.github.tylerjpohlman.database.register.data_access_classes.TransactionJournal;
+import com.github.tylerjpohlman.database.register.helper_classes.BasketLine;
 import com.github.tylerjpohlman.database.register.helper_classes.Item;
-import com.github.tylerjpohlman.database.register.helper_classes.Member;
+import com.github.tylerjpohlman.database.register.helper_classes.PricingEngine;
 import com.github.tylerjpohlman.database.register.helper_classes.ClosedConnectionException;
 
 import javafx.event.ActionEvent;
@@ -12,14 +15,20 @@ import javafx.scene.control.TextField;
 import javafx.scene.layout.AnchorPane;
 
 import java.io.IOException;
-import java.sql.SQLException;
-import java.util.List;
 
 /**
  * Controller class which controls the logic behind the main menu view of the program. <p>
+ * Scanned UPCs go through a {@link ScanPipeline}, so a cashier (or a hardware scanner, which submits the UPC field by
+ * pressing enter) can keep scanning while earlier items are still being looked up. Leaving the window waits until
+ * every lookup has finished. Repeated scans of an item add to its line's quantity rather than adding another line.
+ * The list shows the {@link Transaction}'s basket itself, and each found item is recorded in the transaction as soon
+ * as it's found: handed to a {@link ReceiptWriter}, so the receipt is already written by the time the cashier pays,
+ * added to the {@link PricingEngine} behind the running total shown beside the list, and journaled in the register's
+ * {@link TransactionJournal}, so the sale can still be finished if the database becomes unreachable; only items
+ * already in the item catalog can be scanned then. <p>
  * @author Tyler Pohlman
  * @version 1.0, Date Created: 2023-11-14
- * @lastModified 2024-08-19
+ * @lastModified 2026-10-17
  */
 public class MainController extends BaseController {
     @FXML
@@ -29,10 +38,16 @@ public class MainController extends BaseController {
     private Label membershipLabel;
 
     /**
-     * List View of Items added to the current shopping session. Displayed in the MainController window.
+     * List View of the lines of items added to the current shopping session. Displayed in the MainController window.
      */
     @FXML
-    protected ListView<Item> addedItemsList;
+    protected ListView<BasketLine> addedItemsList;
+
+    /**
+     * Label showing the basket's running subtotal, tax, and total.
+     */
+    @FXML
+    private Label runningTotalLabel;
 
     /**
      * Text Field used to type in an item's upc.
@@ -46,32 +61,71 @@ public class MainController extends BaseController {
     @FXML
     Label errorLabel;
 
+    /**
+     * Looks up scanned UPCs in the background; created on the first scan.
+     */
+    private ScanPipeline scanPipeline = null;
+
+    /**
+     * Set once a lost connection has been reported, so later failed lookups don't report it again.
+     */
+    private boolean returningToIntroduction = false;
+
+    /**
+     * Called by the FXML loader; draws the basket's lines with {@link BasketLineCell}s.
+     */
+    @FXML
+    private void initialize() {
+        BasketLineCell.install(addedItemsList);
+    }
+
+    /**
+     * Shows the transaction's basket, member, and running total, starting a new {@link ScanPipeline} if it's a new
+     * transaction, and clears anything left from the last time the window was shown. Nothing here depends on how big
+     * the basket is.
+     */
+    @Override
+    protected void resetView() {
+        errorLabel.setText("");
+        itemUPCTextField.clear();
+        returningToIntroduction = false;
+
+        if (addedItemsList.getItems() != transaction.getBasket()) {
+            addedItemsList.setItems(transaction.getBasket());
+            scanPipeline = null;
+        }
+        setMemberLabel();
+        updateRunningTotalLabel();
+    }
+
     /**
      * Sets the address Label in the main view of the JavaFX program.
      */
     public void setAddressLabel() {
-        try {
-            String address = jdbcUserDAO.getAddressFromConnection();
-            addressLabel.setText(address);
-        } catch (SQLException e) {
-            addressLabel.setText("Unable to obtain address from server!");
-        }
+        whenDoneOnFxThread(asyncJdbcUserDAO.getAddressFromConnection(),
+                address -> addressLabel.setText(address),
+                error -> addressLabel.setText("Unable to obtain address from server!"));
     }
 
     /**
      * Sets the membership Label in the main view of the JavaFX program.
      */
     public void setMemberLabel() {
-        if(member == null) {
+        if(transaction.getMember() == null) {
             membershipLabel.setText("");
         }
         else {
-            membershipLabel.setText("Welcome " + member.toString() + "!");
+            membershipLabel.setText("Welcome " + transaction.getMember().toString() + "!");
         }
     }
 
+    private void updateRunningTotalLabel() {
+        PricingEngine totals = transaction.getTotals();
+        runningTotalLabel.setText(totals == null ? "" : totals.toString());
+    }
+
     /**
-     * Logic when clicking "ADD ITEM" in the main view.
+     * Logic when clicking "ADD ITEM" or pressing enter in the UPC field in the main view.
      * @param event {@link ActionEvent} Object representing the button click.
      */
     public void addItemOnClick(ActionEvent event) {
@@ -85,8 +139,8 @@ public class MainController extends BaseController {
             return;
         }
 
-        //checks if connection is closed
-        if(jdbcUserDAO.isConnectionNotReachable()) {
+        //checks if the session has ended; a connection which is only reconnecting can still take scans
+        if(jdbcUserDAO.isSessionLost()) {
             setErrorLabelAndGoBackToIntroduction(errorLabel, event);
             return;
         }
@@ -102,21 +156,60 @@ public class MainController extends BaseController {
             return;
         }
 
-        //Item object
-        Item item;
+        //blank out the upc text field so the next item can be scanned while this one is looked up
+        itemUPCTextField.clear();
 
-        try {
-            item = jdbcUserDAO.getItemFromUPC(upc);
-        } catch (SQLException e) {
-            errorLabel.setText("Unable to find item!");
-            //blank out the upc text field
-            itemUPCTextField.clear();
+        if (scanPipeline == null) {
+            scanPipeline = new ScanPipeline(transaction.getLines(), asyncJdbcUserDAO, this::scanResolved,
+                    this::scanFailed);
+        }
+        scanPipeline.submit(upc);
+    }
+
+    /**
+     * Records a found item in the transaction and shows the new running total.
+     * @param item {@link Item} found for a scanned UPC
+     * @param quantity int representing how many times it was scanned
+     */
+    private void scanResolved(Item item, int quantity) {
+        transaction.record(item, quantity);
+        updateRunningTotalLabel();
+    }
+
+    /**
+     * Reports a UPC which couldn't be looked up.
+     * @param upc long representing the scanned UPC
+     * @param error underlying exception from the lookup
+     */
+    private void scanFailed(long upc, Throwable error) {
+        if (returningToIntroduction) {
             return;
         }
-            //blank out the upc text field
-            itemUPCTextField.clear();
-            //adds a grabbed Item object and adds it to the added items list
-            addedItemsList.getItems().add(item);
+
+        if (isConnectionProblem(error) && jdbcUserDAO.isSessionLost()) {
+            returningToIntroduction = true;
+            setErrorLabelAndGoBackToIntroduction(errorLabel);
+        } else if (isConnectionProblem(error) && canRingOffline()) {
+            errorLabel.setText("Offline: UPC " + upc + " can't be looked up until the connection is back");
+        } else if (isConnectionProblem(error)) {
+            //scans the item again once reconnected, so the cashier doesn't have to
+            waitForReconnect(errorLabel, () -> scanPipeline.submit(upc));
+        } else {
+            errorLabel.setText("Unable to find item with UPC " + upc + "!");
+        }
+    }
+
+    /**
+     * Checks whether scanned items are still being looked up, showing an error if so.
+     * @return true if the window shouldn't be left yet
+     */
+    private boolean isWaitingOnScans() {
+        if (scanPipeline != null && scanPipeline.hasPendingLookups()) {
+            errorLabel.setText("Still looking up " + scanPipeline.getPendingLookups()
+                    + " scanned item(s), please wait...");
+            return true;
+        }
+        return false;
     }
 
     /**
@@ -128,6 +221,10 @@ public class MainController extends BaseController {
         //resets the error label
         errorLabel.setText("");
 
+        if (isWaitingOnScans()) {
+            return;
+        }
+
         try {
             goToLookupWindow(event);
         }
@@ -143,11 +240,15 @@ public class MainController extends BaseController {
      */
     public void memberLookupOnCLick(ActionEvent event) throws IOException {
         //checks for already inputted membership
-        if(member != null) {
+        if(transaction.getMember() != null) {
             errorLabel.setText("Membership already inputted...");
             return;
         }
 
+        if (isWaitingOnScans()) {
+            return;
+        }
+
         try {
             goToMemberWindow(event);
         }
@@ -162,7 +263,11 @@ public class MainController extends BaseController {
      * @throws IOException if unable to read the associated FXML file
      */
     public void finishAndPayOnClick(ActionEvent event) throws IOException {
-        if(addedItemsList.getItems().isEmpty()) {
+        if (isWaitingOnScans()) {
+            return;
+        }
+
+        if(transaction.getBasket().isEmpty()) {
             errorLabel.setText("Cannot finalize a transaction with no items!");
             return;
         }
@@ -170,7 +275,7 @@ public class MainController extends BaseController {
         try {
             goToPayWindow(event);
 
-        } catch (SQLException e) {
+        } catch (ClosedConnectionException e) {
             setErrorLabelAndGoBackToIntroduction(errorLabel, event);
         }
     }
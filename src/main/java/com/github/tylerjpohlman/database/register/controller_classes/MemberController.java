@@ -1,5 +1,6 @@
 package com.github.tylerjpohlman.database.register.controller_classes;
 
+import com.github.tylerjpohlman.database.register.data_access_classes.MemberCache;
 import com.github.tylerjpohlman.database.register.helper_classes.ClosedConnectionException;
 import com.github.tylerjpohlman.database.register.helper_classes.Member;
 
@@ -9,15 +10,16 @@ import javafx.scene.control.Label;
 import javafx.scene.control.TextField;
 
 import java.io.IOException;
-import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Controller class for the member lookup view, which tries to find an associated {@link Member} from the database. <p>
+ * Regular customers are usually answered from the register's {@link MemberCache} without waiting on the database.
  * Most notably, {@link #enterButtonOnClick} adds the member to {@link MainController} upon success while
  * {@link #goBackOnClick} returns to {@link MainController}.
  * @author Tyler Pohlman
  * @version 1.0, Date Created: 2023-11-14
- * @lastModified 2024-08-19
+ * @lastModified 2026-10-17
  */
 public class MemberController extends BaseController{
     /**
@@ -38,6 +40,13 @@ public class MemberController extends BaseController{
     @FXML
     private TextField phoneNumberTextField;
 
+    @Override
+    protected void resetView() {
+        errorLabel.setText("");
+        memberIDTextField.clear();
+        phoneNumberTextField.clear();
+    }
+
     /**
      * Logic when clicking enter button in GUI.
      * @param event {@link ActionEvent} object representing button click
@@ -46,6 +55,8 @@ public class MemberController extends BaseController{
         //reset the error label
         errorLabel.setText("");
 
+        CompletableFuture<Member> memberLookup;
+
         try {
             //if there isn't any entered text
             if (phoneNumberTextField.getText().isEmpty() && memberIDTextField.getText().isEmpty()) {
@@ -55,25 +66,17 @@ public class MemberController extends BaseController{
             //if there's a phone number provided
             else if (!phoneNumberTextField.getText().isEmpty()) {
                 //grabs the phone number
-                //also removes all the misc. chars when someone types in a phone number and just keeps the digits
-                long phoneNumber =
-                        Long.parseLong(phoneNumberTextField.getText().replaceAll("[^0-9]", ""));
-                member = jdbcUserDAO.getMemberFromPhoneNumber(phoneNumber);
+                //keeps just the digits, the same way the member cache keys phone numbers
+                long phoneNumber = MemberCache.normalizePhoneNumber(phoneNumberTextField.getText());
+                memberLookup = asyncJdbcUserDAO.getMemberFromPhoneNumber(phoneNumber);
             }
             //if only the account number is provided
             else {
                 //grabs the account number
                 long accountNumber =
                         Long.parseLong(memberIDTextField.getText().replaceAll("[^0-9]", ""));
-                member = jdbcUserDAO.getMemberFromAccountNumber(accountNumber);
+                memberLookup = asyncJdbcUserDAO.getMemberFromAccountNumber(accountNumber);
             }
-        } catch (SQLException e) {
-            errorLabel.setText("Unable to find membership with provided phone number / member id.");
-
-            //resets the text fields
-            phoneNumberTextField.setText("");
-            memberIDTextField.setText("");
-            return;
         } catch (NumberFormatException e) {
             errorLabel.setText("Invalid phone number / member id.");
 
@@ -83,12 +86,34 @@ public class MemberController extends BaseController{
             return;
         }
 
-        try {
-            goToMainWindow(event);
+        //a lookup which finishes after going back is dropped, so the member isn't added to a later transaction
+        whenDoneWhileShown(memberLookup, foundMember -> {
+            //re-prices anything already written to the receipt, and the running total
+            transaction.setMember(foundMember);
 
-        } catch (ClosedConnectionException | IOException e) {
-            setErrorLabelAndGoBackToIntroduction(errorLabel,event);
-        }
+            try {
+                goToMainWindow(event);
+
+            } catch (ClosedConnectionException | IOException e) {
+                setErrorLabelAndGoBackToIntroduction(errorLabel,event);
+            }
+        }, error -> {
+            //the sale can still go on without the member
+            if (isConnectionProblem(error) && canRingOffline() && !jdbcUserDAO.isSessionLost()) {
+                errorLabel.setText("Member lookup is unavailable while offline.");
+                return;
+            }
+            if (isConnectionProblem(error)) {
+                waitForReconnect(errorLabel, () -> errorLabel.setText("Connection restored, please try again."));
+                return;
+            }
+
+            errorLabel.setText("Unable to find membership with provided phone number / member id.");
+
+            //resets the text fields
+            phoneNumberTextField.setText("");
+            memberIDTextField.setText("");
+        });
     }
 
     /**
@@ -0,0 +1,145 @@
+package com.github.tylerjpohlman.database.register.controller_classes;
+
+import com.github.tylerjpohlman.database.register.helper_classes.LatencyHistogram;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+
+/**
+ * Measures what switching windows costs: how long it takes from the switch starting until the new window has been laid
+ * out, how much the JavaFX Application Thread allocates doing it, and how many garbage collections happen meanwhile.
+ * <p>
+ * Every measurement is made on the JavaFX Application Thread by {@link SceneRegistry}. Enabled by launching with
+ * {@code -Dregister.monitorNavigation=true}; the report is printed when the application exits, so a run with
+ * {@code -Dregister.cacheScenes=false} can be compared against one with the scenes cached.
+ * @author Tyler Pohlman
+ * @version 1.0, Date Created: 2026-10-17
+ * @lastModified 2026-10-17
+ */
+public class NavigationMetrics {
+    /**
+     * System property which turns the metrics on.
+     */
+    public static final String ENABLED_PROPERTY = "register.monitorNavigation";
+
+    /**
+     * Counters as they were when a window switch started.
+     * @param nanos long representing {@link System#nanoTime()}
+     * @param allocatedBytes long representing the bytes allocated by the thread so far, or -1 if not supported
+     * @param collections long representing the garbage collections so far
+     * @param collectionMillis long representing the time spent collecting garbage so far
+     */
+    record Start(long nanos, long allocatedBytes, long collections, long collectionMillis) {}
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+    /**
+     * The JDK's own thread bean, which can also report how much a thread has allocated; null if it's not available.
+     */
+    private final com.sun.management.ThreadMXBean threads;
+    private final boolean scenesCached;
+
+    private long allocatedBytes = 0;
+    private long collections = 0;
+    private long collectionMillis = 0;
+
+    /**
+     * @param scenesCached boolean representing whether the {@link SceneRegistry} reuses its windows, for the report
+     */
+    public NavigationMetrics(boolean scenesCached) {
+        this.scenesCached = scenesCached;
+
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        if (threadBean instanceof com.sun.management.ThreadMXBean jdkThreadBean
+                && jdkThreadBean.isThreadAllocatedMemorySupported()) {
+            jdkThreadBean.setThreadAllocatedMemoryEnabled(true);
+            threads = jdkThreadBean;
+        } else {
+            threads = null;
+        }
+    }
+
+    /**
+     * @return true if the metrics were turned on with {@link #ENABLED_PROPERTY}
+     */
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(ENABLED_PROPERTY);
+    }
+
+    /**
+     * Notes the counters as a window switch starts.
+     * @return {@link Start} to hand to {@link #finish(Start)} once the new window is laid out
+     */
+    Start start() {
+        return new Start(System.nanoTime(), allocatedBytes(), collections(), collectionMillis());
+    }
+
+    /**
+     * Records a window switch which has finished laying out. Must be called on the same thread as {@link #start()}.
+     * @param start {@link Start} returned when the switch started
+     */
+    void finish(Start start) {
+        latency.record(System.nanoTime() - start.nanos());
+        if (start.allocatedBytes() >= 0) {
+            allocatedBytes += allocatedBytes() - start.allocatedBytes();
+        }
+        collections += collections() - start.collections();
+        collectionMillis += collectionMillis() - start.collectionMillis();
+    }
+
+    private long allocatedBytes() {
+        return threads == null ? -1 : threads.getCurrentThreadAllocatedBytes();
+    }
+
+    private long collections() {
+        long count = 0;
+        for (GarbageCollectorMXBean collector : collectors) {
+            count += Math.max(collector.getCollectionCount(), 0);
+        }
+        return count;
+    }
+
+    private long collectionMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean collector : collectors) {
+            millis += Math.max(collector.getCollectionTime(), 0);
+        }
+        return millis;
+    }
+
+    /**
+     * @return {@link LatencyHistogram} of every window switch, until the new window was laid out
+     */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * @return long representing the average bytes allocated by the JavaFX Application Thread per window switch, or
+     * -1 if the JVM can't tell
+     */
+    public long getAllocatedBytesPerNavigation() {
+        if (threads == null) {
+            return -1;
+        }
+        return latency.getCount() == 0 ? 0 : allocatedBytes / latency.getCount();
+    }
+
+    /**
+     * @return long representing the garbage collections which happened while windows were switching
+     */
+    public long getCollections() {
+        return collections;
+    }
+
+    @Override
+    public String toString() {
+        long allocated = getAllocatedBytesPerNavigation();
+        return "Navigation (" + (scenesCached ? "cached scenes" : "scenes loaded each time") + "): "
+                + latency.getCount() + " switches, allocated/switch="
+                + (allocated < 0 ? "unknown" : allocated / 1024 + "KB")
+                + ", GCs during switches=" + collections + " (" + collectionMillis + "ms), latency " + latency;
+    }
+}
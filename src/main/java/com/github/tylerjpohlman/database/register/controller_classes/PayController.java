@@ -1,6 +1,10 @@
 package com.github.tylerjpohlman.database.register.controller_classes;
 
+import com.github.tylerjpohlman.database.register.data_access_classes.ReceiptWriter;
+import com.github.tylerjpohlman.database.register.data_access_classes.TransactionJournal;
 import com.github.tylerjpohlman.database.register.helper_classes.ClosedConnectionException;
+import com.github.tylerjpohlman.database.register.helper_classes.Money;
+import com.github.tylerjpohlman.database.register.helper_classes.PricingEngine;
 
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
@@ -9,18 +13,29 @@ import javafx.scene.control.TextField;
 
 import java.io.IOException;
 import java.sql.SQLException;
+import java.util.Map;
 
 /**
  * Controller class for finish and pay view. Acts at the last step in the register application in which a total is
  * displayed and an amount is given to finalize the transaction within the database. <p>
- * The methods {@link #setReceiptNumber} and {@link #setAmountTotalLabel} are called from outside the class to set these
- * two. <p>
+ * Either {@link #awaitReceiptTotal}, for a receipt already written while scanning, or {@link #calculateReceiptTotal}
+ * is called from outside the class to total the receipt in the background, which then sets the receipt number and
+ * total through {@link #setReceiptNumber} and {@link #setAmountTotalLabel}. The {@link Transaction}'s running total is
+ * shown in the meantime through {@link #showEstimatedTotal}, and checked against the database's total once it arrives.
+ * The window keeps the finished transaction until {@link #setStartNewTransactionButtonOnClick} starts the next one.
+ * When the receipt wasn't written while scanning and the total can be calculated locally, {@link #prepareCheckout} is
+ * called instead, and the whole sale is recorded in a single call to the database once it's paid for. <p>
  * The method {@link #finishButtonOnClick(ActionEvent)} computes the finalization in the database and returns the amount
  * due while {@link #setStartNewTransactionButtonOnClick} allows the creation of a new transaction after the current one
- * is finished.
+ * is finished. <p>
+ * If the database can't be reached while totalling or finalizing, the sale is finished offline instead: the locally
+ * calculated total is charged and the tender is saved to the {@link TransactionJournal}, which sends the sale to the
+ * database once it's reachable again. <p>
+ * Totals which arrive after the cashier has left the window are dropped, and the window can't be left while a
+ * payment is being finalized.
  * @author Tyler Pohlman
  * @version 1.0, Date Created: 2023-11-14
- * @lastModified 2024-08-19
+ * @lastModified 2026-10-17
  */
 public class PayController extends BaseController {
     /**
@@ -29,9 +44,30 @@ public class PayController extends BaseController {
     private boolean finishedReceipt = false;
 
     /**
-     * Stores the receipt number generated in the database.
+     * Used to ignore extra clicks while the receipt is being finalized in the background.
      */
-    private int receiptNumber;
+    private boolean finalizingReceipt = false;
+
+    /**
+     * Stores the verified amount due in cents, so it never has to be read back out of a label.
+     */
+    private long amountDue;
+
+    /**
+     * Set once the sale is being finished offline, charging the locally calculated total.
+     */
+    private boolean offline = false;
+
+    /**
+     * Receipt started in the database before the connection was lost, or 0 if there isn't one.
+     */
+    private int openReceiptNumber = 0;
+
+    /**
+     * Set when the whole sale is recorded in a single checkout once it's paid for, rather than already being in the
+     * database.
+     */
+    private boolean checkingOut = false;
 
     /**
      * Label which shows the amount due for the order.
@@ -57,20 +93,210 @@ public class PayController extends BaseController {
     @FXML
     private Label changeDueField;
 
+    /**
+     * Clears the last sale, so the window starts out the way it was first loaded.
+     */
+    @Override
+    protected void resetView() {
+        finishedReceipt = false;
+        finalizingReceipt = false;
+        amountDue = 0;
+        offline = false;
+        openReceiptNumber = 0;
+        checkingOut = false;
+
+        amountTotalLabel.setText("");
+        amountPaidTextField.clear();
+        errorLabel.setText("");
+        changeDueField.setText("");
+    }
+
     /**
      * Sets the receipt number to finalize the receipt.
      * @param receiptNumber int representing receipt number
      */
     protected void setReceiptNumber(int receiptNumber) {
-        this.receiptNumber = receiptNumber;
+        transaction.setReceiptNumber(receiptNumber);
     }
 
     /**
-     * Sets the total amount as a double to two decimal places.
-     * @param amount double representing the total for the receipt.
+     * Sets the amount due and shows it to two decimal places.
+     * @param amount long representing the total for the receipt in cents
      */
-    public void setAmountTotalLabel(double amount) {
-        amountTotalLabel.setText(String.format("%.2f", amount));
+    public void setAmountTotalLabel(long amount) {
+        amountDue = amount;
+        amountTotalLabel.setText(Money.format(amount));
+    }
+
+    /**
+     * Shows the transaction's running total until the database's total arrives.
+     */
+    protected void showEstimatedTotal() {
+        PricingEngine totals = transaction.getTotals();
+
+        if (totals == null) {
+            amountTotalLabel.setText("Calculating...");
+        } else {
+            amountTotalLabel.setText(Money.format(totals.getTotal()));
+        }
+    }
+
+    /**
+     * Takes the database's total as final, telling the cashier if it differs from the locally calculated one.
+     * @param receiptNumber int representing receipt number
+     * @param amountDue long representing the total from the database in cents
+     */
+    private void showVerifiedTotal(int receiptNumber, long amountDue) {
+        setReceiptNumber(receiptNumber);
+
+        PricingEngine totals = transaction.getTotals();
+        if (totals != null && !totals.reconcile(amountDue)) {
+            errorLabel.setText("Total updated to match the store's records");
+        }
+        setAmountTotalLabel(amountDue);
+    }
+
+    /**
+     * Creates the receipt and adds the transaction's items to it in the background, showing the total once it's known.
+     */
+    protected void calculateReceiptTotal() {
+        Transaction sale = transaction;
+        //pairs the new receipt number with its total so both are handed back together
+        whenDoneWhileShown(asyncJdbcUserDAO.createReceipt(sale.getMember()).thenCompose(receiptNumber ->
+                        asyncJdbcUserDAO.getReceiptTotal(sale.getBasket(), receiptNumber, sale.getMember())
+                                .thenApply(amountDue -> Map.entry(receiptNumber, amountDue))),
+                receiptTotal -> showVerifiedTotal(receiptTotal.getKey(), receiptTotal.getValue()),
+                error -> {
+                    if (!isConnectionProblem(error)) {
+                        setErrorLabelAndGoBackToIntroduction(errorLabel);
+                    } else if (!goOffline(0)) {
+                        waitForReconnect(errorLabel, this::calculateReceiptTotal);
+                    }
+                });
+    }
+
+    /**
+     * Skips writing the receipt until it's paid for, showing the locally calculated total in the meantime. Payment
+     * then records the receipt, its items and the tender in a single call rather than a call per step.
+     * @return true if the sale will be checked out when paid; false if there's no local total to show, in which case
+     * the receipt still needs {@link #calculateReceiptTotal}
+     */
+    protected boolean prepareCheckout() {
+        if (transaction.getTotals() == null) {
+            return false;
+        }
+
+        checkingOut = true;
+        setAmountTotalLabel(transaction.getTotals().getTotal());
+        return true;
+    }
+
+    /**
+     * Records the whole sale in the database now that it's paid for. If the database's total turns out higher than
+     * what was paid, nothing is recorded and the cashier is shown the database's total to collect.
+     * @param amountPaid long representing the amount paid in cents
+     */
+    private void checkout(long amountPaid) {
+        if (amountPaid < amountDue) {
+            errorLabel.setText("Amount paid must be greater or equal to amount due");
+            amountPaidTextField.clear();
+            return;
+        }
+
+        finalizingReceipt = true;
+
+        whenDoneOnFxThread(asyncJdbcUserDAO.checkout(transaction.getBasket(), transaction.getMember(), amountPaid,
+                transaction.getCheckoutKey()), result -> {
+            finalizingReceipt = false;
+            showVerifiedTotal(result.getReceiptNumber(), result.getAmountDue());
+
+            if (!result.isPaid()) {
+                errorLabel.setText("Total updated to match the store's records; amount paid must cover it");
+                amountPaidTextField.clear();
+                return;
+            }
+
+            changeDueField.setText(Money.format(result.getChangeDue()));
+            finishedReceipt = true;
+
+            settleJournal();
+        }, error -> {
+            finalizingReceipt = false;
+
+            //nothing was kept if the checkout failed, and one that did go through isn't recorded twice when retried,
+            //since the retry carries the same checkout key
+            if (isConnectionProblem(error) && goOffline(0)) {
+                finishOffline(amountPaid);
+            }
+            else if (isConnectionProblem(error)) {
+                waitForReconnect(errorLabel,
+                        () -> errorLabel.setText("Connection restored, press Finish to try again."));
+            }
+            else {
+                errorLabel.setText(error.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Fetches the total of a receipt which was written while the items were being scanned. If the connection dropped
+     * while it was being written, the receipt is written again from the items once reconnected, leaving the partial
+     * one unfinished.
+     */
+    protected void awaitReceiptTotal() {
+        ReceiptWriter receiptWriter = transaction.getReceiptWriter();
+        whenDoneWhileShown(receiptWriter.finish(),
+                amountDue -> showVerifiedTotal(receiptWriter.getReceiptNumber(), amountDue),
+                error -> {
+                    if (!isConnectionProblem(error)) {
+                        setErrorLabelAndGoBackToIntroduction(errorLabel);
+                    } else if (!goOffline(receiptWriter.getReceiptNumber())) {
+                        waitForReconnect(errorLabel, this::calculateReceiptTotal);
+                    }
+                });
+    }
+
+    /**
+     * Switches to finishing the sale offline, charging the locally calculated total.
+     * @param openReceiptNumber int representing a receipt already started in the database, or 0 if there isn't one
+     * @return true if the sale can be finished offline; false if it isn't journaled or has no local total
+     */
+    private boolean goOffline(int openReceiptNumber) {
+        if (!canRingOffline() || transaction.getJournalId() == 0 || transaction.getTotals() == null) {
+            return false;
+        }
+
+        offline = true;
+        this.openReceiptNumber = openReceiptNumber;
+        setAmountTotalLabel(transaction.getTotals().getTotal());
+        errorLabel.setText("Store's system is unreachable; the sale will be sent once it's back");
+        return true;
+    }
+
+    /**
+     * Finishes the sale offline by saving the tender to the journal.
+     * @param amountPaid long representing the amount paid in cents
+     */
+    private void finishOffline(long amountPaid) {
+        if (amountPaid < amountDue) {
+            errorLabel.setText("Amount paid must be greater or equal to amount due");
+            amountPaidTextField.clear();
+            return;
+        }
+
+        finalizingReceipt = true;
+
+        TransactionJournal journal = jdbcUserDAO.getTransactionJournal();
+        long journalId = transaction.getJournalId();
+        whenDoneOnFxThread(journal.tender(journalId, amountDue, amountPaid, openReceiptNumber), saved -> {
+            finalizingReceipt = false;
+            changeDueField.setText(Money.format(amountPaid - amountDue));
+
+            finishedReceipt = true;
+        }, error -> {
+            finalizingReceipt = false;
+            errorLabel.setText("Unable to save the sale: " + error.getMessage());
+        });
     }
 
     /**
@@ -86,18 +312,25 @@ public class PayController extends BaseController {
             return;
         }
 
+        if(finalizingReceipt) {
+            return;
+        }
+
+        if(transaction.getReceiptNumber() == 0 && !offline && !checkingOut) {
+            errorLabel.setText("Still calculating the total, please wait...");
+            return;
+        }
+
         if(amountPaidTextField.getText().isEmpty()) {
             errorLabel.setText("Amount paid field is empty! Please type in a numeric value");
             return;
         }
 
-        double amountPaid;
-        double amountDue;
+        long amountPaid;
 
-        //check for proper double formatting
+        //check for proper decimal formatting
         try {
-            amountPaid = Double.parseDouble(amountPaidTextField.getText());
-            amountDue = Double.parseDouble(amountTotalLabel.getText());
+            amountPaid = Money.parse(amountPaidTextField.getText().trim());
 
             //invalid input where the amount paid isn't a numeric value
         } catch (NumberFormatException e) {
@@ -106,25 +339,55 @@ public class PayController extends BaseController {
             return;
         }
 
-        try {
-            double changeDue = jdbcUserDAO.finalizeReceipt(amountPaid, amountDue, receiptNumber);
-            changeDueField.setText(String.valueOf(changeDue));
+        if (offline) {
+            finishOffline(amountPaid);
+            return;
+        }
+
+        if (checkingOut) {
+            checkout(amountPaid);
+            return;
+        }
+
+        finalizingReceipt = true;
+
+        int receiptNumber = transaction.getReceiptNumber();
+        whenDoneOnFxThread(asyncJdbcUserDAO.finalizeReceipt(amountPaid, amountDue, receiptNumber), changeDue -> {
+            finalizingReceipt = false;
+            changeDueField.setText(Money.format(changeDue));
 
             finishedReceipt = true;
+            settleJournal();
+        }, error -> {
+            finalizingReceipt = false;
 
-        }
+            if (error instanceof IllegalArgumentException) {
+                errorLabel.setText("Amount paid must be greater or equal to amount due");
+                amountPaidTextField.clear();
+            }
+            //connection dropped mid-payment, so finish offline; replaying checks whether the receipt went through
+            else if (isConnectionProblem(error) && goOffline(receiptNumber)) {
+                finishOffline(amountPaid);
+            }
+            //the receipt may or may not have gone through, so leave retrying to the cashier
+            else if (isConnectionProblem(error)) {
+                waitForReconnect(errorLabel,
+                        () -> errorLabel.setText("Connection restored, press Finish to try again."));
+            }
+            //highly unlikely this will fail considering everything else succeeded up to this point
+            else {
+                errorLabel.setText(error.getMessage());
+            }
+        });
+    }
 
-        catch (IllegalArgumentException e) {
-            errorLabel.setText("Amount paid must be greater or equal to amount due");
-            amountPaidTextField.clear();
-        }
-        //connection is closed
-        catch (ClosedConnectionException e) {
-            setErrorLabelAndGoBackToIntroduction(errorLabel, event);
-        }
-        //highly unlikely this will fail considering everything else succeeded up to this point
-        catch (SQLException e) {
-            errorLabel.setText(e.getMessage());
+    /**
+     * Marks the sale as recorded in the journal, now that the database has it, so it never needs replaying.
+     */
+    private void settleJournal() {
+        TransactionJournal journal = jdbcUserDAO.getTransactionJournal();
+        if (journal != null && transaction.getJournalId() != 0) {
+            journal.settle(transaction.getJournalId());
         }
     }
 
@@ -134,6 +397,13 @@ public class PayController extends BaseController {
      * @throws IOException if unable to read the associated FXML file
      */
     public void setStartNewTransactionButtonOnClick(ActionEvent event) throws IOException {
+        //the sale's outcome would be lost with the window
+        if (finalizingReceipt) {
+            return;
+        }
+
+        //the next transaction starts empty, with its own place in the journal
+        transaction = new Transaction(jdbcUserDAO);
 
         try {
             goToMainWindow(event);
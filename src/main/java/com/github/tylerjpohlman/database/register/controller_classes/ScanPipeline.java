@@ -0,0 +1,128 @@
+package com.github.tylerjpohlman.database.register.controller_classes;
+
+import com.github.tylerjpohlman.database.register.data_access_classes.AsyncJdbcUserDAO;
+import com.github.tylerjpohlman.database.register.helper_classes.Basket;
+import com.github.tylerjpohlman.database.register.helper_classes.BasketLine;
+import com.github.tylerjpohlman.database.register.helper_classes.Item;
+
+import java.util.function.BiConsumer;
+
+/**
+ * Resolves scanned UPCs into {@link Item}s without making the cashier wait between scans. <p>
+ * Scans are grouped into {@link BasketLine}s through a {@link Basket}. A UPC already in the basket just adds to its
+ * line, with no lookup. A new UPC immediately appends a placeholder line, so the list keeps the order the items were
+ * first scanned in, and then is looked up in the background (the item catalog first, then the database); scanning it
+ * again before the lookup finishes adds to the placeholder's quantity. Lookups run concurrently; whichever finishes
+ * replaces its own placeholder in place, so a slow lookup never holds up the ones scanned after it. A lookup which
+ * fails removes its placeholder and is reported to the failure callback. Finished lookups are handed back through an
+ * {@link FxBatchExecutor}, so a burst of them updates the list in one go.
+ * <p>
+ * Every method must be called on the JavaFX Application Thread, and the list is only ever touched there.
+ * @author Tyler Pohlman
+ * @version 1.0, Date Created: 2026-10-17
+ * @lastModified 2026-10-17
+ */
+public class ScanPipeline {
+    /**
+     * Row shown in place of an item while its UPC is still being looked up.
+     */
+    public static class PendingItem extends Item {
+        private PendingItem(long upc) {
+            super(upc, "Looking up " + upc + "...", 0, 0);
+        }
+
+        @Override
+        public String toString() {
+            return getName();
+        }
+    }
+
+    /**
+     * Shared by every pipeline; only one basket is ever being scanned into.
+     */
+    private static final FxBatchExecutor FX_THREAD = new FxBatchExecutor();
+
+    private final Basket basket;
+    private final AsyncJdbcUserDAO asyncJdbcUserDAO;
+    private final BiConsumer<Item, Integer> onResolved;
+    private final BiConsumer<Long, Throwable> onFailure;
+    private int pendingLookups = 0;
+
+    /**
+     * @param basket {@link Basket} the resolved items are added to, usually the sale's, whose lines back the item
+     *               {@code ListView}
+     * @param asyncJdbcUserDAO {@link AsyncJdbcUserDAO} used for the lookups
+     * @param onResolved called with each item and how many of it were added, once for a scan of an item already in
+     *                   the basket, or once its placeholder is replaced
+     * @param onFailure called with the UPC and underlying exception of each lookup which fails
+     */
+    public ScanPipeline(Basket basket, AsyncJdbcUserDAO asyncJdbcUserDAO,
+                        BiConsumer<Item, Integer> onResolved, BiConsumer<Long, Throwable> onFailure) {
+        this.basket = basket;
+        this.asyncJdbcUserDAO = asyncJdbcUserDAO;
+        this.onResolved = onResolved;
+        this.onFailure = onFailure;
+    }
+
+    /**
+     * Adds the UPC to its line if it's already in the basket, otherwise adds a placeholder and starts looking it up.
+     * @param upc long representing the scanned UPC
+     */
+    public void submit(long upc) {
+        BasketLine existing = basket.find(upc);
+        if (existing != null) {
+            basket.add(existing.getItem());
+            //a placeholder reports its whole quantity once its lookup finishes
+            if (!(existing.getItem() instanceof PendingItem)) {
+                onResolved.accept(existing.getItem(), 1);
+            }
+            return;
+        }
+
+        PendingItem placeholder = new PendingItem(upc);
+        basket.add(placeholder);
+        pendingLookups++;
+
+        asyncJdbcUserDAO.getItemFromUPC(upc).whenCompleteAsync((item, error) -> {
+            pendingLookups--;
+            int index = indexOf(placeholder);
+
+            //the list was cleared while the lookup was running
+            if (index < 0) {
+                return;
+            }
+
+            if (error == null) {
+                int quantity = basket.get(index).getQuantity();
+                basket.set(index, new BasketLine(item, quantity));
+                onResolved.accept(item, quantity);
+            } else {
+                basket.remove(index);
+                onFailure.accept(upc, BaseController.unwrap(error));
+            }
+        }, FX_THREAD);
+    }
+
+    /**
+     * @return true while any scanned UPC is still being looked up
+     */
+    public boolean hasPendingLookups() {
+        return pendingLookups > 0;
+    }
+
+    /**
+     * @return int representing scanned UPCs still being looked up
+     */
+    public int getPendingLookups() {
+        return pendingLookups;
+    }
+
+    /**
+     * Finds the placeholder's line through the basket's index by UPC, since earlier placeholders may have been removed
+     * since it was added, moving it up. The line is only its own if it still holds this very placeholder.
+     */
+    private int indexOf(PendingItem placeholder) {
+        int index = basket.indexOf(placeholder.getUpc());
+        return index >= 0 && basket.get(index).getItem() == placeholder ? index : -1;
+    }
+}
@@ -0,0 +1,227 @@
+package com.github.tylerjpohlman.database.register.controller_classes;
+
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.stage.Stage;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Loads each window's FXML file once and keeps its root and controller, so switching windows only swaps the root of
+ * the stage's one {@link Scene} rather than parsing the FXML, building its nodes and creating a new scene every time.
+ * <p>
+ * {@link #preload()} loads every window on a background thread while the login screen is up. A window needed before
+ * the preload reaches it is loaded right away instead, or waited for if the preload is already loading it.
+ * Controllers are reused, so every {@link BaseController} puts its window back the way it was first loaded in
+ * {@link BaseController#resetView()} each time it's shown. <p>
+ * Launching with {@code -Dregister.cacheScenes=false} loads a new window and scene on every switch instead, the way
+ * it used to, for comparing the two with {@link NavigationMetrics}.
+ * @author Tyler Pohlman
+ * @version 1.0, Date Created: 2026-10-17
+ * @lastModified 2026-10-17
+ */
+public class SceneRegistry {
+    /**
+     * System property which turns caching off when set to false.
+     */
+    public static final String ENABLED_PROPERTY = "register.cacheScenes";
+    /**
+     * Every window's FXML file, in the order they're preloaded; the main window is needed first after logging in.
+     */
+    public static final List<String> FXML_FILES = List.of(IntroductionController.introductionFXMLFile,
+            BaseController.mainFXMLFile, BaseController.payFXMLFile, BaseController.memberFXMLFile,
+            BaseController.itemLookupFXMLFile);
+
+    /**
+     * A loaded window.
+     * @param root {@link Parent} at the top of the window's nodes
+     * @param controller {@link BaseController} the FXML file created for it
+     */
+    private record View(Parent root, BaseController controller) {}
+
+    private final Stage stage;
+    private final boolean caching;
+    /**
+     * Loaded windows by FXML file; a window is only in here once it has started loading.
+     */
+    private final Map<String, CompletableFuture<View>> views = new ConcurrentHashMap<>();
+    private Scene scene = null;
+    /**
+     * Counts window switches, so callbacks can tell whether their window is still the one showing.
+     */
+    private long navigations = 0;
+
+    private NavigationMetrics metrics = null;
+    private NavigationMetrics.Start pendingNavigation = null;
+    /**
+     * Tasks waiting for the next time the window is laid out.
+     */
+    private List<Runnable> afterLayout = new ArrayList<>();
+
+    /**
+     * @param stage {@link Stage} the windows are shown in
+     */
+    public SceneRegistry(Stage stage) {
+        this.stage = stage;
+        this.caching = isEnabled();
+    }
+
+    /**
+     * @return true unless caching was turned off with {@link #ENABLED_PROPERTY}
+     */
+    public static boolean isEnabled() {
+        return !"false".equalsIgnoreCase(System.getProperty(ENABLED_PROPERTY));
+    }
+
+    /**
+     * Measures every window switch from now on.
+     * @param metrics {@link NavigationMetrics} to record to
+     */
+    public void setMetrics(NavigationMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Loads every window not already loaded on a background thread, one after another. Does nothing when caching is
+     * turned off.
+     * @return {@link CompletableFuture} completed once every window has been tried, whether or not it loaded
+     */
+    public CompletableFuture<Void> preload() {
+        if (!caching) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        CompletableFuture<Void> preloaded = new CompletableFuture<>();
+        Thread.ofPlatform().daemon().name("scene-preload").start(() -> {
+            for (String fileName : FXML_FILES) {
+                CompletableFuture<View> view = new CompletableFuture<>();
+                //shown (and so loaded) already
+                if (views.putIfAbsent(fileName, view) != null) {
+                    continue;
+                }
+                try {
+                    view.complete(load(fileName));
+                } catch (IOException | RuntimeException e) {
+                    //left for show to report, and to load again
+                    view.completeExceptionally(e);
+                }
+            }
+            preloaded.complete(null);
+        });
+        return preloaded;
+    }
+
+    /**
+     * Shows a window in the stage. Must be called on the JavaFX Application Thread.
+     * @param fileName String representing the window's FXML file, one of {@link #FXML_FILES}
+     * @return {@link BaseController} for the window
+     * @throws IOException if error occurs when loading FXML file
+     */
+    public BaseController show(String fileName) throws IOException {
+        if (metrics != null) {
+            pendingNavigation = metrics.start();
+        }
+
+        View view = caching ? cachedView(fileName) : load(fileName);
+        navigations++;
+
+        if (scene == null || !caching) {
+            scene = new Scene(view.root());
+            //measured once the new window has been laid out, i.e., is ready to be drawn
+            scene.addPostLayoutPulseListener(this::laidOut);
+            stage.setScene(scene);
+        } else {
+            scene.setRoot(view.root());
+        }
+        stage.show();
+
+        return view.controller();
+    }
+
+    /**
+     * Returns a window loaded earlier, loading it now if the preload hasn't reached it.
+     * @param fileName String representing the window's FXML file
+     * @return the loaded {@link View}
+     * @throws IOException if error occurs when loading FXML file
+     */
+    private View cachedView(String fileName) throws IOException {
+        CompletableFuture<View> view = views.get(fileName);
+        if (view == null) {
+            View loaded = load(fileName);
+            view = views.putIfAbsent(fileName, CompletableFuture.completedFuture(loaded));
+            if (view == null) {
+                return loaded;
+            }
+        }
+
+        try {
+            return view.join();
+        } catch (CompletionException e) {
+            //try again next time rather than failing for good
+            views.remove(fileName, view);
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Loads a window's FXML file, handing this registry to its controller.
+     * @param fileName String representing the window's FXML file
+     * @return the loaded {@link View}
+     * @throws IOException if error occurs when loading FXML file
+     */
+    private View load(String fileName) throws IOException {
+        FXMLLoader fxmlLoader = new FXMLLoader(BaseController.class.getResource(fileName));
+        Parent root = fxmlLoader.load();//instantiates all the objects in the FXML file
+
+        BaseController controller = fxmlLoader.getController();
+        controller.sceneRegistry = this;
+        return new View(root, controller);
+    }
+
+    /**
+     * Runs a task once, the next time the window is laid out, i.e., once the window just shown is ready to be drawn.
+     * Must be called on the JavaFX Application Thread.
+     * @param task {@link Runnable} to run on the JavaFX Application Thread
+     */
+    public void runAfterLayout(Runnable task) {
+        afterLayout.add(task);
+    }
+
+    private void laidOut() {
+        if (pendingNavigation != null) {
+            metrics.finish(pendingNavigation);
+            pendingNavigation = null;
+        }
+
+        if (!afterLayout.isEmpty()) {
+            //swapped out first, so a task can wait for the layout after this one
+            List<Runnable> tasks = afterLayout;
+            afterLayout = new ArrayList<>();
+            tasks.forEach(Runnable::run);
+        }
+    }
+
+    /**
+     * @return long representing how many times a window has been shown; changes whenever the window does
+     */
+    public long getNavigationCount() {
+        return navigations;
+    }
+
+    /**
+     * @return true if windows are loaded once and reused
+     */
+    public boolean isCaching() {
+        return caching;
+    }
+}
@@ -0,0 +1,249 @@
+package com.github.tylerjpohlman.database.register.controller_classes;
+
+import com.github.tylerjpohlman.database.register.helper_classes.Item;
+
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.util.Duration;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * Turns keystrokes in a search field into a bounded number of searches, shown a page at a time. <p>
+ * A query is only searched once typing pauses for {@link #DEBOUNCE_MILLIS}, and at most one search per pipeline is
+ * in flight: a query typed while one is running waits its turn, and only the newest waiting query is kept. Every new
+ * query starts a new generation, so results for a superseded query are dropped when they arrive instead of being
+ * shown. However fast the cashier types, the pipeline never runs more than one search at a time.
+ * <p>
+ * Results are cached per query in a small least-recently-used cache, so backspacing to an earlier query, or paging
+ * back through one, doesn't search again. Only the first {@link #PAGE_SIZE} results are shown at first; each
+ * {@link #loadNextPage()} fetches and appends the next page, up to {@link #MAX_RESULTS}. The cache lives as long as
+ * the pipeline, i.e., one visit to the lookup window, so prices in it never go stale for long.
+ * <p>
+ * Every method must be called on the JavaFX Application Thread, and the list is only ever touched there.
+ * @author Tyler Pohlman
+ * @version 1.0, Date Created: 2026-10-17
+ * @lastModified 2026-10-17
+ */
+public class SearchPipeline {
+    /**
+     * How long typing has to pause before the query is searched.
+     */
+    public static final long DEBOUNCE_MILLIS = 150;
+    /**
+     * Results added to the list at a time.
+     */
+    public static final int PAGE_SIZE = 20;
+    /**
+     * Most results ever shown for one query.
+     */
+    public static final int MAX_RESULTS = 200;
+    /**
+     * Queries whose results are kept.
+     */
+    public static final int CACHE_SIZE = 32;
+
+    /**
+     * Results fetched for a query, and whether they're all there are.
+     */
+    private record CachedResults(List<Item> items, boolean complete) {
+        boolean covers(int wanted) {
+            return complete || items.size() >= wanted;
+        }
+    }
+
+    private final List<Item> results;
+    private final BiFunction<String, Integer, CompletableFuture<List<Item>>> search;
+    private final int minQueryLength;
+    private final BiConsumer<String, Integer> onShown;
+    private final Consumer<Throwable> onFailure;
+    private final PauseTransition debounce = new PauseTransition(Duration.millis(DEBOUNCE_MILLIS));
+
+    private final Map<String, CachedResults> cache = new LinkedHashMap<>(CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedResults> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    private long generation = 0;
+    private String currentQuery = "";
+    private int shown = 0;
+    private boolean searching = false;
+    private Runnable waiting = null;
+
+    private long searchesStarted = 0;
+    private long searchesDropped = 0;
+    private long cacheHits = 0;
+
+    /**
+     * @param results list the results are shown in, usually the one backing the results {@code ListView}
+     * @param search runs a search for a query, returning up to the given number of results, best first
+     * @param minQueryLength int representing the shortest query worth searching
+     * @param onShown called with the query and how many results are showing each time the list changes
+     * @param onFailure called with the underlying exception of a search which fails
+     */
+    public SearchPipeline(List<Item> results, BiFunction<String, Integer, CompletableFuture<List<Item>>> search,
+                          int minQueryLength, BiConsumer<String, Integer> onShown, Consumer<Throwable> onFailure) {
+        this.results = results;
+        this.search = search;
+        this.minQueryLength = minQueryLength;
+        this.onShown = onShown;
+        this.onFailure = onFailure;
+    }
+
+    /**
+     * Starts a new query once typing pauses, abandoning whatever the previous query was doing.
+     * @param query String typed so far
+     */
+    public void queryChanged(String query) {
+        if (!startQuery(query)) {
+            return;
+        }
+
+        long queryGeneration = generation;
+        debounce.setOnFinished(finished -> request(query, PAGE_SIZE, queryGeneration));
+        debounce.playFromStart();
+    }
+
+    /**
+     * Starts a new query right away, e.g., when the cashier presses search.
+     * @param query String typed so far
+     */
+    public void searchNow(String query) {
+        if (startQuery(query)) {
+            request(query, PAGE_SIZE, generation);
+        }
+    }
+
+    /**
+     * Shows the next page of results for the current query, if there are any more.
+     */
+    public void loadNextPage() {
+        if (shown == 0 || shown % PAGE_SIZE != 0 || shown >= MAX_RESULTS) {
+            //nothing showing yet, or the last page wasn't full so there's nothing more
+            return;
+        }
+
+        CachedResults cached = cache.get(cacheKey(currentQuery));
+        if (cached != null && cached.complete() && cached.items().size() <= shown) {
+            return;
+        }
+        request(currentQuery, shown + PAGE_SIZE, generation);
+    }
+
+    /**
+     * Moves on to a new generation for the query, clearing the list if it's too short to search.
+     * @return true if the query should be searched
+     */
+    private boolean startQuery(String query) {
+        generation++;
+        currentQuery = query;
+        shown = 0;
+        debounce.stop();
+
+        if (query.trim().length() < minQueryLength) {
+            results.clear();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Shows the wanted number of results, from the cache if it has them or from a search otherwise.
+     */
+    private void request(String query, int wanted, long queryGeneration) {
+        if (queryGeneration != generation) {
+            return;
+        }
+
+        CachedResults cached = cache.get(cacheKey(query));
+        if (cached != null && cached.covers(wanted)) {
+            cacheHits++;
+            show(query, cached.items(), wanted);
+            return;
+        }
+
+        //only the newest request waits for the running search; anything it replaces was superseded
+        if (searching) {
+            waiting = () -> request(query, wanted, queryGeneration);
+            return;
+        }
+
+        searching = true;
+        searchesStarted++;
+        search.apply(query, wanted).whenComplete((items, error) -> Platform.runLater(() -> {
+            searching = false;
+
+            if (queryGeneration != generation) {
+                searchesDropped++;
+            } else if (error != null) {
+                onFailure.accept(BaseController.unwrap(error));
+            } else {
+                //nothing found may just mean the catalog is still loading, so only real results are kept
+                if (!items.isEmpty()) {
+                    cache.put(cacheKey(query), new CachedResults(items, items.size() < wanted));
+                }
+                show(query, items, wanted);
+            }
+
+            Runnable next = waiting;
+            waiting = null;
+            if (next != null) {
+                next.run();
+            }
+        }));
+    }
+
+    /**
+     * Adds whatever part of the first {@code wanted} results isn't showing yet.
+     */
+    private void show(String query, List<Item> items, int wanted) {
+        int end = Math.min(wanted, items.size());
+
+        if (shown == 0) {
+            results.clear();
+        }
+        if (end > shown) {
+            results.addAll(items.subList(shown, end));
+            shown = end;
+        }
+        onShown.accept(query, shown);
+    }
+
+    /**
+     * Same key for queries which only differ in case or repeated spaces. A trailing space still counts, since it
+     * finishes the last word.
+     */
+    private static String cacheKey(String query) {
+        return query.toLowerCase(Locale.ROOT).replaceAll("\\s+", " ").stripLeading();
+    }
+
+    /**
+     * @return long representing searches actually run
+     */
+    public long getSearchesStarted() {
+        return searchesStarted;
+    }
+
+    /**
+     * @return long representing searches whose results were dropped because the query had changed
+     */
+    public long getSearchesDropped() {
+        return searchesDropped;
+    }
+
+    /**
+     * @return long representing pages served from the cache instead of searching
+     */
+    public long getCacheHits() {
+        return cacheHits;
+    }
+}
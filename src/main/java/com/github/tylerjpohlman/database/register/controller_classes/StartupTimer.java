@@ -0,0 +1,137 @@
+package com.github.tylerjpohlman.database.register.controller_classes;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Times the application's startup, phase by phase, from the moment the JVM started. <p>
+ * Each {@link Phase} is noted the first time it's reached, from whichever thread reaches it; later logins don't move
+ * the times. Noting a phase is cheap, so it's always done, but the report is only printed--when the application
+ * exits--if launched with {@code -Dregister.monitorStartup=true}. The two times that matter most to a cashier are
+ * {@link Phase#LOGIN_SCREEN_READY} and {@link Phase#FIRST_SCAN_READY}; the rest show where the time between went.
+ * @author Tyler Pohlman
+ * @version 1.0, Date Created: 2026-10-17
+ * @lastModified 2026-10-17
+ */
+public final class StartupTimer {
+    /**
+     * System property which turns the report on.
+     */
+    public static final String ENABLED_PROPERTY = "register.monitorStartup";
+
+    /**
+     * Points reached while starting up, in about the order they're reached; the background ones can finish in any
+     * order after the login screen is up.
+     */
+    public enum Phase {
+        MAIN_ENTERED("main entered"),
+        TOOLKIT_STARTED("JavaFX started"),
+        LOGIN_SCREEN_READY("login screen ready"),
+        DRIVER_LOADED("JDBC driver loaded"),
+        VIEWS_PRELOADED("windows preloaded"),
+        LOGGED_IN("logged in"),
+        FIRST_SCAN_READY("first scan ready");
+
+        private final String description;
+
+        Phase(String description) {
+            this.description = description;
+        }
+    }
+
+    private static final long NOT_REACHED = -1;
+    /**
+     * Where Linux reports the process's memory use, including the most it has ever had resident.
+     */
+    private static final Path PROCESS_STATUS = Path.of("/proc/self/status");
+    private static final String PEAK_RESIDENT_FIELD = "VmHWM:";
+
+    /**
+     * Milliseconds between the JVM starting and this class being loaded, which happens as main is entered.
+     */
+    private static final long BASE_UPTIME_MILLIS = ManagementFactory.getRuntimeMXBean().getUptime();
+    private static final long BASE_NANOS = System.nanoTime();
+    /**
+     * Nanoseconds since {@link #BASE_NANOS} each phase was reached at, by ordinal, or {@link #NOT_REACHED}.
+     */
+    private static final AtomicLongArray reachedAt = new AtomicLongArray(Phase.values().length);
+
+    static {
+        for (int i = 0; i < reachedAt.length(); i++) {
+            reachedAt.set(i, NOT_REACHED);
+        }
+    }
+
+    private StartupTimer() {}
+
+    /**
+     * @return true if the report was turned on with {@link #ENABLED_PROPERTY}
+     */
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(ENABLED_PROPERTY);
+    }
+
+    /**
+     * Notes that a phase has been reached, unless it was already. Can be called from any thread.
+     * @param phase {@link Phase} reached
+     */
+    public static void mark(Phase phase) {
+        reachedAt.compareAndSet(phase.ordinal(), NOT_REACHED, System.nanoTime() - BASE_NANOS);
+    }
+
+    /**
+     * @param phase {@link Phase} to look up
+     * @return double representing the milliseconds from the JVM starting until the phase was reached, or -1 if it
+     * hasn't been
+     */
+    public static double getMillisSinceJvmStart(Phase phase) {
+        long nanos = reachedAt.get(phase.ordinal());
+        return nanos == NOT_REACHED ? -1 : BASE_UPTIME_MILLIS + nanos / 1_000_000.0;
+    }
+
+    /**
+     * @return long representing the most memory the process has had resident so far in kilobytes, or -1 if the
+     * operating system doesn't say
+     */
+    public static long getPeakResidentKilobytes() {
+        try {
+            List<String> status = Files.readAllLines(PROCESS_STATUS);
+            for (String line : status) {
+                if (line.startsWith(PEAK_RESIDENT_FIELD)) {
+                    //e.g., "VmHWM:     123456 kB"
+                    return Long.parseLong(line.substring(PEAK_RESIDENT_FIELD.length()).replace("kB", "").trim());
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            //not Linux, or not readable
+        }
+        return -1;
+    }
+
+    /**
+     * @return String listing each phase reached, with its time since the JVM started and since the phase before it,
+     * followed by the peak resident memory
+     */
+    public static String report() {
+        StringBuilder report = new StringBuilder("Startup (ms since JVM start):");
+        double previous = 0;
+        for (Phase phase : Phase.values()) {
+            double millis = getMillisSinceJvmStart(phase);
+            report.append("\n  ").append(phase.description).append(": ");
+            if (millis < 0) {
+                report.append("not reached");
+                continue;
+            }
+            report.append(String.format("%.1f (+%.1f)", millis, millis - previous));
+            previous = millis;
+        }
+
+        long peakResident = getPeakResidentKilobytes();
+        report.append("\n  peak RSS: ").append(peakResident < 0 ? "unknown" : peakResident + "KB");
+        return report.toString();
+    }
+}
@@ -0,0 +1,216 @@
+package com.github.tylerjpohlman.database.register.controller_classes;
+
+import com.github.tylerjpohlman.database.register.data_access_classes.JdbcUserDAO;
+import com.github.tylerjpohlman.database.register.data_access_classes.ReceiptWriter;
+import com.github.tylerjpohlman.database.register.data_access_classes.TransactionJournal;
+import com.github.tylerjpohlman.database.register.helper_classes.Basket;
+import com.github.tylerjpohlman.database.register.helper_classes.BasketLine;
+import com.github.tylerjpohlman.database.register.helper_classes.Item;
+import com.github.tylerjpohlman.database.register.helper_classes.Member;
+import com.github.tylerjpohlman.database.register.helper_classes.PricingEngine;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Everything about the sale currently being rung up: its basket, member, receipt, place in the journal, and running
+ * totals. <p>
+ * One instance is shared by every window for the length of the sale, so switching windows never copies the basket;
+ * the main window's item list shows {@link #getBasket()} directly. Each change is applied as it happens--adding an
+ * item adds it to the totals, the receipt, and the journal, and attaching a member only flips the totals over to
+ * member prices--so nothing has to be recalculated from the whole basket when a window opens. A new instance is
+ * created for each sale. <p>
+ * Every method must be called on the JavaFX Application Thread. Once the sale moves on to payment its basket no longer
+ * changes, so it's safe to hand to the database in the background from then on.
+ * @author Tyler Pohlman
+ * @version 1.0, Date Created: 2026-10-17
+ * @lastModified 2026-10-17
+ */
+public class Transaction {
+    private final JdbcUserDAO jdbcUserDAO;
+    private final ObservableList<BasketLine> basket = FXCollections.observableArrayList();
+    /**
+     * Groups {@link #basket} into one line per UPC; every change to the basket goes through it.
+     */
+    private final Basket lines = new Basket(basket);
+    /**
+     * Running totals, or null if the tax rate isn't known.
+     */
+    private final PricingEngine totals;
+    private Member member = null;
+    /**
+     * Writes the receipt as items are added; null until the first item, or if turned off.
+     */
+    private ReceiptWriter receiptWriter = null;
+    /**
+     * Identifies the sale in the {@link TransactionJournal}; 0 until the first item is journaled.
+     */
+    private long journalId = 0;
+    /**
+     * Identifies a sale that isn't journaled when it's checked out; 0 until it's first needed.
+     */
+    private long unjournaledCheckoutKey = 0;
+    /**
+     * Receipt number given by the database, or 0 until it's known.
+     */
+    private int receiptNumber = 0;
+
+    /**
+     * Starts a new, empty sale.
+     * @param jdbcUserDAO {@link JdbcUserDAO} for the current login
+     */
+    public Transaction(JdbcUserDAO jdbcUserDAO) {
+        this.jdbcUserDAO = jdbcUserDAO;
+
+        int taxRate = jdbcUserDAO.getStateTaxRate();
+        totals = taxRate == JdbcUserDAO.UNKNOWN_TAX_RATE ? null : new PricingEngine(taxRate, false);
+    }
+
+    /**
+     * Adds a single unit of an item to the basket and records it.
+     * @param item {@link Item} to add
+     */
+    public void add(Item item) {
+        lines.add(item);
+        record(item, 1);
+    }
+
+    /**
+     * Records units of an item which are already in the basket, e.g., put there by a {@link ScanPipeline}: adds them
+     * to the totals, writes them to the receipt in the background, and journals them.
+     * @param item {@link Item} added to the basket
+     * @param quantity int representing how many of the item were added
+     */
+    public void record(Item item, int quantity) {
+        if (totals != null) {
+            totals.add(item, quantity);
+        }
+
+        //the receipt is started by the sale's first item
+        if (receiptWriter == null && ReceiptWriter.isEnabled()) {
+            receiptWriter = new ReceiptWriter(jdbcUserDAO, member);
+        }
+        if (receiptWriter != null) {
+            receiptWriter.addItem(item, quantity);
+        }
+
+        TransactionJournal journal = jdbcUserDAO.getTransactionJournal();
+        if (journal != null) {
+            //the sale is journaled from its first item on
+            if (journalId == 0) {
+                journalId = journal.begin();
+                if (member != null) {
+                    journal.appendMember(journalId, member.getAccountNumber());
+                }
+            }
+            //the journal keeps a record per unit, so it reads back the same however the units were grouped
+            for (int i = 0; i < quantity; i++) {
+                journal.appendItem(journalId, item);
+            }
+        }
+    }
+
+    /**
+     * Attaches a member to the sale, re-pricing anything already written to the receipt.
+     * @param member {@link Member} found for the sale
+     */
+    public void setMember(Member member) {
+        this.member = member;
+
+        if (totals != null) {
+            totals.setMember(member != null);
+        }
+        if (receiptWriter != null) {
+            receiptWriter.setMember(member);
+        }
+        TransactionJournal journal = jdbcUserDAO.getTransactionJournal();
+        if (journal != null && journalId != 0 && member != null) {
+            journal.appendMember(journalId, member.getAccountNumber());
+        }
+    }
+
+    /**
+     * @return the lines of items in the sale, one per UPC
+     */
+    public ObservableList<BasketLine> getBasket() {
+        return basket;
+    }
+
+    /**
+     * @return {@link Basket} to make any change to the basket through, so each line can still be found by its UPC
+     */
+    public Basket getLines() {
+        return lines;
+    }
+
+    /**
+     * @return {@link Member} attached to the sale, or null if there isn't one
+     */
+    public Member getMember() {
+        return member;
+    }
+
+    /**
+     * @return {@link PricingEngine} holding the sale's running totals, or null if the tax rate isn't known
+     */
+    public PricingEngine getTotals() {
+        return totals;
+    }
+
+    /**
+     * @return {@link ReceiptWriter} writing the receipt as items are added, or null if the receipt isn't written
+     * until payment
+     */
+    public ReceiptWriter getReceiptWriter() {
+        return receiptWriter;
+    }
+
+    /**
+     * @return long representing the sale's id in the {@link TransactionJournal}, or 0 if it isn't journaled
+     */
+    public long getJournalId() {
+        return journalId;
+    }
+
+    /**
+     * Gets the key the database recognizes a repeated checkout of the sale by, so a checkout retried after the
+     * connection dropped never records it twice. That's the journal id if the sale is journaled; otherwise it's a
+     * negative key made up the first time it's asked for, which can't match any journal id, and kept for the rest of
+     * the sale.
+     * @return long identifying the sale on this register
+     */
+    public long getCheckoutKey() {
+        if (journalId != 0) {
+            return journalId;
+        }
+        if (unjournaledCheckoutKey == 0) {
+            unjournaledCheckoutKey = -(System.currentTimeMillis() * 1000 + ThreadLocalRandom.current().nextInt(1000));
+        }
+        return unjournaledCheckoutKey;
+    }
+
+    /**
+     * @return int representing the receipt number given by the database, or 0 until it's known
+     */
+    public int getReceiptNumber() {
+        return receiptNumber;
+    }
+
+    /**
+     * @param receiptNumber int representing the receipt number given by the database
+     */
+    public void setReceiptNumber(int receiptNumber) {
+        this.receiptNumber = receiptNumber;
+    }
+
+    /**
+     * Drops the sale, so no more of its receipt is written.
+     */
+    public void close() {
+        if (receiptWriter != null) {
+            receiptWriter.close();
+        }
+    }
+}
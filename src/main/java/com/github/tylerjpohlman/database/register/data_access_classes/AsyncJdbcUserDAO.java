@@ -0,0 +1,203 @@
+package com.github.tylerjpohlman.database.register.data_access_classes;
+
+import com.github.tylerjpohlman.database.register.helper_classes.BasketLine;
+import com.github.tylerjpohlman.database.register.helper_classes.CheckoutResult;
+import com.github.tylerjpohlman.database.register.helper_classes.Item;
+import com.github.tylerjpohlman.database.register.helper_classes.Member;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Asynchronous counterpart to {@link JdbcUserDAO}. <p>
+ * Each method runs the matching {@link JdbcUserDAO} call on its own virtual thread and returns a
+ * {@link CompletableFuture}, so callers on the JavaFX Application Thread never wait on a network round trip. Any
+ * {@link SQLException} thrown by the call completes the future exceptionally with that exception as the cause of a
+ * {@link CompletionException}. Results are not marshalled back to any particular thread; controllers do that with
+ * {@code Platform.runLater}. <p>
+ * Lookups which change nothing in the database are retried once if the connection drops under them, as soon as the
+ * {@link SessionManager} has reconnected, so a brief outage only shows up as a slower lookup.
+ * @author Tyler Pohlman
+ * @version 1.0, Date Created: 2026-10-17
+ * @lastModified 2026-10-17
+ */
+public class AsyncJdbcUserDAO {
+    /**
+     * Shared by every instance; virtual threads are cheap enough that each call simply gets its own.
+     */
+    private static final ExecutorService EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+    /**
+     * Longest a lookup waits for the session to reconnect before giving up on its retry.
+     */
+    public static final long RESUME_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(3);
+
+    /**
+     * A database call which may throw an {@link SQLException}.
+     * @param <T> type of the call's result
+     */
+    @FunctionalInterface
+    public interface SqlCall<T> {
+        T call() throws SQLException;
+    }
+
+    private final JdbcUserDAO jdbcUserDAO;
+
+    /**
+     * @param jdbcUserDAO {@link JdbcUserDAO} which does the actual work
+     */
+    public AsyncJdbcUserDAO(JdbcUserDAO jdbcUserDAO) {
+        this.jdbcUserDAO = jdbcUserDAO;
+    }
+
+    /**
+     * Logs in and creates a {@link JdbcUserDAOImpl} in the background.
+     * @param url String representing database url
+     * @param username String representing username
+     * @param password String representing password
+     * @param registerNumber int representing the register number
+     * @return future holding the logged in {@link JdbcUserDAO}
+     * @see JdbcUserDAO#setConnectionFromLogin(String, String, String, int)
+     */
+    public static CompletableFuture<JdbcUserDAO> login(String url, String username, String password,
+                                                       int registerNumber) {
+        return supply(() -> new JdbcUserDAOImpl(url, username, password, registerNumber));
+    }
+
+    /**
+     * Runs any database call in the background.
+     * @param call {@link SqlCall} to run
+     * @return future holding the call's result
+     * @param <T> type of the call's result
+     */
+    public static <T> CompletableFuture<T> supply(SqlCall<T> call) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return call.call();
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+        }, EXECUTOR);
+    }
+
+    /**
+     * Runs a lookup in the background, retrying it once if the connection dropped and the session reconnects within
+     * {@link #RESUME_TIMEOUT_MILLIS}. Only for calls which change nothing, since the first attempt may have reached the
+     * database.
+     * @param call {@link SqlCall} to run
+     * @return future holding the call's result
+     * @param <T> type of the call's result
+     */
+    private <T> CompletableFuture<T> supplyRetryingAfterReconnect(SqlCall<T> call) {
+        return supply(() -> {
+            try {
+                return call.call();
+            } catch (SQLException e) {
+                if (!SessionManager.isConnectionProblem(e) || !awaitSession()) {
+                    throw e;
+                }
+                return call.call();
+            }
+        });
+    }
+
+    /**
+     * Blocks the calling virtual thread until the session reconnects.
+     * @return true if it reconnected in time; false if it timed out or the session was lost
+     */
+    private boolean awaitSession() {
+        try {
+            jdbcUserDAO.awaitSession().get(RESUME_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (ExecutionException | TimeoutException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * @return the wrapped {@link JdbcUserDAO}
+     */
+    public JdbcUserDAO getJdbcUserDAO() {
+        return jdbcUserDAO;
+    }
+
+    /**
+     * @see JdbcUserDAO#isConnectionNotReachable()
+     */
+    public CompletableFuture<Boolean> isConnectionNotReachable() {
+        return supply(jdbcUserDAO::isConnectionNotReachable);
+    }
+
+    /**
+     * @see JdbcUserDAO#getAddressFromConnection()
+     */
+    public CompletableFuture<String> getAddressFromConnection() {
+        return supplyRetryingAfterReconnect(jdbcUserDAO::getAddressFromConnection);
+    }
+
+    /**
+     * @see JdbcUserDAO#getItemFromUPC(long)
+     */
+    public CompletableFuture<Item> getItemFromUPC(long upc) {
+        return supplyRetryingAfterReconnect(() -> jdbcUserDAO.getItemFromUPC(upc));
+    }
+
+    /**
+     * @see JdbcUserDAO#searchItemsByName(String, int)
+     */
+    public CompletableFuture<List<Item>> searchItemsByName(String query, int limit) {
+        return supply(() -> jdbcUserDAO.searchItemsByName(query, limit));
+    }
+
+    /**
+     * @see JdbcUserDAO#createReceipt(Member)
+     */
+    public CompletableFuture<Integer> createReceipt(Member member) {
+        return supply(() -> jdbcUserDAO.createReceipt(member));
+    }
+
+    /**
+     * @see JdbcUserDAO#getReceiptTotal(List, int, Member)
+     */
+    public CompletableFuture<Long> getReceiptTotal(List<BasketLine> list, int receiptNumber, Member member) {
+        return supply(() -> jdbcUserDAO.getReceiptTotal(list, receiptNumber, member));
+    }
+
+    /**
+     * @see JdbcUserDAO#getMemberFromPhoneNumber(long)
+     */
+    public CompletableFuture<Member> getMemberFromPhoneNumber(long phoneNumber) {
+        return supplyRetryingAfterReconnect(() -> jdbcUserDAO.getMemberFromPhoneNumber(phoneNumber));
+    }
+
+    /**
+     * @see JdbcUserDAO#getMemberFromAccountNumber(long)
+     */
+    public CompletableFuture<Member> getMemberFromAccountNumber(long accountNumber) {
+        return supplyRetryingAfterReconnect(() -> jdbcUserDAO.getMemberFromAccountNumber(accountNumber));
+    }
+
+    /**
+     * @see JdbcUserDAO#finalizeReceipt(long, long, long)
+     */
+    public CompletableFuture<Long> finalizeReceipt(long amountPaid, long amountDue, long receiptNumber) {
+        return supply(() -> jdbcUserDAO.finalizeReceipt(amountPaid, amountDue, receiptNumber));
+    }
+
+    /**
+     * @see JdbcUserDAO#checkout(List, Member, long, long)
+     */
+    public CompletableFuture<CheckoutResult> checkout(List<BasketLine> list, Member member, long amountPaid,
+                                                      long checkoutKey) {
+        return supply(() -> jdbcUserDAO.checkout(list, member, amountPaid, checkoutKey));
+    }
+}
@@ -0,0 +1,390 @@
+package com.github.tylerjpohlman.database.register.data_access_classes;
+
+import com.github.tylerjpohlman.database.register.helper_classes.ClosedConnectionException;
+import com.github.tylerjpohlman.database.register.helper_classes.LatencyHistogram;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A small, thread-safe JDBC connection pool used by {@link JdbcUserDAOImpl}. <p>
+ * Connections are opened lazily up to {@link #getMaxPoolSize()}, validated before being handed out if they've sat idle,
+ * and retired once they pass their max lifetime or go unused for too long. A background housekeeping thread handles
+ * idle eviction so that a register left alone overnight doesn't hand out a connection the server already dropped.
+ * <p>
+ * Callers borrow a {@link PooledConnection} with {@link #borrow()} and return it by closing it, ideally with
+ * try-with-resources. Each connection keeps its own {@link StatementCache}, so repeated calls skip the prepare round
+ * trip.
+ * <p>
+ * A connection which can't be opened, or which comes back closed, is reported to the
+ * {@link #setConnectionLostListener connection lost listener}, which {@link SessionManager} uses to start reconnecting.
+ * @author Tyler Pohlman
+ * @version 1.0, Date Created: 2026-10-17
+ * @lastModified 2026-10-17
+ */
+public class ConnectionPool implements AutoCloseable {
+    /**
+     * Default number of physical connections; enough for a lane's UI and background work to overlap.
+     */
+    public static final int DEFAULT_MAX_POOL_SIZE = 4;
+    /**
+     * Default max lifetime of a connection, kept well under MySQL's default {@code wait_timeout} of 8 hours.
+     */
+    public static final long DEFAULT_MAX_LIFETIME_MILLIS = TimeUnit.MINUTES.toMillis(30);
+    /**
+     * Default time a connection can sit unused in the pool before being closed.
+     */
+    public static final long DEFAULT_IDLE_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    /**
+     * Default time a caller will wait for a free connection before giving up.
+     */
+    public static final long DEFAULT_BORROW_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(5);
+    /**
+     * Default number of prepared statements cached per connection; comfortably more than the DAO uses.
+     */
+    public static final int DEFAULT_STATEMENT_CACHE_SIZE = 32;
+    /**
+     * Default time given to opening a connection, so an unreachable server fails fast instead of waiting on the OS.
+     */
+    public static final long DEFAULT_CONNECT_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(3);
+
+    /**
+     * Start of every MySQL url, which the driver recognizes them by.
+     */
+    private static final String MYSQL_URL_PREFIX = "jdbc:mysql://";
+    /**
+     * Connections idle for less than this aren't re-validated before being handed out.
+     */
+    private static final long VALIDATION_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    /**
+     * Seconds given to {@link Connection#isValid(int)} before a connection is considered dead.
+     */
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+    /**
+     * How often the housekeeping thread looks for idle or expired connections.
+     */
+    private static final long HOUSEKEEPING_PERIOD_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    private final String url;
+    private final Properties connectionProperties = new Properties();
+    private final int maxPoolSize;
+    private final long maxLifetimeNanos;
+    private final long idleTimeoutNanos;
+    private final long borrowTimeoutMillis;
+
+    /**
+     * Idle connections, most recently returned first so that warm connections are reused.
+     */
+    private final LinkedBlockingDeque<PooledConnection> idleConnections = new LinkedBlockingDeque<>();
+    /**
+     * One permit per connection that may be borrowed at once.
+     */
+    private final Semaphore permits;
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed = false;
+    /**
+     * Whether the last attempt to open a physical connection failed.
+     */
+    private volatile boolean lastOpenFailed = false;
+    /**
+     * Told whenever a connection can't be opened or dies while borrowed; null if nobody is listening.
+     */
+    private volatile Runnable connectionLostListener = null;
+
+    private final AtomicInteger activeConnections = new AtomicInteger();
+    private final AtomicLong totalCreated = new AtomicLong();
+    private final AtomicLong totalEvicted = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final LatencyHistogram borrowLatency = new LatencyHistogram();
+    private final AtomicLong statementCacheHits = new AtomicLong();
+    private final AtomicLong statementCacheMisses = new AtomicLong();
+    private final AtomicLong statementCacheEvictions = new AtomicLong();
+
+    /**
+     * Creates a pool using the default sizing and timeouts.
+     * @param url String representing database url
+     * @param username String representing username
+     * @param password String representing password
+     */
+    public ConnectionPool(String url, String username, String password) {
+        this(url, username, password, DEFAULT_MAX_POOL_SIZE, DEFAULT_MAX_LIFETIME_MILLIS,
+                DEFAULT_IDLE_TIMEOUT_MILLIS, DEFAULT_BORROW_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Creates a pool. No connections are opened until the first {@link #borrow()}.
+     * @param url String representing database url
+     * @param username String representing username
+     * @param password String representing password
+     * @param maxPoolSize int representing the most connections open at once
+     * @param maxLifetimeMillis long representing how long a connection is kept before being replaced
+     * @param idleTimeoutMillis long representing how long an unused connection is kept
+     * @param borrowTimeoutMillis long representing how long {@link #borrow()} waits for a free connection
+     */
+    public ConnectionPool(String url, String username, String password, int maxPoolSize, long maxLifetimeMillis,
+                          long idleTimeoutMillis, long borrowTimeoutMillis) {
+        if (maxPoolSize < 1) {
+            throw new IllegalArgumentException("maxPoolSize must be at least 1");
+        }
+
+        this.url = url;
+        connectionProperties.setProperty("user", username);
+        connectionProperties.setProperty("password", password);
+        //lets Connector/J send a statement batch in as few round trips as the packet size allows
+        connectionProperties.setProperty("rewriteBatchedStatements", "true");
+        //prepares statements on the server, so a statement kept by StatementCache is parsed there once rather than
+        //having its full text sent and parsed on every execute
+        connectionProperties.setProperty("useServerPrepStmts", "true");
+        connectionProperties.setProperty("connectTimeout", String.valueOf(DEFAULT_CONNECT_TIMEOUT_MILLIS));
+        this.maxPoolSize = maxPoolSize;
+        this.maxLifetimeNanos = TimeUnit.MILLISECONDS.toNanos(maxLifetimeMillis);
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.permits = new Semaphore(maxPoolSize, true);
+
+        housekeeper = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().daemon().name("connection-pool-housekeeper").factory());
+        housekeeper.scheduleWithFixedDelay(this::evictIdleConnections,
+                HOUSEKEEPING_PERIOD_MILLIS, HOUSEKEEPING_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Finds and initializes the MySQL JDBC driver ahead of the first connection, which otherwise pays for
+     * {@link DriverManager} looking up every installed driver and for loading the driver's classes. Safe to call from
+     * any thread, any number of times; meant to be run in the background while the login screen is up.
+     * @return true if a driver for MySQL urls was found
+     */
+    public static boolean loadDriver() {
+        try {
+            return DriverManager.getDriver(MYSQL_URL_PREFIX) != null;
+        } catch (SQLException e) {
+            //reported properly by the login, which gets the same error
+            return false;
+        }
+    }
+
+    /**
+     * Borrows a connection, opening a new one if none are idle and the pool isn't full.
+     * @return {@link PooledConnection} which must be closed to return it to the pool
+     * @throws ClosedConnectionException if the pool is closed or no connection frees up in time
+     * @throws SQLException if a new connection can't be opened
+     */
+    public PooledConnection borrow() throws SQLException {
+        long start = System.nanoTime();
+
+        if (closed) {
+            throw new ClosedConnectionException();
+        }
+
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new ClosedConnectionException("Timed out waiting for a database connection...");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ClosedConnectionException("Interrupted while waiting for a database connection", e);
+        }
+        totalWaitNanos.addAndGet(System.nanoTime() - start);
+
+        PooledConnection pooledConnection;
+        try {
+            pooledConnection = takeValidIdleConnection();
+            if (pooledConnection == null) {
+                pooledConnection = openConnection();
+            }
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+
+        pooledConnection.markBorrowed();
+        activeConnections.incrementAndGet();
+        borrowLatency.record(System.nanoTime() - start);
+        return pooledConnection;
+    }
+
+    /**
+     * Returns a borrowed connection to the pool. Called by {@link PooledConnection#close()}.
+     * @param pooledConnection connection being returned
+     */
+    void release(PooledConnection pooledConnection) {
+        pooledConnection.markReturned();
+        activeConnections.decrementAndGet();
+
+        try {
+            if (closed || isExpired(pooledConnection, System.nanoTime())) {
+                evict(pooledConnection);
+            } else if (pooledConnection.getConnection().isClosed()) {
+                //the driver closes a connection once it loses the server
+                evict(pooledConnection);
+                notifyConnectionLost();
+            } else {
+                Connection connection = pooledConnection.getConnection();
+                //never hand the next caller someone else's half-finished transaction
+                if (!connection.getAutoCommit()) {
+                    connection.rollback();
+                    connection.setAutoCommit(true);
+                }
+                idleConnections.offerFirst(pooledConnection);
+            }
+        } catch (SQLException e) {
+            evict(pooledConnection);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Checks whether the pool is open and the most recent attempt to open a connection succeeded. This only looks at
+     * local state, so it's cheap enough to call from the JavaFX Application Thread.
+     * @return true if the database was reachable the last time the pool tried it; false otherwise
+     */
+    public boolean isReachable() {
+        return !closed && !lastOpenFailed;
+    }
+
+    /**
+     * Sets what to tell when a connection can't be opened or dies while borrowed. Called on whichever thread noticed.
+     * @param connectionLostListener {@link Runnable} to run, or null to stop listening
+     */
+    public void setConnectionLostListener(Runnable connectionLostListener) {
+        this.connectionLostListener = connectionLostListener;
+    }
+
+    /**
+     * Closes every idle connection, e.g., once the server has gone away and they can no longer be trusted. Borrowed
+     * connections are left alone.
+     */
+    public void clearIdleConnections() {
+        PooledConnection pooledConnection;
+        while ((pooledConnection = idleConnections.pollFirst()) != null) {
+            evict(pooledConnection);
+        }
+    }
+
+    /**
+     * @return true if {@link #close()} has been called
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public int getMaxPoolSize() {
+        return maxPoolSize;
+    }
+
+    /**
+     * @return {@link ConnectionPoolMetrics} snapshot of the pool's current state
+     */
+    public ConnectionPoolMetrics getMetrics() {
+        return new ConnectionPoolMetrics(activeConnections.get(), idleConnections.size(), maxPoolSize,
+                totalCreated.get(), totalEvicted.get(), TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.get()),
+                borrowLatency, statementCacheHits.get(), statementCacheMisses.get(), statementCacheEvictions.get());
+    }
+
+    /**
+     * Closes every idle connection and stops handing out new ones. Borrowed connections are closed as they're
+     * returned.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        clearIdleConnections();
+    }
+
+    /**
+     * Pulls idle connections until one is found which is neither expired nor dead.
+     * @return a usable idle connection, or null if there are none
+     */
+    private PooledConnection takeValidIdleConnection() {
+        PooledConnection pooledConnection;
+
+        while ((pooledConnection = idleConnections.pollFirst()) != null) {
+            long now = System.nanoTime();
+
+            if (isExpired(pooledConnection, now)) {
+                evict(pooledConnection);
+                continue;
+            }
+
+            //recently used connections are trusted, saving a round trip on back-to-back calls
+            if (now - pooledConnection.getLastReturnedAt() > VALIDATION_INTERVAL_NANOS) {
+                try {
+                    if (!pooledConnection.getConnection().isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                        evict(pooledConnection);
+                        continue;
+                    }
+                } catch (SQLException e) {
+                    evict(pooledConnection);
+                    continue;
+                }
+            }
+
+            return pooledConnection;
+        }
+
+        return null;
+    }
+
+    private PooledConnection openConnection() throws SQLException {
+        Connection connection;
+        try {
+            connection = DriverManager.getConnection(url, connectionProperties);
+        } catch (SQLException e) {
+            lastOpenFailed = true;
+            notifyConnectionLost();
+            throw e;
+        }
+        lastOpenFailed = false;
+        totalCreated.incrementAndGet();
+        StatementCache statementCache = new StatementCache(connection, DEFAULT_STATEMENT_CACHE_SIZE,
+                statementCacheHits, statementCacheMisses, statementCacheEvictions);
+        return new PooledConnection(this, connection, statementCache);
+    }
+
+    private void notifyConnectionLost() {
+        Runnable listener = connectionLostListener;
+        if (listener != null && !closed) {
+            listener.run();
+        }
+    }
+
+    private boolean isExpired(PooledConnection pooledConnection, long now) {
+        return now - pooledConnection.getCreatedAt() > maxLifetimeNanos;
+    }
+
+    private void evict(PooledConnection pooledConnection) {
+        totalEvicted.incrementAndGet();
+        pooledConnection.closePhysically();
+    }
+
+    /**
+     * Closes idle connections past their max lifetime or idle timeout, always keeping one warm connection around
+     * unless it has expired.
+     */
+    private void evictIdleConnections() {
+        long now = System.nanoTime();
+        Iterator<PooledConnection> iterator = idleConnections.descendingIterator();
+
+        while (iterator.hasNext()) {
+            PooledConnection pooledConnection = iterator.next();
+            boolean idleTooLong = now - pooledConnection.getLastReturnedAt() > idleTimeoutNanos
+                    && idleConnections.size() > 1;
+
+            if ((isExpired(pooledConnection, now) || idleTooLong) && idleConnections.remove(pooledConnection)) {
+                evict(pooledConnection);
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.github.tylerjpohlman.database.register.data_access_classes;
+
+import com.github.tylerjpohlman.database.register.helper_classes.LatencyHistogram;
+
+/**
+ * A point-in-time snapshot of a {@link ConnectionPool}'s usage, used for sizing the pool under load.
+ * @author Tyler Pohlman
+ * @version 1.0, Date Created: 2026-10-17
+ * @lastModified 2026-10-17
+ */
+public class ConnectionPoolMetrics {
+    private final int activeConnections;
+    private final int idleConnections;
+    private final int maxPoolSize;
+    private final long totalConnectionsCreated;
+    private final long totalConnectionsEvicted;
+    private final long totalWaitMillis;
+    private final LatencyHistogram borrowLatency;
+    private final long statementCacheHits;
+    private final long statementCacheMisses;
+    private final long statementCacheEvictions;
+
+    ConnectionPoolMetrics(int activeConnections, int idleConnections, int maxPoolSize, long totalConnectionsCreated,
+                          long totalConnectionsEvicted, long totalWaitMillis, LatencyHistogram borrowLatency,
+                          long statementCacheHits, long statementCacheMisses, long statementCacheEvictions) {
+        this.activeConnections = activeConnections;
+        this.idleConnections = idleConnections;
+        this.maxPoolSize = maxPoolSize;
+        this.totalConnectionsCreated = totalConnectionsCreated;
+        this.totalConnectionsEvicted = totalConnectionsEvicted;
+        this.totalWaitMillis = totalWaitMillis;
+        this.borrowLatency = borrowLatency;
+        this.statementCacheHits = statementCacheHits;
+        this.statementCacheMisses = statementCacheMisses;
+        this.statementCacheEvictions = statementCacheEvictions;
+    }
+
+    /**
+     * @return int representing connections currently borrowed
+     */
+    public int getActiveConnections() {
+        return activeConnections;
+    }
+    /**
+     * @return int representing open connections waiting in the pool
+     */
+    public int getIdleConnections() {
+        return idleConnections;
+    }
+    public int getMaxPoolSize() {
+        return maxPoolSize;
+    }
+    public long getTotalConnectionsCreated() {
+        return totalConnectionsCreated;
+    }
+    /**
+     * @return long representing connections closed due to failed validation, max lifetime, or idle timeout
+     */
+    public long getTotalConnectionsEvicted() {
+        return totalConnectionsEvicted;
+    }
+    /**
+     * @return long representing the total time callers spent waiting for a free connection
+     */
+    public long getTotalWaitMillis() {
+        return totalWaitMillis;
+    }
+    /**
+     * @return {@link LatencyHistogram} of the time taken by each borrow, including waiting and validation
+     */
+    public LatencyHistogram getBorrowLatency() {
+        return borrowLatency;
+    }
+
+    /**
+     * @return long representing statements reused from a connection's statement cache
+     */
+    public long getStatementCacheHits() {
+        return statementCacheHits;
+    }
+    /**
+     * @return long representing statements which had to be prepared
+     */
+    public long getStatementCacheMisses() {
+        return statementCacheMisses;
+    }
+    /**
+     * @return long representing statements closed to make room in a full cache
+     */
+    public long getStatementCacheEvictions() {
+        return statementCacheEvictions;
+    }
+
+    @Override
+    public String toString() {
+        return "active=" + activeConnections + ", idle=" + idleConnections + ", max=" + maxPoolSize
+                + ", created=" + totalConnectionsCreated + ", evicted=" + totalConnectionsEvicted
+                + ", waitMillis=" + totalWaitMillis + ", borrowLatency=[" + borrowLatency + ']'
+                + ", statementCacheHits=" + statementCacheHits + ", statementCacheMisses=" + statementCacheMisses
+                + ", statementCacheEvictions=" + statementCacheEvictions;
+    }
+}
@@ -0,0 +1,254 @@
+package com.github.tylerjpohlman.database.register.data_access_classes;
+
+import com.github.tylerjpohlman.database.register.helper_classes.Item;
+
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * An in-process copy of the {@code items} table keyed by numeric UPC, so that scanning an item doesn't need a round
+ * trip to the database. <p>
+ * The catalog is loaded in bulk in the background right after login and then kept current by polling for rows whose
+ * {@code item_last_modified} changed since the last load. Price or discount changes made mid-day therefore show up
+ * within one {@link #DEFAULT_REFRESH_INTERVAL_MILLIS refresh interval}, and a full reload every
+ * {@link #DEFAULT_FULL_RELOAD_INTERVAL_MILLIS} acts as a time-to-live for anything the deltas might have missed.
+ * A deleted row never shows up in a delta, so each full reload is loaded into a fresh store which then replaces the
+ * old one; an item removed from the database stops being sellable from the register by the next full reload at the
+ * latest. Both copies are held while the reload runs. The database stays the source of truth for receipts, since
+ * {@code addItemToReceipt} re-reads the price itself.
+ * <p>
+ * Items are held in an {@link ItemCatalogStore} of primitive columns rather than a map of boxed entries, so a
+ * store-wide catalog fits on a register with limited memory. Names are also indexed in an {@link ItemSearchIndex} as
+ * they're loaded, so items without a barcode can be found by {@link #search name} without asking the database.
+ * @author Tyler Pohlman
+ * @version 1.0, Date Created: 2026-10-17
+ * @lastModified 2026-10-17
+ */
+public class ItemCatalog implements AutoCloseable {
+    /**
+     * Default upper bound on cached items; sized for a store-wide catalog.
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 1_000_000;
+    /**
+     * Default time between checks for changed items.
+     */
+    public static final long DEFAULT_REFRESH_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(15);
+    /**
+     * Default time between full reloads of the catalog.
+     */
+    public static final long DEFAULT_FULL_RELOAD_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    /**
+     * Loads items from the database into the catalog.
+     */
+    @FunctionalInterface
+    interface Source {
+        /**
+         * Passes every item modified at or after the given time to the sink.
+         * @param changedSince {@link Timestamp} of the last load, or null to load every item
+         * @param sink receives each loaded {@link Item}
+         * @return {@link Timestamp} of the newest modification seen, used as the next load's starting point
+         * @throws SQLException if the items can't be read
+         */
+        Timestamp load(Timestamp changedSince, Consumer<Item> sink) throws SQLException;
+    }
+
+    private final Source source;
+    private final int maxEntries;
+    private final long refreshIntervalMillis;
+    private final long fullReloadIntervalNanos;
+    //replaced as a pair by each full reload
+    private volatile ItemCatalogStore items = new ItemCatalogStore();
+    private volatile ItemSearchIndex searchIndex = new ItemSearchIndex();
+    private final ScheduledExecutorService refresher;
+
+    /**
+     * Newest {@code item_last_modified} seen so far; null until the first full load finishes.
+     */
+    private volatile Timestamp watermark = null;
+    /**
+     * Time, in nanoseconds, of the last successful load; 0 if nothing has loaded yet.
+     */
+    private volatile long lastRefreshedAt = 0;
+    private volatile long lastFullReloadAt = 0;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong failedRefreshes = new AtomicLong();
+
+    ItemCatalog(Source source) {
+        this(source, DEFAULT_MAX_ENTRIES, DEFAULT_REFRESH_INTERVAL_MILLIS, DEFAULT_FULL_RELOAD_INTERVAL_MILLIS);
+    }
+
+    ItemCatalog(Source source, int maxEntries, long refreshIntervalMillis, long fullReloadIntervalMillis) {
+        this.source = source;
+        this.maxEntries = maxEntries;
+        this.refreshIntervalMillis = refreshIntervalMillis;
+        this.fullReloadIntervalNanos = TimeUnit.MILLISECONDS.toNanos(fullReloadIntervalMillis);
+        refresher = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().daemon().name("item-catalog-refresher").factory());
+    }
+
+    /**
+     * Starts warming up the catalog in the background and schedules the periodic refreshes.
+     */
+    void start() {
+        refresher.scheduleWithFixedDelay(this::refresh, 0, refreshIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Looks up an item by its UPC.
+     * @param upc long representing the item's UPC
+     * @return the cached {@link Item}, or null if it isn't in the catalog
+     */
+    public Item get(long upc) {
+        Item item = items.get(upc);
+
+        if (item == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return item;
+    }
+
+    /**
+     * Finds items by name, best matches first. Matches words by prefix as they're typed and tolerates typos; see
+     * {@link ItemSearchIndex}. Prices are the catalog's current ones.
+     * @param query String representing part of an item's name
+     * @param limit int representing the most items to return
+     * @return matching items, best first; empty if nothing matches or the catalog hasn't loaded yet
+     */
+    public List<Item> search(String query, int limit) {
+        long[] upcs = searchIndex.search(query, limit);
+        List<Item> found = new ArrayList<>(upcs.length);
+
+        for (long upc : upcs) {
+            Item item = items.get(upc);
+            if (item != null) {
+                found.add(item);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Adds an item fetched from the database on a cache miss, as long as there's room for it.
+     * @param item {@link Item} to cache
+     */
+    void put(Item item) {
+        add(items, searchIndex, item);
+    }
+
+    private void add(ItemCatalogStore store, ItemSearchIndex index, Item item) {
+        if (store.size() < maxEntries || store.contains(item.getUpc())) {
+            store.put(item);
+            index.add(item.getUpc(), item.getName());
+        }
+    }
+
+    /**
+     * Loads every item if nothing has been loaded yet or the full reload interval has passed; otherwise only loads
+     * the items which changed since the last refresh. A full reload replaces the catalog with what it loaded, so
+     * items no longer in the database are dropped; until it finishes, lookups are answered from the old catalog.
+     * Failures are counted and retried on the next run, leaving the catalog as it was.
+     */
+    void refresh() {
+        long now = System.nanoTime();
+        boolean fullReload = watermark == null || now - lastFullReloadAt > fullReloadIntervalNanos;
+
+        try {
+            Timestamp newestChange;
+            if (fullReload) {
+                ItemCatalogStore reloadedItems = new ItemCatalogStore();
+                ItemSearchIndex reloadedIndex = new ItemSearchIndex();
+                newestChange = source.load(null, item -> add(reloadedItems, reloadedIndex, item));
+                //items cached on a miss while reloading are dropped with the old store, and fetched again if scanned
+                items = reloadedItems;
+                searchIndex = reloadedIndex;
+            } else {
+                newestChange = source.load(watermark, this::put);
+            }
+
+            if (newestChange != null) {
+                watermark = newestChange;
+            }
+            lastRefreshedAt = now;
+            if (fullReload) {
+                lastFullReloadAt = now;
+            }
+        } catch (SQLException | RuntimeException e) {
+            //keep serving what's already cached; lookups fall back to the database on a miss
+            failedRefreshes.incrementAndGet();
+        }
+    }
+
+    /**
+     * @return int representing the number of cached items
+     */
+    public int size() {
+        return items.size();
+    }
+
+    /**
+     * @return true once the first bulk load has finished
+     */
+    public boolean isWarm() {
+        return lastFullReloadAt != 0;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return double between 0 and 1 representing the share of lookups answered from the catalog
+     */
+    public double getHitRate() {
+        long lookups = hits.get() + misses.get();
+        return lookups == 0 ? 0.0 : (double) hits.get() / lookups;
+    }
+
+    /**
+     * @return long representing how long ago, in milliseconds, the catalog was last confirmed current with the
+     * database, or -1 if it has never loaded
+     */
+    public long getStalenessMillis() {
+        long refreshedAt = lastRefreshedAt;
+        return refreshedAt == 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - refreshedAt);
+    }
+
+    /**
+     * @return long representing refreshes which failed, most likely due to the database being unreachable
+     */
+    public long getFailedRefreshes() {
+        return failedRefreshes.get();
+    }
+
+    /**
+     * Stops refreshing the catalog and drops every cached item.
+     */
+    @Override
+    public void close() {
+        refresher.shutdownNow();
+        items.clear();
+        searchIndex.clear();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("items=%d, hitRate=%.3f, hits=%d, misses=%d, stalenessMillis=%d, failedRefreshes=%d",
+                size(), getHitRate(), getHits(), getMisses(), getStalenessMillis(), getFailedRefreshes());
+    }
+}
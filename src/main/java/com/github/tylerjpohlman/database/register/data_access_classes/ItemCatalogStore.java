@@ -0,0 +1,211 @@
+package com.github.tylerjpohlman.database.register.data_access_classes;
+
+import com.github.tylerjpohlman.database.register.helper_classes.Item;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * The storage behind {@link ItemCatalog}: an open-addressing hash table keyed by primitive {@code long} UPCs, with
+ * each item's fields kept in parallel arrays instead of as boxed map entries. <p>
+ * A {@code HashMap<Long, Item>} spends a node, a boxed key, and an {@link Item} on every entry, which adds up to
+ * roughly 100 bytes before the name. Here an entry costs two longs, an int, and a name reference spread over slots
+ * kept at most {@link #MAX_LOAD_FACTOR} full. Names are stored as-is rather than interned, since {@code item_name} is
+ * unique in the schema and interning would only grow the JVM's string table.
+ * <p>
+ * Lookups use linear probing under an optimistic {@link StampedLock} read, so readers never block the background
+ * refresh and never allocate until the found item is turned into an {@link Item}. Writes take the write lock.
+ * @author Tyler Pohlman
+ * @version 1.0, Date Created: 2026-10-17
+ * @lastModified 2026-10-17
+ */
+final class ItemCatalogStore {
+    /**
+     * Marks an unused slot. UPCs are never negative, so this can't collide with a real key.
+     */
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final double MAX_LOAD_FACTOR = 0.6;
+    private static final int MIN_CAPACITY = 1024;
+
+    private final StampedLock lock = new StampedLock();
+
+    private long[] upcs;
+    private long[] prices;
+    private int[] discounts;
+    private String[] names;
+    private volatile int size = 0;
+    private int resizeThreshold;
+
+    ItemCatalogStore() {
+        allocate(MIN_CAPACITY);
+    }
+
+    /**
+     * Looks up an item by UPC.
+     * @param upc long representing the item's UPC
+     * @return a new {@link Item} holding the stored fields, or null if the UPC isn't stored
+     */
+    Item get(long upc) {
+        long stamp = lock.tryOptimisticRead();
+        Item item = find(upc);
+
+        //a write slipped in mid-read, so retry while holding the read lock
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                item = find(upc);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return item;
+    }
+
+    /**
+     * @param upc long representing the item's UPC
+     * @return true if the UPC is stored
+     */
+    boolean contains(long upc) {
+        long stamp = lock.readLock();
+        try {
+            return slotOf(upcs, upc) >= 0;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Adds an item or overwrites the stored fields of an item with the same UPC.
+     * @param item {@link Item} to store
+     */
+    void put(Item item) {
+        long stamp = lock.writeLock();
+        try {
+            if (size >= resizeThreshold) {
+                allocate(upcs.length * 2);
+            }
+
+            long[] keys = upcs;
+            int mask = keys.length - 1;
+            int slot = indexFor(item.getUpc(), mask);
+
+            while (keys[slot] != EMPTY && keys[slot] != item.getUpc()) {
+                slot = (slot + 1) & mask;
+            }
+
+            if (keys[slot] == EMPTY) {
+                keys[slot] = item.getUpc();
+                size++;
+            }
+            prices[slot] = item.getPriceCents();
+            discounts[slot] = item.getDiscountRate();
+            names[slot] = item.getName();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Drops every stored item and shrinks the table back to its starting size.
+     */
+    void clear() {
+        long stamp = lock.writeLock();
+        try {
+            size = 0;
+            allocate(MIN_CAPACITY);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Probes for the UPC without any locking; only safe to trust once the caller validates its lock stamp.
+     */
+    private Item find(long upc) {
+        long[] keys = upcs;
+        long[] priceColumn = prices;
+        int[] discountColumn = discounts;
+        String[] nameColumn = names;
+
+        //the arrays can be swapped by a resize mid-read; the stamp check in get() catches that, but the lengths
+        //still have to line up to avoid reading out of bounds in the meantime
+        if (keys.length != priceColumn.length || keys.length != discountColumn.length
+                || keys.length != nameColumn.length) {
+            return null;
+        }
+
+        int slot = slotOf(keys, upc);
+        if (slot < 0) {
+            return null;
+        }
+        return new Item(upc, nameColumn[slot], priceColumn[slot], discountColumn[slot]);
+    }
+
+    private static int slotOf(long[] keys, long upc) {
+        int mask = keys.length - 1;
+        int slot = indexFor(upc, mask);
+
+        //bounded by the table length so a torn optimistic read can't spin forever
+        for (int probes = 0; probes < keys.length; probes++) {
+            long key = keys[slot];
+            if (key == upc) {
+                return slot;
+            }
+            if (key == EMPTY) {
+                return -1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private static int indexFor(long upc, int mask) {
+        //UPCs are mostly sequential digits, so mix the bits before masking
+        long hash = upc * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    /**
+     * Replaces the arrays with ones of the given power-of-two capacity, re-inserting anything already stored unless
+     * the store is empty. Must be called while holding the write lock, or from the constructor.
+     */
+    private void allocate(int capacity) {
+        long[] oldUpcs = upcs;
+        long[] oldPrices = prices;
+        int[] oldDiscounts = discounts;
+        String[] oldNames = names;
+
+        long[] newUpcs = new long[capacity];
+        Arrays.fill(newUpcs, EMPTY);
+        long[] newPrices = new long[capacity];
+        int[] newDiscounts = new int[capacity];
+        String[] newNames = new String[capacity];
+        int mask = capacity - 1;
+
+        if (size > 0) {
+            for (int i = 0; i < oldUpcs.length; i++) {
+                if (oldUpcs[i] == EMPTY) {
+                    continue;
+                }
+                int slot = indexFor(oldUpcs[i], mask);
+                while (newUpcs[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                newUpcs[slot] = oldUpcs[i];
+                newPrices[slot] = oldPrices[i];
+                newDiscounts[slot] = oldDiscounts[i];
+                newNames[slot] = oldNames[i];
+            }
+        }
+
+        upcs = newUpcs;
+        prices = newPrices;
+        discounts = newDiscounts;
+        names = newNames;
+        resizeThreshold = (int) (capacity * MAX_LOAD_FACTOR);
+    }
+}
@@ -0,0 +1,414 @@
+package com.github.tylerjpohlman.database.register.data_access_classes;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * An in-memory trigram index over item names, used by {@link ItemCatalog} to find items by name as the cashier types.
+ * <p>
+ * Names are lower-cased, split into words, and each word is broken into overlapping three-character grams padded with
+ * a space at both ends, e.g., "kiwi" gives " ki", "kiw", "iwi", and "wi ". Every gram has a posting list of the items
+ * containing it, kept in a flat array indexed by the gram itself, so a lookup is plain array access with no hashing or
+ * boxing. A query is broken up the same way, except that its last word gets no closing pad while it's still being
+ * typed, which makes it match as a prefix; it needs at least two characters to form a gram. Items are then ranked by
+ * how many of the query's grams they share, so a misspelled word still finds the right item through the grams the
+ * typo didn't touch.
+ * <p>
+ * Items are identified by UPC; the caller fetches the current price from the catalog itself. Renaming an item leaves
+ * its old entry behind as a tombstone which searches skip. Searches share a read lock and writes take the write lock.
+ * @author Tyler Pohlman
+ * @version 1.0, Date Created: 2026-10-17
+ * @lastModified 2026-10-17
+ */
+final class ItemSearchIndex {
+    /**
+     * Symbols a gram is made of: a space, the 26 letters, the 10 digits, and one shared by every other character.
+     */
+    private static final int SYMBOLS = 38;
+    private static final int SPACE = 0;
+    private static final int OTHER = SYMBOLS - 1;
+    private static final int GRAMS = SYMBOLS * SYMBOLS * SYMBOLS;
+    /**
+     * Share of a query's grams an item needs to be a match; low enough for a typo or two in a longer name.
+     */
+    private static final double MIN_SHARED_GRAMS = 0.5;
+    private static final long REMOVED = -1;
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private final StampedLock lock = new StampedLock();
+
+    //posting lists, indexed by gram; null until the first item with that gram
+    private int[][] postings = new int[GRAMS][];
+    private int[] postingSizes = new int[GRAMS];
+
+    //per-document columns, indexed by the id each document was given; names are kept normalized
+    private long[] documentUpcs = new long[1024];
+    private String[] documentNames = new String[1024];
+    private int[] documentGramCounts = new int[1024];
+    private int documentCount = 0;
+
+    //open-addressing map from UPC to its current document
+    private long[] upcKeys;
+    private int[] upcDocuments;
+    private int upcCount = 0;
+
+    /**
+     * Scoring scratch reused between searches, so a search never allocates in proportion to the catalog. Pooled
+     * rather than thread-local since every search may run on a fresh virtual thread.
+     */
+    private final ConcurrentLinkedQueue<Scratch> scratchPool = new ConcurrentLinkedQueue<>();
+
+    ItemSearchIndex() {
+        allocateUpcMap(1024);
+    }
+
+    /**
+     * Indexes an item's name, replacing the entry for a different name under the same UPC. Re-adding the same name
+     * does nothing, so a full reload of the catalog doesn't grow the index.
+     * @param upc long representing the item's UPC
+     * @param name String representing the item's name, or null if it doesn't have one
+     */
+    void add(long upc, String name) {
+        if (name == null) {
+            return;
+        }
+
+        String normalized = normalize(name);
+
+        long stamp = lock.writeLock();
+        try {
+            int existing = documentOf(upc);
+            if (existing >= 0) {
+                if (documentNames[existing].equals(normalized)) {
+                    return;
+                }
+                documentUpcs[existing] = REMOVED;
+            }
+
+            int document = documentCount++;
+            if (document == documentUpcs.length) {
+                int capacity = document * 2;
+                documentUpcs = Arrays.copyOf(documentUpcs, capacity);
+                documentNames = Arrays.copyOf(documentNames, capacity);
+                documentGramCounts = Arrays.copyOf(documentGramCounts, capacity);
+            }
+            documentUpcs[document] = upc;
+            documentNames[document] = normalized;
+
+            int[] grams = grams(name, false);
+            documentGramCounts[document] = grams.length;
+            for (int gram : grams) {
+                addPosting(gram, document);
+            }
+            putDocument(upc, document);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Finds the items whose names best match a query.
+     * @param query String typed by the cashier; the last word may be incomplete
+     * @param limit int representing the most results to return
+     * @return UPCs of the best matches, best first; empty if nothing matches
+     */
+    long[] search(String query, int limit) {
+        int[] queryGrams = grams(query, true);
+        if (queryGrams.length == 0 || limit <= 0) {
+            return new long[0];
+        }
+
+        long stamp = lock.readLock();
+        try {
+            return rank(queryGrams, normalize(query), limit);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * @return int representing the number of indexed items
+     */
+    int size() {
+        return upcCount;
+    }
+
+    /**
+     * Drops every indexed item.
+     */
+    void clear() {
+        long stamp = lock.writeLock();
+        try {
+            postings = new int[GRAMS][];
+            postingSizes = new int[GRAMS];
+            documentUpcs = new long[1024];
+            documentNames = new String[1024];
+            documentGramCounts = new int[1024];
+            documentCount = 0;
+            upcCount = 0;
+            allocateUpcMap(1024);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Scores every item sharing a gram with the query and keeps the best. Must hold the read lock.
+     */
+    private long[] rank(int[] queryGrams, String normalizedQuery, int limit) {
+        Scratch s = scratchPool.poll();
+        if (s == null) {
+            s = new Scratch();
+        }
+        try {
+            return rank(queryGrams, normalizedQuery, limit, s);
+        } finally {
+            scratchPool.offer(s);
+        }
+    }
+
+    private long[] rank(int[] queryGrams, String normalizedQuery, int limit, Scratch s) {
+        s.ensureCapacity(documentCount);
+        int[] shared = s.shared;
+        int[] touched = s.touched;
+        int touchedCount = 0;
+
+        //counts the query's grams each item shares, remembering which counters to reset afterwards
+        for (int gram : queryGrams) {
+            int[] posting = postings[gram];
+            int postingSize = postingSizes[gram];
+            for (int i = 0; i < postingSize; i++) {
+                int document = posting[i];
+                if (shared[document]++ == 0) {
+                    touched[touchedCount++] = document;
+                }
+            }
+        }
+
+        int required = Math.max(1, (int) Math.ceil(queryGrams.length * MIN_SHARED_GRAMS));
+        int[] best = new int[limit];
+        long[] bestScores = new long[limit];
+        int bestCount = 0;
+
+        for (int i = 0; i < touchedCount; i++) {
+            int document = touched[i];
+            int matches = shared[document];
+            shared[document] = 0;
+
+            if (matches < required || documentUpcs[document] == REMOVED) {
+                continue;
+            }
+
+            long score = score(document, matches, normalizedQuery);
+            if (bestCount == limit && score <= bestScores[bestCount - 1]) {
+                continue;
+            }
+
+            //insertion into a short sorted array beats a heap for the handful of results shown
+            int position = bestCount == limit ? limit - 1 : bestCount++;
+            while (position > 0 && bestScores[position - 1] < score) {
+                best[position] = best[position - 1];
+                bestScores[position] = bestScores[position - 1];
+                position--;
+            }
+            best[position] = document;
+            bestScores[position] = score;
+        }
+
+        long[] upcs = new long[bestCount];
+        for (int i = 0; i < bestCount; i++) {
+            upcs[i] = documentUpcs[best[i]];
+        }
+        return upcs;
+    }
+
+    /**
+     * Ranks first by shared grams, then names which start with the query, then shorter names, which have less
+     * that didn't match.
+     */
+    private long score(int document, int matches, String normalizedQuery) {
+        boolean prefix = documentNames[document].startsWith(normalizedQuery);
+        int unmatched = Math.max(0, documentGramCounts[document] - matches);
+        return ((long) matches << 32) | ((prefix ? 1L : 0L) << 31) | (Integer.MAX_VALUE - unmatched);
+    }
+
+    /**
+     * Breaks text into distinct grams.
+     * @param text String to break up
+     * @param query true if the last word is still being typed, so it's matched as a prefix
+     * @return distinct grams, in no particular order
+     */
+    static int[] grams(String text, boolean query) {
+        String normalized = normalize(text);
+        //a trailing space or punctuation means the last word is finished
+        boolean typingLastWord = query && !text.isEmpty()
+                && Character.isLetterOrDigit(text.charAt(text.length() - 1));
+        int[] grams = new int[normalized.length() * 2 + 2];
+        int count = 0;
+
+        int wordStart = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean boundary = i == normalized.length() || normalized.charAt(i) == ' ';
+            if (!boundary && wordStart < 0) {
+                wordStart = i;
+            } else if (boundary && wordStart >= 0) {
+                boolean lastWord = i == normalized.length();
+                count = wordGrams(normalized, wordStart, i, !(typingLastWord && lastWord), grams, count);
+                wordStart = -1;
+            }
+        }
+
+        //a word can repeat a gram, e.g., "banana", and only the distinct ones count
+        Arrays.sort(grams, 0, count);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || grams[distinct - 1] != grams[i]) {
+                grams[distinct++] = grams[i];
+            }
+        }
+        return Arrays.copyOf(grams, distinct);
+    }
+
+    /**
+     * Adds the grams of one word, padded with a space in front and, if {@code closed}, behind.
+     */
+    private static int wordGrams(String text, int start, int end, boolean closed, int[] grams, int count) {
+        int padded = end - start + (closed ? 2 : 1);
+
+        //a single letter still being typed doesn't make a whole gram yet
+        if (padded < 3) {
+            return count;
+        }
+
+        for (int i = 0; i + 3 <= padded; i++) {
+            grams[count++] = gram(symbolAt(text, start, end, i - 1), symbolAt(text, start, end, i),
+                    symbolAt(text, start, end, i + 1));
+        }
+        return count;
+    }
+
+    private static int symbolAt(String text, int start, int end, int offset) {
+        int index = start + offset;
+        return index < start || index >= end ? SPACE : symbol(text.charAt(index));
+    }
+
+    private static int gram(int first, int second, int third) {
+        return (first * SYMBOLS + second) * SYMBOLS + third;
+    }
+
+    private static int symbol(char c) {
+        if (c >= 'a' && c <= 'z') {
+            return 1 + c - 'a';
+        }
+        if (c >= '0' && c <= '9') {
+            return 27 + c - '0';
+        }
+        return c == ' ' ? SPACE : OTHER;
+    }
+
+    /**
+     * Lower-cases text and turns any run of punctuation or whitespace into a single space.
+     */
+    static String normalize(String text) {
+        StringBuilder builder = new StringBuilder(text.length());
+        boolean pendingSpace = false;
+
+        for (int i = 0; i < text.length(); i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            if (Character.isLetterOrDigit(c)) {
+                if (pendingSpace && !builder.isEmpty()) {
+                    builder.append(' ');
+                }
+                pendingSpace = false;
+                builder.append(c);
+            } else {
+                pendingSpace = true;
+            }
+        }
+        return builder.toString();
+    }
+
+    private void addPosting(int gram, int document) {
+        int[] posting = postings[gram];
+        int size = postingSizes[gram];
+
+        if (posting == null) {
+            posting = new int[4];
+            postings[gram] = posting;
+        } else if (size == posting.length) {
+            posting = Arrays.copyOf(posting, size + (size >> 1));
+            postings[gram] = posting;
+        }
+        posting[size] = document;
+        postingSizes[gram] = size + 1;
+    }
+
+    private int documentOf(long upc) {
+        int mask = upcKeys.length - 1;
+        int slot = indexFor(upc, mask);
+
+        while (upcKeys[slot] != EMPTY) {
+            if (upcKeys[slot] == upc) {
+                return upcDocuments[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void putDocument(long upc, int document) {
+        if (upcCount >= upcKeys.length / 2) {
+            long[] oldKeys = upcKeys;
+            int[] oldDocuments = upcDocuments;
+            allocateUpcMap(oldKeys.length * 2);
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    insert(oldKeys[i], oldDocuments[i]);
+                }
+            }
+        }
+        insert(upc, document);
+    }
+
+    private void insert(long upc, int document) {
+        int mask = upcKeys.length - 1;
+        int slot = indexFor(upc, mask);
+
+        while (upcKeys[slot] != EMPTY && upcKeys[slot] != upc) {
+            slot = (slot + 1) & mask;
+        }
+        if (upcKeys[slot] == EMPTY) {
+            upcKeys[slot] = upc;
+            upcCount++;
+        }
+        upcDocuments[slot] = document;
+    }
+
+    private void allocateUpcMap(int capacity) {
+        upcKeys = new long[capacity];
+        Arrays.fill(upcKeys, EMPTY);
+        upcDocuments = new int[capacity];
+        upcCount = 0;
+    }
+
+    private static int indexFor(long upc, int mask) {
+        long hash = upc * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    /**
+     * Counters reused between one thread's searches; every counter is back to zero once a search finishes.
+     */
+    private static final class Scratch {
+        private int[] shared = new int[0];
+        private int[] touched = new int[0];
+
+        void ensureCapacity(int documents) {
+            if (shared.length < documents) {
+                shared = new int[documents];
+                touched = new int[documents];
+            }
+        }
+    }
+}
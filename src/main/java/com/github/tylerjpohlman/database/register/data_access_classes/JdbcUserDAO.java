@@ -4,21 +4,38 @@ import com.github.tylerjpohlman.database.register.helper_classes.*;
 
 import java.sql.SQLException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * An interface which acts as the template for a data access object used to interact with the MySQL "hvs" database.
+ * Amounts of money are {@code long} cents and rates are {@code int} hundredths, as described in {@link Money}.
  * @author Tyler Pohlman
  * @version 1.0, Date Created: 2023-11-14
- * @lastModified 2023-11-24
+ * @lastModified 2026-10-17
  */
 public interface JdbcUserDAO {
 
     /**
-     * Checks if the current connection to the database is attainable.
+     * Checks if the current connection to the database is attainable. Only checks what's already known locally, so it
+     * doesn't make a round trip to the database.
      * @return true if closed, empty, or any other errors; false if open
      */
     boolean isConnectionNotReachable();
 
+    /**
+     * Checks if the login has ended for good, i.e., there was never a login, it was closed, or the database rejected
+     * it while reconnecting. A session which is only reconnecting isn't lost.
+     * @return true if a new login is needed
+     */
+    boolean isSessionLost();
+
+    /**
+     * Waits for the login to be usable again after a dropped connection, without blocking the caller.
+     * @return future which completes once connected, right away if already connected, or exceptionally if the
+     * session is lost
+     */
+    CompletableFuture<Void> awaitSession();
+
     /**
      * Tries logging in using credentials and returns connection object if able to do so.
      * @param url String containing url to the database (append 'jdbc:mysql://' to the beginning)
@@ -44,13 +61,35 @@ public interface JdbcUserDAO {
     String getAddressFromConnection() throws InvalidRegisterException, SQLException;
 
     /**
-     * Grabs Item information with given upc value.
+     * Returned by {@link #getStateTaxRate()} when the tax rate couldn't be looked up.
+     */
+    int UNKNOWN_TAX_RATE = -1;
+
+    /**
+     * Returns the state tax rate for the register's store, looked up once at login so baskets can be totalled
+     * locally.
+     * @return int representing the tax rate in hundredths, e.g., 7 for 7%, or {@link #UNKNOWN_TAX_RATE}
+     */
+    int getStateTaxRate();
+
+    /**
+     * Grabs Item information with given upc value. Answered from {@link #getItemCatalog()} when the item is cached,
+     * otherwise looked up in the database and added to the catalog.
      * @param upc long representing 12 digit upc
      * @return {@link Item} object with associated details
      * @throws SQLException if unable to find Item with associated UPC in the database
      */
     Item getItemFromUPC(long upc) throws SQLException;
 
+    /**
+     * Finds items by name from the local item catalog, without a round trip to the database. Words are matched by
+     * prefix and small typos are tolerated.
+     * @param query String representing part of an item's name
+     * @param limit int representing the most items to return
+     * @return matching items, best first; empty until the catalog has loaded
+     */
+    List<Item> searchItemsByName(String query, int limit);
+
     /**
      * Creates a receipt column in the database and returns the receipt's associated number.
      * @param member {@link Member} object
@@ -60,25 +99,56 @@ public interface JdbcUserDAO {
     int createReceipt(Member member) throws SQLException;
 
     /**
-     * Uses the created receipt number to add items to receipt in the database.
-     * @param list {@link List} of items
+     * Uses the created receipt number to add items to receipt in the database. The items are sent as a single batch
+     * inside one transaction, so either the whole basket is added or none of it is. Each line becomes a single row
+     * in {@code receipt_details} holding its quantity.
+     * @param list {@link List} of lines of items
      * @param receiptNumber int representing associated receipt number
      * @param member {@link Member} object
-     * @return double representing the amount due on the receipt
+     * @return long representing the amount due on the receipt in cents
      * @throws SQLException if any error with creating receipt in the database
      */
-    double getReceiptTotal(List<Item> list, int receiptNumber, Member member) throws SQLException;
+    long getReceiptTotal(List<BasketLine> list, int receiptNumber, Member member) throws SQLException;
+
+    /**
+     * Adds units of an item to a receipt which is still being built. An item already on the receipt has its
+     * quantity added to, rather than getting a second row.
+     * @param upc long representing the item's upc
+     * @param quantity int representing how many of the item to add
+     * @param receiptNumber int representing associated receipt number
+     * @throws SQLException if the item or receipt can't be found, or any other error with the database
+     */
+    void addItemToReceipt(long upc, int quantity, int receiptNumber) throws SQLException;
+
+    /**
+     * Attaches a member to a receipt created before the member was known, re-pricing the items already on it.
+     * @param receiptNumber int representing associated receipt number
+     * @param member {@link Member} object, or null to remove any member
+     * @throws SQLException if the receipt or member can't be found, or any other error with the database
+     */
+    void setReceiptMember(int receiptNumber, Member member) throws SQLException;
 
     /**
-     * Returns associated Member object from search using phone number in the database.
-     * @param phoneNumber long representing phone number
+     * Tallies up the items already added to a receipt.
+     * @param receiptNumber int representing associated receipt number
+     * @param member {@link Member} object
+     * @return long representing the amount due on the receipt in cents
+     * @throws SQLException if any error with totalling the receipt in the database
+     */
+    long getReceiptTotal(int receiptNumber, Member member) throws SQLException;
+
+    /**
+     * Returns associated Member object from search using phone number in the database. Answered from
+     * {@link #getMemberCache()} when the member is cached.
+     * @param phoneNumber long representing phone number, normalized with {@link MemberCache#normalizePhoneNumber}
      * @return associated Member object
      * @throws SQLException if unable to find associated Member
      */
     Member getMemberFromPhoneNumber(long phoneNumber) throws SQLException;
 
     /**
-     * Returns associated Member object from search using account number in the database.
+     * Returns associated Member object from search using account number in the database. Answered from
+     * {@link #getMemberCache()} when the member is cached.
      * @param accountNumber long representing associated phone number
      * @return associated Member object
      * @throws SQLException if unable to find associated Member
@@ -86,21 +156,80 @@ public interface JdbcUserDAO {
     Member getMemberFromAccountNumber(long accountNumber) throws SQLException;
 
     /**
-     * Finalizes the receipt in the database.
-     * @param amountPaid double representing amount paid for transaction
-     * @param amountDue double representing amount due for transaction
+     * Finalizes the receipt in the database, taking its items out of the store's inventory in the same transaction.
+     * Items added to a receipt don't touch inventory until then, so a receipt that's never finalized never has to be
+     * put back.
+     * @param amountPaid long representing amount paid for transaction in cents
+     * @param amountDue long representing amount due for transaction in cents
      * @param receiptNumber long representing the receipt number
-     * @return double representing the change due--i.e., difference between the amounts
+     * @return long representing the change due in cents--i.e., difference between the amounts
      * @throws SQLException if error when executing statement to database
      * @throws IllegalArgumentException if amountPaid is less than amountDue
      */
-    double finalizeReceipt(double amountPaid, double amountDue, long receiptNumber)
+    long finalizeReceipt(long amountPaid, long amountDue, long receiptNumber)
             throws SQLException, IllegalArgumentException;
 
+    /**
+     * Records a whole sale in a single call to the database: creates the receipt, adds every item, updates the
+     * store's inventory, totals it, and finalizes it with the amount paid, all as one transaction. Takes the place
+     * of {@link #createReceipt(Member)}, {@link #getReceiptTotal(List, int, Member)} and
+     * {@link #finalizeReceipt(long, long, long)} when the receipt isn't written as the items are scanned. <p>
+     * If the amount paid is short of the database's total, nothing is recorded and the result only holds the total.
+     * Checking out a sale with the same key again returns the receipt already recorded rather than a second one, so a
+     * call which may or may not have gone through before the connection dropped is safe to repeat.
+     * @param list List of BasketLine objects in the basket, one per item with how many were scanned
+     * @param member Member object associated with the sale, or null for a non-member
+     * @param amountPaid long representing amount paid for transaction in cents
+     * @param checkoutKey long identifying the sale on this register: its id in the
+     *                    {@link #getTransactionJournal() journal}, a negative key the register made up if it isn't
+     *                    journaled, or 0 if it has neither
+     * @return {@link CheckoutResult} holding the receipt number, total and change due
+     * @throws SQLException if error when executing statement to database
+     * @throws InvalidUPCException if an item in the basket is no longer in the database
+     */
+    CheckoutResult checkout(List<BasketLine> list, Member member, long amountPaid, long checkoutKey)
+            throws SQLException;
 
+    /**
+     * Returns a snapshot of the connection pool backing this data access object, used for sizing it under load.
+     * @return {@link ConnectionPoolMetrics} snapshot, or null if no login has succeeded
+     */
+    ConnectionPoolMetrics getConnectionPoolMetrics();
 
+    /**
+     * Returns the local item catalog used to answer {@link #getItemFromUPC(long)}, including its hit rate and
+     * staleness.
+     * @return {@link ItemCatalog} for this login, or null if no login has succeeded
+     */
+    ItemCatalog getItemCatalog();
 
+    /**
+     * Returns the local member cache used to answer member lookups, including its hit rate and lookup latency.
+     * @return {@link MemberCache} for this login, or null if no login has succeeded
+     */
+    MemberCache getMemberCache();
 
+    /**
+     * Returns what keeps the login alive across dropped connections, including how often it has had to reconnect.
+     * @return {@link SessionManager} for this login, or null if no login has succeeded
+     */
+    SessionManager getSessionManager();
 
+    /**
+     * Returns the local journal of sales, used to finish a sale while the database is unreachable.
+     * @return {@link TransactionJournal} for this login, or null if no login has succeeded or it couldn't be opened
+     */
+    TransactionJournal getTransactionJournal();
 
+    /**
+     * Returns what sends sales finished while offline to the database, including how many are still waiting.
+     * @return {@link JournalReplayer} for this login, or null if there's no {@link #getTransactionJournal() journal}
+     */
+    JournalReplayer getJournalReplayer();
+
+    /**
+     * Closes every connection to the database, drops the item catalog, and closes the journal. Any further calls will
+     * fail until a new login.
+     */
+    void close();
 }
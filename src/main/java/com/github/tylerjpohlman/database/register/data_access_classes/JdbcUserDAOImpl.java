@@ -1,28 +1,83 @@
 package com.github.tylerjpohlman.database.register.data_access_classes;
 import com.github.tylerjpohlman.database.register.helper_classes.*;
 
+import java.io.IOException;
+import java.math.BigDecimal;
 import java.sql.*;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 /**
- * Implementation of {@link JdbcUserDAO} which contains the logic for the data access object.
+ * Implementation of {@link JdbcUserDAO} which contains the logic for the data access object. <p>
+ * Every call borrows its own connection from a {@link ConnectionPool} and keeps its result sets local, so the same
+ * instance can safely be shared between threads. Statements come from the borrowed connection's statement cache and
+ * are reused rather than closed, so each SQL string below is only prepared once per connection. <p>
+ * Item lookups are answered from an {@link ItemCatalog} which is warmed up in the background after login, and member
+ * lookups from a {@link MemberCache} prefetched with the store's regular customers. Money is
+ * read from DECIMAL columns as text and parsed straight into cents with {@link Money}, never through {@code double}.
+ * <p>
+ * Sales are also kept in a local {@link TransactionJournal}, so the register can finish a sale while the database is
+ * unreachable; a {@link JournalReplayer} sends those sales to the database once it's back. A dropped connection is
+ * handled by a {@link SessionManager}, which reconnects and logs back in with the same credentials in the background.
  * @author Tyler Pohlman
  * @version 1.0, Date Created: 2023-11-14
- * @lastModified 2023-11-24
+ * @lastModified 2026-10-17
  */
 public class JdbcUserDAOImpl implements JdbcUserDAO {
+    private static final String CASHIER_REGISTER_LOGIN_SQL = "CALL cashierRegisterLogin(?, ?)";
+    private static final String STORE_ADDRESS_SQL = "SELECT storeAddressLookupFromRegister(?)";
+    private static final String STORE_TAX_RATE_SQL = "SELECT storeTaxRateFromRegister(?)";
+    private static final String ITEM_UPC_LOOKUP_SQL = "CALL itemUPCLookup(?)";
+    private static final String ITEM_CATALOG_LOOKUP_SQL = "CALL itemCatalogLookup(?)";
+    private static final String CREATE_RECEIPT_SQL = "CALL createReceipt(?, ?)";
+    private static final String ADD_ITEM_TO_RECEIPT_SQL = "CALL addItemToReceipt(?,?,?)";
+    private static final String SET_RECEIPT_MEMBER_SQL = "CALL setReceiptMember(?,?)";
+    private static final String GET_RECEIPT_TOTAL_SQL = "SELECT getReceiptTotal(?,?)";
+    private static final String MEMBER_PHONE_LOOKUP_SQL = "Call memberPhoneLookup(?)";
+    private static final String MEMBER_ACCOUNT_NUMBER_LOOKUP_SQL = "Call memberAccountNumberLookup(?)";
+    private static final String FREQUENT_MEMBER_LOOKUP_SQL = "CALL frequentMemberLookup(?, ?)";
+    private static final String FINALIZE_RECEIPT_SQL = "CALL finalizeReceipt(?,?)";
+    private static final String CHECKOUT_RECEIPT_SQL = "CALL checkoutReceipt(?,?,?,?,?)";
+    private static final String RESOLVE_OPEN_RECEIPT_SQL = "CALL resolveOpenReceipt(?)";
+    private static final String CREATE_JOURNALED_RECEIPT_SQL = "CALL createJournaledReceipt(?,?,?)";
+    private static final String ADD_JOURNALED_ITEM_TO_RECEIPT_SQL = "CALL addJournaledItemToReceipt(?,?,?,?,?)";
+    private static final String FINALIZE_JOURNALED_RECEIPT_SQL = "CALL finalizeJournaledReceipt(?,?,?)";
+
+    /**
+     * Pool of MySQL connections to the database using login credentials
+     */
+    private ConnectionPool connectionPool = null;
+    /**
+     * Re-establishes the login whenever the pool loses its connection to the database
+     */
+    private SessionManager sessionManager = null;
+    /**
+     * Local copy of the items table used to skip the database on a scan
+     */
+    private ItemCatalog itemCatalog = null;
+    /**
+     * Members looked up or prefetched since login, used to skip the database on a repeat lookup
+     */
+    private MemberCache memberCache = null;
+    /**
+     * Local record of sales, used to finish sales while the database is unreachable; null if it couldn't be opened
+     */
+    private TransactionJournal transactionJournal = null;
+    /**
+     * Sends sales finished while offline to the database
+     */
+    private JournalReplayer journalReplayer = null;
     /**
-     * MySQL Connection to the database using login credentials
+     * State tax rate for the register's store in hundredths, cached at login
      */
-    private Connection connection = null;
+    private int stateTaxRate = UNKNOWN_TAX_RATE;
     /**
      * Register number used to sign in to MySQL database
      */
     private final int registerNumber;
 
-    private PreparedStatement ps = null;
-    private ResultSet rs = null;
-
     /**
      * Constructor with tries logging into the database and establishing connection when invoked.
      * @param url String representing database url
@@ -37,41 +92,35 @@ public class JdbcUserDAOImpl implements JdbcUserDAO {
     }
 
     public boolean isConnectionNotReachable() {
-        try {
-            //checks if Connection is closed
-            if (connection != null && connection.isClosed()) {
-                return true;
-            }
-            //if there's no connection object at all
-            else if (connection == null) {
-                return true;
-            }
-            //any other Connection errors will also return false
-        } catch (SQLException e) {
-            return true;
-        }
+        //if there's no session at all, or it's waiting to reconnect
+        return sessionManager == null || !sessionManager.isConnected();
+    }
+
+    public boolean isSessionLost() {
+        return sessionManager == null || sessionManager.getState() == SessionManager.State.LOST;
+    }
 
-        //if all goes well, return true
-        return false;
+    public CompletableFuture<Void> awaitSession() {
+        return sessionManager == null
+                ? CompletableFuture.failedFuture(new ClosedConnectionException()) : sessionManager.awaitSession();
     }
 
     public void setConnectionFromLogin(String url, String username, String password, int registerNumber)
             throws SQLException {
-        try {
-            //tries to establish a connection to the database
-            connection = DriverManager.getConnection(url, username, password);
-
-            //tries cashier login procedure
-            ps = connection.prepareStatement("CALL cashierRegisterLogin(?, ?)");
-            ps.setString(1, username);
-            ps.setInt(2, registerNumber);
-            ps.execute();
+        //replaces any pool and catalog from a previous login
+        close();
+        connectionPool = new ConnectionPool(url, username, password);
 
+        //tries to establish a connection to the database
+        try (PooledConnection pooledConnection = connectionPool.borrow()) {
+            cashierRegisterLogin(pooledConnection, username, registerNumber);
         } catch (SQLException e) {
+            connectionPool.close();
+            connectionPool = null;
+
             String errorCode = e.getSQLState();
 
             switch (errorCode) {
-
                 //if the driver isn't downloaded or defined in the url
                 case "08001":
                     throw new DriverNotFoundException();
@@ -95,23 +144,81 @@ public class JdbcUserDAOImpl implements JdbcUserDAO {
                     throw e;
             }
         }
+
+        //from here on, a lost connection is re-established with the same credentials instead of ending the login
+        sessionManager = new SessionManager(connectionPool,
+                pooledConnection -> cashierRegisterLogin(pooledConnection, username, registerNumber));
+        connectionPool.setConnectionLostListener(sessionManager::connectionLost);
+
+        stateTaxRate = lookUpStateTaxRate(registerNumber);
+
+        //only warm up the catalog once the login has gone through
+        itemCatalog = new ItemCatalog(this::loadItemCatalog);
+        itemCatalog.start();
+        memberCache = new MemberCache((limit, sink) -> loadFrequentMembers(registerNumber, limit, sink));
+        memberCache.start();
+
+        try {
+            transactionJournal = TransactionJournal.open(registerNumber);
+            journalReplayer = new JournalReplayer(transactionJournal,
+                    transaction -> replayJournaledTransaction(transaction, registerNumber));
+            journalReplayer.start();
+        } catch (IOException e) {
+            //the register still works online; it just can't finish sales during an outage
+            transactionJournal = null;
+            journalReplayer = null;
+        }
+    }
+
+    /**
+     * Runs the cashier login procedure, which checks the cashier may use the register.
+     */
+    private static void cashierRegisterLogin(PooledConnection pooledConnection, String username, int registerNumber)
+            throws SQLException {
+        PreparedStatement ps = pooledConnection.prepareStatement(CASHIER_REGISTER_LOGIN_SQL);
+        ps.setString(1, username);
+        ps.setInt(2, registerNumber);
+        ps.execute();
+    }
+
+    /**
+     * Looks up the tax rate for {@link #getStateTaxRate()}. A failure isn't fatal since the database still totals
+     * every receipt itself.
+     * @param registerNumber int representing the register number
+     * @return int representing the tax rate in hundredths, or {@link #UNKNOWN_TAX_RATE} if it couldn't be looked up
+     */
+    private int lookUpStateTaxRate(int registerNumber) {
+        try (PooledConnection pooledConnection = connectionPool.borrow()) {
+            PreparedStatement ps = pooledConnection.prepareStatement(STORE_TAX_RATE_SQL);
+            ps.setInt(1, registerNumber);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() && rs.getString(1) != null ? Money.parseRate(rs.getString(1)) : UNKNOWN_TAX_RATE;
+            }
+        } catch (SQLException | NumberFormatException e) {
+            return UNKNOWN_TAX_RATE;
+        }
+    }
+
+    public int getStateTaxRate() {
+        return stateTaxRate;
     }
 
     public String getAddressFromConnection() throws SQLException {
         String address = null;
 
-        try {
-            //grabs the address using the registerID
-            ps = connection.prepareStatement("SELECT storeAddressLookupFromRegister(?)");
+        //grabs the address using the registerID
+        try (PooledConnection pooledConnection = connectionPool.borrow()) {
+            PreparedStatement ps = pooledConnection.prepareStatement(STORE_ADDRESS_SQL);
             ps.setInt(1, registerNumber);
             //stores the address in the result set
-            rs = ps.executeQuery();
-            while (rs.next()) {
-                address = rs.getString(1);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    address = rs.getString(1);
+                }
             }
         } catch (SQLException e) {
             //invalid register id given
-            if(e.getSQLState().equals("45001")) {
+            if("45001".equals(e.getSQLState())) {
                 throw new InvalidRegisterException();
             //otherwise, rethrow the SQLException
             } else {
@@ -123,23 +230,29 @@ public class JdbcUserDAOImpl implements JdbcUserDAO {
     }
 
     public Item getItemFromUPC(long upc) throws SQLException {
+        Item cachedItem = itemCatalog.get(upc);
+        if (cachedItem != null) {
+            return cachedItem;
+        }
+
         String name = null;
-        double price = 0.0, discount = 0.0;
+        long price = 0;
+        int discount = 0;
 
-        try {
-            ps = connection.prepareStatement("CALL itemUPCLookup(?)");
+        try (PooledConnection pooledConnection = connectionPool.borrow()) {
+            PreparedStatement ps = pooledConnection.prepareStatement(ITEM_UPC_LOOKUP_SQL);
             ps.setLong(1, upc);
-            //stores the address in the result set
-            rs = ps.executeQuery();
-
-            while (rs.next()) {
-                name = rs.getString(1);
-                price = rs.getDouble(2);
-                discount = rs.getDouble(3);
+            //stores the item in the result set
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    name = rs.getString(1);
+                    price = readCents(rs, 2);
+                    discount = Money.parseRate(rs.getString(3));
+                }
             }
         } catch (SQLException e) {
             //invalid UPC exception defined in the database
-            if(e.getSQLState().equals("45002")) {
+            if("45002".equals(e.getSQLState())) {
                 throw new InvalidUPCException();
             }
             //otherwise, rethrow the exception
@@ -148,139 +261,515 @@ public class JdbcUserDAOImpl implements JdbcUserDAO {
             }
         }
 
-        ps.close();
-        rs.close();
+        Item item = new Item(upc, name, price, discount);
+        itemCatalog.put(item);
+
+        return item;
+    }
+
+    public List<Item> searchItemsByName(String query, int limit) {
+        return itemCatalog == null ? List.of() : itemCatalog.search(query, limit);
+    }
+
+    /**
+     * Reads items from the database for {@link ItemCatalog}. Used as its {@link ItemCatalog.Source}.
+     * @param changedSince {@link Timestamp} of the previous load, or null to read every item
+     * @param sink receives each item read
+     * @return {@link Timestamp} of the newest modification read, or the given timestamp if nothing changed
+     * @throws SQLException if the items can't be read
+     */
+    private Timestamp loadItemCatalog(Timestamp changedSince, Consumer<Item> sink) throws SQLException {
+        Timestamp newestChange = changedSince;
+
+        try (PooledConnection pooledConnection = connectionPool.borrow()) {
+            PreparedStatement ps = pooledConnection.prepareStatement(ITEM_CATALOG_LOOKUP_SQL);
+            //streams the rows instead of buffering a store-wide catalog in the driver
+            ps.setFetchSize(Integer.MIN_VALUE);
+            if (changedSince == null) {
+                ps.setNull(1, Types.TIMESTAMP);
+            } else {
+                ps.setTimestamp(1, changedSince);
+            }
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    long upc;
+                    try {
+                        upc = Long.parseLong(rs.getString(1));
+                    } catch (NumberFormatException e) {
+                        //can't be scanned by the register anyway
+                        continue;
+                    }
+
+                    sink.accept(new Item(upc, rs.getString(2), readCents(rs, 3), Money.parseRate(rs.getString(4))));
+
+                    Timestamp lastModified = rs.getTimestamp(5);
+                    if (lastModified != null && (newestChange == null || lastModified.after(newestChange))) {
+                        newestChange = lastModified;
+                    }
+                }
+            }
+        }
 
-        return new Item(upc, name, price, discount);
+        return newestChange;
     }
 
     public int createReceipt(Member member) throws SQLException {
 
         int receiptNumber = 0;
 
-        //if there is no provided membership
-        if (member == null) {
-            ps = connection.prepareStatement("CALL createReceipt(?, ?)");
-            ps.setInt(1, registerNumber);
-            ps.setNull(2, java.sql.Types.INTEGER);
-        }
-        //a membership was provided
-        else {
-            ps = connection.prepareStatement("CALL createReceipt(?, ?)");
+        try (PooledConnection pooledConnection = connectionPool.borrow()) {
+            PreparedStatement ps = pooledConnection.prepareStatement(CREATE_RECEIPT_SQL);
             ps.setInt(1, registerNumber);
-            ps.setLong(2, member.getAccountNumber());
-        }
+            //if there is no provided membership
+            if (member == null) {
+                ps.setNull(2, java.sql.Types.INTEGER);
+            }
+            //a membership was provided
+            else {
+                ps.setLong(2, member.getAccountNumber());
+            }
 
-        //grabs the receipt number that was created
-        rs = ps.executeQuery();
-        while (rs.next()) {
-            receiptNumber = Integer.parseInt(rs.getString(1));
+            //grabs the receipt number that was created
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    receiptNumber = Integer.parseInt(rs.getString(1));
+                }
+            }
         }
 
-        ps.close();
-        rs.close();
-
         return receiptNumber;
     }
 
-    public double getReceiptTotal(List<Item> list, int receiptNumber, Member member)
+    public long getReceiptTotal(List<BasketLine> list, int receiptNumber, Member member)
             throws SQLException {
-        double amountDue = 0.0;
+        long amountDue = 0;
+
+        try (PooledConnection pooledConnection = connectionPool.borrow()) {
+            Connection connection = pooledConnection.getConnection();
+            //the whole basket goes in as one unit of work, so a failure part way through leaves no stray details
+            connection.setAutoCommit(false);
+
+            try {
+                //adds all the items to the receipt_details table in a single batch rather than a call per item
+                PreparedStatement ps = pooledConnection.prepareStatement(ADD_ITEM_TO_RECEIPT_SQL);
+                for (BasketLine line : list) {
+                    ps.setLong(1, line.getUpc());
+                    ps.setInt(2, receiptNumber);
+                    ps.setInt(3, line.getQuantity());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+
+                amountDue = queryReceiptTotal(pooledConnection, receiptNumber,
+                        member == null ? 0 : member.getAccountNumber());
+
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+
+        return amountDue;
+    }
 
-        //adds all the items to the receipt_details table
-        for (Item item : list) {
-            ps = connection.prepareStatement("CALL addItemToReceipt(?,?)");
-            ps.setLong(1, item.getUpc());
+    public void addItemToReceipt(long upc, int quantity, int receiptNumber) throws SQLException {
+        try (PooledConnection pooledConnection = connectionPool.borrow()) {
+            PreparedStatement ps = pooledConnection.prepareStatement(ADD_ITEM_TO_RECEIPT_SQL);
+            ps.setLong(1, upc);
             ps.setInt(2, receiptNumber);
+            ps.setInt(3, quantity);
             ps.execute();
         }
+    }
 
-        if (member == null) {
-            ps = connection.prepareStatement("SELECT getReceiptTotal(?,?)");
+    public void setReceiptMember(int receiptNumber, Member member) throws SQLException {
+        try (PooledConnection pooledConnection = connectionPool.borrow()) {
+            PreparedStatement ps = pooledConnection.prepareStatement(SET_RECEIPT_MEMBER_SQL);
             ps.setInt(1, receiptNumber);
+            if (member == null) {
+                ps.setNull(2, java.sql.Types.INTEGER);
+            }
+            else {
+                ps.setLong(2, member.getAccountNumber());
+            }
+            ps.execute();
+        }
+    }
+
+    public long getReceiptTotal(int receiptNumber, Member member) throws SQLException {
+        try (PooledConnection pooledConnection = connectionPool.borrow()) {
+            return queryReceiptTotal(pooledConnection, receiptNumber, member == null ? 0 : member.getAccountNumber());
+        }
+    }
+
+    /**
+     * Runs the receipt total function on an already borrowed connection, so it can share a transaction.
+     */
+    private long queryReceiptTotal(PooledConnection pooledConnection, int receiptNumber, long memberAccountNumber)
+            throws SQLException {
+        long amountDue = 0;
+
+        PreparedStatement ps = pooledConnection.prepareStatement(GET_RECEIPT_TOTAL_SQL);
+        ps.setInt(1, receiptNumber);
+        //0 means there's no member
+        if (memberAccountNumber == 0) {
             ps.setNull(2, java.sql.Types.INTEGER);
         }
         else {
-            ps = connection.prepareStatement("SELECT getReceiptTotal(?,?)");
-            ps.setInt(1, receiptNumber);
-            ps.setLong(2, member.getAccountNumber());
-        }
-        rs = ps.executeQuery();
-        while(rs.next()) {
-            amountDue = rs.getDouble(1);
+            ps.setLong(2, memberAccountNumber);
         }
 
-        ps.close();
-        rs.close();
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                amountDue = readCents(rs, 1);
+            }
+        }
 
         return amountDue;
     }
 
     public Member getMemberFromPhoneNumber(long phoneNumber) throws SQLException {
-        Member member = null;
-
-        ps = connection.prepareStatement("Call memberPhoneLookup(?)");
-        ps.setLong(1, phoneNumber);
-        //stores the member in the result set
-        rs = ps.executeQuery();
+        long start = System.nanoTime();
+        Member member = memberCache.getByPhoneNumber(phoneNumber);
+        if (member != null) {
+            memberCache.recordLookup(System.nanoTime() - start, true);
+            return member;
+        }
 
+        try (PooledConnection pooledConnection = connectionPool.borrow()) {
+            PreparedStatement ps = pooledConnection.prepareStatement(MEMBER_PHONE_LOOKUP_SQL);
+            ps.setLong(1, phoneNumber);
+            //stores the member in the result set
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    long accountNumber = Long.parseLong(rs.getString(1));
+                    String firstName = rs.getString(2);
+                    String lastName = rs.getString(3);
+
+                    member = new Member(accountNumber, firstName, lastName);
+                }
+            }
+        } finally {
+            memberCache.recordLookup(System.nanoTime() - start, false);
+        }
 
-        while (rs.next()) {
-            long accountNumber = Long.parseLong(rs.getString(1));
-            String firstName = rs.getString(2);
-            String lastName = rs.getString(3);
+        if (member != null) {
+            memberCache.put(member, phoneNumber);
+        }
+        return member;
+    }
 
-            member = new Member(accountNumber, firstName, lastName);
+    public Member getMemberFromAccountNumber(long accountNumber) throws SQLException {
+        long start = System.nanoTime();
+        Member member = memberCache.getByAccountNumber(accountNumber);
+        if (member != null) {
+            memberCache.recordLookup(System.nanoTime() - start, true);
+            return member;
         }
 
-        ps.close();
-        rs.close();
+        try (PooledConnection pooledConnection = connectionPool.borrow()) {
+            PreparedStatement ps = pooledConnection.prepareStatement(MEMBER_ACCOUNT_NUMBER_LOOKUP_SQL);
+            ps.setLong(1, accountNumber);
+            //stores the member in the result set
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    String firstName = rs.getString(1);
+                    String lastName = rs.getString(2);
+
+                    member = new Member(accountNumber, firstName, lastName);
+                }
+            }
+        } finally {
+            memberCache.recordLookup(System.nanoTime() - start, false);
+        }
 
+        if (member != null) {
+            //the phone number isn't known here; a later lookup by phone fills it in
+            memberCache.put(member, 0);
+        }
         return member;
     }
 
-    public Member getMemberFromAccountNumber(long accountNumber) throws SQLException {
-        Member member = null;
+    /**
+     * Reads the store's most frequent members for {@link MemberCache}. Used as its {@link MemberCache.Source}.
+     * @param registerNumber int representing the register number, which determines the store
+     * @param limit int representing the most members to read
+     * @param sink receives each member read along with their normalized phone number, or 0 if they have none
+     * @throws SQLException if the members can't be read
+     */
+    private void loadFrequentMembers(int registerNumber, int limit, BiConsumer<Member, Long> sink)
+            throws SQLException {
+        try (PooledConnection pooledConnection = connectionPool.borrow()) {
+            PreparedStatement ps = pooledConnection.prepareStatement(FREQUENT_MEMBER_LOOKUP_SQL);
+            ps.setInt(1, registerNumber);
+            ps.setInt(2, limit);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    long phoneNumber;
+                    try {
+                        phoneNumber = rs.getString(4) == null ? 0 : MemberCache.normalizePhoneNumber(rs.getString(4));
+                    } catch (NumberFormatException e) {
+                        //still worth caching for lookups by account number
+                        phoneNumber = 0;
+                    }
+
+                    Member member = new Member(Long.parseLong(rs.getString(1)), rs.getString(2), rs.getString(3));
+                    sink.accept(member, phoneNumber);
+                }
+            }
+        }
+    }
+
+    public long finalizeReceipt(long amountPaid, long amountDue, long receiptNumber)
+            throws SQLException {
+        if(amountPaid < amountDue) {
+            throw new IllegalArgumentException("Amount paid must be greater or equal to amount due");
+        }
+        if(isConnectionNotReachable()) {
+            throw new ClosedConnectionException();
+        }
 
-        ps = connection.prepareStatement("Call memberAccountNumberLookup(?)");
-        ps.setLong(1, accountNumber);
-        //stores the member in the result set
-        rs = ps.executeQuery();
+        long amountGiven = 0;
 
-        while (rs.next()) {
-            String firstName = rs.getString(1);
-            String lastName = rs.getString(2);
+        try (PooledConnection pooledConnection = connectionPool.borrow()) {
+            Connection connection = pooledConnection.getConnection();
+            //the payment and the inventory it takes are committed together, or not at all
+            connection.setAutoCommit(false);
 
-            member = new Member(accountNumber, firstName, lastName);
-        }
+            try {
+                PreparedStatement ps = pooledConnection.prepareStatement(FINALIZE_RECEIPT_SQL);
+                ps.setLong(1, receiptNumber);
+                ps.setBigDecimal(2, Money.toBigDecimal(amountPaid));
 
-        ps.close();
-        rs.close();
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        amountGiven = readCents(rs, 1);
+                    }
+                }
 
-        return member;
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            //error defined in database procedure, invoked when the payment is less than the receipt's total
+            if("45005".equals(e.getSQLState())) {
+                throw new IllegalArgumentException("Amount paid must be greater or equal to amount due", e);
+            }
+            throw e;
+        }
+
+        return amountGiven;
     }
 
-    public double finalizeReceipt(double amountPaid, double amountDue, long receiptNumber)
+    public CheckoutResult checkout(List<BasketLine> list, Member member, long amountPaid, long checkoutKey)
             throws SQLException {
         if(isConnectionNotReachable()) {
             throw new ClosedConnectionException();
         }
 
-        ps = connection.prepareStatement("CALL finalizeReceipt(?,?)");
-        ps.setLong(1, receiptNumber);
-        ps.setDouble(2, amountPaid);
-        rs = ps.executeQuery();
-        
-        double amountGiven = 0;
-        
-        while(rs.next()) {
-            amountGiven = rs.getDouble(1);
+        //the whole basket goes in as a JSON array of lines, so the sale is one call however many items it has
+        StringBuilder lines = new StringBuilder("[");
+        for (BasketLine line : list) {
+            if (lines.length() > 1) {
+                lines.append(',');
+            }
+            lines.append("{\"upc\":\"").append(line.getUpc())
+                    .append("\",\"quantity\":").append(line.getQuantity()).append('}');
         }
+        lines.append(']');
 
-        ps.close();
-        rs.close();
+        CheckoutResult result = null;
 
-        
-        return amountGiven;
+        try (PooledConnection pooledConnection = connectionPool.borrow()) {
+            PreparedStatement ps = pooledConnection.prepareStatement(CHECKOUT_RECEIPT_SQL);
+            ps.setInt(1, registerNumber);
+            if (member == null) {
+                ps.setNull(2, java.sql.Types.INTEGER);
+            }
+            else {
+                ps.setLong(2, member.getAccountNumber());
+            }
+            //0 means there's no key to recognize a repeated call by
+            if (checkoutKey == 0) {
+                ps.setNull(3, java.sql.Types.BIGINT);
+            }
+            else {
+                ps.setLong(3, checkoutKey);
+            }
+            ps.setString(4, lines.toString());
+            ps.setBigDecimal(5, Money.toBigDecimal(amountPaid));
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    //no receipt number means the amount paid didn't cover the total, so nothing was kept
+                    String receiptNumber = rs.getString(1);
+                    result = new CheckoutResult(receiptNumber == null ? 0 : Integer.parseInt(receiptNumber),
+                            readCents(rs, 2), receiptNumber == null ? 0 : readCents(rs, 3));
+                }
+            }
+        } catch (SQLException e) {
+            //invalid UPC exception defined in the database
+            if("45002".equals(e.getSQLState())) {
+                throw new InvalidUPCException("An item in the basket is no longer in the database", e);
+            }
+            throw e;
+        }
+
+        if (result == null) {
+            throw new SQLException("Checkout returned no receipt");
+        }
+        return result;
+    }
+
+    /**
+     * Writes a sale finished while offline into the database as one transaction. Used as the
+     * {@link JournalReplayer.Target} for the journal. <p>
+     * A receipt the register had started before losing its connection is either kept, if it turns out it was
+     * finalized, or rolled back so the journaled sale replaces it. Items are recorded at the prices the customer was
+     * charged, and the receipt keeps the time of the sale.
+     * @param transaction {@link JournaledTransaction} which was tendered offline
+     * @param registerNumber int representing the register number
+     * @return int representing the sale's receipt number
+     * @throws SQLException if the sale can't be written
+     */
+    private int replayJournaledTransaction(JournaledTransaction transaction, int registerNumber)
+            throws SQLException {
+        if (connectionPool == null) {
+            throw new ClosedConnectionException();
+        }
+
+        try (PooledConnection pooledConnection = connectionPool.borrow()) {
+            Connection connection = pooledConnection.getConnection();
+            connection.setAutoCommit(false);
+
+            try {
+                //the receipt started online went through just before the connection dropped
+                if (transaction.getOpenReceiptNumber() != 0) {
+                    PreparedStatement ps = pooledConnection.prepareStatement(RESOLVE_OPEN_RECEIPT_SQL);
+                    ps.setInt(1, transaction.getOpenReceiptNumber());
+                    try (ResultSet rs = ps.executeQuery()) {
+                        if (rs.next() && rs.getInt(1) == 1) {
+                            connection.commit();
+                            return transaction.getOpenReceiptNumber();
+                        }
+                    }
+                }
+
+                int receiptNumber = 0;
+                boolean alreadyReplayed = false;
+
+                PreparedStatement ps = pooledConnection.prepareStatement(CREATE_JOURNALED_RECEIPT_SQL);
+                ps.setInt(1, registerNumber);
+                if (transaction.getMemberAccountNumber() == 0) {
+                    ps.setNull(2, java.sql.Types.INTEGER);
+                }
+                else {
+                    ps.setLong(2, transaction.getMemberAccountNumber());
+                }
+                ps.setLong(3, transaction.getJournalId());
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        receiptNumber = rs.getInt(1);
+                        alreadyReplayed = rs.getInt(2) == 1;
+                    }
+                }
+
+                if (!alreadyReplayed) {
+                    ps = pooledConnection.prepareStatement(ADD_JOURNALED_ITEM_TO_RECEIPT_SQL);
+                    for (BasketLine line : transaction.getLines()) {
+                        Item item = line.getItem();
+                        ps.setLong(1, item.getUpc());
+                        ps.setInt(2, receiptNumber);
+                        ps.setBigDecimal(3, Money.toBigDecimal(item.getPriceCents()));
+                        ps.setBigDecimal(4, BigDecimal.valueOf(item.getDiscountRate(), 2));
+                        ps.setInt(5, line.getQuantity());
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+
+                    queryReceiptTotal(pooledConnection, receiptNumber, transaction.getMemberAccountNumber());
+
+                    ps = pooledConnection.prepareStatement(FINALIZE_JOURNALED_RECEIPT_SQL);
+                    ps.setInt(1, receiptNumber);
+                    ps.setBigDecimal(2, Money.toBigDecimal(transaction.getAmountPaid()));
+                    ps.setTimestamp(3, new Timestamp(transaction.getTenderedAtMillis()));
+                    ps.execute();
+                }
+
+                connection.commit();
+                return receiptNumber;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Reads a DECIMAL column as cents without going through {@code double}.
+     * @param rs {@link ResultSet} positioned on a row
+     * @param column int representing the column's index
+     * @return long representing the amount in cents, or 0 if the column is null
+     * @throws SQLException if the column can't be read
+     */
+    private static long readCents(ResultSet rs, int column) throws SQLException {
+        String amount = rs.getString(column);
+        return amount == null ? 0 : Money.parse(amount);
+    }
+
+    public ConnectionPoolMetrics getConnectionPoolMetrics() {
+        return connectionPool == null ? null : connectionPool.getMetrics();
+    }
+
+    public ItemCatalog getItemCatalog() {
+        return itemCatalog;
+    }
+
+    public MemberCache getMemberCache() {
+        return memberCache;
+    }
+
+    public SessionManager getSessionManager() {
+        return sessionManager;
+    }
+
+    public TransactionJournal getTransactionJournal() {
+        return transactionJournal;
+    }
+
+    public JournalReplayer getJournalReplayer() {
+        return journalReplayer;
+    }
+
+    public void close() {
+        if (journalReplayer != null) {
+            journalReplayer.close();
+        }
+        if (transactionJournal != null) {
+            transactionJournal.close();
+        }
+        if (itemCatalog != null) {
+            itemCatalog.close();
+        }
+        if (memberCache != null) {
+            memberCache.close();
+        }
+        if (sessionManager != null) {
+            sessionManager.close();
+        }
+        if (connectionPool != null) {
+            connectionPool.close();
+        }
     }
 }
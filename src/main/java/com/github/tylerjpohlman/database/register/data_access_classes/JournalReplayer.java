@@ -0,0 +1,128 @@
+package com.github.tylerjpohlman.database.register.data_access_classes;
+
+import com.github.tylerjpohlman.database.register.helper_classes.LatencyHistogram;
+
+import java.sql.SQLException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends sales paid for while the database was unreachable from the {@link TransactionJournal} to the database once
+ * it's back, oldest first. <p>
+ * Runs in the background on a fixed interval. Each sale is written in a single database transaction and marked
+ * settled in the journal only after that commits; replaying a sale the database already has does nothing, so a sale
+ * is never recorded twice even if the register goes down between the commit and the settle. A round stops at the
+ * first connection failure and tries again on the next run, while a sale the database rejects for any other reason
+ * is counted and skipped, so one bad sale can't hold up the rest.
+ * @author Tyler Pohlman
+ * @version 1.0, Date Created: 2026-10-17
+ * @lastModified 2026-10-17
+ */
+public class JournalReplayer implements AutoCloseable {
+    /**
+     * Default time between attempts to replay the pending sales.
+     */
+    public static final long DEFAULT_REPLAY_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(10);
+
+    /**
+     * Writes a journaled sale into the database.
+     */
+    @FunctionalInterface
+    interface Target {
+        /**
+         * Writes the sale and its items as a finalized receipt, unless the database already has it.
+         * @param transaction {@link JournaledTransaction} which was tendered offline
+         * @return int representing the sale's receipt number
+         * @throws SQLException if the sale can't be written
+         */
+        int replay(JournaledTransaction transaction) throws SQLException;
+    }
+
+    private final TransactionJournal journal;
+    private final Target target;
+    private final long replayIntervalMillis;
+    private final ScheduledExecutorService replayer;
+
+    private final AtomicLong replayed = new AtomicLong();
+    private final AtomicLong failedReplays = new AtomicLong();
+    private final LatencyHistogram replayLatency = new LatencyHistogram();
+
+    JournalReplayer(TransactionJournal journal, Target target) {
+        this(journal, target, DEFAULT_REPLAY_INTERVAL_MILLIS);
+    }
+
+    JournalReplayer(TransactionJournal journal, Target target, long replayIntervalMillis) {
+        this.journal = journal;
+        this.target = target;
+        this.replayIntervalMillis = replayIntervalMillis;
+        replayer = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().daemon().name("journal-replayer").factory());
+    }
+
+    /**
+     * Starts replaying in the background, beginning with anything left over from before the register was restarted.
+     */
+    void start() {
+        replayer.scheduleWithFixedDelay(this::replayPending, 0, replayIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Replays every pending sale, stopping early if the database can't be reached.
+     */
+    void replayPending() {
+        for (JournaledTransaction transaction : journal.getPendingTransactions()) {
+            long start = System.nanoTime();
+
+            try {
+                target.replay(transaction);
+                journal.settle(transaction.getJournalId());
+                replayed.incrementAndGet();
+                replayLatency.record(System.nanoTime() - start);
+            } catch (SQLException e) {
+                failedReplays.incrementAndGet();
+                if (SessionManager.isConnectionProblem(e)) {
+                    return;
+                }
+            } catch (RuntimeException e) {
+                failedReplays.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * @return long representing sales successfully sent to the database
+     */
+    public long getReplayed() {
+        return replayed.get();
+    }
+
+    /**
+     * @return long representing attempts to send a sale which failed
+     */
+    public long getFailedReplays() {
+        return failedReplays.get();
+    }
+
+    /**
+     * @return {@link LatencyHistogram} of the time taken to replay each sale
+     */
+    public LatencyHistogram getReplayLatency() {
+        return replayLatency;
+    }
+
+    /**
+     * Stops replaying; anything still pending stays in the journal for next time.
+     */
+    @Override
+    public void close() {
+        replayer.shutdownNow();
+    }
+
+    @Override
+    public String toString() {
+        return "pending=" + journal.getPendingCount() + ", replayed=" + getReplayed()
+                + ", failedReplays=" + getFailedReplays() + ", replayLatency=[" + replayLatency + ']';
+    }
+}
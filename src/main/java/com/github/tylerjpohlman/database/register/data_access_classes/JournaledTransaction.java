@@ -0,0 +1,105 @@
+package com.github.tylerjpohlman.database.register.data_access_classes;
+
+import com.github.tylerjpohlman.database.register.helper_classes.Basket;
+import com.github.tylerjpohlman.database.register.helper_classes.BasketLine;
+import com.github.tylerjpohlman.database.register.helper_classes.Item;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A sale as recorded in a {@link TransactionJournal}: its items, member, and, once paid for, its tender. <p>
+ * Built up record by record, either as the sale is rung up or as the journal file is read back.
+ * @author Tyler Pohlman
+ * @version 1.0, Date Created: 2026-10-17
+ * @lastModified 2026-10-17
+ */
+public class JournaledTransaction {
+    private final long journalId;
+    private final List<Item> items = new ArrayList<>();
+    private long memberAccountNumber = 0;
+    private boolean tendered = false;
+    private long amountDue;
+    private long amountPaid;
+    private int openReceiptNumber;
+    private long tenderedAtMillis;
+
+    JournaledTransaction(long journalId) {
+        this.journalId = journalId;
+    }
+
+    void addItem(Item item) {
+        items.add(item);
+    }
+
+    void setMemberAccountNumber(long memberAccountNumber) {
+        this.memberAccountNumber = memberAccountNumber;
+    }
+
+    void tender(long amountDue, long amountPaid, int openReceiptNumber, long tenderedAtMillis) {
+        this.tendered = true;
+        this.amountDue = amountDue;
+        this.amountPaid = amountPaid;
+        this.openReceiptNumber = openReceiptNumber;
+        this.tenderedAtMillis = tenderedAtMillis;
+    }
+
+    /**
+     * @return long identifying the sale; unique for the register
+     */
+    public long getJournalId() {
+        return journalId;
+    }
+    public List<Item> getItems() {
+        return Collections.unmodifiableList(items);
+    }
+    /**
+     * @return the items grouped into one line per UPC, in the order each was first scanned
+     */
+    public List<BasketLine> getLines() {
+        List<BasketLine> lines = new ArrayList<>();
+        Basket basket = new Basket(lines);
+        for (Item item : items) {
+            basket.add(item);
+        }
+        return lines;
+    }
+    /**
+     * @return long representing the member's account number, or 0 if there isn't a member
+     */
+    public long getMemberAccountNumber() {
+        return memberAccountNumber;
+    }
+    /**
+     * @return true once the sale has been paid for
+     */
+    public boolean isTendered() {
+        return tendered;
+    }
+    /**
+     * @return long representing the amount due in cents, as calculated by the register
+     */
+    public long getAmountDue() {
+        return amountDue;
+    }
+    /**
+     * @return long representing the amount paid in cents
+     */
+    public long getAmountPaid() {
+        return amountPaid;
+    }
+    /**
+     * @return int representing a receipt which was partly written to the database before the connection dropped,
+     * or 0 if there isn't one
+     */
+    public int getOpenReceiptNumber() {
+        return openReceiptNumber;
+    }
+    /**
+     * @return long representing when the sale was paid for, in milliseconds since the epoch
+     */
+    public long getTenderedAtMillis() {
+        return tenderedAtMillis;
+    }
+}
@@ -0,0 +1,316 @@
+package com.github.tylerjpohlman.database.register.data_access_classes;
+
+import com.github.tylerjpohlman.database.register.helper_classes.LatencyHistogram;
+import com.github.tylerjpohlman.database.register.helper_classes.Member;
+
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * A bounded, in-process cache of loyalty members keyed by both account number and phone number, so a regular
+ * customer's lookup doesn't need a round trip to the database. <p>
+ * Members found through the database are added as they're looked up, and the store's most frequent members can be
+ * {@link Source prefetched} in the background right after login, so even a customer's first visit of the day is
+ * usually a hit. Once full, the least recently used member is dropped. Entries expire after
+ * {@link #DEFAULT_TIME_TO_LIVE_MILLIS}, which bounds how long a renamed or removed member can show up; the database
+ * still checks the member again when the receipt is created. Members who aren't found are never cached, so a mistyped
+ * number doesn't stick.
+ * <p>
+ * Phone numbers are keyed by their {@link #normalizePhoneNumber normalized} digits, so "(216) 970-0354",
+ * "216.970.0354" and "1-216-970-0354" are the same key.
+ * @author Tyler Pohlman
+ * @version 1.0, Date Created: 2026-10-17
+ * @lastModified 2026-10-17
+ */
+public class MemberCache implements AutoCloseable {
+    /**
+     * Default upper bound on cached members.
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 10_000;
+    /**
+     * Default time a member stays cached before being looked up again; prefetched members are refreshed this often.
+     */
+    public static final long DEFAULT_TIME_TO_LIVE_MILLIS = TimeUnit.HOURS.toMillis(1);
+    /**
+     * Default number of the store's most frequent members to prefetch.
+     */
+    public static final int DEFAULT_PREFETCH_LIMIT = 500;
+    /**
+     * System property overriding {@link #DEFAULT_PREFETCH_LIMIT}; 0 turns prefetching off.
+     */
+    public static final String PREFETCH_LIMIT_PROPERTY = "register.memberPrefetchLimit";
+
+    /**
+     * Loads the store's most frequent members from the database.
+     */
+    @FunctionalInterface
+    interface Source {
+        /**
+         * Passes up to the given number of members to the sink, most frequent first.
+         * @param limit int representing the most members to load
+         * @param sink receives each {@link Member} along with its normalized phone number, or 0 if it has none
+         * @throws SQLException if the members can't be read
+         */
+        void loadFrequentMembers(int limit, BiConsumer<Member, Long> sink) throws SQLException;
+    }
+
+    /**
+     * A cached member, its phone number if known, and when it was cached.
+     */
+    private record Entry(Member member, long phoneNumber, long cachedAt) {
+    }
+
+    private final Source source;
+    private final int maxEntries;
+    private final long timeToLiveNanos;
+    private final int prefetchLimit;
+    private final ScheduledExecutorService prefetcher;
+
+    //both guarded by this; every phone number maps to an account number in byAccountNumber
+    private final Map<Long, Long> accountNumberByPhoneNumber = new HashMap<>();
+    private final LinkedHashMap<Long, Entry> byAccountNumber;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong prefetched = new AtomicLong();
+    private final AtomicLong failedPrefetches = new AtomicLong();
+    private final LatencyHistogram lookupLatency = new LatencyHistogram();
+    private final LatencyHistogram databaseLookupLatency = new LatencyHistogram();
+
+    MemberCache(Source source) {
+        this(source, DEFAULT_MAX_ENTRIES, DEFAULT_TIME_TO_LIVE_MILLIS,
+                Integer.getInteger(PREFETCH_LIMIT_PROPERTY, DEFAULT_PREFETCH_LIMIT));
+    }
+
+    MemberCache(Source source, int maxEntries, long timeToLiveMillis, int prefetchLimit) {
+        this.source = source;
+        this.maxEntries = maxEntries;
+        this.timeToLiveNanos = TimeUnit.MILLISECONDS.toNanos(timeToLiveMillis);
+        this.prefetchLimit = prefetchLimit;
+        //access order, so the eldest entry is the least recently used one
+        byAccountNumber = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                if (size() <= MemberCache.this.maxEntries) {
+                    return false;
+                }
+                accountNumberByPhoneNumber.remove(eldest.getValue().phoneNumber());
+                return true;
+            }
+        };
+        prefetcher = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().daemon().name("member-cache-prefetcher").factory());
+    }
+
+    /**
+     * Strips everything but the digits from a phone number as typed, along with a leading US country code.
+     * @param phoneNumber String representing a phone number in any format
+     * @return long representing the phone number's digits
+     * @throws NumberFormatException if there are no digits, or too many to be a phone number
+     */
+    public static long normalizePhoneNumber(String phoneNumber) throws NumberFormatException {
+        String digits = phoneNumber.replaceAll("[^0-9]", "");
+
+        if (digits.length() == 11 && digits.charAt(0) == '1') {
+            digits = digits.substring(1);
+        }
+        if (digits.length() > 15) {
+            throw new NumberFormatException("Too many digits for a phone number");
+        }
+        return Long.parseLong(digits);
+    }
+
+    /**
+     * Starts prefetching the store's frequent members in the background, unless prefetching is turned off.
+     */
+    void start() {
+        if (prefetchLimit > 0) {
+            prefetcher.scheduleWithFixedDelay(this::prefetch, 0, TimeUnit.NANOSECONDS.toMillis(timeToLiveNanos),
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Loads the store's most frequent members into the cache. Failures are counted and retried on the next run.
+     */
+    void prefetch() {
+        try {
+            source.loadFrequentMembers(Math.min(prefetchLimit, maxEntries), (member, phoneNumber) -> {
+                put(member, phoneNumber);
+                prefetched.incrementAndGet();
+            });
+        } catch (SQLException | RuntimeException e) {
+            //lookups still go to the database on a miss
+            failedPrefetches.incrementAndGet();
+        }
+    }
+
+    /**
+     * Looks up a member by their normalized phone number.
+     * @param phoneNumber long representing the member's phone number
+     * @return the cached {@link Member}, or null if it isn't cached or has expired
+     */
+    public Member getByPhoneNumber(long phoneNumber) {
+        Member member;
+        synchronized (this) {
+            Long accountNumber = accountNumberByPhoneNumber.get(phoneNumber);
+            member = accountNumber == null ? null : getCurrent(accountNumber);
+        }
+        return countLookup(member);
+    }
+
+    /**
+     * Looks up a member by their account number.
+     * @param accountNumber long representing the member's account number
+     * @return the cached {@link Member}, or null if it isn't cached or has expired
+     */
+    public Member getByAccountNumber(long accountNumber) {
+        Member member;
+        synchronized (this) {
+            member = getCurrent(accountNumber);
+        }
+        return countLookup(member);
+    }
+
+    /**
+     * Returns the member with the given account number, dropping them if they've expired. Caller must hold the lock.
+     */
+    private Member getCurrent(long accountNumber) {
+        Entry entry = byAccountNumber.get(accountNumber);
+        if (entry == null) {
+            return null;
+        }
+
+        if (System.nanoTime() - entry.cachedAt() > timeToLiveNanos) {
+            byAccountNumber.remove(accountNumber);
+            accountNumberByPhoneNumber.remove(entry.phoneNumber());
+            return null;
+        }
+        return entry.member();
+    }
+
+    private Member countLookup(Member member) {
+        if (member == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return member;
+    }
+
+    /**
+     * Adds or refreshes a member found through the database.
+     * @param member {@link Member} to cache
+     * @param phoneNumber long representing the member's normalized phone number, or 0 if it isn't known
+     */
+    synchronized void put(Member member, long phoneNumber) {
+        long accountNumber = member.getAccountNumber();
+        Entry previous = byAccountNumber.get(accountNumber);
+
+        //a lookup by account number doesn't know the phone number, so keep the one already cached
+        if (phoneNumber == 0 && previous != null) {
+            phoneNumber = previous.phoneNumber();
+        }
+        if (previous != null && previous.phoneNumber() != phoneNumber) {
+            accountNumberByPhoneNumber.remove(previous.phoneNumber());
+        }
+
+        if (phoneNumber != 0) {
+            //the number may have belonged to another member before
+            Long previousOwner = accountNumberByPhoneNumber.put(phoneNumber, accountNumber);
+            if (previousOwner != null && previousOwner != accountNumber) {
+                byAccountNumber.remove(previousOwner);
+            }
+        }
+        byAccountNumber.put(accountNumber, new Entry(member, phoneNumber, System.nanoTime()));
+    }
+
+    /**
+     * Records how long a member lookup took from start to finish.
+     * @param nanos long representing the elapsed time in nanoseconds
+     * @param fromCache true if the lookup was answered from the cache, false if it went to the database
+     */
+    void recordLookup(long nanos, boolean fromCache) {
+        lookupLatency.record(nanos);
+        if (!fromCache) {
+            databaseLookupLatency.record(nanos);
+        }
+    }
+
+    /**
+     * @return int representing the number of cached members
+     */
+    public synchronized int size() {
+        return byAccountNumber.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return double between 0 and 1 representing the share of lookups answered from the cache
+     */
+    public double getHitRate() {
+        long lookups = hits.get() + misses.get();
+        return lookups == 0 ? 0.0 : (double) hits.get() / lookups;
+    }
+
+    /**
+     * @return long representing members loaded by prefetching, counting every refresh
+     */
+    public long getPrefetched() {
+        return prefetched.get();
+    }
+
+    /**
+     * @return long representing prefetches which failed, most likely due to the database being unreachable
+     */
+    public long getFailedPrefetches() {
+        return failedPrefetches.get();
+    }
+
+    /**
+     * @return {@link LatencyHistogram} of every member lookup, whether or not it was cached
+     */
+    public LatencyHistogram getLookupLatency() {
+        return lookupLatency;
+    }
+
+    /**
+     * @return {@link LatencyHistogram} of member lookups which had to go to the database
+     */
+    public LatencyHistogram getDatabaseLookupLatency() {
+        return databaseLookupLatency;
+    }
+
+    /**
+     * Stops prefetching and drops every cached member.
+     */
+    @Override
+    public void close() {
+        prefetcher.shutdownNow();
+        synchronized (this) {
+            byAccountNumber.clear();
+            accountNumberByPhoneNumber.clear();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("members=%d, hitRate=%.3f, hits=%d, misses=%d, prefetched=%d, failedPrefetches=%d, "
+                        + "lookupLatency=[%s], databaseLookupLatency=[%s]", size(), getHitRate(), getHits(),
+                getMisses(), getPrefetched(), getFailedPrefetches(), lookupLatency, databaseLookupLatency);
+    }
+}
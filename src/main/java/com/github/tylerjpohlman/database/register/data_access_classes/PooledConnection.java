@@ -0,0 +1,106 @@
+package com.github.tylerjpohlman.database.register.data_access_classes;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * A {@link Connection} borrowed from a {@link ConnectionPool}. <p>
+ * Closing this object hands the connection back to the pool instead of closing the physical connection, so it's
+ * meant to be used in a try-with-resources block around a single unit of work. Statements should be obtained through
+ * {@link #prepareStatement(String)}, which reuses them for the life of the connection.
+ * @author Tyler Pohlman
+ * @version 1.0, Date Created: 2026-10-17
+ * @lastModified 2026-10-17
+ */
+public class PooledConnection implements AutoCloseable {
+    /**
+     * Pool which created this connection and is returned to upon closing.
+     */
+    private final ConnectionPool pool;
+    /**
+     * Physical connection to the database.
+     */
+    private final Connection connection;
+    /**
+     * Statements prepared on this connection, reused across borrows.
+     */
+    private final StatementCache statementCache;
+    /**
+     * Time, in nanoseconds, the physical connection was opened.
+     */
+    private final long createdAt;
+    /**
+     * Time, in nanoseconds, the connection was last handed back to the pool.
+     */
+    private volatile long lastReturnedAt;
+    /**
+     * Whether the connection is currently borrowed.
+     */
+    private boolean borrowed = false;
+
+    PooledConnection(ConnectionPool pool, Connection connection, StatementCache statementCache) {
+        this.pool = pool;
+        this.connection = connection;
+        this.statementCache = statementCache;
+        this.createdAt = System.nanoTime();
+        this.lastReturnedAt = createdAt;
+    }
+
+    /**
+     * @return the underlying {@link Connection}; must not be closed by the caller
+     */
+    public Connection getConnection() {
+        return connection;
+    }
+
+    /**
+     * Returns a prepared statement for the given SQL, reusing the one prepared by an earlier call when possible.
+     * @param sql String representing the statement's SQL text
+     * @return {@link PreparedStatement} owned by the connection; must not be closed by the caller, though any
+     * {@link java.sql.ResultSet} it produces should be
+     * @throws SQLException if the statement can't be prepared
+     */
+    public PreparedStatement prepareStatement(String sql) throws SQLException {
+        return statementCache.get(sql);
+    }
+
+    long getCreatedAt() {
+        return createdAt;
+    }
+
+    long getLastReturnedAt() {
+        return lastReturnedAt;
+    }
+
+    void markBorrowed() {
+        borrowed = true;
+    }
+
+    void markReturned() {
+        borrowed = false;
+        lastReturnedAt = System.nanoTime();
+    }
+
+    /**
+     * Closes the physical connection, ignoring any errors since the connection is being thrown away regardless.
+     */
+    void closePhysically() {
+        statementCache.clear();
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+            //connection is already unusable
+        }
+    }
+
+    /**
+     * Returns the connection to the pool. Calling this more than once has no effect.
+     */
+    @Override
+    public void close() {
+        if (borrowed) {
+            pool.release(this);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.github.tylerjpohlman.database.register.data_access_classes;
+
+import com.github.tylerjpohlman.database.register.helper_classes.Item;
+import com.github.tylerjpohlman.database.register.helper_classes.Member;
+
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Builds a receipt in the database while items are still being scanned, instead of all at once when the cashier
+ * presses pay. <p>
+ * The receipt row is created when the first item is added, and each item after that is written to
+ * {@code receipt_details} in the background as soon as it's scanned, adding to the item's row if it's already on the
+ * receipt. Writes run one at a time, in the order they were
+ * requested, on a single thread owned by the writer, so a member attached mid-transaction re-prices exactly the items
+ * written before it. By the time the cashier presses pay, only the total is left to fetch, which takes the same time
+ * regardless of basket size.
+ * <p>
+ * If a write fails, the rest are skipped and {@link #finish()} completes exceptionally with that failure. Enabled by
+ * default; launching with {@code -Dregister.incrementalReceipts=false} goes back to writing the whole receipt at pay
+ * time, in a single {@link JdbcUserDAO#checkout checkout} call.
+ * @author Tyler Pohlman
+ * @version 1.0, Date Created: 2026-10-17
+ * @lastModified 2026-10-17
+ */
+public class ReceiptWriter implements AutoCloseable {
+    /**
+     * System property which turns incremental receipts off when set to false.
+     */
+    public static final String ENABLED_PROPERTY = "register.incrementalReceipts";
+
+    private final JdbcUserDAO jdbcUserDAO;
+    private final ExecutorService writer =
+            Executors.newSingleThreadExecutor(Thread.ofVirtual().name("receipt-writer").factory());
+
+    //only touched by the writer thread, apart from the volatile receipt number being read once finished
+    private volatile int receiptNumber = 0;
+    private Member member;
+    private Exception failure = null;
+
+    /**
+     * @return true unless turned off with {@link #ENABLED_PROPERTY}
+     */
+    public static boolean isEnabled() {
+        return !"false".equalsIgnoreCase(System.getProperty(ENABLED_PROPERTY));
+    }
+
+    /**
+     * @param jdbcUserDAO {@link JdbcUserDAO} used for the writes
+     * @param member {@link Member} for the receipt, or null if there isn't one yet
+     */
+    public ReceiptWriter(JdbcUserDAO jdbcUserDAO, Member member) {
+        this.jdbcUserDAO = jdbcUserDAO;
+        this.member = member;
+    }
+
+    /**
+     * Queues units of an item to be added to the receipt, creating the receipt first if this is the first item.
+     * @param item {@link Item} which was scanned
+     * @param quantity int representing how many of the item were scanned
+     */
+    public void addItem(Item item, int quantity) {
+        write(() -> {
+            createReceiptIfNeeded();
+            jdbcUserDAO.addItemToReceipt(item.getUpc(), quantity, receiptNumber);
+        });
+    }
+
+    /**
+     * Queues attaching a member to the receipt, re-pricing any items already written.
+     * @param member {@link Member} found for the transaction
+     */
+    public void setMember(Member member) {
+        write(() -> {
+            this.member = member;
+            //a receipt created later already starts out with the member
+            if (receiptNumber != 0) {
+                jdbcUserDAO.setReceiptMember(receiptNumber, member);
+            }
+        });
+    }
+
+    /**
+     * Waits for every queued write and then totals the receipt. No more items can be added afterward.
+     * @return future holding the amount due in cents, which completes exceptionally if any write failed
+     */
+    public CompletableFuture<Long> finish() {
+        CompletableFuture<Long> total = new CompletableFuture<>();
+
+        try {
+            writer.execute(() -> {
+                if (failure != null) {
+                    total.completeExceptionally(failure);
+                    return;
+                }
+                try {
+                    createReceiptIfNeeded();
+                    total.complete(jdbcUserDAO.getReceiptTotal(receiptNumber, member));
+                } catch (SQLException | RuntimeException e) {
+                    total.completeExceptionally(e);
+                }
+            });
+            writer.shutdown();
+        } catch (RejectedExecutionException e) {
+            total.completeExceptionally(new IllegalStateException("Receipt writer is already finished", e));
+        }
+        return total;
+    }
+
+    /**
+     * @return int representing the receipt number, or 0 if the receipt hasn't been created yet
+     */
+    public int getReceiptNumber() {
+        return receiptNumber;
+    }
+
+    /**
+     * Abandons any writes which haven't run yet, e.g., when the transaction is dropped on the way back to login.
+     */
+    @Override
+    public void close() {
+        writer.shutdownNow();
+    }
+
+    private void createReceiptIfNeeded() throws SQLException {
+        if (receiptNumber == 0) {
+            receiptNumber = jdbcUserDAO.createReceipt(member);
+        }
+    }
+
+    /**
+     * A write to the database which may throw an {@link SQLException}.
+     */
+    @FunctionalInterface
+    private interface Write {
+        void run() throws SQLException;
+    }
+
+    private void write(Write write) {
+        try {
+            writer.execute(() -> {
+                //an earlier write already failed, so the receipt is incomplete anyway
+                if (failure != null) {
+                    return;
+                }
+                try {
+                    write.run();
+                } catch (SQLException | RuntimeException e) {
+                    failure = e;
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            //already finished or closed; nothing more belongs on this receipt
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.github.tylerjpohlman.database.register.data_access_classes;
+
+import com.github.tylerjpohlman.database.register.helper_classes.ClosedConnectionException;
+import com.github.tylerjpohlman.database.register.helper_classes.LatencyHistogram;
+
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps a cashier's session alive across dropped connections, so a blip in the network costs the register
+ * milliseconds instead of sending the cashier back to the login screen. <p>
+ * The {@link ConnectionPool} reports a lost connection whenever it fails to open one or a borrowed one comes back
+ * dead. The session then drops every idle connection, since they most likely share the same dead route, and starts
+ * reconnecting in the background: each attempt opens a fresh connection and re-runs {@code cashierRegisterLogin} with
+ * the credentials from the original login. Failed attempts back off exponentially from
+ * {@link #DEFAULT_INITIAL_BACKOFF_MILLIS} up to {@link #DEFAULT_MAX_BACKOFF_MILLIS}, with jitter so a store full of
+ * registers doesn't reconnect in lockstep. Only the database rejecting the login itself ends the session.
+ * <p>
+ * Nothing about the transaction in progress lives here; callers hold on to it and pick up where they left off once
+ * {@link #awaitSession()} completes.
+ * @author Tyler Pohlman
+ * @version 1.0, Date Created: 2026-10-17
+ * @lastModified 2026-10-17
+ */
+public class SessionManager implements AutoCloseable {
+    /**
+     * Default delay before the second reconnect attempt; the first is made right away.
+     */
+    public static final long DEFAULT_INITIAL_BACKOFF_MILLIS = 10;
+    /**
+     * Default longest delay between reconnect attempts.
+     */
+    public static final long DEFAULT_MAX_BACKOFF_MILLIS = TimeUnit.SECONDS.toMillis(5);
+
+    /**
+     * State of the session.
+     */
+    public enum State {
+        /**
+         * The last call to the database got through.
+         */
+        CONNECTED,
+        /**
+         * The connection was lost and is being re-established in the background.
+         */
+        RECONNECTING,
+        /**
+         * The database rejected the login, or the session was closed; only a new login can continue.
+         */
+        LOST
+    }
+
+    /**
+     * Logs a freshly opened connection back in as the session's cashier and register.
+     */
+    @FunctionalInterface
+    interface Login {
+        /**
+         * @param pooledConnection newly borrowed {@link PooledConnection}
+         * @throws SQLException if the login fails
+         */
+        void login(PooledConnection pooledConnection) throws SQLException;
+    }
+
+    private final ConnectionPool connectionPool;
+    private final Login login;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final ScheduledExecutorService reconnector;
+
+    //guarded by this
+    private State state = State.CONNECTED;
+    private CompletableFuture<Void> resumed = CompletableFuture.completedFuture(null);
+    private int failedAttemptsThisOutage = 0;
+    private long lostAt = 0;
+
+    private final AtomicLong outages = new AtomicLong();
+    private final AtomicLong reconnects = new AtomicLong();
+    private final AtomicLong failedAttempts = new AtomicLong();
+    private final LatencyHistogram outageDuration = new LatencyHistogram();
+
+    SessionManager(ConnectionPool connectionPool, Login login) {
+        this(connectionPool, login, DEFAULT_INITIAL_BACKOFF_MILLIS, DEFAULT_MAX_BACKOFF_MILLIS);
+    }
+
+    SessionManager(ConnectionPool connectionPool, Login login, long initialBackoffMillis, long maxBackoffMillis) {
+        this.connectionPool = connectionPool;
+        this.login = login;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        reconnector = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().daemon().name("session-reconnector").factory());
+    }
+
+    /**
+     * Checks whether an exception means the database couldn't be reached, rather than it rejecting the call.
+     * @param e {@link SQLException} thrown by a database call
+     * @return true if the connection is closed or the server can't be reached
+     */
+    static boolean isConnectionProblem(SQLException e) {
+        //SQLSTATE class 08 covers every connection exception
+        return e instanceof ClosedConnectionException
+                || (e.getSQLState() != null && e.getSQLState().startsWith("08"));
+    }
+
+    /**
+     * Starts reconnecting in the background, unless that's already under way. Called by the {@link ConnectionPool}.
+     */
+    void connectionLost() {
+        synchronized (this) {
+            if (state != State.CONNECTED) {
+                return;
+            }
+            state = State.RECONNECTING;
+            resumed = new CompletableFuture<>();
+            failedAttemptsThisOutage = 0;
+            lostAt = System.nanoTime();
+        }
+
+        outages.incrementAndGet();
+        connectionPool.clearIdleConnections();
+        reconnector.execute(this::reconnect);
+    }
+
+    /**
+     * Makes one attempt to log back in, scheduling the next one if it fails.
+     */
+    private void reconnect() {
+        try (PooledConnection pooledConnection = connectionPool.borrow()) {
+            login.login(pooledConnection);
+        } catch (SQLException e) {
+            if (isConnectionProblem(e)) {
+                failedAttempts.incrementAndGet();
+                scheduleNextAttempt();
+            } else {
+                //the cashier or register is no longer allowed to log in
+                end(e);
+            }
+            return;
+        }
+
+        CompletableFuture<Void> done;
+        synchronized (this) {
+            if (state != State.RECONNECTING) {
+                return;
+            }
+            state = State.CONNECTED;
+            done = resumed;
+            outageDuration.record(System.nanoTime() - lostAt);
+        }
+        reconnects.incrementAndGet();
+        done.complete(null);
+    }
+
+    private void scheduleNextAttempt() {
+        long delay;
+        synchronized (this) {
+            if (state != State.RECONNECTING) {
+                return;
+            }
+            //doubles each time, so a long outage settles into one attempt every max backoff
+            delay = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(failedAttemptsThisOutage, 20));
+            failedAttemptsThisOutage++;
+        }
+
+        //anywhere from half to the full delay
+        long jittered = delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+        reconnector.schedule(this::reconnect, jittered, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Ends the session for good, failing anyone waiting on it.
+     */
+    private void end(SQLException cause) {
+        CompletableFuture<Void> waiting;
+        synchronized (this) {
+            if (state == State.LOST) {
+                return;
+            }
+            state = State.LOST;
+            waiting = resumed;
+        }
+        waiting.completeExceptionally(cause);
+    }
+
+    /**
+     * @return future which completes once the session is connected, right away if it already is, or exceptionally
+     * if the session has ended
+     */
+    public synchronized CompletableFuture<Void> awaitSession() {
+        return switch (state) {
+            case CONNECTED -> CompletableFuture.completedFuture(null);
+            case RECONNECTING -> resumed.copy();
+            case LOST -> CompletableFuture.failedFuture(new ClosedConnectionException("Session has ended"));
+        };
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * @return true unless the session is reconnecting or has ended
+     */
+    public boolean isConnected() {
+        return getState() == State.CONNECTED;
+    }
+
+    /**
+     * @return long representing how many times the connection was lost
+     */
+    public long getOutages() {
+        return outages.get();
+    }
+
+    /**
+     * @return long representing how many times the session was resumed after losing its connection
+     */
+    public long getReconnects() {
+        return reconnects.get();
+    }
+
+    /**
+     * @return long representing reconnect attempts which couldn't reach the database
+     */
+    public long getFailedAttempts() {
+        return failedAttempts.get();
+    }
+
+    /**
+     * @return {@link LatencyHistogram} of the time from losing the connection to resuming the session
+     */
+    public LatencyHistogram getOutageDuration() {
+        return outageDuration;
+    }
+
+    /**
+     * Stops reconnecting and ends the session.
+     */
+    @Override
+    public void close() {
+        reconnector.shutdownNow();
+        end(new ClosedConnectionException("Session has ended"));
+    }
+
+    @Override
+    public String toString() {
+        return "state=" + getState() + ", outages=" + getOutages() + ", reconnects=" + getReconnects()
+                + ", failedAttempts=" + getFailedAttempts() + ", outageDuration=[" + outageDuration + ']';
+    }
+}
@@ -0,0 +1,87 @@
+package com.github.tylerjpohlman.database.register.data_access_classes;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded, least-recently-used cache of prepared statements for a single {@link Connection}, keyed by SQL text. <p>
+ * Statements are prepared once per connection and reused on every later call. {@link ConnectionPool} opens connections
+ * with {@code useServerPrepStmts=true}, so each statement is prepared on the server and the server only parses each
+ * procedure call once per connection; later executes only send the parameters. Statements pushed out of the cache are
+ * closed right away, which also frees them on the server. A connection is only ever used by one thread at a time, so
+ * the cache itself isn't synchronized; the hit and miss counters are shared by the whole pool.
+ * @author Tyler Pohlman
+ * @version 1.0, Date Created: 2026-10-17
+ * @lastModified 2026-10-17
+ */
+class StatementCache {
+    private final Connection connection;
+    private final LinkedHashMap<String, PreparedStatement> statements;
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+    private final AtomicLong evictions;
+
+    StatementCache(Connection connection, int maxSize, AtomicLong hits, AtomicLong misses, AtomicLong evictions) {
+        this.connection = connection;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+
+        //access ordered, so the eldest entry is always the least recently used
+        this.statements = new LinkedHashMap<>(maxSize * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() > maxSize) {
+                    StatementCache.this.evictions.incrementAndGet();
+                    closeQuietly(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached statement for the given SQL, preparing it on a miss. Parameters left over from the previous
+     * use are cleared.
+     * @param sql String representing the statement's SQL text
+     * @return {@link PreparedStatement} owned by the cache; callers must not close it
+     * @throws SQLException if the statement can't be prepared
+     */
+    PreparedStatement get(String sql) throws SQLException {
+        PreparedStatement statement = statements.get(sql);
+
+        if (statement != null && !statement.isClosed()) {
+            hits.incrementAndGet();
+            statement.clearParameters();
+            return statement;
+        }
+
+        misses.incrementAndGet();
+        statement = connection.prepareStatement(sql);
+        statements.put(sql, statement);
+        return statement;
+    }
+
+    /**
+     * Closes every cached statement. Used when the owning connection is being closed.
+     */
+    void clear() {
+        for (PreparedStatement statement : statements.values()) {
+            closeQuietly(statement);
+        }
+        statements.clear();
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException ignored) {
+            //statement is being discarded regardless
+        }
+    }
+}
@@ -0,0 +1,512 @@
+package com.github.tylerjpohlman.database.register.data_access_classes;
+
+import com.github.tylerjpohlman.database.register.helper_classes.Item;
+import com.github.tylerjpohlman.database.register.helper_classes.LatencyHistogram;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * A local, append-only record of every sale rung up on this register, so a sale can still be completed while the
+ * database is unreachable and sent to it later by a {@link JournalReplayer}. <p>
+ * Each sale is written as compact binary records as it happens: one when it begins, one per item, one for a member,
+ * and finally either a tender record, if it was paid for while offline, or a settled record once the database has it.
+ * Only tendered sales which were never settled are replayed; anything else was either completed online or abandoned.
+ * Every record is {@code [int length][byte type][long journal id][payload][int CRC32]}, so a record torn by a crash
+ * is detected and dropped along with everything after it.
+ * <p>
+ * Appends only copy the record into an in-memory buffer, which keeps the cost per scan to well under a microsecond.
+ * A background thread writes the buffer out every {@link #FLUSH_INTERVAL_MILLIS}, and {@link #sync()} forces it to
+ * disk; every sync requested before the flush runs shares the same fsync. A tender is only reported complete after
+ * its sync, while a lost scan or settle record is harmless--the sale would either be abandoned or replayed, and
+ * replaying is idempotent.
+ * <p>
+ * The file is compacted each time it's opened, keeping only the sales still waiting to be replayed.
+ * @author Tyler Pohlman
+ * @version 1.0, Date Created: 2026-10-17
+ * @lastModified 2026-10-17
+ */
+public class TransactionJournal implements AutoCloseable {
+    /**
+     * System property naming the directory the journal is kept in; defaults to {@code .register} in the user's home.
+     */
+    public static final String DIRECTORY_PROPERTY = "register.journalDirectory";
+    /**
+     * Longest time an appended record waits in memory before being written to the file.
+     */
+    public static final long FLUSH_INTERVAL_MILLIS = 20;
+
+    private static final byte BEGIN = 1;
+    private static final byte ITEM = 2;
+    private static final byte MEMBER = 3;
+    private static final byte TENDER = 4;
+    private static final byte SETTLED = 5;
+
+    /**
+     * Bytes covered by the length prefix before any payload: the type and the journal id.
+     */
+    private static final int RECORD_HEADER_BYTES = Byte.BYTES + Long.BYTES;
+    private static final int ITEM_PAYLOAD_BYTES = Long.BYTES + Long.BYTES + Integer.BYTES;
+    private static final int MEMBER_PAYLOAD_BYTES = Long.BYTES;
+    private static final int TENDER_PAYLOAD_BYTES = Long.BYTES + Long.BYTES + Integer.BYTES + Long.BYTES;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final ScheduledExecutorService flusher;
+    private final CRC32 crc = new CRC32();
+    /**
+     * Held for the whole of each flush, so only one buffer is ever being written and the spare is always there to
+     * swap in. Taken before this, never while holding it.
+     */
+    private final Object flushLock = new Object();
+
+    //guarded by this
+    private ByteBuffer buffer = ByteBuffer.allocate(16 * 1024);
+    private ByteBuffer spareBuffer = ByteBuffer.allocate(16 * 1024);
+    private final List<CompletableFuture<Void>> syncWaiters = new ArrayList<>();
+    private JournaledTransaction current = null;
+    private final Map<Long, JournaledTransaction> pending = new LinkedHashMap<>();
+    private long lastJournalId = 0;
+    private boolean closed = false;
+
+    /**
+     * Set if a write to the file ever fails, after which nothing further can be trusted to reach the disk.
+     */
+    private volatile IOException failure = null;
+
+    private final LatencyHistogram appendLatency = new LatencyHistogram();
+    private final LatencyHistogram syncLatency = new LatencyHistogram();
+    private final AtomicLong recordsAppended = new AtomicLong();
+
+    /**
+     * Opens the journal for a register in the directory given by {@link #DIRECTORY_PROPERTY}.
+     * @param registerNumber int representing the register number
+     * @return the opened {@link TransactionJournal}
+     * @throws IOException if the journal can't be read or created
+     */
+    public static TransactionJournal open(int registerNumber) throws IOException {
+        Path directory = Path.of(System.getProperty(DIRECTORY_PROPERTY,
+                Path.of(System.getProperty("user.home"), ".register").toString()));
+        Files.createDirectories(directory);
+        return new TransactionJournal(directory.resolve("journal-" + registerNumber + ".log"));
+    }
+
+    TransactionJournal(Path file) throws IOException {
+        this.file = file;
+        recover();
+
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        flusher = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().daemon().name("journal-flusher").factory());
+        flusher.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL_MILLIS, FLUSH_INTERVAL_MILLIS,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Starts a new sale. Any earlier sale which was never paid for is abandoned.
+     * @return long identifying the new sale in the journal
+     */
+    public long begin() {
+        long start = System.nanoTime();
+        synchronized (this) {
+            long journalId = Math.max(lastJournalId + 1, System.currentTimeMillis() * 1000);
+            lastJournalId = journalId;
+            current = new JournaledTransaction(journalId);
+
+            writeBegin(journalId);
+            recordAppend(start);
+            return journalId;
+        }
+    }
+
+    /**
+     * Records an item rung up in a sale.
+     * @param journalId long identifying the sale
+     * @param item {@link Item} which was scanned
+     */
+    public void appendItem(long journalId, Item item) {
+        long start = System.nanoTime();
+        synchronized (this) {
+            if (current != null && current.getJournalId() == journalId) {
+                current.addItem(item);
+            }
+            writeItem(journalId, item);
+            recordAppend(start);
+        }
+    }
+
+    /**
+     * Records the member attached to a sale.
+     * @param journalId long identifying the sale
+     * @param accountNumber long representing the member's account number
+     */
+    public void appendMember(long journalId, long accountNumber) {
+        long start = System.nanoTime();
+        synchronized (this) {
+            if (current != null && current.getJournalId() == journalId) {
+                current.setMemberAccountNumber(accountNumber);
+            }
+            writeMember(journalId, accountNumber);
+            recordAppend(start);
+        }
+    }
+
+    /**
+     * Records that a sale was paid for while offline, queueing it to be replayed into the database.
+     * @param journalId long identifying the sale
+     * @param amountDue long representing the amount due in cents
+     * @param amountPaid long representing the amount paid in cents
+     * @param openReceiptNumber int representing a receipt partly written to the database, or 0 if there isn't one
+     * @return future which completes once the tender is on disk
+     */
+    public CompletableFuture<Void> tender(long journalId, long amountDue, long amountPaid, int openReceiptNumber) {
+        long start = System.nanoTime();
+        synchronized (this) {
+            if (current == null || current.getJournalId() != journalId) {
+                return CompletableFuture.failedFuture(
+                        new IllegalStateException("Sale " + journalId + " isn't the one being rung up"));
+            }
+
+            long tenderedAtMillis = System.currentTimeMillis();
+            current.tender(amountDue, amountPaid, openReceiptNumber, tenderedAtMillis);
+            pending.put(journalId, current);
+            current = null;
+
+            writeTender(journalId, amountDue, amountPaid, openReceiptNumber, tenderedAtMillis);
+            recordAppend(start);
+        }
+        return sync();
+    }
+
+    /**
+     * Records that the database has a sale, either because it was finalized online or because it was replayed.
+     * @param journalId long identifying the sale
+     */
+    public void settle(long journalId) {
+        long start = System.nanoTime();
+        synchronized (this) {
+            pending.remove(journalId);
+            if (current != null && current.getJournalId() == journalId) {
+                current = null;
+            }
+            writeRecord(SETTLED, journalId, 0);
+            recordAppend(start);
+        }
+    }
+
+    /**
+     * Forces everything appended so far to disk.
+     * @return future which completes once the records are on disk, or exceptionally if they can't be written
+     */
+    public CompletableFuture<Void> sync() {
+        CompletableFuture<Void> synced = new CompletableFuture<>();
+
+        synchronized (this) {
+            if (failure != null) {
+                return CompletableFuture.failedFuture(failure);
+            }
+            if (closed) {
+                return CompletableFuture.failedFuture(new IOException("Journal is closed"));
+            }
+            syncWaiters.add(synced);
+            //submitted under the lock, so close() can't shut the flusher down between the check above and here
+            flusher.execute(this::flush);
+        }
+        return synced;
+    }
+
+    /**
+     * @return a copy of the sales paid for offline which haven't been replayed yet, oldest first
+     */
+    public synchronized List<JournaledTransaction> getPendingTransactions() {
+        return new ArrayList<>(pending.values());
+    }
+
+    /**
+     * @return int representing the sales waiting to be replayed
+     */
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * @return {@link LatencyHistogram} of the time taken by each append, i.e., the journal's cost per scan
+     */
+    public LatencyHistogram getAppendLatency() {
+        return appendLatency;
+    }
+
+    /**
+     * @return {@link LatencyHistogram} of the time taken by each fsync
+     */
+    public LatencyHistogram getSyncLatency() {
+        return syncLatency;
+    }
+
+    public long getRecordsAppended() {
+        return recordsAppended.get();
+    }
+
+    /**
+     * Writes out anything still buffered and closes the file.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(1, TimeUnit.SECONDS);
+            //safe even if the flusher is still running, since flushes take turns
+            synchronized (flushLock) {
+                flush();
+                channel.close();
+            }
+        } catch (IOException e) {
+            //nothing left to report it to; the sales still pending will be found again on the next open
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "pending=" + getPendingCount() + ", records=" + getRecordsAppended()
+                + ", appendLatency=[" + appendLatency + "], syncLatency=[" + syncLatency + ']';
+    }
+
+    private void recordAppend(long startNanos) {
+        recordsAppended.incrementAndGet();
+        appendLatency.record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Writes whatever is buffered to the file, forcing it to disk if anyone is waiting on a sync. Only one flush runs
+     * at a time.
+     */
+    private void flush() {
+        synchronized (flushLock) {
+            flushBuffer();
+        }
+    }
+
+    private void flushBuffer() {
+        ByteBuffer toWrite;
+        List<CompletableFuture<Void>> waiters;
+
+        synchronized (this) {
+            if (buffer.position() == 0 && syncWaiters.isEmpty()) {
+                return;
+            }
+            //swap buffers so appends can carry on while this one is written
+            toWrite = buffer;
+            buffer = spareBuffer;
+            spareBuffer = null;
+            waiters = new ArrayList<>(syncWaiters);
+            syncWaiters.clear();
+        }
+
+        try {
+            toWrite.flip();
+            if (failure != null) {
+                throw failure;
+            }
+            while (toWrite.hasRemaining()) {
+                channel.write(toWrite);
+            }
+            if (!waiters.isEmpty()) {
+                long start = System.nanoTime();
+                channel.force(false);
+                syncLatency.record(System.nanoTime() - start);
+            }
+            waiters.forEach(waiter -> waiter.complete(null));
+        } catch (IOException e) {
+            failure = e;
+            waiters.forEach(waiter -> waiter.completeExceptionally(e));
+        } finally {
+            synchronized (this) {
+                toWrite.clear();
+                spareBuffer = toWrite;
+            }
+        }
+    }
+
+    /**
+     * Reads back any existing journal, keeping the sales still waiting to be replayed, and rewrites the file with only
+     * those sales. Everything from the first damaged record onward is dropped.
+     */
+    private void recover() throws IOException {
+        if (!Files.exists(file)) {
+            return;
+        }
+
+        ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(file));
+        Map<Long, JournaledTransaction> transactions = new LinkedHashMap<>();
+        CRC32 check = new CRC32();
+
+        while (data.remaining() >= Integer.BYTES + RECORD_HEADER_BYTES + Integer.BYTES) {
+            int start = data.position();
+            int length = data.getInt(start);
+
+            //a torn or garbled tail; checked against what's left before working out where the record ends, since a
+            //garbled length could overflow that
+            if (length < RECORD_HEADER_BYTES || length > data.limit() - start - 2 * Integer.BYTES) {
+                break;
+            }
+            int crcAt = start + Integer.BYTES + length;
+            check.reset();
+            check.update(data.array(), start + Integer.BYTES, length);
+            if ((int) check.getValue() != data.getInt(crcAt)) {
+                break;
+            }
+
+            byte type = data.get(start + Integer.BYTES);
+            long journalId = data.getLong(start + Integer.BYTES + Byte.BYTES);
+            int payload = start + Integer.BYTES + RECORD_HEADER_BYTES;
+            //too short to hold its payload, so it can't have been written by this journal
+            if (length < RECORD_HEADER_BYTES + payloadBytes(type)) {
+                break;
+            }
+            lastJournalId = Math.max(lastJournalId, journalId);
+
+            switch (type) {
+                case BEGIN -> transactions.put(journalId, new JournaledTransaction(journalId));
+                case ITEM -> transactions.computeIfAbsent(journalId, JournaledTransaction::new).addItem(
+                        new Item(data.getLong(payload), null, data.getLong(payload + Long.BYTES),
+                                data.getInt(payload + 2 * Long.BYTES)));
+                case MEMBER -> transactions.computeIfAbsent(journalId, JournaledTransaction::new)
+                        .setMemberAccountNumber(data.getLong(payload));
+                case TENDER -> transactions.computeIfAbsent(journalId, JournaledTransaction::new).tender(
+                        data.getLong(payload), data.getLong(payload + Long.BYTES),
+                        data.getInt(payload + 2 * Long.BYTES),
+                        data.getLong(payload + 2 * Long.BYTES + Integer.BYTES));
+                case SETTLED -> transactions.remove(journalId);
+                default -> {
+                    //written by a newer version; skip it
+                }
+            }
+            data.position(crcAt + Integer.BYTES);
+        }
+
+        for (JournaledTransaction transaction : transactions.values()) {
+            if (transaction.isTendered()) {
+                pending.put(transaction.getJournalId(), transaction);
+            }
+        }
+
+        //rewrite the file with only the pending sales, swapping it in only once it's safely on disk
+        for (JournaledTransaction transaction : pending.values()) {
+            writeBegin(transaction.getJournalId());
+            for (Item item : transaction.getItems()) {
+                writeItem(transaction.getJournalId(), item);
+            }
+            if (transaction.getMemberAccountNumber() != 0) {
+                writeMember(transaction.getJournalId(), transaction.getMemberAccountNumber());
+            }
+            writeTender(transaction.getJournalId(), transaction.getAmountDue(), transaction.getAmountPaid(),
+                    transaction.getOpenReceiptNumber(), transaction.getTenderedAtMillis());
+        }
+
+        Path compacted = file.resolveSibling(file.getFileName() + ".compact");
+        try (FileChannel out = FileChannel.open(compacted, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            out.force(true);
+        } finally {
+            buffer.clear();
+        }
+        Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return int representing the payload bytes a record of the given type holds, or 0 for a type this version
+     * doesn't know
+     */
+    private static int payloadBytes(byte type) {
+        return switch (type) {
+            case ITEM -> ITEM_PAYLOAD_BYTES;
+            case MEMBER -> MEMBER_PAYLOAD_BYTES;
+            case TENDER -> TENDER_PAYLOAD_BYTES;
+            default -> 0;
+        };
+    }
+
+    private void writeBegin(long journalId) {
+        writeRecord(BEGIN, journalId, 0);
+    }
+
+    private void writeItem(long journalId, Item item) {
+        int start = startRecord(ITEM, journalId, ITEM_PAYLOAD_BYTES);
+        buffer.putLong(item.getUpc()).putLong(item.getPriceCents()).putInt(item.getDiscountRate());
+        endRecord(start);
+    }
+
+    private void writeMember(long journalId, long accountNumber) {
+        int start = startRecord(MEMBER, journalId, MEMBER_PAYLOAD_BYTES);
+        buffer.putLong(accountNumber);
+        endRecord(start);
+    }
+
+    private void writeTender(long journalId, long amountDue, long amountPaid, int openReceiptNumber,
+                             long tenderedAtMillis) {
+        int start = startRecord(TENDER, journalId, TENDER_PAYLOAD_BYTES);
+        buffer.putLong(amountDue).putLong(amountPaid).putInt(openReceiptNumber).putLong(tenderedAtMillis);
+        endRecord(start);
+    }
+
+    private void writeRecord(byte type, long journalId, int payloadBytes) {
+        endRecord(startRecord(type, journalId, payloadBytes));
+    }
+
+    /**
+     * Writes a record's length, type, and journal id into the buffer, making room for the payload and checksum.
+     * Must be called while synchronized on this journal.
+     * @return int representing where the record starts in the buffer
+     */
+    private int startRecord(byte type, long journalId, int payloadBytes) {
+        int recordBytes = Integer.BYTES + RECORD_HEADER_BYTES + payloadBytes + Integer.BYTES;
+
+        if (buffer.remaining() < recordBytes) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + recordBytes));
+            buffer.flip();
+            larger.put(buffer);
+            buffer = larger;
+        }
+
+        int start = buffer.position();
+        buffer.putInt(RECORD_HEADER_BYTES + payloadBytes).put(type).putLong(journalId);
+        return start;
+    }
+
+    /**
+     * Appends the checksum of the record which starts at the given position.
+     */
+    private void endRecord(int start) {
+        crc.reset();
+        crc.update(buffer.array(), start + Integer.BYTES, buffer.position() - start - Integer.BYTES);
+        buffer.putInt((int) crc.getValue());
+    }
+}
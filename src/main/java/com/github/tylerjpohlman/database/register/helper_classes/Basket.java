@@ -0,0 +1,116 @@
+package com.github.tylerjpohlman.database.register.helper_classes;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Groups the items scanned for a sale into one {@link BasketLine} per UPC, so scanning the same item ten times shows
+ * and records a single line with a quantity of ten. <p>
+ * Works directly on the list it's given, usually the one backing the item {@code ListView}: a repeated scan replaces
+ * only its own line, and a new item is appended, so the list keeps the order items were first scanned in and the view
+ * only redraws the rows which changed. <p>
+ * Each line's position is kept in a map by UPC next to the list, so finding a line costs the same in a basket of ten
+ * thousand lines as in one of ten. The map is only right while every change to the list goes through this basket, so
+ * a sale keeps one basket for its list rather than wrapping it again for each change.
+ * @author Tyler Pohlman
+ * @version 1.0, Date Created: 2026-10-17
+ * @lastModified 2026-10-17
+ */
+public class Basket {
+    private final List<BasketLine> lines;
+    /**
+     * Position of each line in {@link #lines}, by UPC.
+     */
+    private final Map<Long, Integer> indexes = new HashMap<>();
+
+    /**
+     * @param lines list of lines to add to, which may already hold some, one per UPC
+     */
+    public Basket(List<BasketLine> lines) {
+        this.lines = lines;
+        reindexFrom(0);
+    }
+
+    /**
+     * Adds a single unit of an item.
+     * @param item {@link Item} which was scanned
+     * @return the item's line after adding it
+     */
+    public BasketLine add(Item item) {
+        return add(item, 1);
+    }
+
+    /**
+     * Adds to the item's line, or starts a new line at the end if the item isn't in the basket yet.
+     * @param item {@link Item} which was scanned
+     * @param quantity int representing how many of the item to add
+     * @return the item's line after adding them
+     */
+    public BasketLine add(Item item, int quantity) {
+        int index = indexOf(item.getUpc());
+
+        if (index < 0) {
+            BasketLine line = new BasketLine(item, quantity);
+            indexes.put(line.getUpc(), lines.size());
+            lines.add(line);
+            return line;
+        }
+
+        BasketLine line = lines.get(index).plus(quantity);
+        lines.set(index, line);
+        return line;
+    }
+
+    /**
+     * @param upc long representing an item's UPC
+     * @return the item's line, or null if it isn't in the basket
+     */
+    public BasketLine find(long upc) {
+        int index = indexOf(upc);
+        return index < 0 ? null : lines.get(index);
+    }
+
+    /**
+     * @param upc long representing an item's UPC
+     * @return int representing the position of the item's line, or -1 if it isn't in the basket
+     */
+    public int indexOf(long upc) {
+        Integer index = indexes.get(upc);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * @param index int representing the position of a line
+     * @return the line at that position
+     */
+    public BasketLine get(int index) {
+        return lines.get(index);
+    }
+
+    /**
+     * Replaces a line in place, e.g., once the item behind a placeholder is known.
+     * @param index int representing the position of the line to replace
+     * @param line {@link BasketLine} to put there, whose UPC mustn't be on any other line
+     */
+    public void set(int index, BasketLine line) {
+        BasketLine replaced = lines.set(index, line);
+        indexes.remove(replaced.getUpc());
+        indexes.put(line.getUpc(), index);
+    }
+
+    /**
+     * Removes a line, moving the ones after it up.
+     * @param index int representing the position of the line to remove
+     */
+    public void remove(int index) {
+        indexes.remove(lines.remove(index).getUpc());
+        reindexFrom(index);
+    }
+
+    private void reindexFrom(int index) {
+        for (int i = index; i < lines.size(); i++) {
+            indexes.put(lines.get(i).getUpc(), i);
+        }
+    }
+}
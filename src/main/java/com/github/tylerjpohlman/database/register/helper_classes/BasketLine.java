@@ -0,0 +1,64 @@
+package com.github.tylerjpohlman.database.register.helper_classes;
+
+/**
+ * One line of a basket: an item and how many of it were scanned. <p>
+ * Lines never change once made. Scanning the item again replaces the line with one holding the new quantity, so a
+ * {@code ListView} showing the basket redraws just that row. Since a line can't change, its text is only formatted the
+ * first time it's shown and kept after that, so scrolling back over it costs nothing.
+ * @author Tyler Pohlman
+ * @version 1.0, Date Created: 2026-10-17
+ * @lastModified 2026-10-17
+ */
+public class BasketLine {
+    private final Item item;
+    private final int quantity;
+    /**
+     * Formatted by {@link #toString()} the first time it's needed.
+     */
+    private String text = null;
+
+    /**
+     * @param item {@link Item} on the line
+     * @param quantity int representing how many of the item were scanned, at least 1
+     */
+    public BasketLine(Item item, int quantity) {
+        if (quantity < 1) {
+            throw new IllegalArgumentException("Quantity must be at least 1: " + quantity);
+        }
+        this.item = item;
+        this.quantity = quantity;
+    }
+
+    /**
+     * @param added int representing how many more of the item were scanned
+     * @return new line for the same item with the combined quantity
+     */
+    public BasketLine plus(int added) {
+        return new BasketLine(item, quantity + added);
+    }
+
+    public Item getItem() {
+        return item;
+    }
+    public long getUpc() {
+        return item.getUpc();
+    }
+    /**
+     * @return int representing how many of the item were scanned
+     */
+    public int getQuantity() {
+        return quantity;
+    }
+
+    @Override
+    public String toString() {
+        //racing threads at worst both format the same text, like String's own hash
+        String formatted = text;
+        if (formatted == null) {
+            //same number of rows as a single item, so the list doesn't jump when a line's quantity goes up
+            formatted = quantity == 1 ? item.toString() : item + " x" + quantity;
+            text = formatted;
+        }
+        return formatted;
+    }
+}
@@ -0,0 +1,51 @@
+package com.github.tylerjpohlman.database.register.helper_classes;
+
+/**
+ * Outcome of checking out a whole sale in one call. Amounts are held as {@code long} cents; see {@link Money}. <p>
+ * If the cash given didn't cover the database's total, nothing was recorded: there's no receipt number and only the
+ * amount due is filled in, so the register can ask for the difference.
+ */
+public class CheckoutResult {
+    private int receiptNumber;
+    private long amountDue;
+    private long changeDue;
+
+    public CheckoutResult(int receiptNumber, long amountDue, long changeDue) {
+        this.receiptNumber = receiptNumber;
+        this.amountDue = amountDue;
+        this.changeDue = changeDue;
+    }
+
+
+    /**
+     * @return int representing the receipt number, or 0 if the sale wasn't paid for
+     */
+    public int getReceiptNumber() {
+        return receiptNumber;
+    }
+    /**
+     * @return long representing the receipt's total in cents, as the database worked it out
+     */
+    public long getAmountDue() {
+        return amountDue;
+    }
+    /**
+     * @return long representing the change due in cents, or 0 if the sale wasn't paid for
+     */
+    public long getChangeDue() {
+        return changeDue;
+    }
+    /**
+     * @return true if the sale was recorded, false if the cash given was short of the total
+     */
+    public boolean isPaid() {
+        return receiptNumber != 0;
+    }
+
+    @Override
+    public String toString() {
+        return "Receipt #" + receiptNumber + '\n'
+                + "Total: $" + Money.format(amountDue) + '\n'
+                + "Change: $" + Money.format(changeDue);
+    }
+}
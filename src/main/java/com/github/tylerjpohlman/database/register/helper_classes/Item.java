@@ -1,35 +1,45 @@
-package com.github.tylerjpohlman.database.register.helper_classes;
-
-public class Item {
-    private long upc;
-    private String name;
-    private double price;
-    private double discount;
-
-    public Item(long upc, String name, double price, double discount) {
-        this.upc = upc;
-        this.name = name;
-        this.price = price;
-        this.discount = discount;
-    }
-
-
-    public long getUpc() {
-        return upc;
-    }
-    public String getName() {
-        return name;
-    }
-    public double getPrice() {
-        return price;
-    }
-    public double getDiscount() {
-        return discount;
-    }
-
-    @Override
-    public String toString() {
-        return name + '\n'
-                + "Price: $" + price;
-    }
-}
+package com.github.tylerjpohlman.database.register.helper_classes;
+
+/**
+ * An item which can be scanned at the register. Prices are held as {@code long} cents and discounts as {@code int}
+ * hundredths; see {@link Money}.
+ */
+public class Item {
+    private long upc;
+    private String name;
+    private long priceCents;
+    private int discountRate;
+
+    public Item(long upc, String name, long priceCents, int discountRate) {
+        this.upc = upc;
+        this.name = name;
+        this.priceCents = priceCents;
+        this.discountRate = discountRate;
+    }
+
+
+    public long getUpc() {
+        return upc;
+    }
+    public String getName() {
+        return name;
+    }
+    /**
+     * @return long representing the price in cents
+     */
+    public long getPriceCents() {
+        return priceCents;
+    }
+    /**
+     * @return int representing the member discount in hundredths, e.g., 15 for 15%
+     */
+    public int getDiscountRate() {
+        return discountRate;
+    }
+
+    @Override
+    public String toString() {
+        return name + '\n'
+                + "Price: $" + Money.format(priceCents);
+    }
+}
@@ -0,0 +1,106 @@
+package com.github.tylerjpohlman.database.register.helper_classes;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free latency histogram with power-of-two microsecond buckets. <p>
+ * Bucket {@code i} counts samples in the range [2^(i-1), 2^i) microseconds, with bucket 0 holding everything under
+ * one microsecond. Recording a sample never allocates, so it's safe to call on hot paths such as every scan.
+ * @author Tyler Pohlman
+ * @version 1.0, Date Created: 2026-10-17
+ * @lastModified 2026-10-17
+ */
+public class LatencyHistogram {
+    /**
+     * Number of buckets; the last bucket catches anything over ~35 minutes.
+     */
+    private static final int BUCKET_COUNT = 32;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Records a single sample.
+     * @param nanos long representing the elapsed time in nanoseconds
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        long micros = nanos / 1_000;
+        //number of bits needed to represent the value doubles as the bucket index
+        int bucket = Math.min(64 - Long.numberOfLeadingZeros(micros), BUCKET_COUNT - 1);
+
+        buckets.incrementAndGet(bucket);
+        count.incrementAndGet();
+        totalNanos.addAndGet(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * @return long representing the number of recorded samples
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * @return double representing the mean sample in milliseconds, or 0 if nothing has been recorded
+     */
+    public double getMeanMillis() {
+        long samples = count.get();
+        return samples == 0 ? 0.0 : totalNanos.get() / (samples * 1_000_000.0);
+    }
+
+    /**
+     * @return double representing the largest sample in milliseconds
+     */
+    public double getMaxMillis() {
+        return maxNanos.get() / 1_000_000.0;
+    }
+
+    /**
+     * Estimates a percentile using the upper bound of the bucket it falls into.
+     * @param percentile double between 0 and 100
+     * @return double representing the estimated percentile in milliseconds, or 0 if nothing has been recorded
+     */
+    public double getPercentileMillis(double percentile) {
+        long samples = count.get();
+        if (samples == 0) {
+            return 0.0;
+        }
+
+        long rank = (long) Math.ceil(samples * Math.min(Math.max(percentile, 0.0), 100.0) / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank && seen > 0) {
+                //never report more than the largest sample actually seen
+                return Math.min((1L << i) / 1_000.0, getMaxMillis());
+            }
+        }
+        return getMaxMillis();
+    }
+
+    /**
+     * Returns a copy of the raw bucket counts, where index {@code i} holds samples under 2^i microseconds.
+     * @return long array of bucket counts
+     */
+    public long[] getBucketCounts() {
+        long[] copy = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            copy[i] = buckets.get(i);
+        }
+        return copy;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d, mean=%.3fms, p50=%.3fms, p95=%.3fms, p99=%.3fms, max=%.3fms",
+                getCount(), getMeanMillis(), getPercentileMillis(50), getPercentileMillis(95),
+                getPercentileMillis(99), getMaxMillis());
+    }
+}
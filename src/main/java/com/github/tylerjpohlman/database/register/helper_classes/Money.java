@@ -0,0 +1,174 @@
+package com.github.tylerjpohlman.database.register.helper_classes;
+
+import java.math.BigDecimal;
+
+/**
+ * Fixed-point money arithmetic on plain {@code long}s counting cents. <p>
+ * Amounts of money are passed around as {@code long} cents, and rates--discounts and tax, both DECIMAL(2,2) in the
+ * database--as {@code int} hundredths (i.e., whole percents). Keeping both as primitives means totalling a basket never
+ * boxes or allocates; only parsing and formatting at the edges of the program create objects. <p>
+ * Rounding matches MySQL storing an exact product into a DECIMAL(9,2) column: half away from zero, applied once to
+ * the exact result. Parsing is exact and never goes through {@code double}.
+ * @author Tyler Pohlman
+ * @version 1.0, Date Created: 2026-10-17
+ * @lastModified 2026-10-17
+ */
+public final class Money {
+    /**
+     * Cents in a dollar, and hundredths in a whole rate.
+     */
+    public static final int CENTS_PER_DOLLAR = 100;
+    /**
+     * Largest rate a DECIMAL(2,2) column can hold, i.e., 0.99.
+     */
+    public static final int MAX_RATE = 99;
+
+    private Money() {
+    }
+
+    /**
+     * Applies a discount to a price, the way {@code detailsPrice} does.
+     * @param priceCents long representing the price in cents
+     * @param discountRate int representing the discount in hundredths, e.g., 15 for 15%
+     * @return long representing the discounted price in cents, rounded half up
+     */
+    public static long discount(long priceCents, int discountRate) {
+        return divideRoundingHalfUp(priceCents * (CENTS_PER_DOLLAR - discountRate), CENTS_PER_DOLLAR);
+    }
+
+    /**
+     * Adds tax to a subtotal, the way {@code getReceiptTotal} does.
+     * @param subtotalCents long representing the subtotal in cents
+     * @param taxRate int representing the tax in hundredths, e.g., 7 for 7%
+     * @return long representing the total in cents, rounded half up
+     */
+    public static long addTax(long subtotalCents, int taxRate) {
+        return divideRoundingHalfUp(subtotalCents * (CENTS_PER_DOLLAR + taxRate), CENTS_PER_DOLLAR);
+    }
+
+    /**
+     * Divides, rounding any remainder of exactly half away from zero.
+     */
+    private static long divideRoundingHalfUp(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+
+        if (Math.abs(remainder) * 2 >= divisor) {
+            quotient += Long.signum(dividend);
+        }
+        return quotient;
+    }
+
+    /**
+     * Parses a decimal amount, such as one typed by the cashier or read from a DECIMAL column, into cents. Digits past
+     * the cents are rounded half up.
+     * @param amount String such as "12", "12.5", or "-0.125"
+     * @return long representing the amount in cents
+     * @throws NumberFormatException if the text isn't a plain decimal number
+     */
+    public static long parse(String amount) {
+        if (amount == null) {
+            throw new NumberFormatException("null");
+        }
+
+        int length = amount.length();
+        int index = 0;
+        boolean negative = false;
+
+        if (index < length && (amount.charAt(index) == '-' || amount.charAt(index) == '+')) {
+            negative = amount.charAt(index) == '-';
+            index++;
+        }
+
+        long cents = 0;
+        int digits = 0;
+        int fractionDigits = -1;//-1 until the decimal point is reached
+        boolean roundUp = false;
+
+        for (; index < length; index++) {
+            char c = amount.charAt(index);
+
+            if (c == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else if (c >= '0' && c <= '9') {
+                if (fractionDigits < 2) {
+                    //keeps well clear of overflowing once scaled to cents
+                    if (++digits > 17) {
+                        throw new NumberFormatException("Amount too large: " + amount);
+                    }
+                    cents = cents * 10 + (c - '0');
+                    if (fractionDigits >= 0) {
+                        fractionDigits++;
+                    }
+                } else if (fractionDigits == 2) {
+                    //only the first digit past the cents decides rounding
+                    roundUp = c >= '5';
+                    fractionDigits++;
+                }
+            } else {
+                throw new NumberFormatException("Not an amount: " + amount);
+            }
+        }
+
+        if (digits == 0) {
+            throw new NumberFormatException("Not an amount: " + amount);
+        }
+
+        //scale whole dollars or tenths up to cents
+        for (int i = Math.max(fractionDigits, 0); i < 2; i++) {
+            cents *= 10;
+        }
+        if (roundUp) {
+            cents++;
+        }
+        return negative ? -cents : cents;
+    }
+
+    /**
+     * Parses a rate read from a DECIMAL(2,2) column, such as "0.15", into hundredths.
+     * @param rate String representing the rate, or null for no rate
+     * @return int representing the rate in hundredths, or 0 if null
+     * @throws NumberFormatException if the text isn't a rate between 0 and {@link #MAX_RATE}
+     */
+    public static int parseRate(String rate) {
+        if (rate == null) {
+            return 0;
+        }
+
+        long hundredths = parse(rate);
+        if (hundredths < 0 || hundredths > MAX_RATE) {
+            throw new NumberFormatException("Not a rate: " + rate);
+        }
+        return (int) hundredths;
+    }
+
+    /**
+     * Formats cents as a plain decimal amount, e.g., 1234 as "12.34".
+     * @param cents long representing an amount in cents
+     * @return String with exactly two decimal places and no currency symbol
+     */
+    public static String format(long cents) {
+        StringBuilder builder = new StringBuilder(24);
+        long absolute = Math.abs(cents);
+
+        if (cents < 0) {
+            builder.append('-');
+        }
+        builder.append(absolute / CENTS_PER_DOLLAR).append('.');
+
+        long remainder = absolute % CENTS_PER_DOLLAR;
+        if (remainder < 10) {
+            builder.append('0');
+        }
+        return builder.append(remainder).toString();
+    }
+
+    /**
+     * Converts cents into a {@link BigDecimal}, for binding to a DECIMAL parameter in a statement.
+     * @param cents long representing an amount in cents
+     * @return {@link BigDecimal} with a scale of 2
+     */
+    public static BigDecimal toBigDecimal(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+}
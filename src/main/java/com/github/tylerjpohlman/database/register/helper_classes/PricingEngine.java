@@ -0,0 +1,112 @@
+package com.github.tylerjpohlman.database.register.helper_classes;
+
+/**
+ * Keeps a running subtotal, tax, and total for a basket on the register itself, so the cashier sees the amount due
+ * without waiting on the database. <p>
+ * Every amount is fixed-point {@code long} cents rounded the same way the database stores it (see {@link Money}):
+ * each line is rounded to cents like {@code detailsPrice} into {@code receipt_details.item_total}, the subtotal is the
+ * exact sum of those lines, and the total is rounded once after tax like {@code getReceiptTotal}. Discounts only apply
+ * with a member, matching {@code detailsDiscount}. Two subtotals are kept, with and without discounts, so attaching a
+ * member mid-transaction doesn't re-price every line, and adding a line never allocates. <p>
+ * The database is still the source of truth; {@link #reconcile} checks its total against this one.
+ * @author Tyler Pohlman
+ * @version 1.0, Date Created: 2026-10-17
+ * @lastModified 2026-10-17
+ */
+public class PricingEngine {
+    private final int taxRate;
+    private long regularSubtotal = 0;
+    private long memberSubtotal = 0;
+    private boolean member;
+    private int lineCount = 0;
+
+    /**
+     * @param taxRate int representing the store's state tax in hundredths, e.g., 7 for 7%
+     * @param member true if the basket belongs to a member
+     */
+    public PricingEngine(int taxRate, boolean member) {
+        this.taxRate = taxRate;
+        this.member = member;
+    }
+
+    /**
+     * Adds a single unit of an item to the basket.
+     * @param item {@link Item} which was scanned
+     */
+    public void add(Item item) {
+        add(item, 1);
+    }
+
+    /**
+     * Adds several units of an item to the basket. The discount is rounded per unit and then multiplied, the same
+     * way {@code receipt_details.item_total} is worked out for a line with a quantity.
+     * @param item {@link Item} which was scanned
+     * @param quantity int representing how many of the item were scanned
+     */
+    public void add(Item item, int quantity) {
+        regularSubtotal += item.getPriceCents() * quantity;
+        memberSubtotal += Money.discount(item.getPriceCents(), item.getDiscountRate()) * quantity;
+        lineCount += quantity;
+    }
+
+    /**
+     * Adds every line to the basket.
+     * @param lines {@link BasketLine}s which were scanned
+     */
+    public void addAll(Iterable<BasketLine> lines) {
+        for (BasketLine line : lines) {
+            add(line.getItem(), line.getQuantity());
+        }
+    }
+
+    /**
+     * @param member true once a member has been attached to the basket
+     */
+    public void setMember(boolean member) {
+        this.member = member;
+    }
+
+    /**
+     * @return int representing the number of units added, counting every unit of a line
+     */
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * @return long representing the sum of every line in cents, after any member discounts
+     */
+    public long getSubtotal() {
+        return member ? memberSubtotal : regularSubtotal;
+    }
+
+    /**
+     * @return long representing the tax owed on the subtotal in cents
+     */
+    public long getTax() {
+        return getTotal() - getSubtotal();
+    }
+
+    /**
+     * @return long representing the amount due including tax in cents
+     */
+    public long getTotal() {
+        return Money.addTax(getSubtotal(), taxRate);
+    }
+
+    /**
+     * Checks the locally calculated total against the one from the database.
+     * @param serverTotal long representing the total returned by the database in cents
+     * @return true if both totals agree to the cent
+     */
+    public boolean reconcile(long serverTotal) {
+        return getTotal() == serverTotal;
+    }
+
+    @Override
+    public String toString() {
+        return "Subtotal: $" + Money.format(getSubtotal()) + '\n'
+                + "Tax: $" + Money.format(getTax()) + '\n'
+                + "Total: $" + Money.format(getTotal());
+    }
+}
@@ -2,6 +2,7 @@ module com.github.tylerjpohlman.database.register.register_application {
     requires javafx.controls;
     requires javafx.fxml;
     requires java.sql;
+    requires jdk.management;
 
 
     opens com.github.tylerjpohlman.database.register.controller_classes to javafx.fxml;
@@ -0,0 +1,101 @@
+package com.github.tylerjpohlman.database.register.data_access_classes;
+
+import com.github.tylerjpohlman.database.register.helper_classes.Item;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Timestamp;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that {@link ItemCatalog} stays in step with the {@code items} table, including rows deleted from it.
+ * @author Tyler Pohlman
+ * @version 1.0, Date Created: 2026-10-17
+ * @lastModified 2026-10-17
+ */
+class ItemCatalogTest {
+    private static final Item MILK = new Item(111111111111L, "Milk", 349, 0);
+    private static final Item BREAD = new Item(222222222222L, "Bread", 299, 10);
+
+    /**
+     * Stands in for the {@code items} table, keyed by UPC.
+     */
+    private final Map<Long, Item> table = new LinkedHashMap<>();
+    /**
+     * Bumped on every change to {@link #table}, standing in for {@code item_last_modified}.
+     */
+    private long lastModified = 1;
+    private final Map<Long, Long> modifiedAt = new LinkedHashMap<>();
+
+    private ItemCatalog catalog;
+
+    @AfterEach
+    void closeCatalog() {
+        if (catalog != null) {
+            catalog.close();
+        }
+    }
+
+    @Test
+    void fullReloadDropsDeletedItem() {
+        //every refresh is a full reload
+        catalog = new ItemCatalog(this::load, ItemCatalog.DEFAULT_MAX_ENTRIES, 1, 0);
+        save(MILK);
+        save(BREAD);
+        catalog.refresh();
+        assertNotNull(catalog.get(MILK.getUpc()));
+        assertEquals(1, catalog.search("milk", 5).size());
+
+        table.remove(MILK.getUpc());
+        catalog.refresh();
+
+        assertNull(catalog.get(MILK.getUpc()));
+        assertTrue(catalog.search("milk", 5).isEmpty());
+        assertNotNull(catalog.get(BREAD.getUpc()));
+        assertEquals(1, catalog.size());
+    }
+
+    @Test
+    void deltaKeepsUnchangedItems() {
+        //only the first refresh is a full reload
+        catalog = new ItemCatalog(this::load, ItemCatalog.DEFAULT_MAX_ENTRIES, 1, Long.MAX_VALUE / 1_000_000);
+        save(MILK);
+        catalog.refresh();
+
+        Item cheaperMilk = new Item(MILK.getUpc(), MILK.getName(), 299, 0);
+        save(cheaperMilk);
+        save(BREAD);
+        catalog.refresh();
+
+        assertEquals(299, catalog.get(MILK.getUpc()).getPriceCents());
+        assertNotNull(catalog.get(BREAD.getUpc()));
+        assertEquals(2, catalog.size());
+    }
+
+    private void save(Item item) {
+        table.put(item.getUpc(), item);
+        modifiedAt.put(item.getUpc(), ++lastModified);
+    }
+
+    /**
+     * Behaves like {@code JdbcUserDAOImpl}'s source: every row when given null, otherwise the rows modified since.
+     */
+    private Timestamp load(Timestamp changedSince, Consumer<Item> sink) {
+        long newest = changedSince == null ? 0 : changedSince.getTime();
+        for (Item item : table.values()) {
+            long modified = modifiedAt.get(item.getUpc());
+            if (changedSince == null || modified >= changedSince.getTime()) {
+                sink.accept(item);
+            }
+            newest = Math.max(newest, modified);
+        }
+        return new Timestamp(newest);
+    }
+}
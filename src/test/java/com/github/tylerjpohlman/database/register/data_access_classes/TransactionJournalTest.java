@@ -0,0 +1,139 @@
+package com.github.tylerjpohlman.database.register.data_access_classes;
+
+import com.github.tylerjpohlman.database.register.helper_classes.Item;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests that {@link TransactionJournal} reads back what survives a crash, drops anything damaged, and compacts the
+ * file down to the sales still waiting to be replayed each time it's opened.
+ * @author Tyler Pohlman
+ * @version 1.0, Date Created: 2026-10-17
+ * @lastModified 2026-10-17
+ */
+class TransactionJournalTest {
+    private static final Item MILK = new Item(111111111111L, "Milk", 349, 0);
+    private static final Item BREAD = new Item(222222222222L, "Bread", 299, 10);
+
+    /**
+     * Sizes of each record on disk, including the length prefix and checksum.
+     */
+    private static final int BEGIN_BYTES = 4 + 9 + 4;
+    private static final int ITEM_BYTES = 4 + 9 + 20 + 4;
+    private static final int TENDER_BYTES = 4 + 9 + 28 + 4;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void tornRecordIsDropped() throws IOException {
+        Path file = directory.resolve("journal.log");
+        long journalId = tenderedSale(file, MILK);
+        long size = Files.size(file);
+
+        //an item record whose write was cut off by a crash partway through its payload
+        append(file, ByteBuffer.allocate(ITEM_BYTES - 12).putInt(ITEM_BYTES - 8).put((byte) 2).putLong(journalId + 1)
+                .putLong(BREAD.getUpc()).array());
+
+        try (TransactionJournal journal = new TransactionJournal(file)) {
+            List<JournaledTransaction> pending = journal.getPendingTransactions();
+            assertEquals(1, pending.size());
+            assertEquals(journalId, pending.get(0).getJournalId());
+        }
+        assertEquals(size, Files.size(file));
+    }
+
+    @Test
+    void garbledLengthIsTreatedAsTornTail() throws IOException {
+        Path file = directory.resolve("journal.log");
+        long journalId = tenderedSale(file, MILK);
+        long size = Files.size(file);
+
+        //a length so large that working out where the record ends would overflow
+        append(file, ByteBuffer.allocate(BEGIN_BYTES).putInt(Integer.MAX_VALUE - 2).array());
+
+        try (TransactionJournal journal = new TransactionJournal(file)) {
+            assertEquals(1, journal.getPendingCount());
+            assertEquals(journalId, journal.getPendingTransactions().get(0).getJournalId());
+        }
+        assertEquals(size, Files.size(file));
+    }
+
+    @Test
+    void badChecksumDropsRecordAndEverythingAfter() throws IOException {
+        Path file = directory.resolve("journal.log");
+        long firstId = tenderedSale(file, MILK);
+        long firstSaleBytes = Files.size(file);
+        tenderedSale(file, BREAD);
+
+        //flip a bit in the second sale's begin record, leaving its checksum as it was
+        byte[] data = Files.readAllBytes(file);
+        data[(int) firstSaleBytes + 6] ^= 1;
+        Files.write(file, data);
+
+        try (TransactionJournal journal = new TransactionJournal(file)) {
+            assertEquals(1, journal.getPendingCount());
+            assertEquals(firstId, journal.getPendingTransactions().get(0).getJournalId());
+        }
+        assertEquals(firstSaleBytes, Files.size(file));
+    }
+
+    @Test
+    void openingCompactsToPendingSales() throws IOException {
+        Path file = directory.resolve("journal.log");
+        long pendingId;
+
+        try (TransactionJournal journal = new TransactionJournal(file)) {
+            //sent to the database, so settled
+            long settledId = journal.begin();
+            journal.appendItem(settledId, MILK);
+            journal.tender(settledId, 349, 500, 0).join();
+            journal.settle(settledId);
+
+            pendingId = journal.begin();
+            journal.appendItem(pendingId, MILK);
+            journal.appendItem(pendingId, BREAD);
+            journal.tender(pendingId, 648, 700, 0).join();
+
+            //never paid for, so abandoned
+            long abandonedId = journal.begin();
+            journal.appendItem(abandonedId, BREAD);
+        }
+
+        try (TransactionJournal journal = new TransactionJournal(file)) {
+            List<JournaledTransaction> pending = journal.getPendingTransactions();
+            assertEquals(1, pending.size());
+            assertEquals(pendingId, pending.get(0).getJournalId());
+            assertEquals(2, pending.get(0).getItems().size());
+            assertEquals(648, pending.get(0).getAmountDue());
+            assertEquals(700, pending.get(0).getAmountPaid());
+        }
+        assertEquals(BEGIN_BYTES + 2 * ITEM_BYTES + TENDER_BYTES, Files.size(file));
+    }
+
+    /**
+     * Opens the journal, rings up and tenders a single item sale, and closes it again.
+     * @return long identifying the sale
+     */
+    private static long tenderedSale(Path file, Item item) throws IOException {
+        try (TransactionJournal journal = new TransactionJournal(file)) {
+            long journalId = journal.begin();
+            journal.appendItem(journalId, item);
+            journal.tender(journalId, item.getPriceCents(), item.getPriceCents(), 0).join();
+            return journalId;
+        }
+    }
+
+    private static void append(Path file, byte[] bytes) throws IOException {
+        Files.write(file, bytes, StandardOpenOption.APPEND);
+    }
+}